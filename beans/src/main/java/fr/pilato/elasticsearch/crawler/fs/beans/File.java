@@ -36,6 +36,7 @@ public class File {
     private String url;
     private Integer indexedChars;
     private String checksum;
+    private Boolean extractionTimeout;
 
     public String getExtension() {
         return extension;
@@ -124,4 +125,12 @@ public class File {
     public String getChecksum() {
         return checksum;
     }
+
+    public Boolean getExtractionTimeout() {
+        return extractionTimeout;
+    }
+
+    public void setExtractionTimeout(Boolean extractionTimeout) {
+        this.extractionTimeout = extractionTimeout;
+    }
 }
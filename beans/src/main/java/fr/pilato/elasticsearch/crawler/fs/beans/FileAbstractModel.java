@@ -21,8 +21,10 @@
 package fr.pilato.elasticsearch.crawler.fs.beans;
 
 import fr.pilato.elasticsearch.crawler.fs.framework.FileAcl;
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerUtil;
 import java.time.Instant;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Abstract model representing a file or directory in a filesystem. This model is used by crawler plugins to represent
@@ -42,8 +44,12 @@ public class FileAbstractModel {
     private final String group;
     private final int permissions;
     private final String extension;
-    private final List<FileAcl> acls;
-    private final String aclHash;
+    private final Instant changeTime;
+    /** Reads the ACLs the first time they are needed. Null when they were given to the constructor. */
+    private final Supplier<List<FileAcl>> aclsLoader;
+
+    private volatile List<FileAcl> acls;
+    private volatile String aclHash;
 
     public FileAbstractModel(
             String name,
@@ -73,10 +79,52 @@ public class FileAbstractModel {
         this.group = group;
         this.permissions = permissions;
         this.extension = extension;
+        this.changeTime = null;
+        this.aclsLoader = null;
         this.acls = acls;
         this.aclHash = aclHash;
     }
 
+    /**
+     * Create a model whose ACLs are only read when {@link #getAcls()} or {@link #getAclHash()} is called, so they are
+     * not read for the files which did not change.
+     *
+     * @param changeTime the last time the file or its attributes (permissions, ACLs...) changed (ctime), null if
+     *     unknown
+     * @param aclsLoader reads the ACLs of the file
+     */
+    public FileAbstractModel(
+            String name,
+            boolean file,
+            Instant lastModifiedDate,
+            Instant creationDate,
+            Instant accessDate,
+            Instant changeTime,
+            String extension,
+            String path,
+            String fullpath,
+            long size,
+            String owner,
+            String group,
+            int permissions,
+            Supplier<List<FileAcl>> aclsLoader) {
+        this.name = name;
+        this.file = file;
+        this.directory = !file;
+        this.lastModifiedDate = lastModifiedDate;
+        this.creationDate = creationDate;
+        this.accessDate = accessDate;
+        this.changeTime = changeTime;
+        this.path = path;
+        this.fullpath = fullpath;
+        this.size = size;
+        this.owner = owner;
+        this.group = group;
+        this.permissions = permissions;
+        this.extension = extension;
+        this.aclsLoader = aclsLoader;
+    }
+
     public String getName() {
         return name;
     }
@@ -129,14 +177,33 @@ public class FileAbstractModel {
         return extension;
     }
 
+    /** @return the last time the file or its attributes changed (ctime), null if unknown */
+    public Instant getChangeTime() {
+        return changeTime;
+    }
+
     public List<FileAcl> getAcls() {
+        loadAcls();
         return acls;
     }
 
     public String getAclHash() {
+        loadAcls();
         return aclHash;
     }
 
+    private void loadAcls() {
+        if (aclsLoader != null && acls == null) {
+            synchronized (this) {
+                if (acls == null) {
+                    List<FileAcl> loaded = aclsLoader.get();
+                    aclHash = FsCrawlerUtil.computeAclHash(loaded);
+                    acls = loaded;
+                }
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "FileAbstractModel{" + "name='" + name + '\'' + ", file="
@@ -148,7 +215,8 @@ public class FileAbstractModel {
                 + path + '\'' + ", owner='"
                 + owner + '\'' + ", group='"
                 + group + '\'' + ", permissions="
-                + permissions + ", acls="
+                + permissions + ", changeTime="
+                + changeTime + ", acls="
                 + acls + ", aclHash='"
                 + aclHash + '\'' + ", extension='"
                 + extension + '\'' + ", fullpath='"
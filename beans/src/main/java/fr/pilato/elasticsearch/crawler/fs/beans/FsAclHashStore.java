@@ -0,0 +1,365 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.beans;
+
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerPathFingerprints;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * ACL hash of every document, stored in {@code ~/.fscrawler/{job_name}/_acl_cache.db} so ACL-only changes can be
+ * detected.
+ *
+ * <p>The file is an open addressing hash table, memory-mapped by segments and updated in place: each slot holds a
+ * 64-bit fingerprint of the document id, a 64-bit fingerprint of its ACL hash (0 when the document has no ACL) and the
+ * change time (ctime) of the file when its ACLs were read (24 bytes per slot). Nothing is kept on the heap, and adding,
+ * updating or removing a document only writes its slot. The file is only rewritten, with twice the number of slots,
+ * when it is 75% full.
+ *
+ * <p>As with {@link FsCrawlerPathFingerprints}, two different ids or ACL hashes having the same fingerprint is possible
+ * but very unlikely. If the process stops while updating the table, a document may be lost, which only means that its
+ * ACLs will be seen as changed on the next run.
+ */
+public class FsAclHashStore implements Closeable {
+    private static final Logger logger = LogManager.getLogger();
+
+    public static final String FILENAME = "_acl_cache.db";
+
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final long DEFAULT_CAPACITY = 1024;
+    private static final int MAGIC = 0x46534143; // FSAC
+    private static final int VERSION = 1;
+    private static final int SLOT_SIZE = 24;
+    /** magic, version, capacity, size and last full check, stored in the first two slots of the file */
+    private static final int HEADER_SLOTS = 2;
+
+    private final Path file;
+    /** Number of slots in a segment, so a slot never spans two segments */
+    private final int slotsPerSegment;
+
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    private FileChannel channel;
+    private long capacity;
+    private long size;
+
+    /**
+     * Open an ACL hash store, creating it if needed
+     *
+     * @param file the file of the store
+     * @throws IOException if the file can not be read or is not an ACL hash store
+     */
+    public FsAclHashStore(Path file) throws IOException {
+        this(file, DEFAULT_SEGMENT_SIZE, DEFAULT_CAPACITY);
+    }
+
+    FsAclHashStore(Path file, int segmentSize, long initialCapacity) throws IOException {
+        if (segmentSize < HEADER_SLOTS * SLOT_SIZE || Long.bitCount(initialCapacity) != 1) {
+            throw new IllegalArgumentException(
+                    "segmentSize must be at least " + HEADER_SLOTS * SLOT_SIZE + " and initialCapacity a power of 2");
+        }
+        this.file = file;
+        this.slotsPerSegment = segmentSize / SLOT_SIZE;
+        open(initialCapacity);
+    }
+
+    private void open(long initialCapacity) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            capacity = initialCapacity;
+            size = 0;
+            map((HEADER_SLOTS + capacity) * SLOT_SIZE);
+            segments.get(0).putInt(0, MAGIC).putInt(4, VERSION).putLong(8, capacity);
+            return;
+        }
+        if (channel.size() < HEADER_SLOTS * SLOT_SIZE) {
+            channel.close();
+            throw new IOException("File [" + file + "] is not a FSCrawler ACL hash store");
+        }
+        map(channel.size());
+        MappedByteBuffer header = segments.get(0);
+        capacity = header.getLong(8);
+        if (header.getInt(0) != MAGIC
+                || header.getInt(4) != VERSION
+                || Long.bitCount(capacity) != 1
+                || channel.size() < (HEADER_SLOTS + capacity) * SLOT_SIZE) {
+            closeChannel();
+            throw new IOException("File [" + file + "] is not a FSCrawler ACL hash store");
+        }
+        size = header.getLong(16);
+        logger.debug("ACL hash store [{}] opened with [{}] entries", file, size);
+    }
+
+    private void map(long length) throws IOException {
+        long segmentLength = (long) slotsPerSegment * SLOT_SIZE;
+        for (long start = 0; start < length; start += segmentLength) {
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(segmentLength, length - start)));
+        }
+    }
+
+    /**
+     * @param id the document id
+     * @return true if an ACL hash is known for this document
+     */
+    public synchronized boolean contains(String id) {
+        long slot = find(FsCrawlerPathFingerprints.fingerprint(id));
+        return keyAt(slot) != 0 && valueAt(slot) != 0;
+    }
+
+    /**
+     * @param id the document id
+     * @param aclHash the current ACL hash of the document, null if it has no ACL
+     * @return true if the stored ACL hash of this document is this one. False if it is different or unknown.
+     */
+    public synchronized boolean matches(String id, String aclHash) {
+        long slot = find(FsCrawlerPathFingerprints.fingerprint(id));
+        return keyAt(slot) != 0 && valueAt(slot) == value(aclHash);
+    }
+
+    /**
+     * @param id the document id
+     * @return the change time of the file when its ACL hash was stored, in nanoseconds since epoch. 0 if unknown.
+     */
+    public synchronized long getChangeTime(String id) {
+        long slot = find(FsCrawlerPathFingerprints.fingerprint(id));
+        return keyAt(slot) != 0 ? changeTimeAt(slot) : 0;
+    }
+
+    /**
+     * Store the ACL hash of a document. Nothing is written if it did not change.
+     *
+     * @param id the document id
+     * @param aclHash the ACL hash, null if the document has no ACL
+     * @return true if the ACL hash was unknown or different
+     * @throws IOException if the store needs to grow and can not be rewritten
+     */
+    public boolean put(String id, String aclHash) throws IOException {
+        return put(id, aclHash, 0);
+    }
+
+    /**
+     * Store the ACL hash of a document with the change time of the file when its ACLs were read. Nothing is written if
+     * they did not change.
+     *
+     * @param id the document id
+     * @param aclHash the ACL hash, null if the document has no ACL
+     * @param changeTime the change time of the file in nanoseconds since epoch, 0 if unknown
+     * @return true if the ACL hash was unknown or different
+     * @throws IOException if the store needs to grow and can not be rewritten
+     */
+    public synchronized boolean put(String id, String aclHash, long changeTime) throws IOException {
+        long key = FsCrawlerPathFingerprints.fingerprint(id);
+        long value = value(aclHash);
+        long slot = find(key);
+        if (keyAt(slot) != 0) {
+            if (changeTimeAt(slot) != changeTime) {
+                putChangeTime(slot, changeTime);
+            }
+            if (valueAt(slot) == value) {
+                return false;
+            }
+            putValue(slot, value);
+            return true;
+        }
+        if ((size + 1) * 4 > capacity * 3) {
+            grow();
+            slot = find(key);
+        }
+        insert(slot, key, value, changeTime);
+        return true;
+    }
+
+    /**
+     * Remove the ACL hash of a document
+     *
+     * @param id the document id
+     * @return true if the document was known
+     */
+    public synchronized boolean remove(String id) {
+        long slot = find(FsCrawlerPathFingerprints.fingerprint(id));
+        if (keyAt(slot) == 0) {
+            return false;
+        }
+        // Backward shift deletion: move back the following entries which can not be found anymore otherwise
+        long mask = capacity - 1;
+        long hole = slot;
+        long next = (hole + 1) & mask;
+        long key;
+        while ((key = keyAt(next)) != 0) {
+            long ideal = key & mask;
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                putValue(hole, valueAt(next));
+                putChangeTime(hole, changeTimeAt(next));
+                putKey(hole, key);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        putKey(hole, 0);
+        setSize(size - 1);
+        return true;
+    }
+
+    /** @return the number of documents */
+    public synchronized long size() {
+        return size;
+    }
+
+    /** @return when all the ACLs have been read for the last time, in milliseconds since epoch. 0 if never. */
+    public synchronized long getLastFullCheck() {
+        return segments.get(0).getLong(24);
+    }
+
+    /**
+     * Remember when all the ACLs have been read, whatever the change time of the files
+     *
+     * @param lastFullCheck the date in milliseconds since epoch
+     */
+    public synchronized void setLastFullCheck(long lastFullCheck) {
+        segments.get(0).putLong(24, lastFullCheck);
+    }
+
+    /** Remove all the entries */
+    public synchronized void clear() throws IOException {
+        closeChannel();
+        Files.deleteIfExists(file);
+        open(DEFAULT_CAPACITY);
+    }
+
+    /** Write the pending changes to the disk */
+    public synchronized void flush() {
+        segments.forEach(MappedByteBuffer::force);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeChannel();
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            flush();
+            channel.close();
+            channel = null;
+            segments.clear();
+        }
+    }
+
+    /** Rewrite the store with twice the number of slots */
+    private void grow() throws IOException {
+        logger.debug("Growing ACL hash store [{}] to [{}] slots for [{}] entries", file, capacity * 2, size);
+        Path grown = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(grown);
+        try (FsAclHashStore target = new FsAclHashStore(grown, slotsPerSegment * SLOT_SIZE, capacity * 2)) {
+            for (long slot = 0; slot < capacity; slot++) {
+                long key = keyAt(slot);
+                if (key != 0) {
+                    target.insert(target.find(key), key, valueAt(slot), changeTimeAt(slot));
+                }
+            }
+            target.setLastFullCheck(getLastFullCheck());
+        }
+        closeChannel();
+        try {
+            Files.move(grown, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(grown, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            open(DEFAULT_CAPACITY);
+        }
+    }
+
+    private void insert(long slot, long key, long value, long changeTime) {
+        // The key last: a slot is only used once its key is written
+        putValue(slot, value);
+        putChangeTime(slot, changeTime);
+        putKey(slot, key);
+        setSize(size + 1);
+    }
+
+    /** @return the slot holding this key, or the empty slot where it should be added */
+    private long find(long key) {
+        long mask = capacity - 1;
+        long slot = key & mask;
+        long current;
+        while ((current = keyAt(slot)) != 0 && current != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long value(String aclHash) {
+        return aclHash == null ? 0 : FsCrawlerPathFingerprints.fingerprint(aclHash);
+    }
+
+    private void setSize(long newSize) {
+        size = newSize;
+        segments.get(0).putLong(16, newSize);
+    }
+
+    private long keyAt(long slot) {
+        return getLong(slot, 0);
+    }
+
+    private long valueAt(long slot) {
+        return getLong(slot, 8);
+    }
+
+    private long changeTimeAt(long slot) {
+        return getLong(slot, 16);
+    }
+
+    private void putKey(long slot, long key) {
+        putLong(slot, 0, key);
+    }
+
+    private void putValue(long slot, long value) {
+        putLong(slot, 8, value);
+    }
+
+    private void putChangeTime(long slot, long changeTime) {
+        putLong(slot, 16, changeTime);
+    }
+
+    private long getLong(long slot, int offset) {
+        long index = HEADER_SLOTS + slot;
+        return segments.get((int) (index / slotsPerSegment))
+                .getLong((int) (index % slotsPerSegment) * SLOT_SIZE + offset);
+    }
+
+    private void putLong(long slot, int offset, long value) {
+        long index = HEADER_SLOTS + slot;
+        segments.get((int) (index / slotsPerSegment))
+                .putLong((int) (index % slotsPerSegment) * SLOT_SIZE + offset, value);
+    }
+}
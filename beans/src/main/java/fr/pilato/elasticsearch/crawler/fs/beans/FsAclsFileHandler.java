@@ -23,35 +23,64 @@ package fr.pilato.elasticsearch.crawler.fs.beans;
 import fr.pilato.elasticsearch.crawler.fs.framework.JsonUtil;
 import fr.pilato.elasticsearch.crawler.fs.framework.MetaFileHandler;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
-/** Stores ACL hashes per document so we can detect ACL-only changes. */
+/** Stores ACL hashes per document so we can detect ACL-only changes. See {@link FsAclHashStore}. */
 public class FsAclsFileHandler extends MetaFileHandler {
+    private static final Logger logger = LogManager.getLogger();
 
-    private static final String FILENAME = "_acl_cache.json";
+    /** Used before 3.0: the whole cache as a JSON map */
+    private static final String LEGACY_FILENAME = "_acl_cache.json";
 
     public FsAclsFileHandler(Path root) {
         super(root);
     }
 
-    public Map<String, String> read(String jobName) throws IOException {
+    /**
+     * Open the ACL hash store of a job. The JSON file written by previous versions is imported then removed.
+     *
+     * @param jobName the job name
+     * @return the store. It must be closed.
+     * @throws IOException if the store can not be opened
+     */
+    public FsAclHashStore open(String jobName) throws IOException {
+        Path file = root.resolve(jobName).resolve(FsAclHashStore.FILENAME);
+        boolean exists = Files.exists(file);
+        FsAclHashStore store = new FsAclHashStore(file);
+        if (!exists) {
+            try {
+                importLegacyFile(jobName, store);
+            } catch (IOException e) {
+                store.close();
+                Files.deleteIfExists(file);
+                throw e;
+            }
+        }
+        return store;
+    }
+
+    private void importLegacyFile(String jobName, FsAclHashStore store) throws IOException {
+        Map<String, String> legacy;
         try {
-            return JsonUtil.prettyMapper.readValue(
-                    readFile(jobName, FILENAME),
+            legacy = JsonUtil.prettyMapper.readValue(
+                    readFile(jobName, LEGACY_FILENAME),
                     JsonUtil.prettyMapper.getTypeFactory().constructMapType(HashMap.class, String.class, String.class));
         } catch (NoSuchFileException e) {
-            return new HashMap<>();
+            return;
         }
-    }
-
-    public void write(String jobName, Map<String, String> cache) throws IOException {
-        if (cache == null || cache.isEmpty()) {
-            removeFile(jobName, FILENAME);
-        } else {
-            writeFile(jobName, FILENAME, JsonUtil.prettyMapper.writeValueAsString(cache));
+        for (Map.Entry<String, String> entry : legacy.entrySet()) {
+            if (entry.getValue() != null) {
+                store.put(entry.getKey(), entry.getValue());
+            }
         }
+        store.flush();
+        removeFile(jobName, LEGACY_FILENAME);
+        logger.debug("Imported [{}] ACL hashes of [{}] from [{}]", legacy.size(), jobName, LEGACY_FILENAME);
     }
 }
@@ -21,15 +21,21 @@
 package fr.pilato.elasticsearch.crawler.fs.beans;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerPathFingerprints;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -53,14 +59,25 @@ public class FsCrawlerCheckpoint {
     private Deque<String> pendingPaths;
 
     /**
-     * Set of paths in {@link #pendingPaths} for O(1) membership checks during crawl. Not persisted; rebuilt from
-     * pendingPaths in {@link #ensureConcurrentCollections()}.
+     * Fingerprints of the paths in {@link #pendingPaths} for O(1) membership checks during crawl. Not persisted;
+     * rebuilt from pendingPaths in {@link #ensureConcurrentCollections()}.
      */
     @JsonIgnore
-    private Set<String> pendingPathsSet;
+    private FsCrawlerPathFingerprints pendingPathsSet;
 
-    /** Directories that have been fully processed */
-    private Set<String> completedPaths;
+    /**
+     * Directories that have been fully processed. Only their fingerprints are kept, so the memory used does not depend
+     * on the length of the paths.
+     */
+    private FsCrawlerPathFingerprints completedPaths;
+
+    /**
+     * Directories currently being processed by a walker thread when {@code fs.walker_threads} is greater than 1, with
+     * the number of files already indexed in each of them. This is the concurrent counterpart of {@link #currentPath}
+     * and {@link #currentPathFilesIndexedCount}: on resume, every entry is put back in {@link #pendingPaths} and its
+     * count is used as the skip count for that directory.
+     */
+    private Map<String, Integer> inProgressPaths;
 
     /**
      * Number of files indexed during this scan. Atomic to allow concurrent increments by the crawler thread and reads
@@ -114,10 +131,31 @@ public class FsCrawlerCheckpoint {
     @JsonIgnore
     private boolean loadedThisRun;
 
+    /**
+     * Sequence of the last snapshot written to disk. The checkpoint journal starts with the sequence of the snapshot it
+     * applies to, so a journal left by an older snapshot is never replayed.
+     */
+    private long journalSequence;
+
+    /**
+     * Changes made to the pending, completed and in-progress paths since the last snapshot, waiting to be appended to
+     * the checkpoint journal. Only recorded once {@link #enableJournal()} has been called.
+     */
+    @JsonIgnore
+    private final Queue<FsCrawlerCheckpointJournalEntry> journal = new ConcurrentLinkedQueue<>();
+
+    @JsonIgnore
+    private volatile boolean journalEnabled;
+
+    /** Number of records in the journal file since the last snapshot or -1 if no journal was started yet. */
+    @JsonIgnore
+    private int journalRecords = -1;
+
     public FsCrawlerCheckpoint() {
         this.pendingPaths = new ConcurrentLinkedDeque<>();
-        this.pendingPathsSet = ConcurrentHashMap.newKeySet();
-        this.completedPaths = ConcurrentHashMap.newKeySet();
+        this.pendingPathsSet = new FsCrawlerPathFingerprints();
+        this.completedPaths = new FsCrawlerPathFingerprints();
+        this.inProgressPaths = new ConcurrentHashMap<>();
         this.state.set(CrawlerState.STOPPED);
         this.filesProcessed.set(0);
         this.filesDeleted.set(0);
@@ -132,23 +170,16 @@ public class FsCrawlerCheckpoint {
     public void ensureConcurrentCollections() {
         if (pendingPaths == null) {
             this.pendingPaths = new ConcurrentLinkedDeque<>();
-            this.pendingPathsSet = ConcurrentHashMap.newKeySet();
+            this.pendingPathsSet = new FsCrawlerPathFingerprints();
         } else {
             this.pendingPaths = new ConcurrentLinkedDeque<>(pendingPaths);
-            if (pendingPathsSet == null) {
-                pendingPathsSet = ConcurrentHashMap.newKeySet();
-            } else {
-                pendingPathsSet.clear();
-            }
-            pendingPathsSet.addAll(this.pendingPaths);
+            rebuildPendingPathsSet();
         }
         if (completedPaths == null) {
-            this.completedPaths = ConcurrentHashMap.newKeySet();
-        } else {
-            Set<String> concurrent = ConcurrentHashMap.newKeySet();
-            concurrent.addAll(completedPaths);
-            this.completedPaths = concurrent;
+            this.completedPaths = new FsCrawlerPathFingerprints();
         }
+        this.inProgressPaths =
+                inProgressPaths == null ? new ConcurrentHashMap<>() : new ConcurrentHashMap<>(inProgressPaths);
     }
 
     /**
@@ -197,30 +228,60 @@ public class FsCrawlerCheckpoint {
     }
 
     public void setPendingPaths(Deque<String> pendingPaths) {
-        if (pendingPaths == null) {
-            this.pendingPaths = new ConcurrentLinkedDeque<>();
-            if (pendingPathsSet == null) {
-                pendingPathsSet = ConcurrentHashMap.newKeySet();
-            } else {
-                pendingPathsSet.clear();
-            }
-        } else {
-            this.pendingPaths = pendingPaths;
-            if (pendingPathsSet == null) {
-                pendingPathsSet = ConcurrentHashMap.newKeySet();
-            } else {
-                pendingPathsSet.clear();
+        this.pendingPaths = pendingPaths == null ? new ConcurrentLinkedDeque<>() : pendingPaths;
+        rebuildPendingPathsSet();
+    }
+
+    private void rebuildPendingPathsSet() {
+        FsCrawlerPathFingerprints set = new FsCrawlerPathFingerprints();
+        for (String path : pendingPaths) {
+            set.add(path);
+        }
+        this.pendingPathsSet = set;
+    }
+
+    /**
+     * Completed directories as written by previous versions, with the full paths. Only used when reading a checkpoint:
+     * new checkpoints contain {@link #getCompletedPathFingerprints()} instead.
+     *
+     * @param completedPaths the completed directories
+     */
+    public void setCompletedPaths(Collection<String> completedPaths) {
+        if (completedPaths != null) {
+            completedPaths.forEach(this.completedPaths::add);
+        }
+    }
+
+    /** @return the fingerprints of the completed directories, as persisted in the checkpoint file */
+    public long[] getCompletedPathFingerprints() {
+        return completedPaths.toArray();
+    }
+
+    public void setCompletedPathFingerprints(long[] completedPathFingerprints) {
+        if (completedPathFingerprints != null) {
+            for (long fingerprint : completedPathFingerprints) {
+                completedPaths.addFingerprint(fingerprint);
             }
-            pendingPathsSet.addAll(pendingPaths);
         }
     }
 
-    public Set<String> getCompletedPaths() {
-        return completedPaths;
+    /** @return the number of directories fully processed */
+    @JsonIgnore
+    public int getCompletedPathsCount() {
+        return completedPaths.size();
+    }
+
+    /** Forget the completed directories (e.g. when marking scan completed). */
+    public void clearCompletedPaths() {
+        completedPaths.clear();
     }
 
-    public void setCompletedPaths(Set<String> completedPaths) {
-        this.completedPaths = completedPaths == null ? ConcurrentHashMap.newKeySet() : completedPaths;
+    public Map<String, Integer> getInProgressPaths() {
+        return inProgressPaths;
+    }
+
+    public void setInProgressPaths(Map<String, Integer> inProgressPaths) {
+        this.inProgressPaths = inProgressPaths == null ? new ConcurrentHashMap<>() : inProgressPaths;
     }
 
     public long getFilesProcessed() {
@@ -311,6 +372,113 @@ public class FsCrawlerCheckpoint {
         this.currentPathFilesIndexedCount = Math.max(0, currentPathFilesIndexedCount);
     }
 
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+
+    public void setJournalSequence(long journalSequence) {
+        this.journalSequence = journalSequence;
+    }
+
+    /**
+     * Start recording the changes made to this checkpoint so they can be appended to the checkpoint journal with
+     * {@link FsCrawlerCheckpointFileHandler#append(String, FsCrawlerCheckpoint)} instead of rewriting the whole
+     * checkpoint.
+     */
+    public void enableJournal() {
+        this.journalEnabled = true;
+    }
+
+    @JsonIgnore
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    /** @return the changes recorded since the last call, in the order they were made */
+    List<FsCrawlerCheckpointJournalEntry> drainJournal() {
+        List<FsCrawlerCheckpointJournalEntry> entries = new ArrayList<>();
+        FsCrawlerCheckpointJournalEntry entry;
+        while ((entry = journal.poll()) != null) {
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /** Forget the recorded changes: they are part of the snapshot being written. */
+    void clearJournal() {
+        journal.clear();
+    }
+
+    int getJournalRecords() {
+        return journalRecords;
+    }
+
+    void setJournalRecords(int journalRecords) {
+        this.journalRecords = journalRecords;
+    }
+
+    private void record(FsCrawlerCheckpointJournalEntry.Type type, String path, Integer count) {
+        if (journalEnabled) {
+            journal.add(new FsCrawlerCheckpointJournalEntry(type, path, count));
+        }
+    }
+
+    /**
+     * Apply a journal record read from disk. Records may have been applied to the snapshot already (they are recorded
+     * while the snapshot is written), so applying them is idempotent.
+     *
+     * @param entry the record to apply
+     */
+    void apply(FsCrawlerCheckpointJournalEntry entry) {
+        String path = entry.getPath();
+        switch (entry.getType()) {
+            case QUEUED -> {
+                if (!isPending(path)) {
+                    pendingPaths.addLast(path);
+                    pendingPathsSet.add(path);
+                }
+            }
+            case QUEUED_FIRST -> {
+                if (!isPending(path)) {
+                    pendingPaths.addFirst(path);
+                    pendingPathsSet.add(path);
+                }
+            }
+            case POLLED -> {
+                if (path.equals(pendingPaths.peek())) {
+                    pendingPaths.poll();
+                } else {
+                    pendingPaths.remove(path);
+                }
+                if (pendingPathsSet != null) {
+                    pendingPathsSet.remove(path);
+                }
+            }
+            case PENDING_CLEARED -> {
+                pendingPaths.clear();
+                if (pendingPathsSet != null) {
+                    pendingPathsSet.clear();
+                }
+            }
+            case COMPLETED -> completedPaths.add(path);
+            case IN_PROGRESS -> inProgressPaths.put(path, entry.getCount() == null ? 0 : entry.getCount());
+            case IN_PROGRESS_CLEARED -> inProgressPaths.remove(path);
+            case STATE -> {
+                setFilesProcessed(entry.getFilesProcessed() == null ? 0 : entry.getFilesProcessed());
+                setFilesDeleted(entry.getFilesDeleted() == null ? 0 : entry.getFilesDeleted());
+                setState(entry.getState());
+                setRetryCount(entry.getRetryCount() == null ? 0 : entry.getRetryCount());
+                setLastError(entry.getLastError());
+                setCurrentPath(entry.getCurrentPath());
+                setCurrentPathFilesIndexedCount(entry.getCount() == null ? 0 : entry.getCount());
+            }
+            default -> {
+                // SNAPSHOT is the header of the journal
+            }
+        }
+    }
+
     @JsonIgnore
     public boolean isLoadedThisRun() {
         return loadedThisRun;
@@ -346,8 +514,11 @@ public class FsCrawlerCheckpoint {
      */
     public String pollNextPath() {
         String path = pendingPaths.poll();
-        if (path != null && pendingPathsSet != null) {
-            pendingPathsSet.remove(path);
+        if (path != null) {
+            if (pendingPathsSet != null) {
+                pendingPathsSet.remove(path);
+            }
+            record(FsCrawlerCheckpointJournalEntry.Type.POLLED, path, null);
         }
         return path;
     }
@@ -358,6 +529,7 @@ public class FsCrawlerCheckpoint {
      * @param path the directory path to add
      */
     public void addPathFirst(String path) {
+        record(FsCrawlerCheckpointJournalEntry.Type.QUEUED_FIRST, path, null);
         pendingPaths.addFirst(path);
         if (pendingPathsSet != null) {
             pendingPathsSet.add(path);
@@ -370,6 +542,7 @@ public class FsCrawlerCheckpoint {
      * @param path the directory path to add
      */
     public void addPath(String path) {
+        record(FsCrawlerCheckpointJournalEntry.Type.QUEUED, path, null);
         pendingPaths.addLast(path);
         if (pendingPathsSet != null) {
             pendingPathsSet.add(path);
@@ -389,8 +562,7 @@ public class FsCrawlerCheckpoint {
         }
         if (pendingPathsSet == null) {
             // Defensive rebuild: pendingPathsSet is @JsonIgnore and may be null on partially initialized instances.
-            pendingPathsSet = ConcurrentHashMap.newKeySet();
-            pendingPathsSet.addAll(pendingPaths);
+            rebuildPendingPathsSet();
         }
         return pendingPathsSet.contains(path);
     }
@@ -401,6 +573,7 @@ public class FsCrawlerCheckpoint {
         if (pendingPathsSet != null) {
             pendingPathsSet.clear();
         }
+        record(FsCrawlerCheckpointJournalEntry.Type.PENDING_CLEARED, null, null);
     }
 
     /**
@@ -410,6 +583,7 @@ public class FsCrawlerCheckpoint {
      */
     public void markCompleted(String path) {
         completedPaths.add(path);
+        record(FsCrawlerCheckpointJournalEntry.Type.COMPLETED, path, null);
     }
 
     /**
@@ -422,6 +596,38 @@ public class FsCrawlerCheckpoint {
         return completedPaths.contains(path);
     }
 
+    /**
+     * Record that a walker thread is processing a directory and how many files it already indexed there
+     *
+     * @param path the directory path being processed
+     * @param filesIndexedCount the number of files already indexed in this directory
+     */
+    public void markInProgress(String path, int filesIndexedCount) {
+        inProgressPaths.put(path, Math.max(0, filesIndexedCount));
+        record(FsCrawlerCheckpointJournalEntry.Type.IN_PROGRESS, path, Math.max(0, filesIndexedCount));
+    }
+
+    /**
+     * Get the number of files already indexed in a directory which was being processed by a walker thread
+     *
+     * @param path the directory path
+     * @return the number of files indexed before the interruption or 0
+     */
+    public int getInProgressFilesIndexedCount(String path) {
+        Integer count = inProgressPaths.get(path);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Remove a directory from the in-progress directories (fully processed or skipped)
+     *
+     * @param path the directory path
+     */
+    public void clearInProgress(String path) {
+        inProgressPaths.remove(path);
+        record(FsCrawlerCheckpointJournalEntry.Type.IN_PROGRESS_CLEARED, path, null);
+    }
+
     /**
      * Compare pending paths by content and order so that equality holds after round-trip serialization (Jackson may
      * deserialize Deque to ArrayDeque while we initialize as LinkedList, and LinkedList.equals(ArrayDeque) is false).
@@ -451,6 +657,7 @@ public class FsCrawlerCheckpoint {
                 && Objects.equals(currentPath, that.currentPath)
                 && pendingPathsEqual(pendingPaths, that.pendingPaths)
                 && Objects.equals(completedPaths, that.completedPaths)
+                && Objects.equals(inProgressPaths, that.inProgressPaths)
                 && Objects.equals(state.get(), that.state.get())
                 && Objects.equals(lastError, that.lastError)
                 && Objects.equals(scanDate, that.scanDate)
@@ -467,6 +674,7 @@ public class FsCrawlerCheckpoint {
                 currentPath,
                 pendingPaths == null ? null : new ArrayList<>(pendingPaths),
                 completedPaths,
+                inProgressPaths,
                 filesProcessed.get(),
                 filesDeleted.get(),
                 state.get(),
@@ -485,7 +693,8 @@ public class FsCrawlerCheckpoint {
                 + state.get() + ", currentPath='"
                 + currentPath + '\'' + ", pendingPaths="
                 + (pendingPaths != null ? pendingPaths.size() : 0) + ", completedPaths="
-                + (completedPaths != null ? completedPaths.size() : 0) + ", filesProcessed="
+                + (completedPaths != null ? completedPaths.size() : 0) + ", inProgressPaths="
+                + (inProgressPaths != null ? inProgressPaths.size() : 0) + ", filesProcessed="
                 + filesProcessed.get() + ", filesDeleted="
                 + filesDeleted.get() + ", retryCount="
                 + retryCount.get() + ", scanEndTime="
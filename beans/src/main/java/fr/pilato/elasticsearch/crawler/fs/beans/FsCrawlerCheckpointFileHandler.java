@@ -23,36 +23,119 @@ package fr.pilato.elasticsearch.crawler.fs.beans;
 import fr.pilato.elasticsearch.crawler.fs.framework.JsonUtil;
 import fr.pilato.elasticsearch.crawler.fs.framework.MetaFileHandler;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import tools.jackson.core.JacksonException;
 
 /**
- * Provides utility methods to read and write checkpoint files (_checkpoint.json). The checkpoint file allows the
- * crawler to resume from where it left off after an interruption (crash, manual stop, network error, etc.).
+ * Provides utility methods to read and write checkpoint files. The checkpoint file allows the crawler to resume from
+ * where it left off after an interruption (crash, manual stop, network error, etc.).
+ *
+ * <p>The checkpoint is stored in a compact binary snapshot (_checkpoint.smile). When the crawler is not running a scan,
+ * it is also exported to _checkpoint.json, which can be read and edited by humans. If _checkpoint.json is more recent
+ * than the binary snapshot (written by a previous version or edited), it is the one which is read.
+ *
+ * <p>While a scan is running, the changes are appended to a journal (_checkpoint.journal) with {@link #append(String,
+ * FsCrawlerCheckpoint)} instead of rewriting the whole checkpoint. Reading a checkpoint replays the journal on top of
+ * the snapshot. The journal is compacted into a new snapshot when it gets bigger than the snapshot itself.
  */
 public class FsCrawlerCheckpointFileHandler extends MetaFileHandler {
 
     private static final Logger logger = LogManager.getLogger();
     public static final String FILENAME = "_checkpoint.json";
+    public static final String SNAPSHOT_FILENAME = "_checkpoint.smile";
+    public static final String JOURNAL_FILENAME = "_checkpoint.journal";
+
+    /** Minimum number of journal records before compacting the journal into a new snapshot */
+    static final int JOURNAL_MIN_RECORDS = 10_000;
 
     public FsCrawlerCheckpointFileHandler(Path root) {
         super(root);
     }
 
     /**
-     * Read checkpoint from ~/.fscrawler/{job_name}/_checkpoint.json
+     * Read checkpoint from ~/.fscrawler/{job_name}/_checkpoint.smile (or _checkpoint.json if more recent) and apply the
+     * changes written since then in ~/.fscrawler/{job_name}/_checkpoint.journal
      *
      * @param jobname the job name
      * @return the checkpoint or null if no checkpoint exists
      * @throws IOException in case of error while reading (other than file not found)
      */
     public FsCrawlerCheckpoint read(String jobname) throws IOException {
+        FsCrawlerCheckpoint checkpoint;
+        try {
+            Path dir = root.resolve(jobname);
+            FileTime snapshotTime = lastModifiedTime(dir.resolve(SNAPSHOT_FILENAME));
+            FileTime exportTime = lastModifiedTime(dir.resolve(FILENAME));
+            if (snapshotTime == null && exportTime == null) {
+                // No checkpoint file exists, return null
+                return null;
+            }
+            if (exportTime != null && (snapshotTime == null || exportTime.compareTo(snapshotTime) > 0)) {
+                checkpoint = JsonUtil.prettyMapper.readValue(readFile(jobname, FILENAME), FsCrawlerCheckpoint.class);
+            } else {
+                checkpoint = JsonUtil.smileMapper.readValue(
+                        readFileBytes(jobname, SNAPSHOT_FILENAME), FsCrawlerCheckpoint.class);
+            }
+        } catch (NoSuchFileException e) {
+            // Removed while reading
+            return null;
+        }
+        replayJournal(jobname, checkpoint);
+        return checkpoint;
+    }
+
+    private static FileTime lastModifiedTime(Path file) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void replayJournal(String jobname, FsCrawlerCheckpoint checkpoint) throws IOException {
+        String journal;
         try {
-            return JsonUtil.prettyMapper.readValue(readFile(jobname, FILENAME), FsCrawlerCheckpoint.class);
+            journal = readFile(jobname, JOURNAL_FILENAME);
         } catch (NoSuchFileException e) {
-            // No checkpoint file exists, return null
+            return;
+        }
+        List<String> lines = journal.lines().toList();
+        if (lines.isEmpty()) {
+            return;
+        }
+        FsCrawlerCheckpointJournalEntry header = parse(lines.get(0));
+        if (header == null
+                || header.getType() != FsCrawlerCheckpointJournalEntry.Type.SNAPSHOT
+                || header.getSequence() == null
+                || header.getSequence() != checkpoint.getJournalSequence()) {
+            // Written for an older snapshot: its changes are already in the snapshot
+            logger.debug("Ignoring checkpoint journal of job [{}] which does not match the snapshot", jobname);
+            return;
+        }
+        int replayed = 0;
+        for (String line : lines.subList(1, lines.size())) {
+            FsCrawlerCheckpointJournalEntry entry = parse(line);
+            if (entry == null || entry.getType() == null) {
+                // Last record was not fully written (crash)
+                logger.warn("Ignoring the end of the checkpoint journal of job [{}]: can not read [{}]", jobname, line);
+                break;
+            }
+            checkpoint.apply(entry);
+            replayed++;
+        }
+        logger.debug("Replayed [{}] checkpoint journal records for job [{}]", replayed, jobname);
+    }
+
+    private static FsCrawlerCheckpointJournalEntry parse(String line) {
+        try {
+            return JsonUtil.mapper.readValue(line, FsCrawlerCheckpointJournalEntry.class);
+        } catch (JacksonException e) {
             return null;
         }
     }
@@ -72,23 +155,99 @@ public class FsCrawlerCheckpointFileHandler extends MetaFileHandler {
     }
 
     /**
-     * Write checkpoint to ~/.fscrawler/{job_name}/_checkpoint.json
+     * Write checkpoint to ~/.fscrawler/{job_name}/_checkpoint.smile and export it to
+     * ~/.fscrawler/{job_name}/_checkpoint.json
      *
      * @param jobname the job name
      * @param checkpoint the checkpoint to write
      * @throws IOException in case of error while writing
      */
     public void write(String jobname, FsCrawlerCheckpoint checkpoint) throws IOException {
-        writeFile(jobname, FILENAME, JsonUtil.prettyMapper.writeValueAsString(checkpoint));
+        write(jobname, checkpoint, true);
+    }
+
+    /**
+     * Write checkpoint to ~/.fscrawler/{job_name}/_checkpoint.smile. If the checkpoint records its changes (see
+     * {@link FsCrawlerCheckpoint#enableJournal()}), a new empty journal is started for this snapshot. Otherwise, the
+     * journal is removed.
+     *
+     * @param jobname the job name
+     * @param checkpoint the checkpoint to write
+     * @param export true to also write ~/.fscrawler/{job_name}/_checkpoint.json
+     * @throws IOException in case of error while writing
+     */
+    public void write(String jobname, FsCrawlerCheckpoint checkpoint, boolean export) throws IOException {
+        // Changes recorded from now on may already be in the snapshot. Replaying them is harmless.
+        checkpoint.clearJournal();
+        checkpoint.setJournalRecords(-1);
+        checkpoint.setJournalSequence(checkpoint.getJournalSequence() + 1);
+        if (export) {
+            // Written before the binary snapshot so it is not considered as more recent than the snapshot
+            writeFileAtomically(jobname, FILENAME, JsonUtil.prettyMapper.writeValueAsBytes(checkpoint));
+        }
+        writeFileAtomically(jobname, SNAPSHOT_FILENAME, JsonUtil.smileMapper.writeValueAsBytes(checkpoint));
+        if (checkpoint.isJournalEnabled()) {
+            writeFile(
+                    jobname,
+                    JOURNAL_FILENAME,
+                    JsonUtil.mapper.writeValueAsString(
+                                    FsCrawlerCheckpointJournalEntry.snapshot(checkpoint.getJournalSequence()))
+                            + "\n");
+            checkpoint.setJournalRecords(0);
+        } else {
+            removeFile(jobname, JOURNAL_FILENAME);
+        }
+    }
+
+    /**
+     * Append the changes made to the checkpoint since the last call to ~/.fscrawler/{job_name}/_checkpoint.journal. The
+     * cost only depends on the number of changes, not on the size of the checkpoint. A full snapshot is written instead
+     * when no journal was started for this checkpoint yet or when the journal gets bigger than the snapshot.
+     *
+     * @param jobname the job name
+     * @param checkpoint the checkpoint to save
+     * @throws IOException in case of error while writing
+     */
+    public void append(String jobname, FsCrawlerCheckpoint checkpoint) throws IOException {
+        if (!checkpoint.isJournalEnabled() || checkpoint.getJournalRecords() < 0) {
+            write(jobname, checkpoint, false);
+            return;
+        }
+        List<FsCrawlerCheckpointJournalEntry> entries = checkpoint.drainJournal();
+        entries.add(FsCrawlerCheckpointJournalEntry.state(checkpoint));
+        int records = checkpoint.getJournalRecords() + entries.size();
+        int snapshotSize = checkpoint.getPendingPaths().size()
+                + checkpoint.getCompletedPathsCount()
+                + checkpoint.getInProgressPaths().size();
+        if (records > Math.max(JOURNAL_MIN_RECORDS, snapshotSize)) {
+            logger.debug("Compacting checkpoint journal of job [{}] ([{}] records)", jobname, records);
+            write(jobname, checkpoint, false);
+            return;
+        }
+        StringBuilder content = new StringBuilder();
+        for (FsCrawlerCheckpointJournalEntry entry : entries) {
+            content.append(JsonUtil.mapper.writeValueAsString(entry)).append('\n');
+        }
+        try {
+            appendFile(jobname, JOURNAL_FILENAME, content.toString());
+        } catch (IOException e) {
+            // The drained changes are lost for the journal: the next call writes a full snapshot
+            checkpoint.setJournalRecords(-1);
+            throw e;
+        }
+        checkpoint.setJournalRecords(records);
     }
 
     /**
-     * Remove checkpoint file from ~/.fscrawler/{job_name}/_checkpoint.json
+     * Remove checkpoint files ~/.fscrawler/{job_name}/_checkpoint.smile, ~/.fscrawler/{job_name}/_checkpoint.json and
+     * ~/.fscrawler/{job_name}/_checkpoint.journal
      *
      * @param jobname the job name
      * @throws IOException in case of error while removing
      */
     public void clean(String jobname) throws IOException {
+        removeFile(jobname, JOURNAL_FILENAME);
+        removeFile(jobname, SNAPSHOT_FILENAME);
         removeFile(jobname, FILENAME);
     }
 
@@ -0,0 +1,185 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.beans;
+
+/**
+ * One record of the checkpoint journal (_checkpoint.journal). The journal is written next to the _checkpoint.json
+ * snapshot and holds the changes made to the checkpoint since that snapshot, one JSON record per line.
+ */
+public class FsCrawlerCheckpointJournalEntry {
+
+    /** Type of the record */
+    public enum Type {
+        /** First record of the journal: the snapshot it applies to */
+        SNAPSHOT,
+        /** A directory was added at the end of the pending queue */
+        QUEUED,
+        /** A directory was added at the front of the pending queue */
+        QUEUED_FIRST,
+        /** A directory was removed from the pending queue */
+        POLLED,
+        /** The pending queue was cleared */
+        PENDING_CLEARED,
+        /** A directory was fully processed */
+        COMPLETED,
+        /** A directory is being processed by a walker thread */
+        IN_PROGRESS,
+        /** A directory is not processed by a walker thread anymore */
+        IN_PROGRESS_CLEARED,
+        /** Counters and current state of the crawler */
+        STATE
+    }
+
+    private Type type;
+    private String path;
+    private Integer count;
+    private Long sequence;
+    private Long filesProcessed;
+    private Long filesDeleted;
+    private CrawlerState state;
+    private Integer retryCount;
+    private String lastError;
+    private String currentPath;
+
+    public FsCrawlerCheckpointJournalEntry() {}
+
+    FsCrawlerCheckpointJournalEntry(Type type, String path, Integer count) {
+        this.type = type;
+        this.path = path;
+        this.count = count;
+    }
+
+    /**
+     * Create the first record of a journal
+     *
+     * @param sequence the journal sequence of the snapshot the journal applies to
+     * @return the record
+     */
+    static FsCrawlerCheckpointJournalEntry snapshot(long sequence) {
+        FsCrawlerCheckpointJournalEntry entry = new FsCrawlerCheckpointJournalEntry(Type.SNAPSHOT, null, null);
+        entry.setSequence(sequence);
+        return entry;
+    }
+
+    /**
+     * Create a record with the counters and current state of a checkpoint
+     *
+     * @param checkpoint the checkpoint
+     * @return the record
+     */
+    static FsCrawlerCheckpointJournalEntry state(FsCrawlerCheckpoint checkpoint) {
+        FsCrawlerCheckpointJournalEntry entry =
+                new FsCrawlerCheckpointJournalEntry(Type.STATE, null, checkpoint.getCurrentPathFilesIndexedCount());
+        entry.setFilesProcessed(checkpoint.getFilesProcessed());
+        entry.setFilesDeleted(checkpoint.getFilesDeleted());
+        entry.setState(checkpoint.getState());
+        entry.setRetryCount(checkpoint.getRetryCount());
+        entry.setLastError(checkpoint.getLastError());
+        entry.setCurrentPath(checkpoint.getCurrentPath());
+        return entry;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Long getFilesProcessed() {
+        return filesProcessed;
+    }
+
+    public void setFilesProcessed(Long filesProcessed) {
+        this.filesProcessed = filesProcessed;
+    }
+
+    public Long getFilesDeleted() {
+        return filesDeleted;
+    }
+
+    public void setFilesDeleted(Long filesDeleted) {
+        this.filesDeleted = filesDeleted;
+    }
+
+    public CrawlerState getState() {
+        return state;
+    }
+
+    public void setState(CrawlerState state) {
+        this.state = state;
+    }
+
+    public Integer getRetryCount() {
+        return retryCount;
+    }
+
+    public void setRetryCount(Integer retryCount) {
+        this.retryCount = retryCount;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getCurrentPath() {
+        return currentPath;
+    }
+
+    public void setCurrentPath(String currentPath) {
+        this.currentPath = currentPath;
+    }
+
+    @Override
+    public String toString() {
+        return "FsCrawlerCheckpointJournalEntry{" + "type=" + type + ", path='" + path + '\'' + ", count=" + count
+                + '}';
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.beans;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes the checkpoint of a job from a dedicated thread, so the crawler threads never wait for the disk.
+ *
+ * <p>Requests are coalesced: when several snapshots or journal appends are requested while a write is running, only one
+ * write happens after it. A snapshot supersedes the journal appends requested before it. The JSON export is only
+ * written when the crawler is not running a scan (paused, stopped, completed or failed).
+ *
+ * <p>Once closed, the requests are written by the calling thread.
+ */
+public class FsCrawlerCheckpointWriter implements Closeable {
+    private static final Logger logger = LogManager.getLogger();
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final FsCrawlerCheckpointFileHandler handler;
+    private final String jobName;
+    /** Guards the requests */
+    private final Object lock = new Object();
+    /** Held while writing, so the files are never written by two threads */
+    private final Object writeLock = new Object();
+
+    private FsCrawlerCheckpoint pending;
+    private boolean snapshotRequested;
+    private long requested;
+    private long written;
+    private boolean closed;
+    private Thread thread;
+
+    public FsCrawlerCheckpointWriter(FsCrawlerCheckpointFileHandler handler, String jobName) {
+        this.handler = handler;
+        this.jobName = jobName;
+    }
+
+    /**
+     * Request a full snapshot of the checkpoint
+     *
+     * @param checkpoint the checkpoint to write
+     */
+    public void snapshot(FsCrawlerCheckpoint checkpoint) {
+        request(checkpoint, true);
+    }
+
+    /**
+     * Request to append the changes of the checkpoint to the journal
+     *
+     * @param checkpoint the checkpoint to write
+     */
+    public void append(FsCrawlerCheckpoint checkpoint) {
+        request(checkpoint, false);
+    }
+
+    private void request(FsCrawlerCheckpoint checkpoint, boolean snapshot) {
+        synchronized (lock) {
+            if (!closed) {
+                // Another checkpoint instance (new run) can not be appended to the journal of the previous one
+                snapshotRequested |= snapshot || (pending != null && pending != checkpoint);
+                pending = checkpoint;
+                requested++;
+                if (thread == null) {
+                    thread = new Thread(this::run, "fs-checkpoint-" + jobName);
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+                lock.notifyAll();
+                return;
+            }
+        }
+        // Let the writer thread write the older requests first
+        flush(CLOSE_TIMEOUT);
+        write(checkpoint, snapshot);
+    }
+
+    /**
+     * Wait for the requested writes to be done
+     *
+     * @param timeout maximum time to wait
+     * @return true if all the writes requested before this call are done
+     */
+    public boolean flush(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (lock) {
+            long target = requested;
+            while (written < target) {
+                long remainingMillis = (deadline - System.nanoTime()) / 1_000_000L;
+                if (remainingMillis <= 0 || thread == null || !thread.isAlive()) {
+                    return written >= target;
+                }
+                try {
+                    lock.wait(remainingMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return written >= target;
+                }
+            }
+            return true;
+        }
+    }
+
+    private void run() {
+        while (true) {
+            FsCrawlerCheckpoint checkpoint;
+            boolean snapshot;
+            long target;
+            synchronized (lock) {
+                while (requested == written && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // Daemon thread: keep on writing until closed
+                        logger.trace("Checkpoint writer of job [{}] interrupted", jobName);
+                    }
+                }
+                if (requested == written) {
+                    return;
+                }
+                checkpoint = pending;
+                snapshot = snapshotRequested;
+                target = requested;
+                pending = null;
+                snapshotRequested = false;
+            }
+            write(checkpoint, snapshot);
+            synchronized (lock) {
+                written = target;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void write(FsCrawlerCheckpoint checkpoint, boolean snapshot) {
+        synchronized (writeLock) {
+            try {
+                if (snapshot) {
+                    handler.write(jobName, checkpoint, checkpoint.getState() != CrawlerState.RUNNING);
+                } else {
+                    handler.append(jobName, checkpoint);
+                }
+                logger.trace(
+                        "✅ Checkpoint {}: {} files processed, {} directories pending",
+                        snapshot ? "saved" : "journal updated",
+                        checkpoint.getFilesProcessed(),
+                        checkpoint.getPendingPaths().size());
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to save checkpoint: {}", e.getMessage());
+                logger.debug("Full stacktrace", e);
+            }
+        }
+    }
+
+    /** Write the pending requests and stop the writer thread. Later requests are written by the calling thread. */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        if (!flush(CLOSE_TIMEOUT)) {
+            logger.warn("Checkpoint of job [{}] was not written within {}", jobName, CLOSE_TIMEOUT);
+        }
+    }
+}
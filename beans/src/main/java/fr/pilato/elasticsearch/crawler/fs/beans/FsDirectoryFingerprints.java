@@ -0,0 +1,182 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.beans;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Fingerprints of the directories listed during the previous runs. A fingerprint is computed from the children returned
+ * by the provider for a directory:
+ *
+ * <ul>
+ *   <li>{@code entries}: hash of the names (and file or directory type) of the children. It only changes when a child
+ *       is added, removed or renamed.
+ *   <li>{@code listing}: hash of the names, sizes and dates of the children. It changes as soon as a direct child
+ *       changes. The ACLs are covered by the change time (ctime) of the children when the provider gives it, so they
+ *       are not read. Otherwise the ACL hashes of the children are used.
+ * </ul>
+ *
+ * <p>The fingerprints are only valid for the settings they have been computed with: the {@code signature} is compared
+ * with the signature of the current settings when the fingerprints are loaded.
+ */
+public class FsDirectoryFingerprints {
+
+    /** Fingerprint of one directory */
+    public record Fingerprint(String entries, String listing) {}
+
+    private String signature;
+    private Map<String, Fingerprint> directories = new ConcurrentHashMap<>();
+
+    public FsDirectoryFingerprints() {}
+
+    public FsDirectoryFingerprints(String signature) {
+        this.signature = signature;
+    }
+
+    /**
+     * Compute the fingerprint of a directory listing. The order of the children does not matter.
+     *
+     * @param children the children of the directory, as returned by the provider
+     * @return the fingerprint
+     */
+    public static Fingerprint fingerprint(Collection<FileAbstractModel> children) {
+        List<FileAbstractModel> sorted = new ArrayList<>(children);
+        sorted.sort(Comparator.comparing(FileAbstractModel::getName));
+        MessageDigest entries = newDigest();
+        MessageDigest listing = newDigest();
+        for (FileAbstractModel child : sorted) {
+            String entry = child.getName() + (child.isDirectory() ? "/" : "");
+            update(entries, entry);
+            update(listing, entry);
+            update(listing, Long.toString(child.getSize()));
+            update(listing, toEpochMilli(child.getLastModifiedDate()));
+            update(listing, toEpochMilli(child.getCreationDate()));
+            if (child.getChangeTime() != null) {
+                // Any change of the ACLs moves the ctime: no need to read the ACLs
+                update(listing, child.getChangeTime().toString());
+            } else {
+                update(listing, child.getAclHash());
+            }
+        }
+        HexFormat hex = HexFormat.of();
+        return new Fingerprint(hex.formatHex(entries.digest()), hex.formatHex(listing.digest()));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to compute directory fingerprint", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        // Separator, so "ab"+"c" and "a"+"bc" give different hashes
+        digest.update((byte) 0);
+    }
+
+    private static String toEpochMilli(Instant instant) {
+        return instant == null ? null : Long.toString(instant.toEpochMilli());
+    }
+
+    /** @return true if the directory was listed with exactly the same children last time */
+    public boolean isUnchanged(String path, Fingerprint fingerprint) {
+        Fingerprint previous = directories.get(path);
+        return previous != null && Objects.equals(previous.listing(), fingerprint.listing());
+    }
+
+    /** @return true if no child has been added, removed or renamed since the directory was listed last time */
+    public boolean hasSameEntries(String path, Fingerprint fingerprint) {
+        Fingerprint previous = directories.get(path);
+        return previous != null && Objects.equals(previous.entries(), fingerprint.entries());
+    }
+
+    /**
+     * Remember the fingerprint of a directory once it has been fully processed
+     *
+     * @return true if the stored fingerprint changed
+     */
+    public boolean put(String path, Fingerprint fingerprint) {
+        return !fingerprint.equals(directories.put(path, fingerprint));
+    }
+
+    /**
+     * Forget a directory and all its subdirectories
+     *
+     * @return true if at least one fingerprint was removed
+     */
+    public boolean removeTree(String path) {
+        return directories
+                .keySet()
+                .removeIf(dir -> dir.equals(path) || dir.startsWith(path + "/") || dir.startsWith(path + "\\"));
+    }
+
+    /**
+     * Forget all the directories which are not in the given set
+     *
+     * @return true if at least one fingerprint was removed
+     */
+    public boolean retainAll(Set<String> paths) {
+        return retainAll(paths::contains);
+    }
+
+    /**
+     * Forget all the directories which do not match the given predicate
+     *
+     * @param crawled true for the directories to keep
+     * @return true if at least one fingerprint was removed
+     */
+    public boolean retainAll(Predicate<String> crawled) {
+        return directories.keySet().removeIf(path -> !crawled.test(path));
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public void setSignature(String signature) {
+        this.signature = signature;
+    }
+
+    public Map<String, Fingerprint> getDirectories() {
+        return directories;
+    }
+
+    public void setDirectories(Map<String, Fingerprint> directories) {
+        this.directories = directories == null ? new ConcurrentHashMap<>() : new ConcurrentHashMap<>(directories);
+    }
+}
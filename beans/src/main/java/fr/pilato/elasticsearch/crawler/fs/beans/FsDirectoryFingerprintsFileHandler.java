@@ -0,0 +1,60 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.beans;
+
+import fr.pilato.elasticsearch.crawler.fs.framework.JsonUtil;
+import fr.pilato.elasticsearch.crawler.fs.framework.MetaFileHandler;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/** Stores the fingerprints of the crawled directories so unchanged directories can be skipped on the next runs. */
+public class FsDirectoryFingerprintsFileHandler extends MetaFileHandler {
+
+    private static final String FILENAME = "_dir_fingerprints.json";
+
+    public FsDirectoryFingerprintsFileHandler(Path root) {
+        super(root);
+    }
+
+    /**
+     * Read the fingerprints of a job
+     *
+     * @param jobName the job name
+     * @return the fingerprints or null if there are no fingerprints for this job
+     * @throws IOException in case of error while reading (other than file not found)
+     */
+    public FsDirectoryFingerprints read(String jobName) throws IOException {
+        try {
+            return JsonUtil.mapper.readValue(readFile(jobName, FILENAME), FsDirectoryFingerprints.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    public void write(String jobName, FsDirectoryFingerprints fingerprints) throws IOException {
+        writeFile(jobName, FILENAME, JsonUtil.mapper.writeValueAsString(fingerprints));
+    }
+
+    public void clean(String jobName) throws IOException {
+        removeFile(jobName, FILENAME);
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.beans;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Text and metadata extracted from documents, stored in {@code ~/.fscrawler/{job_name}/_extraction_cache} and found
+ * back by the checksum of the document content. A file which is touched without being modified, or which is copied in
+ * several places, is then extracted only once.
+ *
+ * <p>Each entry is a gzip compressed file. When the entries take more than the maximum size, the least recently used
+ * ones are removed. The last use of an entry is its file modification time, so the order survives restarts.
+ *
+ * <p>This cache is only an optimization: an entry which can not be read or written is logged and ignored.
+ */
+public class FsExtractionCache {
+    private static final Logger logger = LogManager.getLogger();
+
+    public static final String DIRNAME = "_extraction_cache";
+
+    private static final int MAGIC = 0x46534543; // FSEC
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".gz";
+    private static final String TMP_EXTENSION = ".tmp";
+
+    /**
+     * Extraction result
+     *
+     * @param content the extracted text
+     * @param metadata the metadata found by the parser, by name
+     */
+    public record Entry(String content, Map<String, List<String>> metadata) {}
+
+    private final Path dir;
+    private final long maxBytes;
+    /** key -> size of the entry on disk, the least recently used first */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Open a cache, creating its directory if needed
+     *
+     * @param dir the directory of the cache
+     * @param maxBytes the maximum size of the entries on disk
+     * @throws IOException if the directory can not be created or read
+     */
+    public FsExtractionCache(Path dir, long maxBytes) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(dir);
+        load();
+    }
+
+    /** Index the existing entries, the least recently used first */
+    private void load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir, 2)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        // Temporary files are left when the crawler stopped while writing an entry
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(TMP_EXTENSION)) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.debug("Can not remove [{}]: {}", file, e.getMessage());
+                }
+            }
+        }
+        files = files.stream()
+                .filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+                .sorted(Comparator.comparing(FsExtractionCache::lastModified))
+                .toList();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long size = Files.size(file);
+            entries.put(name.substring(0, name.length() - EXTENSION.length()), size);
+            totalBytes += size;
+        }
+        evict();
+        logger.debug("Extraction cache [{}] opened with [{}] entries ([{}] bytes)", dir, entries.size(), totalBytes);
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * Compute the key of an entry
+     *
+     * @param contentDigest the digest of the document content
+     * @param settings the settings which change the extraction result (parser configuration, OCR, indexed chars...)
+     * @return the key, as an hexadecimal string
+     */
+    public static String key(byte[] contentDigest, String settings) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(contentDigest);
+            digest.update(settings.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Get an extraction result
+     *
+     * @param key the key of the entry
+     * @return the extraction result or null if unknown
+     */
+    public Entry get(String key) {
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+        Path file = file(key);
+        try {
+            Entry entry = read(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return entry;
+        } catch (NoSuchFileException e) {
+            // Evicted in the meantime
+            misses.incrementAndGet();
+            return null;
+        } catch (IOException e) {
+            logger.debug("Can not read the extraction cache entry [{}]: {}", file, e.getMessage());
+            remove(key);
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Store an extraction result. The least recently used entries are removed if the cache gets too big.
+     *
+     * @param key the key of the entry
+     * @param entry the extraction result
+     */
+    public void put(String key, Entry entry) {
+        Path file = file(key);
+        Path tmp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            tmp = Files.createTempFile(file.getParent(), key, TMP_EXTENSION);
+            write(tmp, entry);
+            long size = Files.size(tmp);
+            if (size > maxBytes) {
+                Files.delete(tmp);
+                return;
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+            synchronized (this) {
+                Long previous = entries.put(key, size);
+                totalBytes += size - (previous == null ? 0 : previous);
+                evict();
+            }
+        } catch (IOException e) {
+            logger.debug("Can not write the extraction cache entry [{}]: {}", file, e.getMessage());
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    logger.debug("Can not remove [{}]: {}", tmp, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+            delete(key);
+        }
+    }
+
+    /** Remove the least recently used entries until the cache fits in its maximum size */
+    private synchronized void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            delete(eldest.getKey());
+        }
+    }
+
+    private void delete(String key) {
+        try {
+            Files.deleteIfExists(file(key));
+        } catch (IOException e) {
+            logger.debug("Can not remove the extraction cache entry [{}]: {}", key, e.getMessage());
+        }
+    }
+
+    private Path file(String key) {
+        return dir.resolve(key.substring(0, 2)).resolve(key + EXTENSION);
+    }
+
+    private static void write(Path file, Entry entry) throws IOException {
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, entry.content());
+            out.writeInt(entry.metadata().size());
+            for (Map.Entry<String, List<String>> metadata : entry.metadata().entrySet()) {
+                writeString(out, metadata.getKey());
+                out.writeInt(metadata.getValue().size());
+                for (String value : metadata.getValue()) {
+                    writeString(out, value);
+                }
+            }
+        }
+    }
+
+    private static Entry read(Path file) throws IOException {
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("not an extraction cache entry");
+            }
+            String content = readString(in);
+            int count = in.readInt();
+            Map<String, List<String>> metadata = new LinkedHashMap<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = readString(in);
+                int valueCount = in.readInt();
+                List<String> values = new ArrayList<>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(readString(in));
+                }
+                metadata.put(name, values);
+            }
+            return new Entry(content, metadata);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** @return the number of entries */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** @return the size of the entries on disk */
+    public synchronized long getSizeInBytes() {
+        return totalBytes;
+    }
+
+    /** @return the number of extraction results found in the cache */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /** @return the number of extraction results not found in the cache */
+    public long getMisses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,470 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.beans;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Local state of the files and directories sent to Elasticsearch, stored in {@code ~/.fscrawler/{job_name}/_state.db}.
+ * Entries are grouped by parent directory and identified by their name.
+ *
+ * <p>The file is an append-only log of records, memory-mapped by segments. Updating or removing an entry appends a new
+ * record and the previous one becomes garbage, which is removed by {@link #compactIfNeeded()}. Only the position of the
+ * last record of each entry is kept in memory, so listing the known children of a directory does not read the file.
+ *
+ * <p>Each record is protected by a CRC32: if the process stopped while writing a record, this record and everything
+ * after it are ignored when the store is opened again.
+ */
+public class FsStateStore implements Closeable {
+    private static final Logger logger = LogManager.getLogger();
+
+    public static final String FILENAME = "_state.db";
+
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int MAGIC = 0x46535354; // FSST
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int END_OF_SEGMENT = -1;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final long MIN_GARBAGE_TO_COMPACT = 1024 * 1024;
+
+    /**
+     * State of a file or a directory
+     *
+     * @param id the document id in Elasticsearch
+     * @param directory true for a directory
+     * @param size the size of the file, or -1 if unknown
+     * @param lastModified the last modification date in milliseconds since epoch, or -1 if unknown
+     * @param checksum the checksum of the file if computed
+     * @param aclHash the hash of the ACLs if collected
+     */
+    public record Entry(String id, boolean directory, long size, long lastModified, String checksum, String aclHash) {}
+
+    private final Path file;
+    private final int segmentSize;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    /** parent directory -> name -> position of the last record of the entry */
+    private final Map<String, Map<String, Long>> directories = new HashMap<>();
+
+    private FileChannel channel;
+    private long writePosition;
+    private long liveBytes;
+    private long garbageBytes;
+    private int size;
+
+    /**
+     * Open a state store, creating it if needed
+     *
+     * @param file the file of the store
+     * @throws IOException if the file can not be read or is not a state store
+     */
+    public FsStateStore(Path file) throws IOException {
+        this(file, DEFAULT_SEGMENT_SIZE);
+    }
+
+    FsStateStore(Path file, int segmentSize) throws IOException {
+        this.file = file;
+        this.segmentSize = segmentSize;
+        open();
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long length = channel.size();
+        if (length == 0) {
+            segment(0).putInt(0, MAGIC).putInt(4, VERSION);
+            writePosition = HEADER_SIZE;
+            return;
+        }
+        for (int i = 0; (long) i * segmentSize < length; i++) {
+            segment(i);
+        }
+        if (segments.get(0).getInt(0) != MAGIC || segments.get(0).getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("File [" + file + "] is not a FSCrawler state store");
+        }
+        load();
+    }
+
+    /** Read all the records to rebuild the in-memory positions */
+    private void load() {
+        long position = HEADER_SIZE;
+        while (position / segmentSize < segments.size()) {
+            MappedByteBuffer segment = segments.get((int) (position / segmentSize));
+            int offset = (int) (position % segmentSize);
+            if (offset + RECORD_HEADER_SIZE > segmentSize) {
+                position = nextSegment(position);
+                continue;
+            }
+            int length = segment.getInt(offset);
+            if (length == END_OF_SEGMENT) {
+                position = nextSegment(position);
+                continue;
+            }
+            if (length <= 0 || offset + RECORD_HEADER_SIZE + length > segmentSize) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            segment.get(offset + RECORD_HEADER_SIZE, payload);
+            if (crc(payload) != segment.getInt(offset + 4)) {
+                logger.warn(
+                        "State store [{}] has an incomplete record at [{}]. Ignoring what follows.", file, position);
+                // Clear it, so it can not be mistaken for a valid record once overwritten by shorter ones
+                for (int i = offset; i < segmentSize; i++) {
+                    segment.put(i, (byte) 0);
+                }
+                break;
+            }
+            apply(ByteBuffer.wrap(payload), position, RECORD_HEADER_SIZE + length);
+            position += RECORD_HEADER_SIZE + length;
+        }
+        writePosition = position;
+        logger.debug("State store [{}] opened with [{}] entries", file, size);
+    }
+
+    private void apply(ByteBuffer payload, long position, int recordSize) {
+        byte operation = payload.get();
+        String dir = readString(payload);
+        String name = readString(payload);
+        if (operation == PUT) {
+            Long previous =
+                    directories.computeIfAbsent(dir, k -> new HashMap<>()).put(name, position);
+            liveBytes += recordSize;
+            if (previous == null) {
+                size++;
+            } else {
+                markAsGarbage(previous);
+            }
+        } else {
+            Map<String, Long> children = directories.get(dir);
+            Long previous = children == null ? null : children.remove(name);
+            if (children != null && children.isEmpty()) {
+                directories.remove(dir);
+            }
+            garbageBytes += recordSize;
+            if (previous != null) {
+                size--;
+                markAsGarbage(previous);
+            }
+        }
+    }
+
+    /** The record at this position is not the last one of its entry anymore */
+    private void markAsGarbage(long position) {
+        int recordSize = RECORD_HEADER_SIZE + segmentAt(position).getInt(offsetOf(position));
+        liveBytes -= recordSize;
+        garbageBytes += recordSize;
+    }
+
+    /**
+     * Get the state of a file or directory
+     *
+     * @param dir the parent directory
+     * @param name the name of the file or directory
+     * @return the entry or null if unknown
+     */
+    public synchronized Entry get(String dir, String name) {
+        Map<String, Long> children = directories.get(dir);
+        Long position = children == null ? null : children.get(name);
+        return position == null ? null : read(position);
+    }
+
+    /**
+     * List the known children of a directory
+     *
+     * @param dir the directory
+     * @return the entries by name. Empty if the directory is unknown.
+     */
+    public synchronized Map<String, Entry> list(String dir) {
+        Map<String, Long> children = directories.get(dir);
+        if (children == null) {
+            return Map.of();
+        }
+        Map<String, Entry> entries = new HashMap<>(children.size());
+        children.forEach((name, position) -> entries.put(name, read(position)));
+        return entries;
+    }
+
+    /**
+     * Store the state of a file or directory. Nothing is written if the state did not change.
+     *
+     * @param dir the parent directory
+     * @param name the name of the file or directory
+     * @param entry the state
+     * @throws IOException if the store can not be written
+     */
+    public synchronized void put(String dir, String name, Entry entry) throws IOException {
+        if (entry.equals(get(dir, name))) {
+            return;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(payloadSize(dir, name, entry));
+        payload.put(PUT);
+        writeString(payload, dir);
+        writeString(payload, name);
+        writeString(payload, entry.id());
+        payload.put(entry.directory() ? (byte) 1 : (byte) 0);
+        payload.putLong(entry.size());
+        payload.putLong(entry.lastModified());
+        writeString(payload, entry.checksum());
+        writeString(payload, entry.aclHash());
+        append(payload);
+    }
+
+    /**
+     * Remove the state of a file or directory
+     *
+     * @param dir the parent directory
+     * @param name the name of the file or directory
+     * @return true if the entry existed
+     * @throws IOException if the store can not be written
+     */
+    public synchronized boolean remove(String dir, String name) throws IOException {
+        Map<String, Long> children = directories.get(dir);
+        if (children == null || !children.containsKey(name)) {
+            return false;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(payloadSize(dir, name, null));
+        payload.put(REMOVE);
+        writeString(payload, dir);
+        writeString(payload, name);
+        append(payload);
+        return true;
+    }
+
+    /**
+     * Remove the state of all the files and directories within a directory and its subdirectories
+     *
+     * @param path the directory
+     * @return the number of removed entries
+     * @throws IOException if the store can not be written
+     */
+    public synchronized int removeTree(String path) throws IOException {
+        List<String> dirs = directories.keySet().stream()
+                .filter(dir -> dir.equals(path) || dir.startsWith(path + "/") || dir.startsWith(path + "\\"))
+                .toList();
+        int removed = 0;
+        for (String dir : dirs) {
+            for (String name : List.copyOf(directories.get(dir).keySet())) {
+                remove(dir, name);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /** @return the number of entries */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Remove all the entries */
+    public synchronized void clear() throws IOException {
+        closeChannel();
+        Files.deleteIfExists(file);
+        reset();
+        open();
+    }
+
+    /** Write the pending changes to the disk */
+    public synchronized void flush() {
+        segments.forEach(MappedByteBuffer::force);
+    }
+
+    /**
+     * Rewrite the store without the garbage if it takes more room than the entries. Must not be called concurrently
+     * with other operations.
+     *
+     * @return true if the store has been compacted
+     * @throws IOException if the store can not be written
+     */
+    public synchronized boolean compactIfNeeded() throws IOException {
+        if (garbageBytes < MIN_GARBAGE_TO_COMPACT || garbageBytes < liveBytes) {
+            return false;
+        }
+        logger.debug(
+                "Compacting state store [{}]: [{}] bytes used by [{}] entries, [{}] bytes of garbage",
+                file,
+                liveBytes,
+                size,
+                garbageBytes);
+        Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(compacted);
+        try (FsStateStore target = new FsStateStore(compacted, segmentSize)) {
+            for (Map.Entry<String, Map<String, Long>> dir : directories.entrySet()) {
+                for (Map.Entry<String, Long> child : dir.getValue().entrySet()) {
+                    target.put(dir.getKey(), child.getKey(), read(child.getValue()));
+                }
+            }
+        }
+        closeChannel();
+        try {
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            reset();
+            open();
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeChannel();
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            flush();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void reset() {
+        segments.clear();
+        directories.clear();
+        writePosition = 0;
+        liveBytes = 0;
+        garbageBytes = 0;
+        size = 0;
+    }
+
+    private void append(ByteBuffer payload) throws IOException {
+        byte[] bytes = payload.array();
+        int recordSize = RECORD_HEADER_SIZE + bytes.length;
+        if (recordSize > segmentSize) {
+            throw new IOException("Entry too big for state store [" + file + "]: [" + recordSize + "] bytes");
+        }
+        int offset = offsetOf(writePosition);
+        if (offset + recordSize > segmentSize) {
+            if (offset + 4 <= segmentSize) {
+                segmentAt(writePosition).putInt(offset, END_OF_SEGMENT);
+            }
+            writePosition = nextSegment(writePosition);
+            offset = 0;
+        }
+        MappedByteBuffer segment = segment((int) (writePosition / segmentSize));
+        // Write the payload first and the length last, so a partial write is never seen as a valid record
+        segment.put(offset + RECORD_HEADER_SIZE, bytes);
+        segment.putInt(offset + 4, crc(bytes));
+        segment.putInt(offset, bytes.length);
+        long position = writePosition;
+        writePosition += recordSize;
+        apply(ByteBuffer.wrap(bytes), position, recordSize);
+    }
+
+    private Entry read(long position) {
+        MappedByteBuffer segment = segmentAt(position);
+        int offset = offsetOf(position);
+        byte[] bytes = new byte[segment.getInt(offset)];
+        segment.get(offset + RECORD_HEADER_SIZE, bytes);
+        ByteBuffer payload = ByteBuffer.wrap(bytes);
+        payload.get();
+        readString(payload);
+        readString(payload);
+        String id = readString(payload);
+        boolean directory = payload.get() == 1;
+        long entrySize = payload.getLong();
+        long lastModified = payload.getLong();
+        return new Entry(id, directory, entrySize, lastModified, readString(payload), readString(payload));
+    }
+
+    /** Get a segment, mapping it (and growing the file) if needed */
+    private MappedByteBuffer segment(int index) throws IOException {
+        while (segments.size() <= index) {
+            segments.add(
+                    channel.map(FileChannel.MapMode.READ_WRITE, (long) segments.size() * segmentSize, segmentSize));
+        }
+        return segments.get(index);
+    }
+
+    private MappedByteBuffer segmentAt(long position) {
+        return segments.get((int) (position / segmentSize));
+    }
+
+    private int offsetOf(long position) {
+        return (int) (position % segmentSize);
+    }
+
+    private long nextSegment(long position) {
+        return (position / segmentSize + 1) * segmentSize;
+    }
+
+    private static int payloadSize(String dir, String name, Entry entry) {
+        int payloadSize = 1 + stringSize(dir) + stringSize(name);
+        if (entry != null) {
+            payloadSize +=
+                    stringSize(entry.id()) + 1 + 8 + 8 + stringSize(entry.checksum()) + stringSize(entry.aclHash());
+        }
+        return payloadSize;
+    }
+
+    private static int stringSize(String value) {
+        return 4 + (value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
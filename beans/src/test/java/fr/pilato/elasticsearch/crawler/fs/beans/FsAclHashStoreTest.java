@@ -0,0 +1,147 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.beans;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FsAclHashStoreTest extends AbstractFSCrawlerTestCase {
+
+    @Test
+    void putMatchesAndRemove() throws IOException {
+        try (FsAclHashStore store = new FsAclHashStore(testTmpDir.resolve(FsAclHashStore.FILENAME))) {
+            Assertions.assertThat(store.put("a", "hash-a")).isTrue();
+            Assertions.assertThat(store.put("a", "hash-a")).isFalse();
+            Assertions.assertThat(store.contains("a")).isTrue();
+            Assertions.assertThat(store.matches("a", "hash-a")).isTrue();
+            Assertions.assertThat(store.matches("a", "hash-b")).isFalse();
+            Assertions.assertThat(store.contains("b")).isFalse();
+            Assertions.assertThat(store.matches("b", "hash-a")).isFalse();
+
+            Assertions.assertThat(store.put("a", "hash-b")).isTrue();
+            Assertions.assertThat(store.matches("a", "hash-b")).isTrue();
+            Assertions.assertThat(store.size()).isEqualTo(1);
+
+            Assertions.assertThat(store.remove("a")).isTrue();
+            Assertions.assertThat(store.remove("a")).isFalse();
+            Assertions.assertThat(store.contains("a")).isFalse();
+            Assertions.assertThat(store.size()).isZero();
+        }
+    }
+
+    @Test
+    void entriesSurviveGrowingAndReopening() throws IOException {
+        Path path = testTmpDir.resolve(FsAclHashStore.FILENAME);
+        Map<String, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        // Small segments and capacity so the table grows and spans several segments
+        try (FsAclHashStore store = new FsAclHashStore(path, 256, 16)) {
+            for (int i = 0; i < 5_000; i++) {
+                String id = "id-" + random.nextInt(2_000);
+                if (random.nextInt(4) == 0) {
+                    Assertions.assertThat(store.remove(id)).isEqualTo(expected.remove(id) != null);
+                } else {
+                    String hash = "hash-" + random.nextInt(3);
+                    store.put(id, hash);
+                    expected.put(id, hash);
+                }
+            }
+            Assertions.assertThat(store.size()).isEqualTo(expected.size());
+        }
+        try (FsAclHashStore store = new FsAclHashStore(path, 256, 16)) {
+            Assertions.assertThat(store.size()).isEqualTo(expected.size());
+            for (int i = 0; i < 2_000; i++) {
+                String id = "id-" + i;
+                Assertions.assertThat(store.contains(id)).isEqualTo(expected.containsKey(id));
+                if (expected.containsKey(id)) {
+                    Assertions.assertThat(store.matches(id, expected.get(id))).isTrue();
+                }
+            }
+        }
+    }
+
+    @Test
+    void changeTimeAndFilesWithoutAcl() throws IOException {
+        Path path = testTmpDir.resolve(FsAclHashStore.FILENAME);
+        try (FsAclHashStore store = new FsAclHashStore(path, 256, 16)) {
+            Assertions.assertThat(store.getChangeTime("a")).isZero();
+            Assertions.assertThat(store.getLastFullCheck()).isZero();
+
+            store.put("a", "hash-a", 1_000L);
+            store.put("b", null, 2_000L);
+            Assertions.assertThat(store.getChangeTime("a")).isEqualTo(1_000L);
+            Assertions.assertThat(store.getChangeTime("b")).isEqualTo(2_000L);
+            // A file known without ACL
+            Assertions.assertThat(store.contains("b")).isFalse();
+            Assertions.assertThat(store.matches("b", null)).isTrue();
+            Assertions.assertThat(store.matches("b", "hash-a")).isFalse();
+
+            // Only the change time moved
+            Assertions.assertThat(store.put("a", "hash-a", 3_000L)).isFalse();
+            Assertions.assertThat(store.getChangeTime("a")).isEqualTo(3_000L);
+            store.setLastFullCheck(42L);
+
+            // Force the table to grow
+            for (int i = 0; i < 100; i++) {
+                store.put("id-" + i, "hash", i + 1);
+            }
+        }
+        try (FsAclHashStore store = new FsAclHashStore(path, 256, 16)) {
+            Assertions.assertThat(store.getLastFullCheck()).isEqualTo(42L);
+            Assertions.assertThat(store.getChangeTime("a")).isEqualTo(3_000L);
+            Assertions.assertThat(store.getChangeTime("b")).isEqualTo(2_000L);
+            Assertions.assertThat(store.getChangeTime("id-99")).isEqualTo(100L);
+            Assertions.assertThat(store.remove("b")).isTrue();
+            Assertions.assertThat(store.getChangeTime("b")).isZero();
+        }
+    }
+
+    @Test
+    void otherFilesAreRejected() throws IOException {
+        Path path = testTmpDir.resolve(FsAclHashStore.FILENAME);
+        Files.writeString(path, "{\"not\":\"a store at all\"}");
+        Assertions.assertThatThrownBy(() -> new FsAclHashStore(path)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void jsonCacheOfPreviousVersionsIsImported() throws IOException {
+        Files.createDirectories(testTmpDir.resolve(jobName));
+        Path legacy = testTmpDir.resolve(jobName).resolve("_acl_cache.json");
+        Files.writeString(legacy, "{\"a\":\"hash-a\",\"b\":\"hash-b\"}");
+
+        FsAclsFileHandler handler = new FsAclsFileHandler(testTmpDir);
+        try (FsAclHashStore store = handler.open(jobName)) {
+            Assertions.assertThat(store.size()).isEqualTo(2);
+            Assertions.assertThat(store.matches("b", "hash-b")).isTrue();
+        }
+        Assertions.assertThat(legacy).doesNotExist();
+        try (FsAclHashStore store = handler.open(jobName)) {
+            Assertions.assertThat(store.matches("a", "hash-a")).isTrue();
+        }
+    }
+}
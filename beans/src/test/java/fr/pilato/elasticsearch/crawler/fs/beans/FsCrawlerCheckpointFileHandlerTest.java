@@ -20,8 +20,13 @@
  */
 package fr.pilato.elasticsearch.crawler.fs.beans;
 
+import fr.pilato.elasticsearch.crawler.fs.framework.JsonUtil;
 import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.time.Instant;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -121,7 +126,9 @@ class FsCrawlerCheckpointFileHandlerTest extends AbstractFSCrawlerTestCase {
         Assertions.assertThat(read.getScanId()).isEqualTo("test-scan-id");
         Assertions.assertThat(read.getCurrentPath()).isEqualTo("/current");
         Assertions.assertThat(read.getPendingPaths()).hasSize(2);
-        Assertions.assertThat(read.getCompletedPaths()).hasSize(2);
+        Assertions.assertThat(read.getCompletedPathsCount()).isEqualTo(2);
+        Assertions.assertThat(read.isCompleted("/completed1")).isTrue();
+        Assertions.assertThat(read.isCompleted("/completed2")).isTrue();
         Assertions.assertThat(read.getFilesProcessed()).isEqualTo(100);
         Assertions.assertThat(read.getFilesDeleted()).isEqualTo(5);
         Assertions.assertThat(read.getState()).isEqualTo(CrawlerState.RUNNING);
@@ -152,4 +159,162 @@ class FsCrawlerCheckpointFileHandlerTest extends AbstractFSCrawlerTestCase {
         Assertions.assertThat(checkpoint.getFilesDeleted()).isEqualTo(legacyJob.getDeleted());
         Assertions.assertThat(checkpoint.getState()).isEqualTo(CrawlerState.COMPLETED);
     }
+
+    @Test
+    void journal_is_replayed_on_read() throws IOException {
+        FsCrawlerCheckpoint checkpoint = FsCrawlerCheckpoint.newCheckpoint("/root");
+        checkpoint.enableJournal();
+        handler.write(jobName, checkpoint);
+
+        Assertions.assertThat(checkpoint.pollNextPath()).isEqualTo("/root");
+        checkpoint.setCurrentPath("/root");
+        checkpoint.addPath("/root/a");
+        checkpoint.addPath("/root/b");
+        checkpoint.markCompleted("/root");
+        checkpoint.incrementFilesProcessed();
+        handler.append(jobName, checkpoint);
+
+        checkpoint.pollNextPath();
+        checkpoint.addPathFirst("/root/a");
+        checkpoint.markInProgress("/root/b", 3);
+        checkpoint.incrementFilesProcessed();
+        checkpoint.setLastError("boom");
+        handler.append(jobName, checkpoint);
+
+        // The snapshot was only written once
+        FsCrawlerCheckpoint snapshot = JsonUtil.prettyMapper.readValue(
+                Files.readString(testTmpDir.resolve(jobName).resolve(FsCrawlerCheckpointFileHandler.FILENAME)),
+                FsCrawlerCheckpoint.class);
+        Assertions.assertThat(snapshot.getPendingPaths()).containsExactly("/root");
+
+        FsCrawlerCheckpoint read = handler.read(jobName);
+        Assertions.assertThat(read.getPendingPaths()).containsExactly("/root/a", "/root/b");
+        Assertions.assertThat(read.getCompletedPathsCount()).isEqualTo(1);
+        Assertions.assertThat(read.isCompleted("/root")).isTrue();
+        Assertions.assertThat(read.getInProgressPaths()).containsEntry("/root/b", 3);
+        Assertions.assertThat(read.getCurrentPath()).isEqualTo("/root");
+        Assertions.assertThat(read.getFilesProcessed()).isEqualTo(2);
+        Assertions.assertThat(read.getLastError()).isEqualTo("boom");
+        Assertions.assertThat(read).isEqualTo(checkpoint);
+    }
+
+    @Test
+    void journal_of_an_older_snapshot_is_ignored() throws IOException {
+        FsCrawlerCheckpoint checkpoint = FsCrawlerCheckpoint.newCheckpoint("/root");
+        checkpoint.enableJournal();
+        handler.write(jobName, checkpoint);
+        checkpoint.markCompleted("/root");
+        handler.append(jobName, checkpoint);
+        Path journal = testTmpDir.resolve(jobName).resolve(FsCrawlerCheckpointFileHandler.JOURNAL_FILENAME);
+        String olderJournal = Files.readString(journal);
+
+        // Write a new snapshot, then put back the journal of the previous one (crash before the journal was reset)
+        checkpoint.clearCompletedPaths();
+        handler.write(jobName, checkpoint);
+        Files.writeString(journal, olderJournal);
+
+        Assertions.assertThat(handler.read(jobName).getCompletedPathsCount()).isZero();
+    }
+
+    @Test
+    void truncated_journal_record_is_ignored() throws IOException {
+        FsCrawlerCheckpoint checkpoint = FsCrawlerCheckpoint.newCheckpoint("/root");
+        checkpoint.enableJournal();
+        handler.write(jobName, checkpoint);
+        checkpoint.markCompleted("/root/a");
+        handler.append(jobName, checkpoint);
+        Path journal = testTmpDir.resolve(jobName).resolve(FsCrawlerCheckpointFileHandler.JOURNAL_FILENAME);
+        Files.writeString(journal, "{\"type\":\"COMPLETED\",\"pa", StandardOpenOption.APPEND);
+
+        FsCrawlerCheckpoint read = handler.read(jobName);
+        Assertions.assertThat(read.getCompletedPathsCount()).isEqualTo(1);
+        Assertions.assertThat(read.isCompleted("/root/a")).isTrue();
+    }
+
+    @Test
+    void journal_is_compacted_into_a_snapshot() throws IOException {
+        FsCrawlerCheckpoint checkpoint = FsCrawlerCheckpoint.newCheckpoint("/root");
+        checkpoint.enableJournal();
+        handler.write(jobName, checkpoint);
+        long sequence = checkpoint.getJournalSequence();
+
+        for (int i = 0; i < FsCrawlerCheckpointFileHandler.JOURNAL_MIN_RECORDS; i++) {
+            checkpoint.addPath("/root/" + i);
+            checkpoint.pollNextPath();
+        }
+        handler.append(jobName, checkpoint);
+
+        Assertions.assertThat(checkpoint.getJournalSequence()).isEqualTo(sequence + 1);
+        Path journal = testTmpDir.resolve(jobName).resolve(FsCrawlerCheckpointFileHandler.JOURNAL_FILENAME);
+        Assertions.assertThat(Files.readAllLines(journal)).hasSize(1);
+        Assertions.assertThat(handler.read(jobName)).isEqualTo(checkpoint);
+    }
+
+    @Test
+    void clean_removes_the_journal() throws IOException {
+        FsCrawlerCheckpoint checkpoint = FsCrawlerCheckpoint.newCheckpoint("/root");
+        checkpoint.enableJournal();
+        handler.write(jobName, checkpoint);
+        Path journal = testTmpDir.resolve(jobName).resolve(FsCrawlerCheckpointFileHandler.JOURNAL_FILENAME);
+        Assertions.assertThat(journal).exists();
+
+        handler.clean(jobName);
+
+        Assertions.assertThat(journal).doesNotExist();
+    }
+
+    @Test
+    void snapshot_is_binary_and_json_is_exported() throws IOException {
+        FsCrawlerCheckpoint checkpoint = FsCrawlerCheckpoint.newCheckpoint("/root");
+        Path dir = testTmpDir.resolve(jobName);
+
+        handler.write(jobName, checkpoint, false);
+        Assertions.assertThat(dir.resolve(FsCrawlerCheckpointFileHandler.SNAPSHOT_FILENAME))
+                .exists();
+        Assertions.assertThat(dir.resolve(FsCrawlerCheckpointFileHandler.FILENAME))
+                .doesNotExist();
+        Assertions.assertThat(handler.read(jobName)).isEqualTo(checkpoint);
+
+        handler.write(jobName, checkpoint);
+        Assertions.assertThat(dir.resolve(FsCrawlerCheckpointFileHandler.FILENAME))
+                .exists();
+        Assertions.assertThat(dir.resolve(FsCrawlerCheckpointFileHandler.SNAPSHOT_FILENAME + ".tmp"))
+                .doesNotExist();
+        Assertions.assertThat(handler.read(jobName)).isEqualTo(checkpoint);
+
+        handler.clean(jobName);
+        Assertions.assertThat(dir.resolve(FsCrawlerCheckpointFileHandler.SNAPSHOT_FILENAME))
+                .doesNotExist();
+        Assertions.assertThat(dir.resolve(FsCrawlerCheckpointFileHandler.FILENAME))
+                .doesNotExist();
+    }
+
+    @Test
+    void edited_json_export_is_read() throws IOException {
+        FsCrawlerCheckpoint checkpoint = new FsCrawlerCheckpoint();
+        checkpoint.setState(CrawlerState.COMPLETED);
+        checkpoint.setNextCheck(Instant.parse("2030-01-01T00:00:00Z"));
+        handler.write(jobName, checkpoint);
+
+        // The user sets next_check to force a new scan
+        Path json = testTmpDir.resolve(jobName).resolve(FsCrawlerCheckpointFileHandler.FILENAME);
+        Path snapshot = testTmpDir.resolve(jobName).resolve(FsCrawlerCheckpointFileHandler.SNAPSHOT_FILENAME);
+        Files.writeString(json, Files.readString(json).replace("2030-01-01T00:00:00Z", "2020-01-01T00:00:00Z"));
+        Files.setLastModifiedTime(
+                json, FileTime.fromMillis(Files.getLastModifiedTime(snapshot).toMillis() + 1000));
+
+        Assertions.assertThat(handler.read(jobName).getNextCheck()).isEqualTo(Instant.parse("2020-01-01T00:00:00Z"));
+    }
+
+    @Test
+    void json_of_previous_versions_is_read() throws IOException {
+        Files.createDirectories(testTmpDir.resolve(jobName));
+        Files.writeString(
+                testTmpDir.resolve(jobName).resolve(FsCrawlerCheckpointFileHandler.FILENAME),
+                "{\"scan_id\":\"legacy\",\"state\":\"PAUSED\",\"completed_paths\":[\"/root\"]}");
+
+        FsCrawlerCheckpoint read = handler.read(jobName);
+        Assertions.assertThat(read.getScanId()).isEqualTo("legacy");
+        Assertions.assertThat(read.isCompleted("/root")).isTrue();
+    }
 }
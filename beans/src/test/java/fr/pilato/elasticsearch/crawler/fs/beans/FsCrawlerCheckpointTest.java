@@ -63,6 +63,7 @@ class FsCrawlerCheckpointTest extends AbstractFSCrawlerTestCase {
         checkpoint.addPath("/pending/path1");
         checkpoint.addPath("/pending/path2");
         checkpoint.markCompleted("/completed/path1");
+        checkpoint.markInProgress("/in/progress/path1", 12);
         checkpoint.setFilesProcessed(100);
         checkpoint.setFilesDeleted(5);
         checkpoint.setState(CrawlerState.RUNNING);
@@ -148,7 +149,42 @@ class FsCrawlerCheckpointTest extends AbstractFSCrawlerTestCase {
 
         Assertions.assertThat(checkpoint.isCompleted("/path1")).isTrue();
         Assertions.assertThat(checkpoint.isCompleted("/path2")).isFalse();
-        Assertions.assertThat(checkpoint.getCompletedPaths()).hasSize(1);
+        Assertions.assertThat(checkpoint.getCompletedPathsCount()).isEqualTo(1);
+    }
+
+    @Test
+    void completed_paths_of_previous_versions_are_read() throws IOException {
+        String json = "{\"scan_id\":\"x\",\"state\":\"PAUSED\",\"completed_paths\":[\"/path1\",\"/path2\"]}";
+        FsCrawlerCheckpoint checkpoint = JsonUtil.prettyMapper.readValue(json, FsCrawlerCheckpoint.class);
+
+        Assertions.assertThat(checkpoint.getCompletedPathsCount()).isEqualTo(2);
+        Assertions.assertThat(checkpoint.isCompleted("/path1")).isTrue();
+        Assertions.assertThat(checkpoint.isCompleted("/path2")).isTrue();
+
+        // Written back with the fingerprints only
+        String written = JsonUtil.prettyMapper.writeValueAsString(checkpoint);
+        Assertions.assertThat(written).contains("completed_path_fingerprints").doesNotContain("/path1");
+        Assertions.assertThat(JsonUtil.prettyMapper.readValue(written, FsCrawlerCheckpoint.class))
+                .isEqualTo(checkpoint);
+    }
+
+    @Test
+    void testInProgressPaths() {
+        FsCrawlerCheckpoint checkpoint = new FsCrawlerCheckpoint();
+
+        Assertions.assertThat(checkpoint.getInProgressFilesIndexedCount("/path1"))
+                .isZero();
+
+        checkpoint.markInProgress("/path1", 0);
+        checkpoint.markInProgress("/path2", 42);
+        Assertions.assertThat(checkpoint.getInProgressPaths()).containsOnlyKeys("/path1", "/path2");
+        Assertions.assertThat(checkpoint.getInProgressFilesIndexedCount("/path2"))
+                .isEqualTo(42);
+
+        checkpoint.clearInProgress("/path2");
+        Assertions.assertThat(checkpoint.getInProgressPaths()).containsOnlyKeys("/path1");
+        Assertions.assertThat(checkpoint.getInProgressFilesIndexedCount("/path2"))
+                .isZero();
     }
 
     @Test
@@ -239,8 +275,7 @@ class FsCrawlerCheckpointTest extends AbstractFSCrawlerTestCase {
         // Setters normalize null to empty collections
         Assertions.assertThat(checkpoint.getPendingPaths()).isNotNull();
         Assertions.assertThat(checkpoint.getPendingPaths()).isEmpty();
-        Assertions.assertThat(checkpoint.getCompletedPaths()).isNotNull();
-        Assertions.assertThat(checkpoint.getCompletedPaths()).isEmpty();
+        Assertions.assertThat(checkpoint.getCompletedPathsCount()).isZero();
 
         // toString() must not throw (defensive null check)
         Assertions.assertThat(checkpoint.toString()).contains("pendingPaths=0").contains("completedPaths=0");
@@ -248,7 +283,7 @@ class FsCrawlerCheckpointTest extends AbstractFSCrawlerTestCase {
         // ensureConcurrentCollections() must not throw and must leave collections non-null
         checkpoint.ensureConcurrentCollections();
         Assertions.assertThat(checkpoint.getPendingPaths()).isNotNull();
-        Assertions.assertThat(checkpoint.getCompletedPaths()).isNotNull();
+        Assertions.assertThat(checkpoint.getCompletedPathsCount()).isZero();
         Assertions.assertThat(checkpoint.toString()).contains("pendingPaths=0").contains("completedPaths=0");
     }
 
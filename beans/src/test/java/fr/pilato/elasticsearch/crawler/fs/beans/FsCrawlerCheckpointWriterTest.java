@@ -0,0 +1,115 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.beans;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FsCrawlerCheckpointWriterTest extends AbstractFSCrawlerTestCase {
+
+    /** Counts the writes and makes them slow so requests pile up */
+    private static class SlowHandler extends FsCrawlerCheckpointFileHandler {
+        private final AtomicInteger snapshots = new AtomicInteger();
+        private final AtomicInteger appends = new AtomicInteger();
+
+        SlowHandler(java.nio.file.Path root) {
+            super(root);
+        }
+
+        @Override
+        public void write(String jobname, FsCrawlerCheckpoint checkpoint, boolean export) throws IOException {
+            snapshots.incrementAndGet();
+            pause();
+            super.write(jobname, checkpoint, export);
+        }
+
+        @Override
+        public void append(String jobname, FsCrawlerCheckpoint checkpoint) throws IOException {
+            appends.incrementAndGet();
+            pause();
+            super.append(jobname, checkpoint);
+        }
+
+        private static void pause() {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    void requests_are_coalesced() throws IOException {
+        SlowHandler handler = new SlowHandler(testTmpDir);
+        FsCrawlerCheckpoint checkpoint = FsCrawlerCheckpoint.newCheckpoint("/root");
+        checkpoint.enableJournal();
+        FsCrawlerCheckpointWriter writer = new FsCrawlerCheckpointWriter(handler, jobName);
+
+        writer.snapshot(checkpoint);
+        for (int i = 0; i < 100; i++) {
+            checkpoint.markCompleted("/root/" + i);
+            writer.append(checkpoint);
+        }
+        Assertions.assertThat(writer.flush(Duration.ofSeconds(10))).isTrue();
+
+        // The first snapshot, then one append for all the others at most
+        Assertions.assertThat(handler.snapshots.get() + handler.appends.get()).isLessThanOrEqualTo(3);
+        Assertions.assertThat(handler.read(jobName)).isEqualTo(checkpoint);
+        writer.close();
+    }
+
+    @Test
+    void json_is_only_exported_when_not_running() throws IOException {
+        FsCrawlerCheckpointFileHandler handler = new FsCrawlerCheckpointFileHandler(testTmpDir);
+        FsCrawlerCheckpoint checkpoint = FsCrawlerCheckpoint.newCheckpoint("/root");
+        FsCrawlerCheckpointWriter writer = new FsCrawlerCheckpointWriter(handler, jobName);
+
+        writer.snapshot(checkpoint);
+        Assertions.assertThat(writer.flush(Duration.ofSeconds(10))).isTrue();
+        Assertions.assertThat(testTmpDir.resolve(jobName).resolve(FsCrawlerCheckpointFileHandler.FILENAME))
+                .doesNotExist();
+
+        checkpoint.setState(CrawlerState.PAUSED);
+        writer.snapshot(checkpoint);
+        writer.close();
+        Assertions.assertThat(testTmpDir.resolve(jobName).resolve(FsCrawlerCheckpointFileHandler.FILENAME))
+                .exists();
+        Assertions.assertThat(handler.read(jobName).getState()).isEqualTo(CrawlerState.PAUSED);
+    }
+
+    @Test
+    void requests_after_close_are_written_synchronously() throws IOException {
+        FsCrawlerCheckpointFileHandler handler = new FsCrawlerCheckpointFileHandler(testTmpDir);
+        FsCrawlerCheckpoint checkpoint = FsCrawlerCheckpoint.newCheckpoint("/root");
+        FsCrawlerCheckpointWriter writer = new FsCrawlerCheckpointWriter(handler, jobName);
+        writer.close();
+
+        checkpoint.setState(CrawlerState.STOPPED);
+        writer.snapshot(checkpoint);
+
+        Assertions.assertThat(handler.read(jobName).getState()).isEqualTo(CrawlerState.STOPPED);
+    }
+}
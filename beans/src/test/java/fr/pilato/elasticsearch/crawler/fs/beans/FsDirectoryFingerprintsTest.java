@@ -0,0 +1,134 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.beans;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FsDirectoryFingerprintsTest extends AbstractFSCrawlerTestCase {
+
+    private static final Instant DATE = Instant.parse("2026-01-01T10:00:00Z");
+
+    private static FileAbstractModel file(String name, long size, Instant lastModified) {
+        return new FileAbstractModel(
+                name, true, lastModified, DATE, DATE, "txt", "/dir", "/dir/" + name, size, null, null, -1, null, null);
+    }
+
+    private static FileAbstractModel dir(String name) {
+        return new FileAbstractModel(
+                name, false, DATE, DATE, DATE, null, "/dir", "/dir/" + name, 0, null, null, -1, null, null);
+    }
+
+    @Test
+    void fingerprintDoesNotDependOnListingOrder() {
+        FsDirectoryFingerprints.Fingerprint first =
+                FsDirectoryFingerprints.fingerprint(List.of(file("a.txt", 10, DATE), dir("sub")));
+        FsDirectoryFingerprints.Fingerprint second =
+                FsDirectoryFingerprints.fingerprint(List.of(dir("sub"), file("a.txt", 10, DATE)));
+        Assertions.assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    void modifiedFileOnlyChangesTheListing() {
+        FsDirectoryFingerprints fingerprints = new FsDirectoryFingerprints("signature");
+        fingerprints.put("/dir", FsDirectoryFingerprints.fingerprint(List.of(file("a.txt", 10, DATE), dir("sub"))));
+
+        FsDirectoryFingerprints.Fingerprint modified =
+                FsDirectoryFingerprints.fingerprint(List.of(file("a.txt", 12, DATE.plusSeconds(10)), dir("sub")));
+        Assertions.assertThat(fingerprints.isUnchanged("/dir", modified)).isFalse();
+        Assertions.assertThat(fingerprints.hasSameEntries("/dir", modified)).isTrue();
+
+        FsDirectoryFingerprints.Fingerprint added = FsDirectoryFingerprints.fingerprint(
+                List.of(file("a.txt", 10, DATE), file("b.txt", 10, DATE), dir("sub")));
+        Assertions.assertThat(fingerprints.isUnchanged("/dir", added)).isFalse();
+        Assertions.assertThat(fingerprints.hasSameEntries("/dir", added)).isFalse();
+
+        Assertions.assertThat(fingerprints.isUnchanged("/other", modified)).isFalse();
+        Assertions.assertThat(fingerprints.hasSameEntries("/other", modified)).isFalse();
+    }
+
+    private static FileAbstractModel file(String name, Instant changeTime, AtomicInteger aclReads) {
+        return new FileAbstractModel(
+                name, true, DATE, DATE, DATE, changeTime, "txt", "/dir", "/dir/" + name, 10, null, null, -1, () -> {
+                    aclReads.incrementAndGet();
+                    return List.of();
+                });
+    }
+
+    @Test
+    void changeTimeIsUsedInsteadOfTheAcls() {
+        AtomicInteger aclReads = new AtomicInteger();
+        FsDirectoryFingerprints fingerprints = new FsDirectoryFingerprints("signature");
+        fingerprints.put("/dir", FsDirectoryFingerprints.fingerprint(List.of(file("a.txt", DATE, aclReads))));
+
+        Assertions.assertThat(fingerprints.isUnchanged(
+                        "/dir", FsDirectoryFingerprints.fingerprint(List.of(file("a.txt", DATE, aclReads)))))
+                .isTrue();
+        // Permissions or ACLs changed: only the ctime moved
+        Assertions.assertThat(fingerprints.isUnchanged(
+                        "/dir",
+                        FsDirectoryFingerprints.fingerprint(List.of(file("a.txt", DATE.plusSeconds(1), aclReads)))))
+                .isFalse();
+        Assertions.assertThat(aclReads).hasValue(0);
+    }
+
+    @Test
+    void removeTreeAndRetainAll() {
+        FsDirectoryFingerprints fingerprints = new FsDirectoryFingerprints("signature");
+        FsDirectoryFingerprints.Fingerprint fingerprint = FsDirectoryFingerprints.fingerprint(List.of());
+        fingerprints.put("/dir", fingerprint);
+        fingerprints.put("/dir/sub", fingerprint);
+        fingerprints.put("/dir/sub/deeper", fingerprint);
+        fingerprints.put("/dir/subway", fingerprint);
+
+        Assertions.assertThat(fingerprints.removeTree("/dir/sub")).isTrue();
+        Assertions.assertThat(fingerprints.getDirectories()).containsOnlyKeys("/dir", "/dir/subway");
+
+        Assertions.assertThat(fingerprints.retainAll(Set.of("/dir"))).isTrue();
+        Assertions.assertThat(fingerprints.getDirectories()).containsOnlyKeys("/dir");
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        FsDirectoryFingerprintsFileHandler handler = new FsDirectoryFingerprintsFileHandler(testTmpDir);
+        Assertions.assertThat(handler.read(jobName)).isNull();
+
+        FsDirectoryFingerprints fingerprints = new FsDirectoryFingerprints("signature");
+        FsDirectoryFingerprints.Fingerprint fingerprint =
+                FsDirectoryFingerprints.fingerprint(List.of(file("a.txt", 10, DATE)));
+        fingerprints.put("/dir", fingerprint);
+        handler.write(jobName, fingerprints);
+
+        FsDirectoryFingerprints read = handler.read(jobName);
+        Assertions.assertThat(read).isNotNull();
+        Assertions.assertThat(read.getSignature()).isEqualTo("signature");
+        Assertions.assertThat(read.isUnchanged("/dir", fingerprint)).isTrue();
+
+        handler.clean(jobName);
+        Assertions.assertThat(handler.read(jobName)).isNull();
+    }
+}
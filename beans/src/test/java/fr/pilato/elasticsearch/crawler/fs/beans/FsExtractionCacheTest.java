@@ -0,0 +1,146 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.beans;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FsExtractionCacheTest extends AbstractFSCrawlerTestCase {
+
+    private static final long ONE_MB = 1024 * 1024;
+
+    private static String key(String content) {
+        return FsExtractionCache.key(content.getBytes(StandardCharsets.UTF_8), "settings");
+    }
+
+    private static FsExtractionCache.Entry entry(String content) {
+        return new FsExtractionCache.Entry(content, Map.of("Content-Type", List.of("text/plain")));
+    }
+
+    @Test
+    void putAndGet() throws IOException {
+        Path dir = testTmpDir.resolve(FsExtractionCache.DIRNAME);
+        FsExtractionCache cache = new FsExtractionCache(dir, ONE_MB);
+        FsExtractionCache.Entry entry = new FsExtractionCache.Entry(
+                "Some text with accents: éàü",
+                Map.of("dc:creator", List.of("David", "Pilato"), "Content-Type", List.of("application/pdf")));
+
+        Assertions.assertThat(cache.get(key("a"))).isNull();
+        cache.put(key("a"), entry);
+        Assertions.assertThat(cache.get(key("a"))).isEqualTo(entry);
+        Assertions.assertThat(cache.size()).isEqualTo(1);
+        Assertions.assertThat(cache.getHits()).isEqualTo(1);
+        Assertions.assertThat(cache.getMisses()).isEqualTo(1);
+
+        // The entries are found again after a restart
+        cache = new FsExtractionCache(dir, ONE_MB);
+        Assertions.assertThat(cache.size()).isEqualTo(1);
+        Assertions.assertThat(cache.get(key("a"))).isEqualTo(entry);
+    }
+
+    @Test
+    void keyDependsOnTheSettings() {
+        byte[] digest = "content".getBytes(StandardCharsets.UTF_8);
+        Assertions.assertThat(FsExtractionCache.key(digest, "ocr=true"))
+                .isEqualTo(FsExtractionCache.key(digest, "ocr=true"))
+                .isNotEqualTo(FsExtractionCache.key(digest, "ocr=false"))
+                .hasSize(64);
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreRemoved() throws IOException {
+        Path dir = testTmpDir.resolve(FsExtractionCache.DIRNAME);
+        FsExtractionCache cache = new FsExtractionCache(dir, ONE_MB);
+        cache.put(key("a"), entry("a"));
+        long entrySize = cache.getSizeInBytes();
+
+        // Room for two entries only
+        cache = new FsExtractionCache(dir, entrySize * 2 + entrySize / 2);
+        cache.put(key("b"), entry("b"));
+        Assertions.assertThat(cache.get(key("a"))).isNotNull();
+        cache.put(key("c"), entry("c"));
+
+        Assertions.assertThat(cache.size()).isEqualTo(2);
+        Assertions.assertThat(cache.get(key("a"))).isNotNull();
+        Assertions.assertThat(cache.get(key("b"))).isNull();
+        Assertions.assertThat(cache.get(key("c"))).isNotNull();
+        try (Stream<Path> files = Files.walk(dir)) {
+            Assertions.assertThat(files.filter(Files::isRegularFile)).hasSize(2);
+        }
+    }
+
+    @Test
+    void entryBiggerThanTheCacheIsNotStored() throws IOException {
+        FsExtractionCache cache = new FsExtractionCache(testTmpDir.resolve(FsExtractionCache.DIRNAME), 100);
+        // Random text, which gzip can not compress much
+        byte[] text = new byte[10_000];
+        Random random = new Random(0);
+        for (int i = 0; i < text.length; i++) {
+            text[i] = (byte) ('a' + random.nextInt(26));
+        }
+        cache.put(key("big"), entry(new String(text, StandardCharsets.US_ASCII)));
+        Assertions.assertThat(cache.size()).isZero();
+        Assertions.assertThat(cache.get(key("big"))).isNull();
+    }
+
+    @Test
+    void corruptedEntryIsIgnored() throws IOException {
+        Path dir = testTmpDir.resolve(FsExtractionCache.DIRNAME);
+        FsExtractionCache cache = new FsExtractionCache(dir, ONE_MB);
+        cache.put(key("a"), entry("a"));
+        try (Stream<Path> files = Files.walk(dir)) {
+            Path file = files.filter(Files::isRegularFile).findFirst().orElseThrow();
+            Files.write(file, new byte[] {1, 2, 3});
+        }
+
+        Assertions.assertThat(cache.get(key("a"))).isNull();
+        Assertions.assertThat(cache.size()).isZero();
+        cache.put(key("a"), entry("a"));
+        Assertions.assertThat(cache.get(key("a"))).isEqualTo(entry("a"));
+    }
+
+    @Test
+    void leftoverTemporaryFilesAreRemoved() throws IOException {
+        Path dir = testTmpDir.resolve(FsExtractionCache.DIRNAME);
+        FsExtractionCache cache = new FsExtractionCache(dir, ONE_MB);
+        cache.put(key("a"), entry("a"));
+        Path entryFile;
+        try (Stream<Path> files = Files.walk(dir)) {
+            entryFile = files.filter(Files::isRegularFile).findFirst().orElseThrow();
+        }
+        // Like a crash between the creation of the temporary file and its move
+        Path tmp = Files.createTempFile(entryFile.getParent(), key("b"), ".tmp");
+
+        cache = new FsExtractionCache(dir, ONE_MB);
+        Assertions.assertThat(tmp).doesNotExist();
+        Assertions.assertThat(entryFile).exists();
+        Assertions.assertThat(cache.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.beans;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FsStateStoreTest extends AbstractFSCrawlerTestCase {
+
+    private static FsStateStore.Entry file(String id, long size) {
+        return new FsStateStore.Entry(id, false, size, 1000L, null, null);
+    }
+
+    @Test
+    void putGetListAndRemove() throws IOException {
+        try (FsStateStore store = new FsStateStore(testTmpDir.resolve(FsStateStore.FILENAME))) {
+            store.put("/root", "a.txt", file("a", 10));
+            store.put("/root", "b.txt", new FsStateStore.Entry("b", false, 20, 2000L, "checksum", "acl"));
+            store.put("/root", "sub", new FsStateStore.Entry("sub", true, 0, 3000L, null, null));
+            store.put("/root/sub", "c.txt", file("c", 30));
+
+            Assertions.assertThat(store.size()).isEqualTo(4);
+            Assertions.assertThat(store.get("/root", "b.txt"))
+                    .isEqualTo(new FsStateStore.Entry("b", false, 20, 2000L, "checksum", "acl"));
+            Assertions.assertThat(store.get("/root", "unknown")).isNull();
+            Assertions.assertThat(store.list("/root")).containsOnlyKeys("a.txt", "b.txt", "sub");
+            Assertions.assertThat(store.list("/unknown")).isEmpty();
+
+            store.put("/root", "a.txt", file("a", 11));
+            Assertions.assertThat(store.get("/root", "a.txt").size()).isEqualTo(11);
+            Assertions.assertThat(store.size()).isEqualTo(4);
+
+            Assertions.assertThat(store.remove("/root", "a.txt")).isTrue();
+            Assertions.assertThat(store.remove("/root", "a.txt")).isFalse();
+            Assertions.assertThat(store.get("/root", "a.txt")).isNull();
+
+            Assertions.assertThat(store.removeTree("/root/sub")).isEqualTo(1);
+            Assertions.assertThat(store.list("/root/sub")).isEmpty();
+            Assertions.assertThat(store.size()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void entriesSurviveReopening() throws IOException {
+        Path path = testTmpDir.resolve(FsStateStore.FILENAME);
+        // Small segments so records are spread over several of them
+        try (FsStateStore store = new FsStateStore(path, 256)) {
+            for (int i = 0; i < 100; i++) {
+                store.put("/root/" + (i % 10), "file-" + i + ".txt", file("id-" + i, i));
+            }
+            for (int i = 0; i < 100; i += 2) {
+                store.remove("/root/" + (i % 10), "file-" + i + ".txt");
+            }
+        }
+        try (FsStateStore store = new FsStateStore(path, 256)) {
+            Assertions.assertThat(store.size()).isEqualTo(50);
+            Assertions.assertThat(store.get("/root/1", "file-1.txt")).isEqualTo(file("id-1", 1));
+            Assertions.assertThat(store.get("/root/2", "file-2.txt")).isNull();
+        }
+    }
+
+    @Test
+    void incompleteRecordIsIgnored() throws IOException {
+        Path path = testTmpDir.resolve(FsStateStore.FILENAME);
+        try (FsStateStore store = new FsStateStore(path, 1024)) {
+            store.put("/root", "a.txt", file("a", 10));
+        }
+        // Simulate a crash while writing a second record: length written, but not the content
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(8).putInt(50).putInt(12345).flip();
+            // File header + first record (header + 49 bytes of payload)
+            channel.write(buffer, 8 + 8 + 49);
+        }
+        try (FsStateStore store = new FsStateStore(path, 1024)) {
+            Assertions.assertThat(store.size()).isEqualTo(1);
+            store.put("/root", "b.txt", file("b", 20));
+        }
+        try (FsStateStore store = new FsStateStore(path, 1024)) {
+            Assertions.assertThat(store.list("/root")).containsOnlyKeys("a.txt", "b.txt");
+        }
+    }
+
+    @Test
+    void compactRemovesGarbage() throws IOException {
+        Path path = testTmpDir.resolve(FsStateStore.FILENAME);
+        try (FsStateStore store = new FsStateStore(path, 64 * 1024)) {
+            for (int i = 0; i < 20_000; i++) {
+                store.put("/root", "file-" + (i % 10) + ".txt", file("id", i));
+            }
+            Assertions.assertThat(store.compactIfNeeded()).isTrue();
+            Assertions.assertThat(store.compactIfNeeded()).isFalse();
+            Assertions.assertThat(store.size()).isEqualTo(10);
+            Assertions.assertThat(store.get("/root", "file-9.txt")).isEqualTo(file("id", 19_999));
+            store.put("/root", "new.txt", file("new", 1));
+        }
+        try (FsStateStore store = new FsStateStore(path, 64 * 1024)) {
+            Assertions.assertThat(store.size()).isEqualTo(11);
+        }
+    }
+
+    @Test
+    void clearRemovesAllEntries() throws IOException {
+        try (FsStateStore store = new FsStateStore(testTmpDir.resolve(FsStateStore.FILENAME))) {
+            store.put("/root", "a.txt", file("a", 10));
+            store.clear();
+            Assertions.assertThat(store.size()).isZero();
+            Assertions.assertThat(store.get("/root", "a.txt")).isNull();
+        }
+    }
+}
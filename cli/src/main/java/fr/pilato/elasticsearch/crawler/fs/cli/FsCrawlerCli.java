@@ -24,7 +24,9 @@ import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import fr.pilato.elasticsearch.crawler.fs.FsCrawlerImpl;
 import fr.pilato.elasticsearch.crawler.fs.beans.FsCrawlerCheckpointFileHandler;
+import fr.pilato.elasticsearch.crawler.fs.beans.FsDirectoryFingerprintsFileHandler;
 import fr.pilato.elasticsearch.crawler.fs.beans.FsJobFileHandler;
+import fr.pilato.elasticsearch.crawler.fs.beans.FsStateStore;
 import fr.pilato.elasticsearch.crawler.fs.framework.Banner;
 import fr.pilato.elasticsearch.crawler.fs.framework.FSCrawlerLogger;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerUtil;
@@ -110,6 +112,12 @@ public class FsCrawlerCli {
                 description = "Upgrade elasticsearch indices from one old version to the last version.")
         boolean upgrade = false;
 
+        @Parameter(
+                names = "--rebuild_state",
+                description =
+                        "Rebuild the local state store of the job (fs.state_store) from the elasticsearch indices.")
+        boolean rebuildState = false;
+
         @Parameter(names = "--setup", description = "Setup FSCrawler and associated services for a given job name.")
         boolean setup = false;
 
@@ -289,9 +297,13 @@ public class FsCrawlerCli {
 
         // If we ask to reinit, we need to clean the status and checkpoint for the job
         if (command.restart) {
-            logger.debug("Cleaning existing status and checkpoint for job [{}]...", jobName);
+            logger.debug(
+                    "Cleaning existing status, checkpoint, directory fingerprints and state store for job [{}]...",
+                    jobName);
             new FsJobFileHandler(configDir).clean(jobName);
             new FsCrawlerCheckpointFileHandler(configDir).clean(jobName);
+            new FsDirectoryFingerprintsFileHandler(configDir).clean(jobName);
+            Files.deleteIfExists(configDir.resolve(jobName).resolve(FsStateStore.FILENAME));
         }
 
         logger.debug("Starting job [{}]...", jobName);
@@ -380,6 +392,9 @@ public class FsCrawlerCli {
             // Let see if we want to upgrade an existing cluster to the latest version
             if (command.upgrade) {
                 logger.info("Upgrading job [{}]. No rule implemented. Skipping.", jobName);
+            } else if (command.rebuildState) {
+                logger.info("Rebuilding the state store of job [{}] from the index...", jobName);
+                fsCrawler.rebuildStateStore();
             } else {
                 if (!startFsCrawlerThreadAndServices(fsCrawler)) {
                     return;
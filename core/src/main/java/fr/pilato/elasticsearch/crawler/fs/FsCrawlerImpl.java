@@ -21,6 +21,7 @@
 package fr.pilato.elasticsearch.crawler.fs;
 
 import fr.pilato.elasticsearch.crawler.fs.beans.FsCrawlerCheckpointFileHandler;
+import fr.pilato.elasticsearch.crawler.fs.beans.FsStateStore;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerIllegalConfigurationException;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerUtil;
 import fr.pilato.elasticsearch.crawler.fs.service.FsCrawlerDocumentService;
@@ -48,6 +49,7 @@ public class FsCrawlerImpl implements AutoCloseable {
 
     public static final int LOOP_INFINITE = -1;
 
+    private final Path config;
     private final FsSettings settings;
     private final boolean rest;
     private final Integer loop;
@@ -61,6 +63,7 @@ public class FsCrawlerImpl implements AutoCloseable {
     public FsCrawlerImpl(Path config, FsSettings settings, Integer loop, boolean rest) {
         FsCrawlerUtil.createDirIfMissing(config);
 
+        this.config = config;
         this.settings = settings;
         this.loop = loop;
         this.rest = rest;
@@ -217,6 +220,29 @@ public class FsCrawlerImpl implements AutoCloseable {
         fsCrawlerThread.start();
     }
 
+    /**
+     * Rebuild the local state store of the job from the documents which are currently indexed. Used when the state
+     * store has been lost or is out of sync with the index.
+     *
+     * @return the number of files and folders read from the index
+     * @throws Exception if the index can not be read or the store can not be written
+     */
+    public long rebuildStateStore() throws Exception {
+        if (!settings.getFs().isStateStore()) {
+            logger.warn(
+                    "fs.state_store is disabled for job [{}]. The state store will not be used.", settings.getName());
+        }
+        managementService.start();
+        Path file = config.resolve(settings.getName()).resolve(FsStateStore.FILENAME);
+        try (FsStateStore store = new FsStateStore(file)) {
+            store.clear();
+            long count = managementService.loadIndexedState(store);
+            store.flush();
+            logger.info("State store [{}] rebuilt with [{}] files and folders", file, count);
+            return count;
+        }
+    }
+
     @Override
     public void close() throws InterruptedException, IOException {
         logger.debug("Closing FS crawler [{}]", settings.getName());
@@ -0,0 +1,221 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs;
+
+import fr.pilato.elasticsearch.crawler.fs.framework.pipeline.FsCrawlerPipelineStage;
+import fr.pilato.elasticsearch.crawler.fs.settings.Pipeline;
+import fr.pilato.elasticsearch.crawler.fs.tika.TikaDocParser;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The stages files go through when {@code fs.pipeline.enabled} is true. The thread listing a directory submits each
+ * file to the fetch stage, which reads the content from the provider and hands it over to the extract stage (Tika),
+ * which hands the document over to the serialize stage (JSON serialization and bulk processor). Every stage has its own
+ * threads and a bounded queue: when the bulk processor is busy sending a bulk, the serialize queue fills up, then the
+ * extract one, then the fetch one, and finally the listing thread waits.
+ *
+ * <p>The fetch stage runs in the listing thread when the provider does not support concurrent access. In that case the
+ * content is read once in memory or in a temp file so the extract threads never call the provider.
+ */
+class FsCrawlerPipeline implements Closeable {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** Files up to this size are read in memory by the fetch stage. Same threshold as the Tika parser buffer. */
+    private static final long IN_MEMORY_THRESHOLD = 64L * 1024;
+
+    private final String jobName;
+    private final boolean concurrentProvider;
+    private final String tempDir;
+    private final FsCrawlerPipelineStage fetch;
+    private final FsCrawlerPipelineStage extract;
+    private final FsCrawlerPipelineStage serialize;
+
+    FsCrawlerPipeline(String jobName, Pipeline settings, boolean concurrentProvider, String tempDir) {
+        this.jobName = jobName;
+        this.concurrentProvider = concurrentProvider;
+        this.tempDir = tempDir;
+        int fetchThreads = concurrentProvider ? settings.getFetchThreads() : 0;
+        this.fetch = new FsCrawlerPipelineStage(jobName, "fetch", fetchThreads, settings.getQueueSize());
+        this.extract =
+                new FsCrawlerPipelineStage(jobName, "extract", settings.getExtractThreads(), settings.getQueueSize());
+        this.serialize = new FsCrawlerPipelineStage(
+                jobName, "serialize", settings.getSerializeThreads(), settings.getQueueSize());
+        logger.debug(
+                "Pipeline started for job [{}] with [{}] fetch, [{}] extract and [{}] serialize threads",
+                jobName,
+                fetchThreads,
+                settings.getExtractThreads(),
+                settings.getSerializeThreads());
+    }
+
+    FsCrawlerPipelineStage fetch() {
+        return fetch;
+    }
+
+    FsCrawlerPipelineStage extract() {
+        return extract;
+    }
+
+    FsCrawlerPipelineStage serialize() {
+        return serialize;
+    }
+
+    /**
+     * Read the content of a file so it can be extracted by another thread.
+     *
+     * @param source opens the file from the provider
+     * @param size the file size, or a value &le; 0 when unknown
+     * @return the content, which must be closed once extracted
+     * @throws IOException if the file can not be read
+     */
+    FetchedContent fetchContent(TikaDocParser.InputStreamSupplier source, long size) throws IOException {
+        if (size > 0 && size <= IN_MEMORY_THRESHOLD) {
+            byte[] content;
+            try (InputStream in = source.open()) {
+                content = in.readAllBytes();
+            }
+            return new FetchedContent(() -> new ByteArrayInputStream(content), null);
+        }
+        if (concurrentProvider) {
+            // Big files are streamed from the provider by the extract thread
+            return new FetchedContent(source, null);
+        }
+        Path dir = tempDir != null ? Paths.get(tempDir) : Paths.get(System.getProperty("java.io.tmpdir"));
+        Files.createDirectories(dir);
+        Path spool = Files.createTempFile(dir, "fscrawler-pipeline-", ".tmp");
+        try (InputStream in = source.open()) {
+            Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+        return new FetchedContent(() -> Files.newInputStream(spool), spool);
+    }
+
+    /** Start tracking the files of a directory. */
+    DirectoryBatch newBatch(int skipCount) {
+        return new DirectoryBatch(skipCount);
+    }
+
+    @Override
+    public void close() {
+        fetch.close();
+        extract.close();
+        serialize.close();
+        logger.debug("Pipeline closed for job [{}]: {}, {}, {}", jobName, fetch, extract, serialize);
+    }
+
+    /** File content read by the fetch stage. Closing it removes the temp file, if any. */
+    record FetchedContent(TikaDocParser.InputStreamSupplier supplier, Path spoolFile) implements Closeable {
+        @Override
+        public void close() {
+            if (spoolFile != null) {
+                try {
+                    Files.deleteIfExists(spoolFile);
+                } catch (IOException e) {
+                    logger.warn("Can not remove temporary file [{}]: {}", spoolFile, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * The files of one directory which went into the pipeline. The directory is only marked as completed once all of
+     * them left the pipeline, so a checkpoint never records a directory whose files are still in flight.
+     */
+    static class DirectoryBatch {
+        private final Object monitor = new Object();
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private final AtomicInteger indexed = new AtomicInteger();
+        private final AtomicInteger skipCount;
+        private int pending;
+
+        private DirectoryBatch(int skipCount) {
+            this.skipCount = new AtomicInteger(skipCount);
+        }
+
+        /** A file entered the pipeline. */
+        void start() {
+            synchronized (monitor) {
+                pending++;
+            }
+        }
+
+        /** A file has been sent to the bulk processor. */
+        void indexed() {
+            indexed.incrementAndGet();
+            finish();
+        }
+
+        /** A file failed. Only the first failure is kept. */
+        void failed(Exception e) {
+            failure.compareAndSet(null, e);
+            finish();
+        }
+
+        /** A file left the pipeline without being indexed (filtered, skipped after an error, crawler closing). */
+        void finish() {
+            synchronized (monitor) {
+                pending--;
+                monitor.notifyAll();
+            }
+        }
+
+        /**
+         * When resuming an interrupted directory, the first files indexed again must not be counted twice.
+         *
+         * @return true if this file must not be counted
+         */
+        boolean consumeSkip() {
+            return skipCount.getAndUpdate(v -> v > 0 ? v - 1 : 0) > 0;
+        }
+
+        /** Wait for all the files of this directory to leave the pipeline. */
+        void await() throws InterruptedException {
+            synchronized (monitor) {
+                while (pending > 0) {
+                    monitor.wait();
+                }
+            }
+        }
+
+        /** @return the first failure, or null */
+        Exception getFailure() {
+            return failure.get();
+        }
+
+        /** @return the number of files sent to the bulk processor */
+        int getIndexed() {
+            return indexed.get();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Compare the entries listed by the provider for a directory with the entries known from a previous run (in the index
+ * or in the state store).
+ *
+ * <p>The listed entries are kept in hash sets, so comparing a directory is linear in the number of entries instead of
+ * looking up every known entry in the listing.
+ */
+class FsDirectoryDiff {
+
+    private final Set<String> listed = new HashSet<>();
+
+    /** An entry has been listed by the provider */
+    void listed(String name) {
+        listed.add(name);
+    }
+
+    boolean isListed(String name) {
+        return listed.contains(name);
+    }
+
+    /**
+     * Compare the listed entries with the known ones
+     *
+     * @param known the entries known from a previous run
+     * @param tracked the known entries which can be removed. The others are ignored, like the files which are now
+     *     excluded.
+     * @return the known and tracked entries which have not been listed
+     */
+    List<String> removed(Collection<String> known, Predicate<String> tracked) {
+        return removed(known, listed, tracked);
+    }
+
+    /**
+     * @param known the entries known from a previous run
+     * @param listed the entries which have been listed
+     * @param tracked the known entries which can be removed
+     * @return the known and tracked entries which have not been listed
+     */
+    static List<String> removed(Collection<String> known, Set<String> listed, Predicate<String> tracked) {
+        List<String> removed = new ArrayList<>();
+        for (String name : known) {
+            if (!listed.contains(name) && tracked.test(name)) {
+                removed.add(name);
+            }
+        }
+        return removed;
+    }
+}
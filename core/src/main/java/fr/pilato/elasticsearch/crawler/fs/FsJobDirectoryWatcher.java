@@ -0,0 +1,144 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Set;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Watches some files of the job directory (for example {@code _checkpoint.json}) and calls a listener when one of them
+ * is created, modified or removed by someone else. This lets the crawler notice external edits while it sleeps between
+ * two runs without reading the files again and again.
+ *
+ * <p>{@link #start} returns {@code null} when the job directory can not be watched, in which case the caller must fall
+ * back to reading the files periodically.
+ */
+class FsJobDirectoryWatcher implements Closeable {
+    private static final Logger logger = LogManager.getLogger();
+
+    private final Path directory;
+    private final Set<String> filenames;
+    private final Runnable listener;
+    private final WatchService watchService;
+    private final Thread thread;
+    private volatile boolean watching = true;
+
+    private FsJobDirectoryWatcher(
+            String jobName, Path directory, Set<String> filenames, Runnable listener, WatchService watchService) {
+        this.directory = directory;
+        this.filenames = filenames;
+        this.listener = listener;
+        this.watchService = watchService;
+        this.thread = new Thread(this::watch, "fs-job-watcher-" + jobName);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Start watching files of a job directory
+     *
+     * @param jobName the job name, used for the thread name
+     * @param directory the job directory. It is created if needed.
+     * @param filenames the names of the files to watch
+     * @param listener called from the watcher thread when one of the files changed
+     * @return the watcher or null if the directory can not be watched
+     */
+    static FsJobDirectoryWatcher start(String jobName, Path directory, Set<String> filenames, Runnable listener) {
+        WatchService watchService = null;
+        try {
+            Files.createDirectories(directory);
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.debug("Can not watch job directory [{}]: {}", directory, e.getMessage());
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException ignored) {
+                    // We are already falling back to polling
+                }
+            }
+            return null;
+        }
+        FsJobDirectoryWatcher watcher =
+                new FsJobDirectoryWatcher(jobName, directory, filenames, listener, watchService);
+        watcher.thread.start();
+        logger.debug("Watching {} in job directory [{}]", filenames, directory);
+        return watcher;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // When events have been lost, one of our files may have changed
+                    changed |= event.kind() == OVERFLOW
+                            || filenames.contains(event.context().toString());
+                }
+                if (changed) {
+                    logger.trace("Change detected in job directory [{}]", directory);
+                    listener.run();
+                }
+                if (!key.reset()) {
+                    logger.debug("Job directory [{}] can not be watched anymore", directory);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Closed
+        } finally {
+            watching = false;
+            // Let the caller check the files by itself from now on
+            listener.run();
+        }
+    }
+
+    /** @return false once the changes are not reported anymore (directory removed or watcher closed) */
+    boolean isWatching() {
+        return watching;
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.debug("Error while closing the watch service of [{}]: {}", directory, e.getMessage());
+        }
+    }
+}
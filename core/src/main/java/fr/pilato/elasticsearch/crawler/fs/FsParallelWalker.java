@@ -0,0 +1,161 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs;
+
+import fr.pilato.elasticsearch.crawler.fs.beans.FsCrawlerCheckpoint;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Walks directories with a fixed number of worker threads. Workers share the checkpoint pending queue: each worker
+ * takes the next pending directory, and the subdirectories it discovers are appended to the same queue, so any idle
+ * worker picks them up. A single huge subtree is therefore split across all workers as soon as its first levels have
+ * been listed.
+ *
+ * <p>The walk ends when the queue is empty and no worker is processing a directory anymore (a busy worker may still add
+ * new directories), when {@code stopRequested} returns true (pause or close), or when a worker fails. In the latter
+ * case the other workers stop taking new directories and the first failure is rethrown by {@link #walk}.
+ */
+class FsParallelWalker {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** How long an idle worker waits before polling the queue again if nobody woke it up. */
+    private static final long IDLE_WAIT_MS = 100;
+
+    /** Processes one directory taken from the pending queue. */
+    @FunctionalInterface
+    interface DirectoryProcessor {
+        void process(String path) throws Exception;
+    }
+
+    private final String jobName;
+    private final int threads;
+    private final Object monitor = new Object();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private int inFlight;
+
+    FsParallelWalker(String jobName, int threads) {
+        this.jobName = jobName;
+        this.threads = threads;
+    }
+
+    /**
+     * Process all the pending directories of the checkpoint.
+     *
+     * @param checkpoint the checkpoint holding the pending queue
+     * @param stopRequested when true, workers stop taking new directories
+     * @param processor the callback processing one directory
+     * @throws Exception the first exception thrown by the processor
+     */
+    void walk(FsCrawlerCheckpoint checkpoint, BooleanSupplier stopRequested, DirectoryProcessor processor)
+            throws Exception {
+        failure.set(null);
+        // Keep the current tracing context (traverse span) as parent of the spans created by the workers
+        Context parentContext = Context.current();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "fs-walker-" + jobName + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.debug("Walking directories of job [{}] with [{}] threads", jobName, threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    try (Scope ignored = parentContext.makeCurrent()) {
+                        work(checkpoint, stopRequested, processor);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.debug("Interrupted while waiting for walker threads of job [{}]", jobName);
+        } catch (ExecutionException e) {
+            // Processor failures are collected in failure: this is a worker interrupted or failing on its own
+            failure.compareAndSet(null, new IllegalStateException(e.getCause()));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Exception e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    private void work(FsCrawlerCheckpoint checkpoint, BooleanSupplier stopRequested, DirectoryProcessor processor)
+            throws InterruptedException {
+        while (true) {
+            String path = nextPath(checkpoint, stopRequested);
+            if (path == null) {
+                return;
+            }
+            try {
+                processor.process(path);
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                synchronized (monitor) {
+                    inFlight--;
+                    // New directories may have been queued, or the walk may be over: wake up idle workers
+                    monitor.notifyAll();
+                }
+            }
+        }
+    }
+
+    /** Take the next pending directory, or return null when the walk is over for this worker. */
+    private String nextPath(FsCrawlerCheckpoint checkpoint, BooleanSupplier stopRequested) throws InterruptedException {
+        synchronized (monitor) {
+            while (true) {
+                if (failure.get() != null || stopRequested.getAsBoolean()) {
+                    return null;
+                }
+                String path = checkpoint.pollNextPath();
+                if (path != null) {
+                    inFlight++;
+                    return path;
+                }
+                if (inFlight == 0) {
+                    // Nothing pending and nobody can add more work anymore
+                    return null;
+                }
+                monitor.wait(IDLE_WAIT_MS);
+            }
+        }
+    }
+}
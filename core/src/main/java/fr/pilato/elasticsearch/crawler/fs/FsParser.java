@@ -27,14 +27,25 @@ import fr.pilato.elasticsearch.crawler.fs.beans.Doc;
 import fr.pilato.elasticsearch.crawler.fs.beans.DocUtils;
 import fr.pilato.elasticsearch.crawler.fs.beans.FileAbstractModel;
 import fr.pilato.elasticsearch.crawler.fs.beans.Folder;
+import fr.pilato.elasticsearch.crawler.fs.beans.FsAclHashStore;
 import fr.pilato.elasticsearch.crawler.fs.beans.FsAclsFileHandler;
 import fr.pilato.elasticsearch.crawler.fs.beans.FsCrawlerCheckpoint;
 import fr.pilato.elasticsearch.crawler.fs.beans.FsCrawlerCheckpointFileHandler;
+import fr.pilato.elasticsearch.crawler.fs.beans.FsCrawlerCheckpointWriter;
+import fr.pilato.elasticsearch.crawler.fs.beans.FsDirectoryFingerprints;
+import fr.pilato.elasticsearch.crawler.fs.beans.FsDirectoryFingerprintsFileHandler;
+import fr.pilato.elasticsearch.crawler.fs.beans.FsExtractionCache;
+import fr.pilato.elasticsearch.crawler.fs.beans.FsStateStore;
 import fr.pilato.elasticsearch.crawler.fs.beans.ScanStatistic;
 import fr.pilato.elasticsearch.crawler.fs.framework.ByteSizeValue;
 import fr.pilato.elasticsearch.crawler.fs.framework.FSCrawlerLogger;
 import fr.pilato.elasticsearch.crawler.fs.framework.FileAcl;
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerContentFilter;
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerFileAttributes;
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerIgnoreRules;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerIllegalConfigurationException;
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerPathMatcher;
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerPrincipalCache;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerSourceNotFoundException;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerUtil;
 import fr.pilato.elasticsearch.crawler.fs.framework.JsonUtil;
@@ -44,35 +55,47 @@ import fr.pilato.elasticsearch.crawler.fs.framework.tracing.FsCrawlerMetrics;
 import fr.pilato.elasticsearch.crawler.fs.framework.tracing.FsCrawlerTracing;
 import fr.pilato.elasticsearch.crawler.fs.service.FsCrawlerDocumentService;
 import fr.pilato.elasticsearch.crawler.fs.service.FsCrawlerManagementService;
+import fr.pilato.elasticsearch.crawler.fs.settings.Fs;
 import fr.pilato.elasticsearch.crawler.fs.settings.FsSettings;
+import fr.pilato.elasticsearch.crawler.fs.settings.Pipeline;
 import fr.pilato.elasticsearch.crawler.fs.settings.Server.PROTOCOL;
 import fr.pilato.elasticsearch.crawler.fs.tika.TikaDocParser;
 import fr.pilato.elasticsearch.crawler.fs.tika.XmlDocParser;
 import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerExtensionFsProvider;
 import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerExtensionPasswordProvider;
 import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerPluginException;
+import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerWatchEvent;
+import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerWatcher;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
@@ -103,35 +126,91 @@ public class FsParser implements Runnable, AutoCloseable {
 
     // Checkpoint configuration
     private static final int CHECKPOINT_INTERVAL_FILES = 100; // Save checkpoint every N files
+    private static final Duration CHECKPOINT_FLUSH_TIMEOUT = Duration.ofSeconds(30);
     private static final int MAX_RETRIES = 10;
     private static final long INITIAL_RETRY_DELAY_MS = 1000;
 
     final FsSettings fsSettings;
     private final FsCrawlerCheckpointFileHandler checkpointHandler;
+    private final Path jobDirectory;
+    /** Reports external changes of the checkpoint files. Null when the job directory can not be watched. */
+    private volatile FsJobDirectoryWatcher jobDirectoryWatcher;
+    /** Set by the job directory watcher: the checkpoint file must be read again before the next wait. */
+    private final AtomicBoolean checkpointFileChanged = new AtomicBoolean(false);
+    /** Writes the checkpoint from a background thread */
+    private final FsCrawlerCheckpointWriter checkpointWriter;
+
     private final FsAclsFileHandler fsAclsFileHandler;
 
     private final FsCrawlerManagementService managementService;
     private final FsCrawlerDocumentService documentService;
     private final Integer loop;
     private final boolean rest;
-    private final Map<String, String> aclHashCache;
-    private boolean aclHashCacheDirty;
+    /** Opened when the crawler starts. Null when ACL changes are not tracked or the store can not be opened. */
+    private volatile FsAclHashStore aclHashStore;
+    /** True when the current run reads the ACLs of all the files, whatever their ctime (fs.acl_full_check_rate). */
+    private volatile boolean aclFullCheck;
+    /** Null when fs.skip_unchanged_directories is disabled. */
+    private final FsDirectoryFingerprintsFileHandler directoryFingerprintsFileHandler;
+
+    private final FsDirectoryFingerprints directoryFingerprints;
+    private volatile boolean directoryFingerprintsDirty;
+    // Null when fs.state_store is disabled
+    private final Path stateStoreFile;
+    // Opened when the crawler thread starts. Null when disabled or if it could not be opened.
+    private volatile FsStateStore stateStore;
     /** Null when loop == 0 (REST-only mode); no crawl is performed. */
     private final FsCrawlerExtensionFsProvider crawlerPlugin;
+    /** Number of threads walking directories. Always 1 when the provider does not support concurrent access. */
+    private final int walkerThreads;
+    /** Set by a walker thread which failed so the other ones interrupt the directory they are processing. */
+    private final AtomicBoolean walkAborted = new AtomicBoolean(false);
+    /** Serializes reconnections after network errors when several walker threads are running. */
+    private final Object networkRecoveryLock = new Object();
 
     private final FsCrawlerExtensionPasswordProvider passwordProvider;
 
+    /** The includes and excludes, compiled once for the job */
+    private final FsCrawlerPathMatcher pathMatcher;
+    /** The filters on the extracted content, compiled once for the job */
+    private final FsCrawlerContentFilter contentFilter;
+    /**
+     * Rules inherited from the {@code .fscrawlerignore} files of the parents of the directories waiting to be crawled
+     */
+    private final Map<String, FsCrawlerIgnoreRules> ignoreRulesByDirectory = new ConcurrentHashMap<>();
+
     private final String metadataFilename;
+    /** Owner and group names of the local folders */
+    private final FsCrawlerPrincipalCache principalCache;
+
     private final byte[] staticMetadata;
     /** Null json/xml jobs: documents passed through without Tika extraction. */
     private final TikaDocParser tikaDocParser;
+    /** Stages files go through during a crawl run when {@code fs.pipeline.enabled} is true. Null otherwise. */
+    private volatile FsCrawlerPipeline pipeline;
+    /** Reports the changes between two runs when {@code fs.watch} is true. Only used by the crawler thread. */
+    private FsCrawlerWatcher watcher;
+    /** Directories registered on the watcher. */
+    private final Set<String> watchedDirectories = new HashSet<>();
+    /**
+     * Directories completed during the current run when {@code fs.watch} is true, to be watched once the run completes.
+     * The checkpoint only keeps a fingerprint of the completed directories.
+     */
+    private final Set<String> crawledDirectories = ConcurrentHashMap.newKeySet();
+    /** Set when the directories can not be watched (for example, system limit reached): back to periodic runs. */
+    private boolean watchDisabled;
+    /** True while changes reported by the watcher are indexed, which happens while the crawler is between runs. */
+    private final AtomicBoolean indexingChanges = new AtomicBoolean(false);
 
+    /** How often the checkpoint file is read between runs when the job directory can not be watched. */
     private static final TimeValue CHECK_JOB_INTERVAL = TimeValue.timeValueSeconds(5);
 
+    private static final Duration WATCH_POLL_INTERVAL = Duration.ofSeconds(1);
+
     // Checkpoint for current scan
     private final AtomicReference<FsCrawlerCheckpoint> checkpoint = new AtomicReference<>(new FsCrawlerCheckpoint());
-    private int filesSinceLastCheckpoint = 0;
-    /** Lock for serializing checkpoint file writes (close/pause/crawler threads). */
+    private final AtomicInteger filesSinceLastCheckpoint = new AtomicInteger();
+    /** Lock for serializing checkpoint state changes (close/pause/resume threads). */
     private final Object checkpointWriteLock = new Object();
 
     public FsParser(
@@ -158,13 +237,22 @@ public class FsParser implements Runnable, AutoCloseable {
             FsCrawlerExtensionPasswordProvider passwordProvider) {
         this.fsSettings = fsSettings;
         this.checkpointHandler = new FsCrawlerCheckpointFileHandler(config);
+        this.jobDirectory = config.resolve(fsSettings.getName());
+        this.checkpointWriter = new FsCrawlerCheckpointWriter(checkpointHandler, fsSettings.getName());
         this.fsAclsFileHandler = initializeAclsFileHandler(fsSettings, config);
-        this.aclHashCache = initializeAclCache(fsSettings);
-        this.aclHashCacheDirty = false;
+        this.directoryFingerprintsFileHandler =
+                fsSettings.getFs().isSkipUnchangedDirectories() ? new FsDirectoryFingerprintsFileHandler(config) : null;
+        this.directoryFingerprints = loadDirectoryFingerprints(fsSettings);
+        this.directoryFingerprintsDirty = false;
+        this.stateStoreFile = fsSettings.getFs().isStateStore()
+                ? config.resolve(fsSettings.getName()).resolve(FsStateStore.FILENAME)
+                : null;
         this.managementService = managementService;
         this.documentService = documentService;
         this.crawlerPlugin = crawlerPlugin;
+        this.principalCache = new FsCrawlerPrincipalCache(fsSettings.getName());
         this.passwordProvider = passwordProvider;
+        this.walkerThreads = resolveWalkerThreads(fsSettings, crawlerPlugin);
 
         this.loop = loop;
         this.rest = rest;
@@ -174,13 +262,35 @@ public class FsParser implements Runnable, AutoCloseable {
                 fsSettings.getFs().getUrl(),
                 fsSettings.getFs().getUpdateRate());
 
+        pathMatcher = new FsCrawlerPathMatcher(
+                fsSettings.getFs().getIncludes(), fsSettings.getFs().getExcludes());
+        contentFilter = new FsCrawlerContentFilter(fsSettings.getFs().getFilters());
         metadataFilename = resolveMetadataFilename(fsSettings);
         staticMetadata = loadStaticMetadata(fsSettings);
         // One Tika parser per job; json/xml jobs never extract content with Tika.
         this.tikaDocParser =
                 fsSettings.getFs().isJsonSupport() || fsSettings.getFs().isXmlSupport()
                         ? null
-                        : new TikaDocParser(fsSettings);
+                        : new TikaDocParser(fsSettings, openExtractionCache(fsSettings));
+    }
+
+    /** @return the cache of extraction results, or null if disabled or if it can not be opened */
+    private FsExtractionCache openExtractionCache(FsSettings fsSettings) {
+        if (fsSettings.getFs().getExtractionCacheSize() == null
+                || !fsSettings.getFs().isIndexContent()) {
+            return null;
+        }
+        Path dir = jobDirectory.resolve(FsExtractionCache.DIRNAME);
+        try {
+            return new FsExtractionCache(
+                    dir, fsSettings.getFs().getExtractionCacheSize().getBytes());
+        } catch (IOException e) {
+            logger.warn(
+                    "Can not open the extraction cache [{}], documents will always be extracted: {}",
+                    dir,
+                    e.getMessage());
+            return null;
+        }
     }
 
     public CrawlerState getState() {
@@ -244,6 +354,7 @@ public class FsParser implements Runnable, AutoCloseable {
             if (localCheckpoint != null && localCheckpoint.getState() == CrawlerState.PAUSED) {
                 localCheckpoint.setState(CrawlerState.RUNNING);
                 saveCheckpoint();
+                flushCheckpoint();
                 logger.trace("Crawler resumed. Checkpoint updated.");
             }
         }
@@ -267,9 +378,15 @@ public class FsParser implements Runnable, AutoCloseable {
             if (localCheckpoint != null && localCheckpoint.getState() == CrawlerState.RUNNING) {
                 localCheckpoint.setState(CrawlerState.STOPPED);
                 saveCheckpoint();
+                flushCheckpoint();
             }
         }
 
+        // Wake up the between-runs wait
+        synchronized (semaphore) {
+            semaphore.notifyAll();
+        }
+
         try {
             if (crawlerPlugin != null) {
                 crawlerPlugin.closeConnection();
@@ -301,6 +418,7 @@ public class FsParser implements Runnable, AutoCloseable {
                     && localCheckpoint.getState() != CrawlerState.ERROR) {
                 localCheckpoint.setState(CrawlerState.PAUSED);
                 saveCheckpoint();
+                flushCheckpoint();
                 logger.trace("Crawler paused. Checkpoint saved.");
             }
         }
@@ -308,6 +426,31 @@ public class FsParser implements Runnable, AutoCloseable {
 
     @Override
     public void run() {
+        openStateStore();
+        openAclHashStore();
+        jobDirectoryWatcher = FsJobDirectoryWatcher.start(
+                fsSettings.getName(),
+                jobDirectory,
+                Set.of(FsCrawlerCheckpointFileHandler.FILENAME, FsCrawlerCheckpointFileHandler.SNAPSHOT_FILENAME),
+                this::checkpointFileChanged);
+        try {
+            crawl();
+        } finally {
+            if (jobDirectoryWatcher != null) {
+                jobDirectoryWatcher.close();
+            }
+            closeStateStore();
+            closeAclHashStore();
+            checkpointWriter.close();
+            // Only now: the crawl thread and the pipeline do not extract anything anymore. Stopping the Tika child
+            // JVMs when close() is called would make the documents being extracted fail.
+            if (tikaDocParser != null) {
+                tikaDocParser.close();
+            }
+        }
+    }
+
+    private void crawl() {
         logger.info(
                 "FS crawler started for [{}] for [{}] every [{}]",
                 fsSettings.getName(),
@@ -344,10 +487,13 @@ public class FsParser implements Runnable, AutoCloseable {
 
             try (Scope ignored = crawlSpan.makeCurrent()) {
                 logger.info("Run #{}: job [{}]: starting...", run, fsSettings.getName());
+                // A full run is starting: changes are not tracked anymore until it completes
+                stopWatching();
                 // Drop sticky bulk failures from a previous run (ensureBulkSucceeded does not clear them).
                 // REST-only unit tests may pass a null documentService.
                 clearFatalBulkFailureIfPresent();
-                filesSinceLastCheckpoint = 0;
+                filesSinceLastCheckpoint.set(0);
+                crawledDirectories.clear();
 
                 String url = fsSettings.getFs().getUrl();
                 if (crawlerPlugin == null || FsCrawlerUtil.isNullOrEmpty(url)) {
@@ -378,6 +524,8 @@ public class FsParser implements Runnable, AutoCloseable {
                     // See #82: https://github.com/dadoonet/fscrawler/issues/82
                     Instant scanDatenew = startDate.minusSeconds(2);
 
+                    prepareAclFullCheck(startDate);
+
                     // Load or create checkpoint (handles migration from legacy _status.json)
                     setCurrentCheckpoint(loadOrCreateCheckpoint(url));
                     checkpoint.get().ensureConcurrentCollections();
@@ -403,7 +551,12 @@ public class FsParser implements Runnable, AutoCloseable {
                     Instant effectiveScanDate = scanDate != null ? scanDate : Instant.EPOCH;
 
                     // Process directories using work queue instead of recursion
-                    processDirectoriesWithCheckpoint(effectiveScanDate, stats);
+                    pipeline = createPipeline();
+                    try {
+                        processDirectoriesWithCheckpoint(effectiveScanDate, stats);
+                    } finally {
+                        closePipeline();
+                    }
 
                     // Flush async bulks and fail the run if HTTP retries were exhausted (marks checkpoint ERROR)
                     documentService.flushAndEnsureBulkSucceeded();
@@ -448,7 +601,11 @@ public class FsParser implements Runnable, AutoCloseable {
                     // Do not gate on !paused.get(): a pause arriving just after the scan finishes must not
                     // skip this, or scanEndTime stays null and the next run does a full rescan (losing progress).
                     if (!closed.get() && checkpoint.get().getState() != CrawlerState.ERROR) {
+                        retainDirectoryFingerprints(checkpoint.get());
+                        completeAclFullCheck(startDate);
                         updateCheckpointAsCompleted(scanDatenew, nextCheck);
+                        startWatching(List.copyOf(crawledDirectories));
+                        crawledDirectories.clear();
                     }
                 }
             } catch (Exception e) {
@@ -473,7 +630,9 @@ public class FsParser implements Runnable, AutoCloseable {
                 // Do not clear fatalBulkFailure here: REST shares this client and may still need to observe a
                 // timer-driven bulk failure. The next crawl run clears at start instead.
                 crawlSpan.end();
-                persistAclHashCacheIfNeeded();
+                flushAclHashStore();
+                persistDirectoryFingerprintsIfNeeded();
+                flushStateStore();
                 if (crawlerPlugin != null) {
                     try {
                         logger.debug("Closing FS crawler plugin [{}].", crawlerPlugin.getType());
@@ -491,6 +650,7 @@ public class FsParser implements Runnable, AutoCloseable {
                 if (!rest) {
                     logger.info("FS crawler is stopping after {} run{}", run, run > 1 ? "s" : "");
                     closed.set(true);
+                    stopWatching();
                     return;
                 }
 
@@ -514,7 +674,13 @@ public class FsParser implements Runnable, AutoCloseable {
                 saveCheckpoint();
             }
             try {
-                if (!closed.get()) {
+                boolean waitForNextRun = true;
+                if (!closed.get() && watcher != null && !userStopped.get()) {
+                    waitForNextRun = watchForChanges();
+                } else {
+                    stopWatching();
+                }
+                if (!closed.get() && waitForNextRun) {
                     synchronized (semaphore) {
                         long maxWaitTime = fsSettings.getFs().getUpdateRate().millis();
                         // Track the time actually elapsed (not the requested wait): an early wake-up
@@ -523,12 +689,18 @@ public class FsParser implements Runnable, AutoCloseable {
                         long waitStartNanos = System.nanoTime();
                         long elapsedMillis = 0;
                         while ((elapsedMillis < maxWaitTime || userStopped.get()) && paused.get() && !closed.get()) {
-                            long waitTime = userStopped.get()
-                                    ? CHECK_JOB_INTERVAL.millis()
-                                    : Math.min(CHECK_JOB_INTERVAL.millis(), maxWaitTime - elapsedMillis);
-                            if (waitTime <= 0) {
+                            // A change reported before we started to wait
+                            if (!userStopped.get() && checkpointFileChanged.get() && shouldWakeFromCheckpoint()) {
                                 break;
                             }
+                            // resume(), close() and the job directory watcher wake us up: no need to poll, unless
+                            // the job directory can not be watched
+                            long waitTime = userStopped.get() ? 0 : maxWaitTime - elapsedMillis;
+                            if (!isWatchingJobDirectory()) {
+                                waitTime = waitTime == 0
+                                        ? CHECK_JOB_INTERVAL.millis()
+                                        : Math.min(CHECK_JOB_INTERVAL.millis(), waitTime);
+                            }
                             semaphore.wait(waitTime);
                             elapsedMillis = (System.nanoTime() - waitStartNanos) / 1_000_000L;
                             logger.trace(
@@ -550,6 +722,7 @@ public class FsParser implements Runnable, AutoCloseable {
                 Thread.currentThread().interrupt();
             }
             if (closed.get()) {
+                stopWatching();
                 return;
             }
             paused.set(false);
@@ -564,7 +737,8 @@ public class FsParser implements Runnable, AutoCloseable {
      * <p>When resuming, re-adds {@link FsCrawlerCheckpoint#getCurrentPath() currentPath} to the front of pendingPaths
      * if it is set and not already in the queue. This is required because the crawler polls a path from pendingPaths
      * and then sets currentPath; any checkpoint saved between those points or during directory processing has
-     * currentPath set but the path absent from pendingPaths, so recovery would otherwise lose that directory.
+     * currentPath set but the path absent from pendingPaths, so recovery would otherwise lose that directory. The same
+     * applies to every {@link FsCrawlerCheckpoint#getInProgressPaths() in-progress path} left by walker threads.
      */
     private FsCrawlerCheckpoint loadOrCreateCheckpoint(String rootPath) throws IOException {
         FsCrawlerCheckpoint existing = checkpointHandler.read(fsSettings.getName());
@@ -581,6 +755,7 @@ public class FsParser implements Runnable, AutoCloseable {
                 newCheckpoint.setScanDate(existing.getScanEndTime());
                 return newCheckpoint;
             } else if (existing.hasPendingWork()
+                    || !existing.getInProgressPaths().isEmpty()
                     || (existing.getCurrentPath() != null
                             && !existing.getCurrentPath().isEmpty())) {
                 // Interrupted scan - resume (either pending queue non-empty or currentPath set but path was polled out)
@@ -619,6 +794,16 @@ public class FsParser implements Runnable, AutoCloseable {
             existing.addPathFirst(existing.getCurrentPath());
             logger.debug("Re-added currentPath [{}] to pending queue for resume", existing.getCurrentPath());
         }
+        // Directories which were being processed by walker threads. Their files indexed count is kept so
+        // processDirectory() can apply it as skip count.
+        for (String inProgressPath : List.copyOf(existing.getInProgressPaths().keySet())) {
+            if (existing.isCompleted(inProgressPath)) {
+                existing.clearInProgress(inProgressPath);
+            } else if (!existing.isPending(inProgressPath)) {
+                existing.addPathFirst(inProgressPath);
+                logger.debug("Re-added in-progress path [{}] to pending queue for resume", inProgressPath);
+            }
+        }
     }
 
     /**
@@ -634,25 +819,22 @@ public class FsParser implements Runnable, AutoCloseable {
 
     private void setCurrentCheckpoint(FsCrawlerCheckpoint cp) {
         cp.setLoadedThisRun(true);
+        cp.enableJournal();
         checkpoint.set(cp);
     }
 
     /**
-     * Save the current checkpoint to disk. Synchronized so close(), pause(), and the crawler thread do not write
-     * concurrently.
+     * Save the current checkpoint to disk. The snapshot is written by the checkpoint writer thread: use
+     * {@link #flushCheckpoint()} when it must be on disk before going further.
      */
     private void saveCheckpoint() {
-        synchronized (checkpointWriteLock) {
-            try {
-                checkpointHandler.write(fsSettings.getName(), checkpoint.get());
-                logger.trace(
-                        "✅ Checkpoint saved: {} files processed, {} directories pending",
-                        checkpoint.get().getFilesProcessed(),
-                        checkpoint.get().getPendingPaths().size());
-            } catch (IOException e) {
-                logger.warn("Failed to save checkpoint: {}", e.getMessage());
-                logger.debug(FULL_STACKTRACE_LOG_MESSAGE, e);
-            }
+        checkpointWriter.snapshot(checkpoint.get());
+    }
+
+    /** Wait for the checkpoint writer thread to write the requested checkpoints. */
+    private void flushCheckpoint() {
+        if (!checkpointWriter.flush(CHECKPOINT_FLUSH_TIMEOUT)) {
+            logger.warn("Checkpoint of job [{}] not written after {}", fsSettings.getName(), CHECKPOINT_FLUSH_TIMEOUT);
         }
     }
 
@@ -672,7 +854,8 @@ public class FsParser implements Runnable, AutoCloseable {
         localCheckpoint.setNextCheck(nextCheck);
         // Clear the working state (not needed after completion)
         localCheckpoint.clearPendingPaths();
-        localCheckpoint.getCompletedPaths().clear();
+        localCheckpoint.clearCompletedPaths();
+        localCheckpoint.getInProgressPaths().clear();
         localCheckpoint.setCurrentPath(null);
         localCheckpoint.setCurrentPathFilesIndexedCount(0);
         localCheckpoint.setLastError(null);
@@ -687,12 +870,65 @@ public class FsParser implements Runnable, AutoCloseable {
                 localCheckpoint.getFilesDeleted());
     }
 
-    /** Maybe save checkpoint based on file count */
+    /**
+     * Maybe save checkpoint based on file count. Only the changes since the last save are appended to the checkpoint
+     * journal: the whole checkpoint is written when the crawler is paused, stopped or done.
+     */
     private void maybeSaveCheckpoint() {
-        filesSinceLastCheckpoint++;
-        if (filesSinceLastCheckpoint >= CHECKPOINT_INTERVAL_FILES) {
-            saveCheckpoint();
-            filesSinceLastCheckpoint = 0;
+        if (filesSinceLastCheckpoint.incrementAndGet() >= CHECKPOINT_INTERVAL_FILES) {
+            filesSinceLastCheckpoint.set(0);
+            checkpointWriter.append(checkpoint.get());
+        }
+    }
+
+    /**
+     * Use {@code fs.walker_threads} only when the provider can be called from several threads. Other providers (FTP,
+     * SSH) share a single session and are always walked by the crawler thread.
+     */
+    private static int resolveWalkerThreads(FsSettings fsSettings, FsCrawlerExtensionFsProvider crawlerPlugin) {
+        int requested = Math.max(1, fsSettings.getFs().getWalkerThreads());
+        if (requested > 1 && crawlerPlugin != null && !crawlerPlugin.supportsConcurrentAccess()) {
+            logger.warn(
+                    "fs.walker_threads is set to [{}] but the [{}] provider does not support concurrent access. "
+                            + "Using a single walker thread.",
+                    requested,
+                    crawlerPlugin.getType());
+            return 1;
+        }
+        return requested;
+    }
+
+    /**
+     * Create the pipeline for this run if {@code fs.pipeline.enabled} is true. Only files extracted with Tika go
+     * through it: json and xml files are cheap to parse and stay on the listing thread.
+     */
+    private FsCrawlerPipeline createPipeline() {
+        Pipeline settings = fsSettings.getFs().getPipeline();
+        if (settings == null || !settings.isEnabled()) {
+            return null;
+        }
+        if (tikaDocParser == null) {
+            logger.debug("fs.pipeline is ignored when fs.json_support or fs.xml_support is enabled");
+            return null;
+        }
+        boolean concurrentProvider = crawlerPlugin.supportsConcurrentAccess();
+        if (!concurrentProvider && settings.getFetchThreads() > 0) {
+            logger.debug(
+                    "The [{}] provider does not support concurrent access. Files are fetched by the walker thread.",
+                    crawlerPlugin.getType());
+        }
+        return new FsCrawlerPipeline(
+                fsSettings.getName(),
+                settings,
+                concurrentProvider,
+                fsSettings.getFs().getTempDir());
+    }
+
+    private void closePipeline() {
+        FsCrawlerPipeline localPipeline = pipeline;
+        pipeline = null;
+        if (localPipeline != null) {
+            localPipeline.close();
         }
     }
 
@@ -701,6 +937,9 @@ public class FsParser implements Runnable, AutoCloseable {
         Span traverseSpan = FsCrawlerTracing.startSpan("fscrawler.directory.traverse");
         try (Scope ignored = traverseSpan.makeCurrent()) {
             traverseSpan.setAttribute("scan.id", String.valueOf(runNumber.get()));
+            traverseSpan.setAttribute("walker.threads", walkerThreads);
+            FsParallelWalker walker =
+                    walkerThreads > 1 ? new FsParallelWalker(fsSettings.getName(), walkerThreads) : null;
 
             while (checkpoint.get().hasPendingWork() && !closed.get()) {
                 // Handle pause
@@ -714,58 +953,261 @@ public class FsParser implements Runnable, AutoCloseable {
                     checkpoint.get().setState(CrawlerState.RUNNING);
                 }
 
+                if (walker != null) {
+                    // Walker threads drain the queue until it is empty, a pause/close is requested or one fails.
+                    // On pause, the loop waits for resume above then starts the walker threads again.
+                    walkAborted.set(false);
+                    walker.walk(checkpoint.get(), () -> closed.get() || paused.get(), path -> {
+                        try {
+                            processPendingPath(path, lastScanDate, stats, traverseSpan);
+                        } catch (Exception e) {
+                            // Stop the other walker threads: they re-queue the directory they are processing
+                            walkAborted.set(true);
+                            throw e;
+                        }
+                    });
+                    continue;
+                }
+
                 String currentPath = checkpoint.get().pollNextPath();
                 if (currentPath == null) {
                     break;
                 }
+                processPendingPath(currentPath, lastScanDate, stats, traverseSpan);
+            }
+        } finally {
+            traverseSpan.end();
+        }
+    }
 
-                // Skip if already completed (in case of resume with duplicates)
-                if (checkpoint.get().isCompleted(currentPath)) {
-                    logger.debug("Skipping already completed directory: {}", currentPath);
-                    continue;
+    /**
+     * Process one directory polled from the pending queue and update the checkpoint with the outcome. Called by the
+     * crawler thread or, when {@code fs.walker_threads} is greater than 1, by the walker threads.
+     */
+    private void processPendingPath(String currentPath, Instant lastScanDate, ScanStatistic stats, Span traverseSpan)
+            throws Exception {
+        // Skip if already completed (in case of resume with duplicates)
+        if (checkpoint.get().isCompleted(currentPath)) {
+            logger.debug("Skipping already completed directory: {}", currentPath);
+            return;
+        }
+
+        try {
+            boolean fullyProcessed = processDirectory(currentPath, lastScanDate, stats);
+            if (fullyProcessed) {
+                markCompleted(currentPath);
+                checkpoint.get().clearInProgress(currentPath);
+                checkpoint.get().resetRetryCount();
+                maybeSaveCheckpoint();
+            } else {
+                // Directory was interrupted (pause or close) - re-add to pending queue.
+                // The while loop then re-checks paused/closed and can call waitForResume()
+                // directly instead of exiting to run() and triggering a full new scan cycle
+                // (connection close/reopen, checkpoint reload).
+                checkpoint.get().addPath(currentPath);
+                saveCheckpoint();
+            }
+        } catch (Exception e) {
+            // Path already re-added in handleNetworkError; do not add again to avoid duplicate in pending queue
+            if (e instanceof NetworkErrorRecoveryException) {
+                throw e;
+            }
+            // Network errors (including FsCrawlerPluginException with SocketException etc. cause) get retry
+            if (isNetworkError(e)) {
+                handleNetworkError(e, currentPath);
+            } else if (e instanceof IOException && fsSettings.getFs().isContinueOnError()) {
+                logger.warn("Error processing directory {}, continuing: {}", currentPath, e.getMessage());
+                markCompleted(currentPath);
+                checkpoint.get().clearInProgress(currentPath);
+                checkpoint.get().setLastError(e.getMessage());
+            } else {
+                checkpoint.get().addPathFirst(currentPath);
+                saveCheckpoint();
+                traverseSpan.recordException(e);
+                traverseSpan.setStatus(
+                        StatusCode.ERROR,
+                        e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+                throw e;
+            }
+        }
+    }
+
+    private void markCompleted(String directory) {
+        checkpoint.get().markCompleted(directory);
+        if (fsSettings.getFs().isWatch() && !watchDisabled) {
+            crawledDirectories.add(directory);
+        }
+    }
+
+    /**
+     * True when the directory being processed must be left for later: the crawler is closing or paused, or another
+     * walker thread failed. Changes reported by the watcher are indexed between runs (while paused), so only a pause
+     * requested by the user interrupts them.
+     */
+    private boolean isDirectoryProcessingInterrupted() {
+        if (closed.get() || walkAborted.get()) {
+            return true;
+        }
+        return paused.get() && (!indexingChanges.get() || userStopped.get());
+    }
+
+    /**
+     * Watch the directories crawled by the run which just completed, if {@code fs.watch} is true. When the provider can
+     * not watch them, the crawler falls back to a full run every {@code fs.update_rate}.
+     */
+    private void startWatching(Collection<String> directories) {
+        if (!fsSettings.getFs().isWatch() || watchDisabled || closed.get()) {
+            return;
+        }
+        if (!crawlerPlugin.supportsWatching()) {
+            logger.warn(
+                    "fs.watch is set but the [{}] provider can not watch directories. A full run will happen every [{}].",
+                    crawlerPlugin.getType(),
+                    fsSettings.getFs().getUpdateRate());
+            watchDisabled = true;
+            return;
+        }
+        try {
+            watcher = crawlerPlugin.newWatcher();
+            for (String directory : directories) {
+                watchDirectory(directory);
+            }
+            logger.debug("Watching [{}] directories for changes", watchedDirectories.size());
+        } catch (FsCrawlerPluginException e) {
+            disableWatching(e);
+        }
+    }
+
+    private void watchDirectory(String directory) {
+        if (watchedDirectories.add(directory)) {
+            watcher.register(directory);
+        }
+    }
+
+    private void disableWatching(Exception e) {
+        logger.warn(
+                "Can not watch [{}] for changes: {}. A full run will happen every [{}].",
+                fsSettings.getFs().getUrl(),
+                e.getMessage(),
+                fsSettings.getFs().getUpdateRate());
+        logger.debug(FULL_STACKTRACE_LOG_MESSAGE, e);
+        watchDisabled = true;
+        stopWatching();
+    }
+
+    private void stopWatching() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+        watchedDirectories.clear();
+    }
+
+    /**
+     * Between two runs when {@code fs.watch} is true: index the changes reported by the watcher as they come, while
+     * waiting for the next run. Returns when the crawler is closed or resumed, when the next run is due (update rate
+     * elapsed or next check date changed), when the user pauses it, or when some changes may have been missed, in which
+     * case a full run starts immediately.
+     *
+     * @return true if the crawler must wait for the next run, false if the next run must start now
+     */
+    private boolean watchForChanges() throws InterruptedException {
+        logger.info("Watching [{}] for changes...", fsSettings.getFs().getUrl());
+        Instant lastChangesDate = checkpoint.get().getScanEndTime();
+        long maxWaitTime = fsSettings.getFs().getUpdateRate().millis();
+        long waitStartNanos = System.nanoTime();
+        while (paused.get() && !closed.get()) {
+            if (userStopped.get()) {
+                // Changes made while paused are not tracked: the next run after resume is a full one
+                stopWatching();
+                return true;
+            }
+            Collection<FsCrawlerWatchEvent> events = watcher.poll(WATCH_POLL_INTERVAL);
+            if (events.isEmpty()) {
+                long elapsedMillis = (System.nanoTime() - waitStartNanos) / 1_000_000L;
+                if (elapsedMillis >= maxWaitTime || shouldWakeFromCheckpoint()) {
+                    return false;
                 }
+                continue;
+            }
+            Instant changesDate = Instant.now().minusSeconds(2);
+            if (events.stream().anyMatch(e -> e.kind() == FsCrawlerWatchEvent.Kind.OVERFLOW)) {
+                logger.warn(
+                        "Too many changes in [{}] to track them. Starting a full run.",
+                        fsSettings.getFs().getUrl());
+                stopWatching();
+                return false;
+            }
+            if (!indexChanges(events, lastChangesDate)) {
+                stopWatching();
+                return userStopped.get();
+            }
+            lastChangesDate = changesDate;
+        }
+        return false;
+    }
+
+    /**
+     * Index the changes reported by the watcher. Each directory containing a change is processed again like during a
+     * run (new and modified files indexed, removed ones deleted), as well as the new subdirectories found there.
+     *
+     * @return false if the changes could not be all indexed and a full run is needed
+     */
+    private boolean indexChanges(Collection<FsCrawlerWatchEvent> events, Instant lastChangesDate) {
+        Set<String> changedDirectories = new LinkedHashSet<>();
+        for (FsCrawlerWatchEvent event : events) {
+            changedDirectories.add(event.directory());
+        }
+        logger.debug("Indexing changes reported in {}", changedDirectories);
 
+        String url = fsSettings.getFs().getUrl();
+        ScanStatistic stats = new ScanStatistic(url);
+        FsCrawlerCheckpoint cp = checkpoint.get();
+        indexingChanges.set(true);
+        try {
+            crawlerPlugin.openConnection();
+            changedDirectories.forEach(cp::addPath);
+            String directory;
+            while ((directory = cp.pollNextPath()) != null) {
+                // Existing subdirectories are already watched: only the changed and the new ones are processed
+                if (!changedDirectories.contains(directory) && watchedDirectories.contains(directory)) {
+                    continue;
+                }
+                // A removed directory is cleaned up when processing its parent
+                if (!crawlerPlugin.exists(directory)) {
+                    continue;
+                }
+                if (!processDirectory(directory, lastChangesDate, stats)) {
+                    return false;
+                }
                 try {
-                    boolean fullyProcessed = processDirectory(currentPath, lastScanDate, stats);
-                    if (fullyProcessed) {
-                        checkpoint.get().markCompleted(currentPath);
-                        checkpoint.get().resetRetryCount();
-                        maybeSaveCheckpoint();
-                    } else {
-                        // Directory was interrupted (pause or close) - re-add to pending queue.
-                        // The while loop then re-checks paused/closed and can call waitForResume()
-                        // directly instead of exiting to run() and triggering a full new scan cycle
-                        // (connection close/reopen, checkpoint reload).
-                        checkpoint.get().addPath(currentPath);
-                        saveCheckpoint();
-                    }
-                } catch (Exception e) {
-                    // Path already re-added in handleNetworkError; do not add again to avoid duplicate in pending queue
-                    if (e instanceof NetworkErrorRecoveryException) {
-                        throw e;
-                    }
-                    // Network errors (including FsCrawlerPluginException with SocketException etc. cause) get retry
-                    if (isNetworkError(e)) {
-                        handleNetworkError(e, currentPath);
-                    } else if (e instanceof IOException && fsSettings.getFs().isContinueOnError()) {
-                        logger.warn("Error processing directory {}, continuing: {}", currentPath, e.getMessage());
-                        checkpoint.get().markCompleted(currentPath);
-                        checkpoint.get().setLastError(e.getMessage());
-                    } else {
-                        checkpoint.get().addPathFirst(currentPath);
-                        saveCheckpoint();
-                        traverseSpan.recordException(e);
-                        traverseSpan.setStatus(
-                                StatusCode.ERROR,
-                                e.getMessage() != null
-                                        ? e.getMessage()
-                                        : e.getClass().getName());
-                        throw e;
-                    }
+                    watchDirectory(directory);
+                } catch (FsCrawlerPluginException e) {
+                    disableWatching(e);
+                    return false;
                 }
             }
+            return true;
+        } catch (Exception e) {
+            logger.warn("Error while indexing changes in [{}]: {}. Starting a full run.", url, e.getMessage());
+            logger.debug(FULL_STACKTRACE_LOG_MESSAGE, e);
+            return false;
         } finally {
-            traverseSpan.end();
+            indexingChanges.set(false);
+            cp.clearPendingPaths();
+            cp.clearCompletedPaths();
+            cp.getInProgressPaths().clear();
+            cp.setCurrentPath(null);
+            cp.setCurrentPathFilesIndexedCount(0);
+            saveCheckpoint();
+            flushAclHashStore();
+            persistDirectoryFingerprintsIfNeeded();
+            flushStateStore();
+            try {
+                crawlerPlugin.closeConnection();
+            } catch (Exception e) {
+                logger.debug("Error while closing the connection: {}", e.getMessage());
+            }
         }
     }
 
@@ -809,6 +1251,13 @@ public class FsParser implements Runnable, AutoCloseable {
      * must not add it again (they detect this via NetworkErrorRecoveryException).
      */
     private void handleNetworkError(Throwable e, String failedPath) {
+        // Walker threads share the provider connection: only one of them closes and reopens it at a time
+        synchronized (networkRecoveryLock) {
+            handleNetworkErrorLocked(e, failedPath);
+        }
+    }
+
+    private void handleNetworkErrorLocked(Throwable e, String failedPath) {
         checkpoint.get().setLastError(e.getMessage());
         checkpoint.get().incrementRetryCount();
 
@@ -869,40 +1318,81 @@ public class FsParser implements Runnable, AutoCloseable {
             // we index (we still re-index them for idempotency) so we don't double-count. Only apply skip count
             // when this directory is the same as the one that was interrupted (checkpoint's currentPath is set on
             // interrupt and must not be overwritten before this check; we set it below after this block).
+            // With several walker threads, the same information is kept per directory in the in-progress paths.
             FsCrawlerCheckpoint cp = checkpoint.get();
             int skipCount = (filepath.equals(cp.getCurrentPath()) && cp.getCurrentPathFilesIndexedCount() > 0)
                     ? cp.getCurrentPathFilesIndexedCount()
                     : 0;
             if (skipCount > 0) {
                 cp.setCurrentPathFilesIndexedCount(0);
+            }
+            skipCount = Math.max(skipCount, cp.getInProgressFilesIndexedCount(filepath));
+            if (skipCount > 0) {
                 logger.debug(
                         "Resuming directory [{}]: skipping count for first {} already-indexed files",
                         filepath,
                         skipCount);
             }
+            if (walkerThreads > 1) {
+                cp.markInProgress(filepath, 0);
+            } else {
+                cp.clearInProgress(filepath);
+            }
             cp.setCurrentPath(filepath);
 
             // Number of files we've indexed in this pass (counted or not); used when interrupted to persist resume
             // state.
             int indexedInThisPass = 0;
+            // When the pipeline is enabled, files are indexed by the pipeline threads and counted by the batch
+            FsCrawlerPipeline localPipeline = pipeline;
+            FsCrawlerPipeline.DirectoryBatch batch = localPipeline != null ? localPipeline.newBatch(skipCount) : null;
+
+            FsDirectoryDiff files = new FsDirectoryDiff();
+            FsDirectoryDiff directories = new FsDirectoryDiff();
+            Set<String> fsFolders = new HashSet<>();
+            FsDirectoryFingerprints.Fingerprint fingerprint = null;
+            boolean unchangedEntries = false;
+
+            // The files are indexed while the directory is listed, unless the whole listing is needed first to
+            // compute its fingerprint, or to find the ignore and metadata files when the provider can not look
+            // them up directly
+            boolean streamListing = directoryFingerprints == null && crawlerPlugin.supportsStreamingListing();
+            try (Stream<FileAbstractModel> listing = crawlerPlugin.listFiles(filepath)) {
+                final Collection<FileAbstractModel> listed = streamListing ? null : listing.toList();
+                final Iterable<FileAbstractModel> children = streamListing ? listing::iterator : listed;
+
+                // Compare the listing with the one we saw the last time this directory was fully processed.
+                // A fresh scan (EPOCH) must check every file anyway.
+                fingerprint = directoryFingerprints != null ? FsDirectoryFingerprints.fingerprint(listed) : null;
+                boolean compareWithPreviousRun = fingerprint != null && !Instant.EPOCH.equals(lastScanDate);
+                boolean unchangedListing =
+                        compareWithPreviousRun && directoryFingerprints.isUnchanged(filepath, fingerprint);
+                unchangedEntries =
+                        compareWithPreviousRun && directoryFingerprints.hasSameEntries(filepath, fingerprint);
+                if (unchangedListing) {
+                    logger.debug(
+                            "Directory [{}] did not change since last run. Only looking for subdirectories.", filepath);
+                }
 
-            final Collection<FileAbstractModel> children = crawlerPlugin.getFiles(filepath);
-            Collection<String> fsFiles = new ArrayList<>();
-            Collection<String> fsFolders = new ArrayList<>();
-
-            if (children != null) {
                 boolean ignoreFolder = false;
                 FileAbstractModel metadataFile = null;
-                for (FileAbstractModel child : children) {
-                    // We check if we have a .fscrawlerignore file within this folder in which case
-                    // we want to ignore all files and subdirs
+                FsCrawlerIgnoreRules ignoreRules = inheritedIgnoreRules(filepath, stats.getRootPath());
+                for (FileAbstractModel child : streamListing ? findSpecialFiles(filepath) : listed) {
+                    // We check if we have a .fscrawlerignore file within this folder. When it is empty,
+                    // we want to ignore all files and subdirs. Otherwise, it contains the rules to apply.
                     if (child.getName().equalsIgnoreCase(FSCRAWLER_IGNORE_FILENAME)) {
-                        logger.debug(
-                                "We found a [{}] file in folder: [{}]. Let's skip it.",
-                                FSCRAWLER_IGNORE_FILENAME,
-                                filepath);
-                        ignoreFolder = true;
-                        break;
+                        String content = readIgnoreFile(child);
+                        FsCrawlerIgnoreRules ownRules = FsCrawlerIgnoreRules.parse(filepath, content);
+                        if (ownRules.isEmpty()) {
+                            logger.debug(
+                                    "We found an empty [{}] file in folder: [{}]. Let's skip it.",
+                                    FSCRAWLER_IGNORE_FILENAME,
+                                    filepath);
+                            ignoreFolder = true;
+                            break;
+                        }
+                        logger.debug("We found [{}] in folder: [{}]", ownRules, filepath);
+                        ignoreRules = ignoreRules.with(filepath, content);
                     }
 
                     // We check if we have a .meta.yml file (or equivalent) within this folder in which case
@@ -915,11 +1405,17 @@ public class FsParser implements Runnable, AutoCloseable {
 
                 if (!ignoreFolder) {
                     for (FileAbstractModel child : children) {
-                        // Check for pause/close during processing
-                        if (closed.get() || paused.get()) {
+                        // Check for pause/close (or another walker thread failure) during processing
+                        if (isDirectoryProcessingInterrupted()) {
+                            if (batch != null) {
+                                batch.await();
+                                indexedInThisPass = batch.getIndexed();
+                            }
                             // Persist how many files we've indexed in this directory so on resume we skip
                             // counting them (avoid double-count); we do not roll back filesProcessed.
-                            if (indexedInThisPass > 0) {
+                            if (walkerThreads > 1) {
+                                checkpoint.get().markInProgress(filepath, indexedInThisPass);
+                            } else if (indexedInThisPass > 0) {
                                 checkpoint.get().setCurrentPathFilesIndexedCount(indexedInThisPass);
                             }
                             saveCheckpoint();
@@ -929,27 +1425,33 @@ public class FsParser implements Runnable, AutoCloseable {
                         logger.trace("FileAbstractModel = {}", child);
                         String filename = child.getName();
 
-                        // If the filename is the expected metadata file, we skip it
-                        if (filename.equalsIgnoreCase(metadataFilename)) {
+                        // If the filename is the expected metadata file or the ignore file, we skip it
+                        if (filename.equalsIgnoreCase(metadataFilename)
+                                || filename.equalsIgnoreCase(FSCRAWLER_IGNORE_FILENAME)) {
                             logger.trace("Skipping metadata file [{}]", filename);
                             continue;
                         }
 
-                        String virtualFileName = FsCrawlerUtil.computeVirtualPathName(
-                                stats.getRootPath(), FsCrawlerUtil.computeRealPathName(filepath, filename));
+                        // Files of an unchanged directory have already been checked by a previous run
+                        if (unchangedListing && !child.isDirectory()) {
+                            continue;
+                        }
+
+                        String realFileName = FsCrawlerUtil.computeRealPathName(filepath, filename);
+                        String virtualFileName =
+                                FsCrawlerUtil.computeVirtualPathName(stats.getRootPath(), realFileName);
 
                         // https://github.com/dadoonet/fscrawler/issues/1 : Filter documents
-                        boolean isIndexable = FsCrawlerUtil.isIndexable(
-                                child.isDirectory(),
-                                virtualFileName,
-                                fsSettings.getFs().getIncludes(),
-                                fsSettings.getFs().getExcludes());
+                        // Directories which can not contain any included file are not crawled at all
+                        boolean isIndexable = pathMatcher.isIndexable(child.isDirectory(), virtualFileName)
+                                && (!child.isDirectory() || pathMatcher.canContainIncludedFiles(virtualFileName))
+                                && !ignoreRules.isIgnored(realFileName, child.isDirectory());
 
                         logger.trace("[{}] can be indexed: [{}]", virtualFileName, isIndexable);
                         if (isIndexable) {
                             if (child.isFile()) {
                                 logger.trace("  - file: {}", virtualFileName);
-                                fsFiles.add(filename);
+                                files.listed(filename);
                                 if (shouldIndexBecauseOfChanges(child, lastScanDate, filename, filepath)) {
                                     logger.trace(
                                             "    - modified: creation date {} , file date {}, last scan date {}",
@@ -957,7 +1459,11 @@ public class FsParser implements Runnable, AutoCloseable {
                                             child.getLastModifiedDate(),
                                             lastScanDate);
 
-                                    if (FsCrawlerUtil.isFileSizeUnderLimit(
+                                    if (batch != null
+                                            && FsCrawlerUtil.isFileSizeUnderLimit(
+                                                    fsSettings.getFs().getIgnoreAbove(), child.getSize())) {
+                                        submitToPipeline(localPipeline, child, stats, filepath, metadataFile, batch);
+                                    } else if (FsCrawlerUtil.isFileSizeUnderLimit(
                                             fsSettings.getFs().getIgnoreAbove(), child.getSize())) {
                                         Integer updatedSkipCount =
                                                 indexFileWithStreams(child, stats, filepath, metadataFile, skipCount);
@@ -971,6 +1477,8 @@ public class FsParser implements Runnable, AutoCloseable {
                                                 filename,
                                                 new ByteSizeValue(child.getSize()),
                                                 fsSettings.getFs().getIgnoreAbove());
+                                        // So it is not seen as a new file on the next runs
+                                        rememberFileState(filepath, child, null);
                                     }
                                 } else {
                                     logger.trace(
@@ -981,7 +1489,9 @@ public class FsParser implements Runnable, AutoCloseable {
                                 }
                             } else if (child.isDirectory()) {
                                 logger.debug("  - folder: {}", filename);
-                                if (fsSettings.getFs().isIndexFolders()) {
+                                directories.listed(filename);
+                                rememberDirectoryState(filepath, child);
+                                if (fsSettings.getFs().isIndexFolders() && !unchangedListing) {
                                     fsFolders.add(child.getFullpath());
                                     indexDirectory(
                                             child.getFullpath(),
@@ -991,6 +1501,7 @@ public class FsParser implements Runnable, AutoCloseable {
                                 // resume)
                                 FsCrawlerCheckpoint cpSub = checkpoint.get();
                                 if (!cpSub.isCompleted(child.getFullpath()) && !cpSub.isPending(child.getFullpath())) {
+                                    ignoreRulesByDirectory.put(child.getFullpath(), ignoreRules);
                                     cpSub.addPath(child.getFullpath());
                                 }
                             } else {
@@ -1006,55 +1517,45 @@ public class FsParser implements Runnable, AutoCloseable {
                 }
             }
 
-            // Handle deleted files
-            if (fsSettings.getFs().isRemoveDeleted()) {
+            // All the files must have been indexed before looking for removed ones and marking the directory completed
+            if (batch != null) {
+                batch.await();
+                Exception failure = batch.getFailure();
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+
+            // Handle deleted files. Nothing can have been removed if the directory has the same entries as last time.
+            if (fsSettings.getFs().isRemoveDeleted() && !unchangedEntries && stateStore != null) {
+                removeDeletedFromStateStore(filepath, files, directories, stats);
+            } else if (fsSettings.getFs().isRemoveDeleted() && !unchangedEntries) {
                 logger.debug("Looking for removed files in [{}]...", filepath);
-                Collection<String> esFiles = getFileDirectory(filepath);
-
-                // for the delete files
-                for (String esfile : esFiles) {
-                    logger.trace("Checking file [{}]", esfile);
-
-                    String virtualFileName = FsCrawlerUtil.computeVirtualPathName(
-                            stats.getRootPath(), FsCrawlerUtil.computeRealPathName(filepath, esfile));
-                    if (FsCrawlerUtil.isIndexable(
-                                    false,
-                                    virtualFileName,
-                                    fsSettings.getFs().getIncludes(),
-                                    fsSettings.getFs().getExcludes())
-                            && !fsFiles.contains(esfile)) {
-                        logger.trace("Removing file [{}] in elasticsearch", esfile);
-                        esDelete(
-                                documentService,
-                                fsSettings.getElasticsearch().getIndex(),
-                                generateIdFromFilename(esfile, filepath));
-                        stats.removeFile();
-                        checkpoint.get().incrementFilesDeleted();
-                    }
+                List<String> removedFiles = files.removed(
+                        getFileDirectory(filepath), esfile -> isIndexable(false, filepath, esfile, stats));
+                logger.debug("Directory [{}]: [{}] removed files", filepath, removedFiles.size());
+
+                List<String> ids = new ArrayList<>(removedFiles.size());
+                for (String esfile : removedFiles) {
+                    logger.trace("Removing file [{}] in elasticsearch", esfile);
+                    ids.add(generateIdFromFilename(esfile, filepath));
                 }
+                esDelete(documentService, fsSettings.getElasticsearch().getIndex(), ids, stats);
 
                 if (fsSettings.getFs().isIndexFolders()) {
                     logger.debug("Looking for removed directories in [{}]...", filepath);
-                    Collection<String> esFolders = getFolderDirectory(filepath);
-
-                    // for the delete folder
-                    for (String esfolder : esFolders) {
-                        String virtualFileName = FsCrawlerUtil.computeVirtualPathName(
-                                stats.getRootPath(), FsCrawlerUtil.computeRealPathName(filepath, esfolder));
-                        if (FsCrawlerUtil.isIndexable(
-                                true,
-                                virtualFileName,
-                                fsSettings.getFs().getIncludes(),
-                                fsSettings.getFs().getExcludes())) {
-                            logger.trace("Checking directory [{}]", esfolder);
-                            if (!fsFolders.contains(esfolder)) {
-                                logger.trace("Removing recursively directory [{}] in elasticsearch", esfolder);
-                                removeEsDirectoryRecursively(esfolder, stats);
-                            }
-                        }
+                    List<String> removedFolders = FsDirectoryDiff.removed(
+                            getFolderDirectory(filepath),
+                            fsFolders,
+                            esfolder -> isIndexable(true, filepath, esfolder, stats));
+                    for (String esfolder : removedFolders) {
+                        logger.trace("Removing recursively directory [{}] in elasticsearch", esfolder);
+                        removeEsDirectoryRecursively(esfolder, stats);
+                        forgetDirectoryFingerprints(esfolder);
                     }
                 }
             }
+            rememberDirectoryFingerprint(filepath, fingerprint);
             return true; // Directory fully processed
         } catch (Exception e) {
             dirSpan.recordException(e);
@@ -1067,17 +1568,20 @@ public class FsParser implements Runnable, AutoCloseable {
         }
     }
 
-    private Map<String, String> loadAclHashCache(String jobName) {
-        if (fsAclsFileHandler == null) {
-            return new HashMap<>();
+    /** @return the ignore and metadata files of a directory, looked up without listing the directory */
+    private List<FileAbstractModel> findSpecialFiles(String filepath) {
+        List<FileAbstractModel> specialFiles = new ArrayList<>(2);
+        FileAbstractModel ignoreFile = crawlerPlugin.getFile(filepath, FSCRAWLER_IGNORE_FILENAME);
+        if (ignoreFile != null) {
+            specialFiles.add(ignoreFile);
         }
-        try {
-            return fsAclsFileHandler.read(jobName);
-        } catch (IOException e) {
-            logger.warn("Failed to load ACL cache for [{}]: {}", jobName, e.getMessage());
-            logger.debug(FULL_STACKTRACE_LOG_MESSAGE, e);
-            return new HashMap<>();
+        if (metadataFilename != null) {
+            FileAbstractModel metadataFile = crawlerPlugin.getFile(filepath, metadataFilename);
+            if (metadataFile != null) {
+                specialFiles.add(metadataFile);
+            }
         }
+        return specialFiles;
     }
 
     private FsAclsFileHandler initializeAclsFileHandler(FsSettings fsSettings, Path config) {
@@ -1087,13 +1591,6 @@ public class FsParser implements Runnable, AutoCloseable {
         return null;
     }
 
-    private Map<String, String> initializeAclCache(FsSettings fsSettings) {
-        if (fsAclsFileHandler == null) {
-            return new HashMap<>();
-        }
-        return loadAclHashCache(fsSettings.getName());
-    }
-
     private String resolveMetadataFilename(FsSettings fsSettings) {
         if (fsSettings.getTags() != null
                 && !StringUtils.isEmpty(fsSettings.getTags().getMetaFilename())) {
@@ -1127,19 +1624,363 @@ public class FsParser implements Runnable, AutoCloseable {
         }
     }
 
-    private void persistAclHashCacheIfNeeded() {
-        if (fsAclsFileHandler == null || !aclHashCacheDirty) {
+    private void openAclHashStore() {
+        if (fsAclsFileHandler == null) {
+            return;
+        }
+        try {
+            aclHashStore = fsAclsFileHandler.open(fsSettings.getName());
+        } catch (IOException e) {
+            logger.warn(
+                    "Failed to open the ACL cache of [{}]: {}. ACL only changes will not be detected.",
+                    fsSettings.getName(),
+                    e.getMessage());
+            logger.debug(FULL_STACKTRACE_LOG_MESSAGE, e);
+        }
+    }
+
+    private void flushAclHashStore() {
+        FsAclHashStore localAclHashStore = aclHashStore;
+        if (localAclHashStore != null) {
+            localAclHashStore.flush();
+        }
+    }
+
+    private void closeAclHashStore() {
+        FsAclHashStore localAclHashStore = aclHashStore;
+        if (localAclHashStore == null) {
+            return;
+        }
+        aclHashStore = null;
+        try {
+            localAclHashStore.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close the ACL cache of [{}]: {}", fsSettings.getName(), e.getMessage());
+            logger.debug(FULL_STACKTRACE_LOG_MESSAGE, e);
+        }
+    }
+
+    private FsDirectoryFingerprints loadDirectoryFingerprints(FsSettings fsSettings) {
+        if (directoryFingerprintsFileHandler == null) {
+            return null;
+        }
+        String signature = computeDirectoryFingerprintsSignature(fsSettings);
+        try {
+            FsDirectoryFingerprints fingerprints = directoryFingerprintsFileHandler.read(fsSettings.getName());
+            if (fingerprints != null && signature.equals(fingerprints.getSignature())) {
+                logger.debug(
+                        "Loaded [{}] directory fingerprints for [{}]",
+                        fingerprints.getDirectories().size(),
+                        fsSettings.getName());
+                return fingerprints;
+            }
+            if (fingerprints != null) {
+                logger.info(
+                        "Settings of [{}] changed since the directory fingerprints were computed. "
+                                + "All the directories will be checked again.",
+                        fsSettings.getName());
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to load directory fingerprints for [{}]: {}", fsSettings.getName(), e.getMessage());
+            logger.debug(FULL_STACKTRACE_LOG_MESSAGE, e);
+        }
+        return new FsDirectoryFingerprints(signature);
+    }
+
+    /**
+     * The fingerprints only tell that the files did not change. Whether they must be indexed depends on these settings,
+     * so a fingerprint computed with other settings can not be trusted.
+     */
+    private static String computeDirectoryFingerprintsSignature(FsSettings fsSettings) {
+        Fs fs = fsSettings.getFs();
+        List<Object> values = Arrays.asList(
+                fs.getUrl(),
+                fs.getIncludes(),
+                fs.getExcludes(),
+                fs.getFilters(),
+                fs.isJsonSupport(),
+                fs.isXmlSupport(),
+                fs.isFilenameAsId(),
+                fs.isIndexFolders(),
+                fs.isRemoveDeleted(),
+                fs.isAttributesSupport(),
+                fs.isAclSupport(),
+                fs.getIgnoreAbove(),
+                fsSettings.getTags() == null ? null : fsSettings.getTags().getMetaFilename(),
+                fsSettings.getElasticsearch().getIndex(),
+                fsSettings.getElasticsearch().getIndexFolder());
+        try {
+            return SignTool.sign("SHA-256", values.toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to compute directory fingerprints signature", e);
+        }
+    }
+
+    private void rememberDirectoryFingerprint(String path, FsDirectoryFingerprints.Fingerprint fingerprint) {
+        // When closing, some documents may not have been sent: the directory must be checked again next time
+        if (fingerprint == null || closed.get()) {
+            return;
+        }
+        if (directoryFingerprints.put(path, fingerprint)) {
+            directoryFingerprintsDirty = true;
+        }
+    }
+
+    private void forgetDirectoryFingerprints(String path) {
+        if (directoryFingerprints != null && directoryFingerprints.removeTree(path)) {
+            directoryFingerprintsDirty = true;
+        }
+    }
+
+    /** Forget the directories which have not been seen during a complete run: they do not exist anymore. */
+    private void retainDirectoryFingerprints(FsCrawlerCheckpoint crawled) {
+        if (directoryFingerprints != null && directoryFingerprints.retainAll(crawled::isCompleted)) {
+            directoryFingerprintsDirty = true;
+        }
+    }
+
+    private void persistDirectoryFingerprintsIfNeeded() {
+        if (directoryFingerprintsFileHandler == null || !directoryFingerprintsDirty) {
+            return;
+        }
+        try {
+            directoryFingerprintsFileHandler.write(fsSettings.getName(), directoryFingerprints);
+            directoryFingerprintsDirty = false;
+        } catch (IOException e) {
+            logger.warn("Failed to store directory fingerprints for [{}]: {}", fsSettings.getName(), e.getMessage());
+            logger.debug(FULL_STACKTRACE_LOG_MESSAGE, e);
+        }
+    }
+
+    /**
+     * Open the state store if enabled. When the file does not exist yet, it is filled from what has already been
+     * indexed, so the files which have been removed before the store existed (or since it has been lost) are still
+     * detected. If it can not be opened, Elasticsearch is queried as when the state store is disabled.
+     */
+    private void openStateStore() {
+        if (stateStoreFile == null || crawlerPlugin == null) {
+            return;
+        }
+        try {
+            boolean exists = Files.exists(stateStoreFile);
+            Files.createDirectories(stateStoreFile.getParent());
+            FsStateStore store = new FsStateStore(stateStoreFile);
+            if (!exists && managementService != null) {
+                logger.info("State store of [{}] does not exist. Reading it from the index.", fsSettings.getName());
+                try {
+                    long count = managementService.loadIndexedState(store);
+                    store.flush();
+                    logger.info("State store of [{}] created with [{}] entries", fsSettings.getName(), count);
+                } catch (IOException e) {
+                    // Do not leave an incomplete store behind: it would be trusted on the next start
+                    store.close();
+                    Files.deleteIfExists(stateStoreFile);
+                    throw e;
+                }
+            }
+            logger.debug("State store [{}] opened with [{}] entries", stateStoreFile, store.size());
+            stateStore = store;
+        } catch (IOException e) {
+            logger.warn(
+                    "Can not open the state store [{}]: {}. Falling back to elasticsearch to detect changes.",
+                    stateStoreFile,
+                    e.getMessage());
+            logger.debug(FULL_STACKTRACE_LOG_MESSAGE, e);
+        }
+    }
+
+    private void flushStateStore() {
+        FsStateStore localStateStore = stateStore;
+        if (localStateStore == null) {
+            return;
+        }
+        try {
+            localStateStore.flush();
+            localStateStore.compactIfNeeded();
+        } catch (IOException e) {
+            logger.warn("Failed to compact the state store [{}]: {}", stateStoreFile, e.getMessage());
+            logger.debug(FULL_STACKTRACE_LOG_MESSAGE, e);
+        }
+    }
+
+    private void closeStateStore() {
+        FsStateStore localStateStore = stateStore;
+        if (localStateStore == null) {
+            return;
+        }
+        stateStore = null;
+        try {
+            localStateStore.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close the state store [{}]: {}", stateStoreFile, e.getMessage());
+            logger.debug(FULL_STACKTRACE_LOG_MESSAGE, e);
+        }
+    }
+
+    /** Remember the state of a file which has been sent to the index (or deliberately skipped) */
+    private void rememberFileState(String dirname, FileAbstractModel file, String checksum)
+            throws NoSuchAlgorithmException {
+        FsStateStore localStateStore = stateStore;
+        if (localStateStore == null) {
+            return;
+        }
+        String aclHash = shouldTrackAclChanges() ? computeCurrentAclHash(file) : null;
+        putState(
+                localStateStore,
+                dirname,
+                file.getName(),
+                new FsStateStore.Entry(
+                        generateIdFromFilename(file.getName(), dirname),
+                        false,
+                        file.getSize(),
+                        file.getLastModifiedDate().toEpochMilli(),
+                        checksum,
+                        aclHash));
+    }
+
+    private static String computeCurrentAclHash(FileAbstractModel file) {
+        return file.getAclHash() != null ? file.getAclHash() : FsCrawlerUtil.computeAclHash(file.getAcls());
+    }
+
+    private void rememberDirectoryState(String dirname, FileAbstractModel directory) throws NoSuchAlgorithmException {
+        FsStateStore localStateStore = stateStore;
+        if (localStateStore == null || closed.get()) {
+            return;
+        }
+        putState(
+                localStateStore,
+                dirname,
+                directory.getName(),
+                new FsStateStore.Entry(sign(directory.getFullpath()), true, -1, -1, null, null));
+    }
+
+    private void putState(FsStateStore localStateStore, String dirname, String name, FsStateStore.Entry entry) {
+        try {
+            localStateStore.put(dirname, name, entry);
+        } catch (IOException e) {
+            logger.warn("Failed to store the state of [{}] in [{}]: {}", name, dirname, e.getMessage());
+            logger.debug(FULL_STACKTRACE_LOG_MESSAGE, e);
+        }
+    }
+
+    private void forgetState(String dirname, String name) {
+        FsStateStore localStateStore = stateStore;
+        if (localStateStore == null) {
             return;
         }
         try {
-            fsAclsFileHandler.write(fsSettings.getName(), aclHashCache);
-            aclHashCacheDirty = false;
+            localStateStore.remove(dirname, name);
         } catch (IOException e) {
-            logger.warn("Failed to store ACL cache for [{}]: {}", fsSettings.getName(), e.getMessage());
+            logger.warn("Failed to remove the state of [{}] in [{}]: {}", name, dirname, e.getMessage());
             logger.debug(FULL_STACKTRACE_LOG_MESSAGE, e);
         }
     }
 
+    /**
+     * Remove the files and directories which are known by the state store but have not been seen in the directory.
+     * Unlike the Elasticsearch lookups, removed directories are detected even when the folders are not indexed.
+     */
+    private void removeDeletedFromStateStore(
+            String filepath, FsDirectoryDiff files, FsDirectoryDiff directories, ScanStatistic stats) throws Exception {
+        logger.debug("Looking for removed files and directories in [{}] with the state store...", filepath);
+        Map<String, FsStateStore.Entry> known = stateStore.list(filepath);
+        Set<String> knownFiles = new HashSet<>();
+        Set<String> knownDirectories = new HashSet<>();
+        known.forEach((name, entry) -> (entry.directory() ? knownDirectories : knownFiles).add(name));
+
+        List<String> removedFiles = files.removed(knownFiles, name -> isIndexable(false, filepath, name, stats));
+        List<String> removedDirectories =
+                directories.removed(knownDirectories, name -> isIndexable(true, filepath, name, stats));
+        logger.debug(
+                "Directory [{}]: [{}] removed files, [{}] removed directories",
+                filepath,
+                removedFiles.size(),
+                removedDirectories.size());
+
+        List<String> ids = new ArrayList<>(removedFiles.size());
+        for (String name : removedFiles) {
+            logger.trace("Removing file [{}] in elasticsearch", name);
+            ids.add(known.get(name).id());
+        }
+        if (esDelete(documentService, fsSettings.getElasticsearch().getIndex(), ids, stats)) {
+            for (String name : removedFiles) {
+                forgetState(filepath, name);
+            }
+        }
+        for (String name : removedDirectories) {
+            String fullpath = FsCrawlerUtil.computeRealPathName(filepath, name);
+            logger.trace("Removing recursively directory [{}] in elasticsearch", fullpath);
+            removeEsDirectoryRecursively(fullpath, stats);
+            forgetDirectoryFingerprints(fullpath);
+            forgetState(filepath, name);
+        }
+    }
+
+    /** Whether a file or directory which has been indexed in the past is still matching the includes and excludes */
+    private boolean isIndexable(boolean directory, String dirname, String name, ScanStatistic stats) {
+        String virtualPath = FsCrawlerUtil.computeVirtualPathName(
+                stats.getRootPath(), FsCrawlerUtil.computeRealPathName(dirname, name));
+        return pathMatcher.isIndexable(directory, virtualPath)
+                && (!directory || pathMatcher.canContainIncludedFiles(virtualPath));
+    }
+
+    /**
+     * The rules of the {@code .fscrawlerignore} files of the parent directories. They are given by the parent directory
+     * when it queues this one. When the parent has been crawled before a restart, the ignore files are read again.
+     */
+    private FsCrawlerIgnoreRules inheritedIgnoreRules(String filepath, String rootPath) throws IOException {
+        FsCrawlerIgnoreRules rules = ignoreRulesByDirectory.remove(filepath);
+        if (rules != null) {
+            return rules;
+        }
+        if (!filepath.startsWith(rootPath) || filepath.length() <= rootPath.length()) {
+            return FsCrawlerIgnoreRules.EMPTY;
+        }
+        rules = readIgnoreRules(rootPath, FsCrawlerIgnoreRules.EMPTY);
+        String ancestor = rootPath;
+        String[] names = filepath.substring(rootPath.length()).split("[/\\\\]");
+        // The last name is the directory itself: its rules are read from its listing
+        for (int i = 0; i < names.length - 1; i++) {
+            if (!names[i].isEmpty()) {
+                ancestor = FsCrawlerUtil.computeRealPathName(ancestor, names[i]);
+                rules = readIgnoreRules(ancestor, rules);
+            }
+        }
+        return rules;
+    }
+
+    private FsCrawlerIgnoreRules readIgnoreRules(String dirname, FsCrawlerIgnoreRules rules) throws IOException {
+        String fullpath = FsCrawlerUtil.computeRealPathName(dirname, FSCRAWLER_IGNORE_FILENAME);
+        if (!crawlerPlugin.exists(fullpath)) {
+            return rules;
+        }
+        FileAbstractModel ignoreFile = new FileAbstractModel(
+                FSCRAWLER_IGNORE_FILENAME,
+                true,
+                null,
+                null,
+                null,
+                null,
+                dirname,
+                fullpath,
+                0,
+                null,
+                null,
+                0,
+                null,
+                null);
+        return rules.with(dirname, readIgnoreFile(ignoreFile));
+    }
+
+    private String readIgnoreFile(FileAbstractModel ignoreFile) throws IOException {
+        InputStream inputStream = crawlerPlugin.getInputStream(ignoreFile);
+        try {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } finally {
+            crawlerPlugin.closeInputStream(inputStream);
+        }
+    }
+
     private boolean shouldTrackAclChanges() {
         return fsAclsFileHandler != null;
     }
@@ -1149,51 +1990,95 @@ public class FsParser implements Runnable, AutoCloseable {
         if (!shouldTrackAclChanges()) {
             return false;
         }
+        FsAclHashStore localAclHashStore = aclHashStore;
+        if (localAclHashStore == null) {
+            return false;
+        }
         String id = generateIdFromFilename(filename, filepath);
+        if (isAclUnchanged(id, fileAbstractModel)) {
+            return false;
+        }
         List<FileAcl> acls = fileAbstractModel.getAcls();
+        boolean changed;
         if (acls == null || acls.isEmpty()) {
-            return aclHashCache.containsKey(id);
+            changed = localAclHashStore.contains(id);
+        } else {
+            String currentHash = computeCurrentAclHash(fileAbstractModel);
+            changed = currentHash != null && !localAclHashStore.matches(id, currentHash);
         }
-        String currentHash = fileAbstractModel.getAclHash();
-        if (currentHash == null) {
-            currentHash = FsCrawlerUtil.computeAclHash(acls);
+        if (!changed) {
+            // Only the ctime moved: do not read the ACLs again on the next runs
+            rememberCurrentAclHash(id, fileAbstractModel);
         }
-        if (currentHash == null) {
-            return false;
+        return changed;
+    }
+
+    /**
+     * Decide if this run reads the ACLs of all the files, or only of the files whose change time (ctime) moved since
+     * their ACLs were read. All of them are read when it never happened or when the last time is older than
+     * {@code fs.acl_full_check_rate}.
+     */
+    private void prepareAclFullCheck(Instant runStart) {
+        FsAclHashStore localAclHashStore = aclHashStore;
+        if (localAclHashStore == null) {
+            aclFullCheck = false;
+            return;
         }
-        String previousHash = aclHashCache.get(id);
-        if (previousHash == null) {
-            return true;
+        long lastFullCheck = localAclHashStore.getLastFullCheck();
+        TimeValue rate = fsSettings.getFs().getAclFullCheckRate();
+        aclFullCheck = lastFullCheck == 0 || rate == null || runStart.toEpochMilli() - lastFullCheck >= rate.millis();
+        if (aclFullCheck) {
+            logger.debug("The ACLs of all the files of [{}] will be read during this run", fsSettings.getName());
         }
-        return !Objects.equals(previousHash, currentHash);
     }
 
-    private void rememberCurrentAclHash(String id, FileAbstractModel fileAbstractModel) {
-        if (!shouldTrackAclChanges()) {
-            return;
+    /** Remember that a run which read the ACLs of all the files completed */
+    private void completeAclFullCheck(Instant runStart) {
+        FsAclHashStore localAclHashStore = aclHashStore;
+        if (aclFullCheck && localAclHashStore != null) {
+            localAclHashStore.setLastFullCheck(runStart.toEpochMilli());
+            aclFullCheck = false;
         }
-        String currentHash = fileAbstractModel.getAclHash();
-        if (currentHash == null) {
-            currentHash = FsCrawlerUtil.computeAclHash(fileAbstractModel.getAcls());
+    }
+
+    /**
+     * Any change of the ACLs of a file moves its change time (ctime). So, when the ctime is the one we had when the
+     * ACLs were read, there is no need to read them again, unless the run reads all of them.
+     *
+     * @return true if we know that the ACLs did not change since they were stored
+     */
+    private boolean isAclUnchanged(String id, FileAbstractModel file) {
+        FsAclHashStore localAclHashStore = aclHashStore;
+        if (aclFullCheck || localAclHashStore == null || file.getChangeTime() == null) {
+            return false;
         }
-        if (currentHash == null) {
-            if (aclHashCache.remove(id) != null) {
-                aclHashCacheDirty = true;
-            }
+        long storedChangeTime = localAclHashStore.getChangeTime(id);
+        return storedChangeTime != 0 && storedChangeTime == changeTimeNanos(file.getChangeTime());
+    }
+
+    private static long changeTimeNanos(Instant changeTime) {
+        return changeTime == null ? 0 : changeTime.getEpochSecond() * 1_000_000_000L + changeTime.getNano();
+    }
+
+    private void rememberCurrentAclHash(String id, FileAbstractModel fileAbstractModel) {
+        FsAclHashStore localAclHashStore = aclHashStore;
+        if (localAclHashStore == null) {
             return;
         }
-        String previous = aclHashCache.put(id, currentHash);
-        if (!Objects.equals(previous, currentHash)) {
-            aclHashCacheDirty = true;
+        try {
+            // A file without ACL is kept too, so its ctime is known
+            localAclHashStore.put(
+                    id, computeCurrentAclHash(fileAbstractModel), changeTimeNanos(fileAbstractModel.getChangeTime()));
+        } catch (IOException e) {
+            logger.warn("Failed to store the ACL hash of [{}]: {}", id, e.getMessage());
+            logger.debug(FULL_STACKTRACE_LOG_MESSAGE, e);
         }
     }
 
     private void removeStoredAclHash(String id) {
-        if (!shouldTrackAclChanges()) {
-            return;
-        }
-        if (aclHashCache.remove(id) != null) {
-            aclHashCacheDirty = true;
+        FsAclHashStore localAclHashStore = aclHashStore;
+        if (localAclHashStore != null) {
+            localAclHashStore.remove(id);
         }
     }
 
@@ -1201,7 +2086,34 @@ public class FsParser implements Runnable, AutoCloseable {
             FileAbstractModel child, Instant lastScanDate, String filename, String filepath)
             throws NoSuchAlgorithmException {
         // EPOCH is the fresh-scan sentinel, so every file must be indexed regardless of its timestamp.
-        if (Instant.EPOCH.equals(lastScanDate) || child.getLastModifiedDate().isAfter(lastScanDate)) {
+        if (Instant.EPOCH.equals(lastScanDate)) {
+            return true;
+        }
+        FsStateStore localStateStore = stateStore;
+        if (localStateStore != null) {
+            FsStateStore.Entry previous = localStateStore.get(filepath, filename);
+            if (previous == null) {
+                logger.trace("    - new file {}", child.getFullpath());
+                return true;
+            }
+            // The modification date may not be known when the state has been read back from the index
+            if (previous.lastModified() >= 0) {
+                if (previous.lastModified() != child.getLastModifiedDate().toEpochMilli()
+                        || (previous.size() >= 0 && previous.size() != child.getSize())) {
+                    return true;
+                }
+                if (shouldTrackAclChanges() && !isAclUnchanged(previous.id(), child)) {
+                    if (!Objects.equals(previous.aclHash(), computeCurrentAclHash(child))) {
+                        logger.trace("    - ACL change detected for {}", child.getFullpath());
+                        return true;
+                    }
+                    // Only the ctime moved: do not read the ACLs again on the next runs
+                    rememberCurrentAclHash(previous.id(), child);
+                }
+                return false;
+            }
+        }
+        if (child.getLastModifiedDate().isAfter(lastScanDate)) {
             return true;
         }
         if (child.getCreationDate() != null && child.getCreationDate().isAfter(lastScanDate)) {
@@ -1214,18 +2126,18 @@ public class FsParser implements Runnable, AutoCloseable {
         return false;
     }
 
-    private Collection<String> getFileDirectory(String path) throws NoSuchAlgorithmException {
+    private Set<String> getFileDirectory(String path) throws NoSuchAlgorithmException {
         // If the crawler is being closed, we return
         if (closed.get()) {
-            return new ArrayList<>();
+            return Set.of();
         }
         return managementService.getFileDirectory(path);
     }
 
-    private Collection<String> getFolderDirectory(String path) throws NoSuchAlgorithmException {
+    private Set<String> getFolderDirectory(String path) throws NoSuchAlgorithmException {
         // If the crawler is being closed, we return
         if (closed.get()) {
-            return new ArrayList<>();
+            return Set.of();
         }
         return managementService.getFolderDirectory(path);
     }
@@ -1249,11 +2161,6 @@ public class FsParser implements Runnable, AutoCloseable {
         fileSpan.setAttribute("file.size", filesize);
         try (Scope ignored = fileSpan.makeCurrent()) {
             final String filename = fileAbstractModel.getName();
-            final Instant created = fileAbstractModel.getCreationDate();
-            final Instant lastModified = fileAbstractModel.getLastModifiedDate();
-            final Instant lastAccessed = fileAbstractModel.getAccessDate();
-            final String extension = fileAbstractModel.getExtension();
-            final long size = fileAbstractModel.getSize();
 
             logger.trace("fetching content from [{}],[{}]", dirname, filename);
             String fullFilename = FsCrawlerUtil.computeRealPathName(dirname, filename);
@@ -1264,87 +2171,11 @@ public class FsParser implements Runnable, AutoCloseable {
             if (fsSettings.getFs().isAddAsInnerObject()
                     || (!fsSettings.getFs().isJsonSupport()
                             && !fsSettings.getFs().isXmlSupport())) {
-                Doc doc = new Doc();
-
-                // File
-                doc.getFile().setFilename(filename);
-                doc.getFile().setCreated(created);
-                doc.getFile().setLastModified(lastModified);
-                doc.getFile().setLastAccessed(lastAccessed);
-                doc.getFile().setIndexingDate(Instant.now());
-                if (fsSettings.getServer() == null
-                        || PROTOCOL.LOCAL.equals(fsSettings.getServer().getProtocol())) {
-                    doc.getFile().setUrl("file://" + fullFilename);
-                } else if (PROTOCOL.FTP.equals(fsSettings.getServer().getProtocol())) {
-                    doc.getFile()
-                            .setUrl(String.format(
-                                    "ftp://%s:%d%s",
-                                    fsSettings.getServer().getHostname(),
-                                    fsSettings.getServer().getPort(),
-                                    fullFilename));
-                }
-                doc.getFile().setExtension(extension);
-                if (fsSettings.getFs().isAddFilesize()) {
-                    doc.getFile().setFilesize(size);
-                }
-                // File
-
-                // Path
-                // Encoded version of the dir this file belongs to
-                doc.getPath().setRoot(sign(dirname));
-                // The virtual URL (not including the initial root dir)
-                doc.getPath().setVirtual(FsCrawlerUtil.computeVirtualPathName(stats.getRootPath(), fullFilename));
-                // The real and complete filename
-                doc.getPath().setReal(fullFilename);
-                // Path
-
-                // Attributes
-                if (fsSettings.getFs().isAttributesSupport()) {
-                    doc.setAttributes(new Attributes());
-                    doc.getAttributes().setOwner(fileAbstractModel.getOwner());
-                    doc.getAttributes().setGroup(fileAbstractModel.getGroup());
-                    if (fileAbstractModel.getPermissions() >= 0) {
-                        doc.getAttributes().setPermissions(fileAbstractModel.getPermissions());
-                    }
-                    if (fsSettings.getFs().isAclSupport()) {
-                        List<FileAcl> fileAcls = fileAbstractModel.getAcls();
-                        if (!fileAcls.isEmpty()) {
-                            doc.getAttributes().setAcl(fileAcls);
-                        }
-                    }
-                }
-                // Attributes
-
-                // If needed, we generate the content in addition to metadata
-                if (fsSettings.getFs().isJsonSupport()) {
-                    // https://github.com/dadoonet/fscrawler/issues/5 : Support JSon files
-                    doc.setObject(JsonUtil.asMap(inputStream));
-                } else if (fsSettings.getFs().isXmlSupport()) {
-                    // https://github.com/dadoonet/fscrawler/issues/185 : Support Xml files
-                    doc.setObject(XmlDocParser.generateMap(inputStream));
-                } else {
-                    // Extracting content with Tika
-                    if (reopenableInputStream != null) {
-                        tikaDocParser.generate(reopenableInputStream, doc, filesize, null, passwordProvider);
-                    } else {
-                        tikaDocParser.generate(inputStream, doc, filesize);
-                    }
-                }
-
-                // Merge static metadata if available
-                Doc mergedDoc = doc;
-                if (staticMetadata.length > 0) {
-                    mergedDoc = DocUtils.getMergedDoc(
-                            doc,
-                            fsSettings.getTags().getStaticMetaFilename(),
-                            new ByteArrayInputStream(staticMetadata));
-                }
-                // Merge metadata if available in the same folder
-                mergedDoc = DocUtils.getMergedDoc(mergedDoc, metadataFilename, externalTags);
+                Doc mergedDoc = generateDoc(
+                        fileAbstractModel, stats, dirname, inputStream, reopenableInputStream, filesize, externalTags);
 
                 // We index the data structure
-                if (FsCrawlerUtil.isIndexable(
-                        mergedDoc.getContent(), fsSettings.getFs().getFilters())) {
+                if (contentFilter.isIndexable(mergedDoc.getContent())) {
                     if (!closed.get()) {
                         FSCrawlerLogger.documentDebug(
                                 id,
@@ -1356,6 +2187,8 @@ public class FsParser implements Runnable, AutoCloseable {
                                 mergedDoc,
                                 fsSettings.getElasticsearch().getPipeline());
                         rememberCurrentAclHash(id, fileAbstractModel);
+                        rememberFileState(
+                                dirname, fileAbstractModel, mergedDoc.getFile().getChecksum());
                     } else {
                         logger.warn(
                                 ADD_WHILE_CLOSING_MSG,
@@ -1367,6 +2200,7 @@ public class FsParser implements Runnable, AutoCloseable {
                             "We ignore file [{}] because it does not match all the patterns {}",
                             filename,
                             fsSettings.getFs().getFilters());
+                    rememberFileState(dirname, fileAbstractModel, null);
                 }
             } else {
                 if (fsSettings.getFs().isJsonSupport()) {
@@ -1394,11 +2228,275 @@ public class FsParser implements Runnable, AutoCloseable {
         }
     }
 
+    /**
+     * Build the document of a file: file and path information, attributes, extracted content (or json/xml object) and
+     * metadata merged from the static metadata file and the folder metadata file if any.
+     */
+    private Doc generateDoc(
+            FileAbstractModel fileAbstractModel,
+            ScanStatistic stats,
+            String dirname,
+            InputStream inputStream,
+            TikaDocParser.InputStreamSupplier reopenableInputStream,
+            long filesize,
+            InputStream externalTags)
+            throws Exception {
+        final String filename = fileAbstractModel.getName();
+        final String fullFilename = FsCrawlerUtil.computeRealPathName(dirname, filename);
+
+        Doc doc = new Doc();
+
+        // File
+        doc.getFile().setFilename(filename);
+        doc.getFile().setCreated(fileAbstractModel.getCreationDate());
+        doc.getFile().setLastModified(fileAbstractModel.getLastModifiedDate());
+        doc.getFile().setLastAccessed(fileAbstractModel.getAccessDate());
+        doc.getFile().setIndexingDate(Instant.now());
+        if (fsSettings.getServer() == null
+                || PROTOCOL.LOCAL.equals(fsSettings.getServer().getProtocol())) {
+            doc.getFile().setUrl("file://" + fullFilename);
+        } else if (PROTOCOL.FTP.equals(fsSettings.getServer().getProtocol())) {
+            doc.getFile()
+                    .setUrl(String.format(
+                            "ftp://%s:%d%s",
+                            fsSettings.getServer().getHostname(),
+                            fsSettings.getServer().getPort(),
+                            fullFilename));
+        }
+        doc.getFile().setExtension(fileAbstractModel.getExtension());
+        if (fsSettings.getFs().isAddFilesize()) {
+            doc.getFile().setFilesize(fileAbstractModel.getSize());
+        }
+        // File
+
+        // Path
+        // Encoded version of the dir this file belongs to
+        doc.getPath().setRoot(sign(dirname));
+        // The virtual URL (not including the initial root dir)
+        doc.getPath().setVirtual(FsCrawlerUtil.computeVirtualPathName(stats.getRootPath(), fullFilename));
+        // The real and complete filename
+        doc.getPath().setReal(fullFilename);
+        // Path
+
+        // Attributes
+        if (fsSettings.getFs().isAttributesSupport()) {
+            doc.setAttributes(new Attributes());
+            doc.getAttributes().setOwner(fileAbstractModel.getOwner());
+            doc.getAttributes().setGroup(fileAbstractModel.getGroup());
+            if (fileAbstractModel.getPermissions() >= 0) {
+                doc.getAttributes().setPermissions(fileAbstractModel.getPermissions());
+            }
+            if (fsSettings.getFs().isAclSupport()) {
+                List<FileAcl> fileAcls = fileAbstractModel.getAcls();
+                if (!fileAcls.isEmpty()) {
+                    doc.getAttributes().setAcl(fileAcls);
+                }
+            }
+        }
+        // Attributes
+
+        // If needed, we generate the content in addition to metadata
+        if (fsSettings.getFs().isJsonSupport()) {
+            // https://github.com/dadoonet/fscrawler/issues/5 : Support JSon files
+            doc.setObject(JsonUtil.asMap(inputStream));
+        } else if (fsSettings.getFs().isXmlSupport()) {
+            // https://github.com/dadoonet/fscrawler/issues/185 : Support Xml files
+            doc.setObject(XmlDocParser.generateMap(inputStream));
+        } else {
+            // Extracting content with Tika
+            if (reopenableInputStream != null) {
+                tikaDocParser.generate(reopenableInputStream, doc, filesize, null, passwordProvider);
+            } else {
+                tikaDocParser.generate(inputStream, doc, filesize);
+            }
+        }
+
+        // Merge static metadata if available
+        Doc mergedDoc = doc;
+        if (staticMetadata.length > 0) {
+            mergedDoc = DocUtils.getMergedDoc(
+                    doc, fsSettings.getTags().getStaticMetaFilename(), new ByteArrayInputStream(staticMetadata));
+        }
+        // Merge metadata if available in the same folder
+        return DocUtils.getMergedDoc(mergedDoc, metadataFilename, externalTags);
+    }
+
+    /**
+     * Send a file to the pipeline. The listing thread only waits when the fetch queue is full or, when the provider
+     * does not support concurrent access, while the file is being read.
+     */
+    private void submitToPipeline(
+            FsCrawlerPipeline localPipeline,
+            FileAbstractModel child,
+            ScanStatistic stats,
+            String filepath,
+            FileAbstractModel metadataFile,
+            FsCrawlerPipeline.DirectoryBatch batch)
+            throws Exception {
+        // Stop listing as soon as a file failed: the failure is thrown like it would be without the pipeline
+        Exception failure = batch.getFailure();
+        if (failure != null) {
+            throw failure;
+        }
+        Context context = Context.current();
+        batch.start();
+        try {
+            localPipeline.fetch().submit(() -> {
+                try (Scope ignored = context.makeCurrent()) {
+                    fetchFile(localPipeline, child, stats, filepath, metadataFile, batch);
+                }
+            });
+        } catch (InterruptedException | RuntimeException e) {
+            batch.finish();
+            throw e;
+        }
+    }
+
+    /** Fetch stage: read the file (and the folder metadata file) from the provider. */
+    private void fetchFile(
+            FsCrawlerPipeline localPipeline,
+            FileAbstractModel child,
+            ScanStatistic stats,
+            String filepath,
+            FileAbstractModel metadataFile,
+            FsCrawlerPipeline.DirectoryBatch batch) {
+        FsCrawlerPipeline.FetchedContent content = null;
+        try {
+            byte[] externalTags = null;
+            if (metadataFile != null) {
+                InputStream metadataStream = crawlerPlugin.getInputStream(metadataFile);
+                try {
+                    externalTags = metadataStream.readAllBytes();
+                } finally {
+                    crawlerPlugin.closeInputStream(metadataStream);
+                }
+            }
+            content = localPipeline.fetchContent(createReopenableInputStreamSupplier(child), child.getSize());
+            FsCrawlerPipeline.FetchedContent fetched = content;
+            byte[] tags = externalTags;
+            Context context = Context.current();
+            localPipeline.extract().submit(() -> {
+                try (Scope ignored = context.makeCurrent()) {
+                    extractFile(localPipeline, child, stats, filepath, fetched, tags, batch);
+                }
+            });
+            // The extract stage owns the content now
+            content = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.finish();
+        } catch (Exception e) {
+            pipelineFileFailed(child, e, batch);
+        } finally {
+            if (content != null) {
+                content.close();
+            }
+        }
+    }
+
+    /** Extract stage: run Tika and build the document. */
+    private void extractFile(
+            FsCrawlerPipeline localPipeline,
+            FileAbstractModel child,
+            ScanStatistic stats,
+            String filepath,
+            FsCrawlerPipeline.FetchedContent content,
+            byte[] externalTags,
+            FsCrawlerPipeline.DirectoryBatch batch) {
+        try (content) {
+            Doc doc = generateDoc(
+                    child,
+                    stats,
+                    filepath,
+                    null,
+                    content.supplier(),
+                    child.getSize(),
+                    externalTags != null ? new ByteArrayInputStream(externalTags) : null);
+            Context context = Context.current();
+            localPipeline.serialize().submit(() -> {
+                try (Scope ignored = context.makeCurrent()) {
+                    serializeFile(child, stats, filepath, doc, batch);
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.finish();
+        } catch (Exception e) {
+            pipelineFileFailed(child, e, batch);
+        }
+    }
+
+    /** Serialize stage: serialize the document to JSON and add it to the bulk processor (which may block). */
+    private void serializeFile(
+            FileAbstractModel child,
+            ScanStatistic stats,
+            String filepath,
+            Doc doc,
+            FsCrawlerPipeline.DirectoryBatch batch) {
+        try {
+            String id = generateIdFromFilename(child.getName(), filepath);
+            if (!contentFilter.isIndexable(doc.getContent())) {
+                logger.debug(
+                        "We ignore file [{}] because it does not match all the patterns {}",
+                        child.getName(),
+                        fsSettings.getFs().getFilters());
+                rememberFileState(filepath, child, null);
+            } else if (closed.get()) {
+                logger.warn(ADD_WHILE_CLOSING_MSG, fsSettings.getElasticsearch().getIndex(), id);
+            } else {
+                FSCrawlerLogger.documentDebug(id, doc.getPath().getVirtual(), "Indexing content");
+                documentService.indexRawJson(
+                        fsSettings.getElasticsearch().getIndex(),
+                        id,
+                        JsonUtil.serialize(doc),
+                        fsSettings.getElasticsearch().getPipeline());
+                rememberCurrentAclHash(id, child);
+                rememberFileState(filepath, child, doc.getFile().getChecksum());
+            }
+            if (!batch.consumeSkip()) {
+                stats.addFile();
+                checkpoint.get().incrementFilesProcessed();
+            }
+            maybeSaveCheckpoint();
+            batch.indexed();
+        } catch (Exception e) {
+            pipelineFileFailed(child, e, batch);
+        }
+    }
+
+    private void pipelineFileFailed(FileAbstractModel child, Exception e, FsCrawlerPipeline.DirectoryBatch batch) {
+        if (fsSettings.getFs().isContinueOnError()) {
+            logger.warn("Unable to index {}, skipping...: {}", child.getName(), e.getMessage());
+            batch.finish();
+        } else {
+            batch.failed(e);
+        }
+    }
+
+    /** Called by the job directory watcher when a checkpoint file has been changed. */
+    private void checkpointFileChanged() {
+        checkpointFileChanged.set(true);
+        synchronized (semaphore) {
+            semaphore.notifyAll();
+        }
+    }
+
+    private boolean isWatchingJobDirectory() {
+        FsJobDirectoryWatcher localWatcher = jobDirectoryWatcher;
+        return localWatcher != null && localWatcher.isWatching();
+    }
+
     /**
      * Returns {@code true} when the saved checkpoint is missing or its nextCheck is null/past, so the pause wait should
-     * end early. IO failures are logged and treated as "do not wake".
+     * end early. IO failures are logged and treated as "do not wake". When the job directory is watched, the checkpoint
+     * is only read after the watcher reported a change.
      */
     private boolean shouldWakeFromCheckpoint() {
+        if (isWatchingJobDirectory() && !checkpointFileChanged.getAndSet(false)) {
+            return false;
+        }
+        // The checkpoint written at the end of the run must be on disk before comparing with it
+        flushCheckpoint();
         try {
             FsCrawlerCheckpoint savedCheckpoint = checkpointHandler.read(fsSettings.getName());
             if (savedCheckpoint == null
@@ -1511,6 +2609,7 @@ public class FsParser implements Runnable, AutoCloseable {
                         jsonString,
                         fsSettings.getElasticsearch().getPipeline());
                 rememberCurrentAclHash(id, fileAbstractModel);
+                rememberFileState(dirname, fileAbstractModel, null);
             } else {
                 logger.warn(ADD_WHILE_CLOSING_MSG, fsSettings.getElasticsearch().getIndex(), id);
             }
@@ -1541,6 +2640,7 @@ public class FsParser implements Runnable, AutoCloseable {
                         XmlDocParser.generate(inputStream),
                         fsSettings.getElasticsearch().getPipeline());
                 rememberCurrentAclHash(id, fileAbstractModel);
+                rememberFileState(dirname, fileAbstractModel, null);
             } else {
                 logger.warn(ADD_WHILE_CLOSING_MSG, fsSettings.getElasticsearch().getIndex(), id);
             }
@@ -1603,23 +2703,25 @@ public class FsParser implements Runnable, AutoCloseable {
         String rootdir = path.substring(0, lastSepIndex);
 
         File folderInfo = new File(path);
+        FsCrawlerFileAttributes folderAttributes = readFolderAttributes(folderInfo);
 
         Folder folder = new Folder(
                 name,
                 sign(rootdir),
                 path,
                 FsCrawlerUtil.computeVirtualPathName(rootPath, path),
-                FsCrawlerUtil.getCreationTime(folderInfo),
-                FsCrawlerUtil.getModificationTime(folderInfo),
-                FsCrawlerUtil.getLastAccessTime(folderInfo));
+                folderAttributes != null ? folderAttributes.creationTime() : null,
+                folderAttributes != null ? folderAttributes.lastModifiedTime() : null,
+                folderAttributes != null ? folderAttributes.lastAccessTime() : null);
 
-        if (fsSettings.getFs().isAttributesSupport()
+        if (folderAttributes != null
+                && fsSettings.getFs().isAttributesSupport()
                 && (fsSettings.getServer() == null
                         || PROTOCOL.LOCAL.equals(fsSettings.getServer().getProtocol()))) {
             Attributes attributes = new Attributes();
-            attributes.setOwner(FsCrawlerUtil.getOwnerName(folderInfo));
-            attributes.setGroup(FsCrawlerUtil.getGroupName(folderInfo));
-            int permissions = FsCrawlerUtil.getFilePermissions(folderInfo);
+            attributes.setOwner(folderAttributes.owner());
+            attributes.setGroup(folderAttributes.group());
+            int permissions = folderAttributes.permissions();
             if (permissions >= 0) {
                 attributes.setPermissions(permissions);
             }
@@ -1641,9 +2743,39 @@ public class FsParser implements Runnable, AutoCloseable {
         indexDirectory(sign(path), folder);
     }
 
+    /** @return the attributes of a local folder, read with a single call, or null if they can not be read */
+    private FsCrawlerFileAttributes readFolderAttributes(File folderInfo) {
+        try {
+            return FsCrawlerFileAttributes.read(folderInfo.toPath(), principalCache);
+        } catch (IOException e) {
+            logger.debug("Can not read the attributes of folder [{}]: {}", folderInfo, e.getMessage());
+            return null;
+        }
+    }
+
     /** Remove a full directory and sub dirs recursively */
     private void removeEsDirectoryRecursively(final String path, ScanStatistic stats) throws Exception {
         logger.debug("Delete folder [{}]", path);
+        FsStateStore localStateStore = stateStore;
+        if (localStateStore != null) {
+            for (Map.Entry<String, FsStateStore.Entry> known :
+                    localStateStore.list(path).entrySet()) {
+                if (known.getValue().directory()) {
+                    removeEsDirectoryRecursively(FsCrawlerUtil.computeRealPathName(path, known.getKey()), stats);
+                } else {
+                    esDelete(
+                            managementService,
+                            fsSettings.getElasticsearch().getIndex(),
+                            known.getValue().id());
+                    stats.removeFile();
+                    checkpoint.get().incrementFilesDeleted();
+                }
+                forgetState(path, known.getKey());
+            }
+            esDelete(managementService, fsSettings.getElasticsearch().getIndexFolder(), sign(path));
+            return;
+        }
+
         Collection<String> listFile = getFileDirectory(path);
 
         for (String esfile : listFile) {
@@ -1672,6 +2804,33 @@ public class FsParser implements Runnable, AutoCloseable {
         }
     }
 
+    /**
+     * Remove several documents of the same directory at once with the document service. They are sent together to the
+     * bulk processor.
+     *
+     * @return false if nothing has been removed because the crawler is closing
+     */
+    private boolean esDelete(FsCrawlerDocumentService service, String index, List<String> ids, ScanStatistic stats) {
+        if (ids.isEmpty()) {
+            return true;
+        }
+        logger.debug("Deleting {} documents from {}", ids.size(), index);
+        if (closed.get()) {
+            logger.warn(
+                    "trying to remove files while closing crawler. [{}] documents from [{}] have been ignored",
+                    ids.size(),
+                    index);
+            return false;
+        }
+        service.delete(index, ids);
+        for (String id : ids) {
+            removeStoredAclHash(id);
+            stats.removeFile();
+            checkpoint.get().incrementFilesDeleted();
+        }
+        return true;
+    }
+
     /** Remove a document with the management service */
     private void esDelete(FsCrawlerManagementService service, String index, String id) {
         logger.debug("Deleting {}/{}", index, id);
@@ -26,6 +26,7 @@ import fr.pilato.elasticsearch.crawler.fs.client.ESSearchRequest;
 import fr.pilato.elasticsearch.crawler.fs.client.ESSearchResponse;
 import fr.pilato.elasticsearch.crawler.fs.client.ElasticsearchClientException;
 import java.io.IOException;
+import java.util.Collection;
 
 public interface FsCrawlerDocumentService extends FsCrawlerService {
     /**
@@ -65,6 +66,14 @@ public interface FsCrawlerDocumentService extends FsCrawlerService {
      */
     void delete(String index, String id);
 
+    /**
+     * Remove several documents of an index at once from the target service (could be asynchronous)
+     *
+     * @param index Index name
+     * @param ids Document IDs
+     */
+    void delete(String index, Collection<String> ids);
+
     /**
      * Remove a document from the target service
      *
@@ -30,6 +30,7 @@ import fr.pilato.elasticsearch.crawler.fs.client.IElasticsearchClient;
 import fr.pilato.elasticsearch.crawler.fs.framework.JsonUtil;
 import fr.pilato.elasticsearch.crawler.fs.settings.FsSettings;
 import java.io.IOException;
+import java.util.Collection;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -87,6 +88,12 @@ public class FsCrawlerDocumentServiceElasticsearchImpl implements FsCrawlerDocum
         client.delete(index, id);
     }
 
+    @Override
+    public void delete(String index, Collection<String> ids) {
+        logger.debug("Deleting {} documents from {}", ids.size(), index);
+        client.delete(index, ids);
+    }
+
     @Override
     public void deleteSingle(String index, String id) throws ElasticsearchClientException {
         logger.debug("Deleting {}/{}", index, id);
@@ -21,8 +21,10 @@
 package fr.pilato.elasticsearch.crawler.fs.service;
 
 import fr.pilato.elasticsearch.crawler.fs.beans.Folder;
+import fr.pilato.elasticsearch.crawler.fs.beans.FsStateStore;
+import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
-import java.util.Collection;
+import java.util.Set;
 
 public interface FsCrawlerManagementService extends FsCrawlerService {
 
@@ -30,19 +32,29 @@ public interface FsCrawlerManagementService extends FsCrawlerService {
      * Retrieve the list of files that are currently available within a dir
      *
      * @param path the virtual path
-     * @return a list of known files
+     * @return the names of all the known files
      * @throws NoSuchAlgorithmException if the configured hash algorithm is unavailable
      */
-    Collection<String> getFileDirectory(String path) throws NoSuchAlgorithmException;
+    Set<String> getFileDirectory(String path) throws NoSuchAlgorithmException;
 
     /**
      * Retrieve the list of sub folders that are currently available within a dir
      *
      * @param path the virtual path
-     * @return a list of known folders
+     * @return the paths of all the known folders
      * @throws NoSuchAlgorithmException if the configured hash algorithm is unavailable
      */
-    Collection<String> getFolderDirectory(String path) throws NoSuchAlgorithmException;
+    Set<String> getFolderDirectory(String path) throws NoSuchAlgorithmException;
+
+    /**
+     * Read the state of all the files and folders which are currently indexed. It is used to rebuild the local state
+     * store when it has been lost.
+     *
+     * @param store the store to fill
+     * @return the number of files and folders read
+     * @throws IOException if the store can not be written
+     */
+    long loadIndexedState(FsStateStore store) throws IOException;
 
     /**
      * Store a visited directory. It will be used to compare old dirs vs current directories. So we will be able to
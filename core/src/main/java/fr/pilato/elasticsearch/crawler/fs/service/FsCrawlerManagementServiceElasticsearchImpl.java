@@ -21,22 +21,30 @@
 package fr.pilato.elasticsearch.crawler.fs.service;
 
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
 import fr.pilato.elasticsearch.crawler.fs.beans.Folder;
+import fr.pilato.elasticsearch.crawler.fs.beans.FsStateStore;
 import fr.pilato.elasticsearch.crawler.fs.client.ESSearchHit;
 import fr.pilato.elasticsearch.crawler.fs.client.ESSearchRequest;
-import fr.pilato.elasticsearch.crawler.fs.client.ESSearchResponse;
 import fr.pilato.elasticsearch.crawler.fs.client.ESTermQuery;
 import fr.pilato.elasticsearch.crawler.fs.client.ElasticsearchClient;
 import fr.pilato.elasticsearch.crawler.fs.client.ElasticsearchClientException;
+import fr.pilato.elasticsearch.crawler.fs.client.ElasticsearchIndexNotFoundException;
 import fr.pilato.elasticsearch.crawler.fs.client.IElasticsearchClient;
+import fr.pilato.elasticsearch.crawler.fs.framework.FileAcl;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerMappingException;
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerUtil;
 import fr.pilato.elasticsearch.crawler.fs.framework.JsonUtil;
 import fr.pilato.elasticsearch.crawler.fs.framework.SignTool;
 import fr.pilato.elasticsearch.crawler.fs.settings.FsSettings;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -44,16 +52,33 @@ public class FsCrawlerManagementServiceElasticsearchImpl implements FsCrawlerMan
 
     private static final Logger logger = LogManager.getLogger();
 
-    // TODO Optimize it. We can probably use a search for a big array of filenames instead of
-    // searching fo 10000 files (which is somehow limited).
+    // Number of hits read per page when listing the documents of a directory
     private static final int REQUEST_SIZE = 10000;
     private static final String FILE_FILENAME_FIELD = "file.filename";
+    private static final String FILE_FILESIZE_FIELD = "file.filesize";
+    private static final String FILE_LAST_MODIFIED_FIELD = "file.last_modified";
+    private static final String FILE_CHECKSUM_FIELD = "file.checksum";
+    private static final String PATH_ROOT_FIELD = "path.root";
+    private static final String PATH_REAL_FIELD = "path.real";
+    private static final String ATTRIBUTES_ACL_FIELD = "attributes.acl";
 
     private final IElasticsearchClient client;
     private final FsSettings settings;
+    private final int pageSize;
 
     public FsCrawlerManagementServiceElasticsearchImpl(FsSettings settings) {
+        this(settings, REQUEST_SIZE);
+    }
+
+    /**
+     * Create the management service
+     *
+     * @param settings the crawler settings
+     * @param pageSize number of hits read per page when listing the documents of a directory
+     */
+    public FsCrawlerManagementServiceElasticsearchImpl(FsSettings settings, int pageSize) {
         this.settings = settings;
+        this.pageSize = pageSize;
         this.client = new ElasticsearchClient(settings);
     }
 
@@ -79,7 +104,7 @@ public class FsCrawlerManagementServiceElasticsearchImpl implements FsCrawlerMan
     }
 
     @Override
-    public Collection<String> getFileDirectory(String path) throws NoSuchAlgorithmException {
+    public Set<String> getFileDirectory(String path) throws NoSuchAlgorithmException {
 
         if (logger.isTraceEnabled()) {
             logger.trace(
@@ -87,35 +112,33 @@ public class FsCrawlerManagementServiceElasticsearchImpl implements FsCrawlerMan
                     SignTool.sign(settings.getFs().getHashAlgorithm(), path));
         }
 
-        Collection<String> files = new ArrayList<>();
+        Set<String> files = new HashSet<>();
 
         try {
-            // search() retries transient shard unavailability (503) until the index is searchable
-            ESSearchResponse response = client.search(new ESSearchRequest()
-                    .withIndex(settings.getElasticsearch().getIndex())
-                    .withSize(REQUEST_SIZE)
-                    .addStoredField(FILE_FILENAME_FIELD)
-                    .withESQuery(new ESTermQuery(
-                            "path.root", SignTool.sign(settings.getFs().getHashAlgorithm(), path))));
-
-            if (response.getHits() != null) {
-                for (ESSearchHit hit : response.getHits()) {
-                    String name;
-                    if (hit.getStoredFields() != null && hit.getStoredFields().get(FILE_FILENAME_FIELD) != null) {
-                        // In case someone disabled _source which is not recommended
-                        name = hit.getStoredFields().get(FILE_FILENAME_FIELD).get(0);
-                    } else {
-                        // Houston, we have a problem ! We can't get the old files from ES
-                        logger.warn(
-                                "Can't find stored field name to check existing filenames in path [{}]. "
-                                        + "Please set store: true on field [file.filename]",
-                                path);
-                        throw new FsCrawlerMappingException(
-                                "Mapping is incorrect: please set stored: true on field [file.filename].");
-                    }
-                    files.add(name);
-                }
-            }
+            // All the hits are read, page by page: a directory may contain more files than a single search returns
+            client.searchAll(
+                    new ESSearchRequest()
+                            .withIndex(settings.getElasticsearch().getIndex())
+                            .withSize(pageSize)
+                            .addStoredField(FILE_FILENAME_FIELD)
+                            .withESQuery(new ESTermQuery(
+                                    "path.root", SignTool.sign(settings.getFs().getHashAlgorithm(), path))),
+                    hit -> {
+                        if (hit.getStoredFields() != null
+                                && hit.getStoredFields().get(FILE_FILENAME_FIELD) != null) {
+                            files.add(hit.getStoredFields()
+                                    .get(FILE_FILENAME_FIELD)
+                                    .get(0));
+                        } else {
+                            // Houston, we have a problem ! We can't get the old files from ES
+                            logger.warn(
+                                    "Can't find stored field name to check existing filenames in path [{}]. "
+                                            + "Please set store: true on field [file.filename]",
+                                    path);
+                            throw new FsCrawlerMappingException(
+                                    "Mapping is incorrect: please set stored: true on field [file.filename].");
+                        }
+                    });
         } catch (ElasticsearchClientException e) {
             logger.debug(
                     "Index [{}] doesn't exist.", settings.getElasticsearch().getIndex());
@@ -127,22 +150,19 @@ public class FsCrawlerManagementServiceElasticsearchImpl implements FsCrawlerMan
     }
 
     @Override
-    public Collection<String> getFolderDirectory(String path) throws NoSuchAlgorithmException {
-        Collection<String> files = new ArrayList<>();
+    public Set<String> getFolderDirectory(String path) throws NoSuchAlgorithmException {
+        Set<String> files = new HashSet<>();
 
         try {
-            // search() retries transient shard unavailability (503) until the index is searchable
-            ESSearchResponse response = client.search(new ESSearchRequest()
-                    .withIndex(settings.getElasticsearch().getIndexFolder())
-                    .withSize(REQUEST_SIZE)
-                    .withESQuery(new ESTermQuery(
-                            "path.root", SignTool.sign(settings.getFs().getHashAlgorithm(), path))));
-
-            if (response.getHits() != null) {
-                for (ESSearchHit hit : response.getHits()) {
-                    files.add(JsonPath.read(hit.getSource(), "$.path.real"));
-                }
-            }
+            // All the hits are read, page by page: a directory may contain more folders than a single search returns
+            client.searchAll(
+                    new ESSearchRequest()
+                            .withIndex(settings.getElasticsearch().getIndexFolder())
+                            .withSize(pageSize)
+                            .addSourceInclude(PATH_REAL_FIELD)
+                            .withESQuery(new ESTermQuery(
+                                    "path.root", SignTool.sign(settings.getFs().getHashAlgorithm(), path))),
+                    hit -> files.add(JsonPath.read(hit.getSource(), "$.path.real")));
         } catch (ElasticsearchClientException e) {
             logger.debug(
                     "Index [{}] doesn't exist yet. We just return an empty list.",
@@ -152,6 +172,135 @@ public class FsCrawlerManagementServiceElasticsearchImpl implements FsCrawlerMan
         return files;
     }
 
+    @Override
+    public long loadIndexedState(FsStateStore store) throws IOException {
+        long count = loadIndexedState(store, settings.getElasticsearch().getIndex(), false);
+        if (settings.getFs().isIndexFolders()) {
+            count += loadIndexedState(store, settings.getElasticsearch().getIndexFolder(), true);
+        }
+        return count;
+    }
+
+    private long loadIndexedState(FsStateStore store, String index, boolean directories) throws IOException {
+        ESSearchRequest request = new ESSearchRequest().withIndex(index);
+        if (directories) {
+            request.addSourceInclude(FILE_FILENAME_FIELD)
+                    .addSourceInclude(PATH_ROOT_FIELD)
+                    .addSourceInclude(PATH_REAL_FIELD);
+        } else {
+            request.addSourceInclude(FILE_FILENAME_FIELD)
+                    .addSourceInclude(FILE_FILESIZE_FIELD)
+                    .addSourceInclude(FILE_LAST_MODIFIED_FIELD)
+                    .addSourceInclude(FILE_CHECKSUM_FIELD)
+                    .addSourceInclude(PATH_ROOT_FIELD)
+                    .addSourceInclude(PATH_REAL_FIELD);
+            if (isAclTracked()) {
+                request.addSourceInclude(ATTRIBUTES_ACL_FIELD);
+            }
+        }
+
+        long[] count = {0};
+        try {
+            client.searchAll(request, hit -> {
+                try {
+                    if (addIndexedState(store, hit, directories)) {
+                        count[0]++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (ElasticsearchIndexNotFoundException e) {
+            logger.debug("Index [{}] doesn't exist. Nothing to read.", index);
+        } catch (ElasticsearchClientException e) {
+            throw new IOException("Can not read the indexed documents from [" + index + "]", e);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        logger.debug("Read the state of [{}] documents from [{}]", count[0], index);
+        return count[0];
+    }
+
+    /**
+     * Add the state of an indexed document to the store. Documents which do not come from a file (like raw json
+     * documents which do not have a file.filename field) are ignored.
+     */
+    private boolean addIndexedState(FsStateStore store, ESSearchHit hit, boolean directory) throws IOException {
+        String filename = readSourceField(hit, "$.file.filename");
+        String real = readSourceField(hit, "$.path.real");
+        String root = readSourceField(hit, "$.path.root");
+        if (filename == null || real == null || !real.endsWith(filename)) {
+            return false;
+        }
+
+        // path.root is the signature of the parent directory which may or may not end with a separator
+        String dir = real.substring(0, real.length() - filename.length());
+        String dirWithoutSeparator = dir.length() > 1 ? dir.substring(0, dir.length() - 1) : dir;
+        try {
+            if (root == null || root.equals(SignTool.sign(settings.getFs().getHashAlgorithm(), dirWithoutSeparator))) {
+                dir = dirWithoutSeparator;
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        if (directory) {
+            store.put(dir, filename, new FsStateStore.Entry(hit.getId(), true, -1, -1, null, null));
+        } else {
+            Number filesize = readSourceField(hit, "$.file.filesize");
+            String checksum = readSourceField(hit, "$.file.checksum");
+            store.put(
+                    dir,
+                    filename,
+                    new FsStateStore.Entry(
+                            hit.getId(),
+                            false,
+                            filesize == null ? -1 : filesize.longValue(),
+                            parseLastModified(readSourceField(hit, "$.file.last_modified")),
+                            checksum,
+                            isAclTracked() ? readAclHash(hit) : null));
+        }
+        return true;
+    }
+
+    /** The crawler tracks the ACL changes only when both attributes and ACLs are collected */
+    private boolean isAclTracked() {
+        return settings.getFs().isAttributesSupport() && settings.getFs().isAclSupport();
+    }
+
+    /**
+     * Compute the hash of the indexed ACLs the same way the crawler does, so the files are not seen as changed on the
+     * next run.
+     *
+     * @return the hash of the ACLs of the document, or null if it has no ACL
+     */
+    private static String readAclHash(ESSearchHit hit) {
+        Object acl = readSourceField(hit, "$.attributes.acl");
+        if (acl == null) {
+            return null;
+        }
+        return FsCrawlerUtil.computeAclHash(List.of(JsonUtil.deserialize(JsonUtil.serialize(acl), FileAcl[].class)));
+    }
+
+    private static <T> T readSourceField(ESSearchHit hit, String path) {
+        try {
+            return JsonPath.read(hit.getSource(), path);
+        } catch (PathNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static long parseLastModified(String lastModified) {
+        if (lastModified == null) {
+            return -1;
+        }
+        try {
+            return Instant.parse(lastModified).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
     @Override
     public void storeVisitedDirectory(String indexFolder, String id, Folder folder) {
         client.indexRawJson(indexFolder, id, JsonUtil.serialize(folder), null);
@@ -0,0 +1,71 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class FsDirectoryDiffTest extends AbstractFSCrawlerTestCase {
+
+    @Test
+    void removed_finds_the_tracked_entries_which_have_not_been_listed() {
+        FsDirectoryDiff diff = new FsDirectoryDiff();
+        diff.listed("unchanged.txt");
+        diff.listed("modified.txt");
+        diff.listed("new.txt");
+
+        List<String> removed = diff.removed(
+                List.of("unchanged.txt", "modified.txt", "removed.txt", "excluded.txt"),
+                name -> !name.startsWith("excluded"));
+
+        assertThat(removed).containsExactly("removed.txt");
+        assertThat(diff.isListed("new.txt")).isTrue();
+        assertThat(diff.isListed("removed.txt")).isFalse();
+    }
+
+    @Test
+    void removed_keeps_the_known_order() {
+        List<String> known = List.of("c", "a", "d", "b");
+        assertThat(FsDirectoryDiff.removed(known, Set.of("a"), name -> true)).containsExactly("c", "d", "b");
+        assertThat(FsDirectoryDiff.removed(known, Set.of(), name -> !name.equals("d")))
+                .containsExactly("c", "a", "b");
+    }
+
+    @Test
+    void compare_big_directories() {
+        FsDirectoryDiff diff = new FsDirectoryDiff();
+        List<String> known = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            known.add("file-" + i + ".txt");
+            if (i % 10 != 0) {
+                diff.listed("file-" + i + ".txt");
+            }
+        }
+        Set<String> removed = new HashSet<>(diff.removed(known, name -> true));
+        assertThat(removed).hasSize(20_000).contains("file-0.txt", "file-199990.txt");
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import fr.pilato.elasticsearch.crawler.fs.beans.FsCrawlerCheckpoint;
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class FsParallelWalkerTest extends AbstractFSCrawlerTestCase {
+
+    /** Simulates a tree where each directory above {@code depth} has {@code width} subdirectories. */
+    private static void addChildren(FsCrawlerCheckpoint checkpoint, String path, int width, int depth) {
+        if (path.split("/").length <= depth) {
+            for (int i = 0; i < width; i++) {
+                checkpoint.addPath(path + "/" + i);
+            }
+        }
+    }
+
+    @Test
+    void walk_processes_every_directory_once() throws Exception {
+        FsCrawlerCheckpoint checkpoint = FsCrawlerCheckpoint.newCheckpoint("/root");
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+
+        new FsParallelWalker(jobName, 4).walk(checkpoint, () -> false, path -> {
+            threads.add(Thread.currentThread().getName());
+            if (!processed.add(path)) {
+                duplicates.incrementAndGet();
+            }
+            Thread.sleep(1);
+            addChildren(checkpoint, path, 4, 4);
+        });
+
+        // 1 + 4 + 16 + 64 directories
+        assertThat(processed).hasSize(85);
+        assertThat(duplicates).hasValue(0);
+        assertThat(checkpoint.hasPendingWork()).isFalse();
+        assertThat(threads).hasSizeGreaterThan(1);
+    }
+
+    @Test
+    void walk_stops_taking_directories_when_requested() throws Exception {
+        FsCrawlerCheckpoint checkpoint = FsCrawlerCheckpoint.newCheckpoint("/root");
+        AtomicBoolean stop = new AtomicBoolean(false);
+        AtomicInteger processed = new AtomicInteger();
+
+        new FsParallelWalker(jobName, 2).walk(checkpoint, stop::get, path -> {
+            addChildren(checkpoint, path, 10, 2);
+            if (processed.incrementAndGet() == 3) {
+                stop.set(true);
+            }
+        });
+
+        assertThat(processed.get()).isLessThan(11);
+        assertThat(checkpoint.hasPendingWork()).isTrue();
+    }
+
+    @Test
+    void walk_rethrows_the_first_failure() {
+        FsCrawlerCheckpoint checkpoint = FsCrawlerCheckpoint.newCheckpoint("/root");
+        AtomicInteger processed = new AtomicInteger();
+
+        assertThatThrownBy(() -> new FsParallelWalker(jobName, 3).walk(checkpoint, () -> false, path -> {
+                    processed.incrementAndGet();
+                    if (path.equals("/root/2")) {
+                        throw new IOException("boom");
+                    }
+                    addChildren(checkpoint, path, 5, 2);
+                }))
+                .isInstanceOf(IOException.class)
+                .hasMessage("boom");
+        assertThat(processed.get()).isLessThanOrEqualTo(6);
+    }
+}
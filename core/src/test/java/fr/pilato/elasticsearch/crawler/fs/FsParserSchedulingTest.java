@@ -22,10 +22,13 @@ package fr.pilato.elasticsearch.crawler.fs;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import fr.pilato.elasticsearch.crawler.fs.beans.FsCrawlerCheckpoint;
+import fr.pilato.elasticsearch.crawler.fs.beans.FsCrawlerCheckpointFileHandler;
 import fr.pilato.elasticsearch.crawler.fs.framework.TimeValue;
 import fr.pilato.elasticsearch.crawler.fs.settings.FsSettings;
 import fr.pilato.elasticsearch.crawler.fs.settings.FsSettingsLoader;
 import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 import org.awaitility.Awaitility;
@@ -131,6 +134,54 @@ class FsParserSchedulingTest extends AbstractFSCrawlerTestCase {
         }
     }
 
+    /**
+     * Setting {@code next_check} to {@code null} in the checkpoint file starts a new run. The job directory is watched,
+     * so the crawler does not have to read the checkpoint every few seconds to notice it.
+     */
+    @Test
+    void editing_the_checkpoint_starts_the_next_run() throws IOException {
+        FsParser crawler = newRestOnlyCrawler(jobName);
+        Thread thread = new Thread(crawler, "test-crawler");
+        try {
+            crawler.closed.set(false);
+            thread.start();
+
+            Awaitility.await()
+                    .atMost(5, TimeUnit.SECONDS)
+                    .until(() -> crawler.getRunNumber() >= 1 && crawler.isPaused());
+            int runsBeforeEdit = crawler.getRunNumber();
+
+            FsCrawlerCheckpointFileHandler handler = crawler.getCheckpointHandler();
+            Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> handler.read(jobName) != null);
+            FsCrawlerCheckpoint saved = handler.read(jobName);
+            saved.setNextCheck(null);
+            handler.write(jobName, saved);
+
+            // Well before updateRate
+            Awaitility.await()
+                    .atMost(UPDATE_RATE.millis() / 2, TimeUnit.MILLISECONDS)
+                    .until(() -> crawler.getRunNumber() > runsBeforeEdit);
+        } finally {
+            stopQuietly(crawler, thread);
+        }
+    }
+
+    /** {@code close()} wakes up the between-runs wait, even when the crawler has been paused by the user. */
+    @Test
+    void close_wakes_up_a_paused_crawler() throws InterruptedException {
+        FsParser crawler = newRestOnlyCrawler(jobName);
+        Thread thread = new Thread(crawler, "test-crawler");
+        crawler.closed.set(false);
+        thread.start();
+
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> crawler.getRunNumber() >= 1 && crawler.isPaused());
+        crawler.pause();
+        crawler.close();
+
+        thread.join(2000);
+        assertThat(thread.isAlive()).isFalse();
+    }
+
     private static void sleepQuietly(long millis) {
         LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
     }
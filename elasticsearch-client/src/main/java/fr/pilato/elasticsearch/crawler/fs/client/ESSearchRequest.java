@@ -31,6 +31,7 @@ public class ESSearchRequest {
     private Integer size;
     private ESQuery esQuery;
     private final List<String> storedFields = new ArrayList<>();
+    private final List<String> sourceIncludes = new ArrayList<>();
     private final List<String> highlighters = new ArrayList<>();
     private final List<ESTermsAggregation> aggregations = new ArrayList<>();
 
@@ -70,6 +71,16 @@ public class ESSearchRequest {
         return this;
     }
 
+    public List<String> getSourceIncludes() {
+        return sourceIncludes;
+    }
+
+    /** Only return this field from the _source. When no field is added, the whole _source is returned. */
+    public ESSearchRequest addSourceInclude(String field) {
+        this.sourceIncludes.add(field);
+        return this;
+    }
+
     public String getSort() {
         return sort;
     }
@@ -63,6 +63,7 @@ import java.security.cert.X509Certificate;
 import java.time.Duration;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -70,6 +71,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.stream.StreamSupport;
 import javax.net.ssl.HostnameVerifier;
@@ -133,6 +135,9 @@ public class ElasticsearchClient implements IElasticsearchClient {
     public static final int CHECK_NODES_EVERY = 10;
 
     // Retry configuration for server errors (5xx)
+    private static final int SEARCH_ALL_PAGE_SIZE = 1000;
+    private static final String SEARCH_ALL_KEEP_ALIVE = "1m";
+
     private static final Duration RETRY_MAX_DURATION = Duration.ofSeconds(10);
     private static final Duration RETRY_INITIAL_DELAY = Duration.ofMillis(500);
     private static final Duration RETRY_MAX_DELAY = Duration.ofSeconds(5);
@@ -765,6 +770,15 @@ public class ElasticsearchClient implements IElasticsearchClient {
         bulkProcessor.add(new ElasticsearchDeleteOperation(index, id));
     }
 
+    @Override
+    public void delete(String index, Collection<String> ids) {
+        List<ElasticsearchOperation> operations = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            operations.add(new ElasticsearchDeleteOperation(index, id));
+        }
+        bulkProcessor.addAll(operations);
+    }
+
     @Override
     public void deleteSingle(String index, String id) throws ElasticsearchClientException {
         logger.debug("Removing document : {}/{}", index, id);
@@ -1196,13 +1210,35 @@ public class ElasticsearchClient implements IElasticsearchClient {
             size = request.getSize();
             body.getAndUpdate(s -> s + (", \"size\":" + request.getSize()));
         }
+        appendSearchBody(body, request);
+        if (!FsCrawlerUtil.isNullOrEmpty(request.getSort())) {
+            body.getAndUpdate(s -> s + (", \"sort\" : [\"" + request.getSort() + "\"]"));
+        }
+        String query = body.updateAndGet(s -> s + "}");
+        logger.trace("Elasticsearch query to run: {}", query);
+
+        try {
+            String response = httpPostWithRetry(url, query, new AbstractMap.SimpleImmutableEntry<>("version", "true"));
+            return parseSearchResponse(response, size);
+        } catch (NotFoundException e) {
+            logger.debug("index {} does not exist.", request.getIndex());
+            throw new ElasticsearchIndexNotFoundException(request.getIndex());
+        } catch (ServiceUnavailableException e) {
+            logger.warn(
+                    "search on index [{}] still unavailable after retries ({}). Shards may not be allocated yet.",
+                    request.getIndex(),
+                    e.getResponse().getStatus());
+            throw e;
+        }
+    }
+
+    /** Append the stored fields, _source filtering, query, highlighters and aggregations of a search request */
+    private void appendSearchBody(AtomicReference<String> body, ESSearchRequest request) {
         appendStoredFields(body, request);
+        appendSourceIncludes(body, request);
         if (request.getESQuery() != null) {
             body.getAndUpdate(s -> s + (", \"query\" : {" + toElasticsearchQuery(request.getESQuery()) + "}"));
         }
-        if (!FsCrawlerUtil.isNullOrEmpty(request.getSort())) {
-            body.getAndUpdate(s -> s + (", \"sort\" : [\"" + request.getSort() + "\"]"));
-        }
         if (!request.getHighlighters().isEmpty()) {
             body.getAndUpdate(s -> s + ", \"highlight\": { \"fields\": {");
 
@@ -1228,22 +1264,122 @@ public class ElasticsearchClient implements IElasticsearchClient {
             });
             body.getAndUpdate(s -> s + "}");
         }
+    }
 
-        String query = body.updateAndGet(s -> s + "}");
+    @Override
+    public void searchAll(ESSearchRequest request, Consumer<ESSearchHit> consumer) throws ElasticsearchClientException {
+        int size = request.getSize() != null ? request.getSize() : SEARCH_ALL_PAGE_SIZE;
+        if (!isPointInTimeSupported()) {
+            scrollAll(request, size, consumer);
+            return;
+        }
+        logger.debug("reading all hits from index [{}] by pages of [{}]", request.getIndex(), size);
+
+        String pitId;
+        try {
+            String response = httpPostWithRetry(
+                    request.getIndex() + "/_pit",
+                    null,
+                    new AbstractMap.SimpleImmutableEntry<>("keep_alive", SEARCH_ALL_KEEP_ALIVE));
+            pitId = JsonUtil.parseJsonAsDocumentContext(response).read("$.id");
+        } catch (NotFoundException e) {
+            logger.debug("index {} does not exist.", request.getIndex());
+            throw new ElasticsearchIndexNotFoundException(request.getIndex());
+        }
+
+        try {
+            String searchAfter = null;
+            while (true) {
+                final AtomicReference<String> body =
+                        new AtomicReference<>("{ \"track_total_hits\": false, \"size\":" + size);
+                appendSearchBody(body, request);
+                final String currentPitId = pitId;
+                body.getAndUpdate(s -> s
+                        + (", \"pit\": { \"id\": \"" + currentPitId + "\", \"keep_alive\": \"" + SEARCH_ALL_KEEP_ALIVE
+                                + "\" }"));
+                // _shard_doc is the most efficient sort and a unique tiebreaker within a point in time
+                body.getAndUpdate(s -> s + ", \"sort\": [ { \"_shard_doc\": \"asc\" } ]");
+                if (searchAfter != null) {
+                    final String currentSearchAfter = searchAfter;
+                    body.getAndUpdate(s -> s + (", \"search_after\": " + currentSearchAfter));
+                }
+                String query = body.updateAndGet(s -> s + "}");
+                logger.trace("Elasticsearch query to run: {}", query);
+
+                String response =
+                        httpPostWithRetry(API_SEARCH, query, new AbstractMap.SimpleImmutableEntry<>("version", "true"));
+                DocumentContext document = JsonUtil.parseJsonAsDocumentContext(response);
+                // The point in time id may change from one request to the other
+                pitId = document.read("$.pit_id");
+                ESSearchResponse page = parseSearchResponse(response, size);
+                page.getHits().forEach(consumer);
+                if (page.getHits().size() < size) {
+                    return;
+                }
+                List<Object> lastSort = document.read(
+                        String.format("$.hits.hits[%d].sort", page.getHits().size() - 1));
+                searchAfter = JsonUtil.serialize(lastSort);
+            }
+        } finally {
+            try {
+                httpDelete("_pit", "{ \"id\": \"" + pitId + "\" }");
+            } catch (ElasticsearchClientException | WebApplicationException e) {
+                logger.debug("Can not close point in time on index [{}]: {}", request.getIndex(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean isPointInTimeSupported() {
+        return isPointInTimeSupported(majorVersion, minorVersion);
+    }
+
+    /**
+     * Point in time is available since 7.10, but sorting on {@code _shard_doc}, which we need to page with
+     * search_after, is only available since 7.12.
+     */
+    static boolean isPointInTimeSupported(int majorVersion, int minorVersion) {
+        return majorVersion > 7 || (majorVersion == 7 && minorVersion >= 12);
+    }
+
+    /** Read all the hits with a scroll, for the clusters which do not support point in time */
+    private void scrollAll(ESSearchRequest request, int size, Consumer<ESSearchHit> consumer)
+            throws ElasticsearchClientException {
+        logger.debug("scrolling all hits from index [{}] by pages of [{}]", request.getIndex(), size);
+        final AtomicReference<String> body = new AtomicReference<>("{ \"size\":" + size);
+        appendSearchBody(body, request);
+        // _doc is the most efficient sort for a scroll
+        String query = body.updateAndGet(s -> s + ", \"sort\": [ \"_doc\" ] }");
         logger.trace("Elasticsearch query to run: {}", query);
 
+        String scrollId = null;
         try {
-            String response = httpPostWithRetry(url, query, new AbstractMap.SimpleImmutableEntry<>("version", "true"));
-            return parseSearchResponse(response, size);
+            String response = httpPostWithRetry(
+                    request.getIndex() + "/" + API_SEARCH,
+                    query,
+                    new AbstractMap.SimpleImmutableEntry<>("scroll", SEARCH_ALL_KEEP_ALIVE),
+                    new AbstractMap.SimpleImmutableEntry<>("version", "true"));
+            while (true) {
+                scrollId = JsonUtil.parseJsonAsDocumentContext(response).read("$._scroll_id");
+                ESSearchResponse page = parseSearchResponse(response, size);
+                page.getHits().forEach(consumer);
+                if (page.getHits().size() < size) {
+                    return;
+                }
+                response = httpPostWithRetry(
+                        API_SEARCH + "/scroll",
+                        "{ \"scroll\": \"" + SEARCH_ALL_KEEP_ALIVE + "\", \"scroll_id\": \"" + scrollId + "\" }");
+            }
         } catch (NotFoundException e) {
             logger.debug("index {} does not exist.", request.getIndex());
             throw new ElasticsearchIndexNotFoundException(request.getIndex());
-        } catch (ServiceUnavailableException e) {
-            logger.warn(
-                    "search on index [{}] still unavailable after retries ({}). Shards may not be allocated yet.",
-                    request.getIndex(),
-                    e.getResponse().getStatus());
-            throw e;
+        } finally {
+            if (scrollId != null) {
+                try {
+                    httpDelete(API_SEARCH + "/scroll", "{ \"scroll_id\": [ \"" + scrollId + "\" ] }");
+                } catch (ElasticsearchClientException | WebApplicationException e) {
+                    logger.debug("Can not clear scroll on index [{}]: {}", request.getIndex(), e.getMessage());
+                }
+            }
         }
     }
 
@@ -1252,7 +1388,11 @@ public class ElasticsearchClient implements IElasticsearchClient {
 
         // Parse
         DocumentContext document = JsonUtil.parseJsonAsDocumentContext(response);
-        esSearchResponse.setTotalHits(document.read("$.hits.total.value"));
+        try {
+            esSearchResponse.setTotalHits(document.read("$.hits.total.value"));
+        } catch (PathNotFoundException ignored) {
+            // Total hits are not tracked when reading all the hits
+        }
 
         int numHits = document.read("$.hits.hits.length()");
         if (numHits < size) {
@@ -1352,6 +1492,21 @@ public class ElasticsearchClient implements IElasticsearchClient {
         body.getAndUpdate(s -> s + "]");
     }
 
+    private void appendSourceIncludes(AtomicReference<String> body, ESSearchRequest request) {
+        if (request.getSourceIncludes().isEmpty()) {
+            return;
+        }
+        body.getAndUpdate(s -> s + ", \"_source\" : [");
+        AtomicBoolean moreFields = new AtomicBoolean(false);
+        request.getSourceIncludes().forEach(f -> {
+            if (moreFields.getAndSet(true)) {
+                body.getAndUpdate(s -> s + ",");
+            }
+            body.getAndUpdate(s -> s + ("\"" + f + "\""));
+        });
+        body.getAndUpdate(s -> s + "]");
+    }
+
     private String toRangeQuery(ESRangeQuery esQuery) {
         String localQuery = "\"range\": { \"" + esQuery.getField() + "\": {";
         if (esQuery.getGte() != null) {
@@ -1482,12 +1637,24 @@ public class ElasticsearchClient implements IElasticsearchClient {
 
     @Override
     public String bulk(String index, String ndjson) throws ElasticsearchClientException {
-        String path = index == null ? "_bulk" : index + PATH_DELIMITER + "_bulk";
+        String path = bulkPath(index);
         logger.debug("bulk a ndjson of {} characters to [{}]", ndjson.length(), path);
         // Same retry policy as _search: 5xx short backoff, 429 longer. Safe because FSCrawler always sets _id.
         return httpPostWithRetry(path, ndjson);
     }
 
+    @Override
+    public String bulk(String index, byte[] ndjson) throws ElasticsearchClientException {
+        String path = bulkPath(index);
+        logger.debug("bulk a ndjson of {} bytes to [{}]", ndjson.length, path);
+        // The same array is sent again when we retry
+        return httpPostWithRetry(path, ndjson);
+    }
+
+    private static String bulkPath(String index) {
+        return index == null ? "_bulk" : index + PATH_DELIMITER + "_bulk";
+    }
+
     /**
      * Throws if a previous bulk request failed after HTTP retries were exhausted. Does not clear the failure so a
      * concurrent REST {@code ensureBulkSucceeded()} cannot hide it from the crawl (and vice versa).
@@ -21,12 +21,24 @@
 package fr.pilato.elasticsearch.crawler.fs.client;
 
 import fr.pilato.elasticsearch.crawler.fs.framework.bulk.Engine;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class ElasticsearchEngine
         implements Engine<ElasticsearchOperation, ElasticsearchBulkRequest, ElasticsearchBulkResponse> {
     private static final Logger logger = LogManager.getLogger();
+
+    /** A java array can not hold more than this */
+    private static final long MAX_BULK_BYTES = Integer.MAX_VALUE - 8;
+
     private final IElasticsearchClient elasticsearchClient;
 
     public ElasticsearchEngine(IElasticsearchClient elasticsearchClient) {
@@ -36,46 +48,42 @@ public class ElasticsearchEngine
     @Override
     public ElasticsearchBulkResponse bulk(ElasticsearchBulkRequest request) {
         String commonIndex = resolveCommonIndex(request);
-        StringBuilder ndjson = new StringBuilder();
-
-        request.getOperations().forEach(r -> {
-            StringBuilder bulkRequest = new StringBuilder();
-            // Header
-            bulkRequest
-                    .append("{\"")
-                    .append(r.getOperation().asLowerCaseString())
-                    .append("\":{");
-
-            if (commonIndex == null) {
-                bulkRequest.append("\"_index\":\"").append(r.getIndex()).append("\",");
-            }
 
-            bulkRequest.append("\"_id\":\"").append(r.getId()).append("\"");
-
-            if (r instanceof ElasticsearchInsertOperation insertOp && insertOp.getPipeline() != null) {
-                bulkRequest
-                        .append(",\"pipeline\":\"")
-                        .append(insertOp.getPipeline())
-                        .append("\"");
-            }
-            bulkRequest.append("}}\n");
+        // We first collect the lines to send, so we know the exact size of the request and can write it in a single
+        // byte array. Documents are not copied here: the line is the json of the operation most of the time.
+        List<String> lines = new ArrayList<>(request.numberOfActions() * 2);
+        long size = 0;
+        for (ElasticsearchOperation r : request.getOperations()) {
+            String actionLine = r.actionLine(commonIndex == null);
+            logger.trace("Adding to bulk request: {}", actionLine);
+            lines.add(actionLine);
+            size += ElasticsearchOperation.utf8Length(actionLine) + 1;
             if (r instanceof ElasticsearchInsertOperation insertOp) {
                 // NDJSON needs one JSON object per line. Pretty-printed documents may contain
                 // structural CR/LF; strip them without a Jackson round-trip (which rejects large
                 // string values via StreamReadConstraints). Valid JSON never has raw CR/LF inside
                 // strings — those must be escaped as \n / \r.
-                bulkRequest.append(toSingleLineJson(insertOp.getJson())).append("\n");
+                String json = toSingleLineJson(insertOp.getJson());
+                lines.add(json);
+                size += ElasticsearchOperation.utf8Length(json) + 1;
             }
-            logger.trace("Adding to bulk request: {}", bulkRequest);
-            ndjson.append(bulkRequest);
-        });
+        }
+        if (size > MAX_BULK_BYTES) {
+            return new ElasticsearchBulkResponse(new ElasticsearchClientException(
+                    "Bulk request of [" + size + "] bytes is too big to be sent. Lower bulk_size."));
+        }
 
-        logger.trace("Full bulk request {}", ndjson);
+        byte[] ndjson = toNdjson(lines, (int) size);
+        if (logger.isTraceEnabled()) {
+            logger.trace("Full bulk request {}", new String(ndjson, StandardCharsets.UTF_8));
+        }
         logger.debug(
-                "Sending a bulk request of [{}] documents to the Elasticsearch service", request.numberOfActions());
+                "Sending a bulk request of [{}] documents ([{}] bytes) to the Elasticsearch service",
+                request.numberOfActions(),
+                ndjson.length);
         String response;
         try {
-            response = elasticsearchClient.bulk(commonIndex, ndjson.toString());
+            response = elasticsearchClient.bulk(commonIndex, ndjson);
         } catch (ElasticsearchClientException e) {
             return new ElasticsearchBulkResponse(e);
         } catch (RuntimeException e) {
@@ -85,6 +93,34 @@ public class ElasticsearchEngine
         return new ElasticsearchBulkResponse(response);
     }
 
+    /**
+     * Encode the lines as UTF-8 directly in the final array, each line followed by a new line.
+     *
+     * @param lines the lines to write
+     * @param size the exact size in bytes of the encoded lines, new lines included
+     * @return the bulk request body
+     */
+    static byte[] toNdjson(List<String> lines, int size) {
+        byte[] ndjson = new byte[size];
+        ByteBuffer buffer = ByteBuffer.wrap(ndjson);
+        CharsetEncoder encoder = StandardCharsets.UTF_8
+                .newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        for (String line : lines) {
+            encoder.reset();
+            CoderResult result = encoder.encode(CharBuffer.wrap(line), buffer, true);
+            if (result.isOverflow() || encoder.flush(buffer).isOverflow() || !buffer.hasRemaining()) {
+                throw new IllegalStateException("Bulk request is bigger than the [" + size + "] bytes computed");
+            }
+            buffer.put((byte) '\n');
+        }
+        if (buffer.hasRemaining()) {
+            throw new IllegalStateException("Bulk request is smaller than the [" + size + "] bytes computed");
+        }
+        return ndjson;
+    }
+
     /**
      * If every operation targets the same index, return that index so the client can call {@code POST index/_bulk}.
      * Otherwise return {@code null} and keep {@code _index} on each action line.
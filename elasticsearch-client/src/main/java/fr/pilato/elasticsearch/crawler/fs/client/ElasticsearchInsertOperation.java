@@ -42,4 +42,16 @@ public abstract class ElasticsearchInsertOperation extends ElasticsearchOperatio
     public String getJson() {
         return json;
     }
+
+    @Override
+    void appendActionParameters(StringBuilder line) {
+        if (pipeline != null) {
+            line.append(",\"pipeline\":\"").append(pipeline).append("\"");
+        }
+    }
+
+    @Override
+    public int byteSize() {
+        return super.byteSize() + utf8Length(json) + 1;
+    }
 }
@@ -46,6 +46,65 @@ public abstract class ElasticsearchOperation implements FsCrawlerOperation<Elast
         return id;
     }
 
+    /**
+     * Build the action line of this operation in a bulk request, without the trailing new line.
+     *
+     * @param withIndex whether {@code _index} must be set, i.e. when the bulk request does not target a single index
+     * @return the action line
+     */
+    String actionLine(boolean withIndex) {
+        StringBuilder line = new StringBuilder();
+        line.append("{\"").append(operation.asLowerCaseString()).append("\":{");
+        if (withIndex) {
+            line.append("\"_index\":\"").append(index).append("\",");
+        }
+        line.append("\"_id\":\"").append(id).append("\"");
+        appendActionParameters(line);
+        line.append("}}");
+        return line.toString();
+    }
+
+    /**
+     * Append the operation specific parameters to the action line.
+     *
+     * @param line the action line being built
+     */
+    void appendActionParameters(StringBuilder line) {}
+
+    @Override
+    public int byteSize() {
+        // Same as what we send, without having to serialize the operation again
+        return utf8Length(actionLine(true)) + 1;
+    }
+
+    /**
+     * Compute how many bytes the UTF-8 encoding of a text takes, without encoding it.
+     *
+     * @param text the text
+     * @return the number of bytes. Unpaired surrogates count as one byte as they are replaced by {@code ?}.
+     */
+    static int utf8Length(CharSequence text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)
+                    && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
     @Override
     public int compareTo(ElasticsearchOperation request) {
         // We check on the id field
@@ -22,7 +22,9 @@ package fr.pilato.elasticsearch.crawler.fs.client;
 
 import fr.pilato.elasticsearch.crawler.fs.beans.Doc;
 import java.io.Closeable;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /** Simple Elasticsearch client over HTTP or HTTPS. Only needed methods are exposed. */
 public interface IElasticsearchClient extends Closeable {
@@ -147,6 +149,14 @@ public interface IElasticsearchClient extends Closeable {
      */
     void delete(String index, String id);
 
+    /**
+     * Delete several documents of an index at once using a BulkProcessor behind the scenes
+     *
+     * @param index Index name
+     * @param ids Document IDs
+     */
+    void delete(String index, Collection<String> ids);
+
     /**
      * Delete a single document using the Delete Document API
      *
@@ -171,6 +181,16 @@ public interface IElasticsearchClient extends Closeable {
      */
     ESSearchResponse search(ESSearchRequest request) throws ElasticsearchClientException;
 
+    /**
+     * Run a search and read all the hits, page by page, using a point in time and search_after (or a scroll on clusters
+     * which do not support point in time). The size of the request is the size of each page. The sort of the request is
+     * ignored.
+     *
+     * @param request Search Request
+     * @param consumer called for each hit
+     */
+    void searchAll(ESSearchRequest request, Consumer<ESSearchHit> consumer) throws ElasticsearchClientException;
+
     /**
      * Remove an index
      *
@@ -286,6 +306,16 @@ public interface IElasticsearchClient extends Closeable {
      */
     String bulk(String index, String ndjson) throws ElasticsearchClientException;
 
+    /**
+     * Send a _bulk request to Elasticsearch, already encoded in UTF-8. The array is sent as is, without any copy.
+     *
+     * @param index optional index name; when non-null, calls {@code POST {index}/_bulk} so action lines can omit
+     *     {@code _index}
+     * @param ndjson the bulk content to send
+     * @return the outcome
+     */
+    String bulk(String index, byte[] ndjson) throws ElasticsearchClientException;
+
     /**
      * Generate an API key (for tests purposes only)
      *
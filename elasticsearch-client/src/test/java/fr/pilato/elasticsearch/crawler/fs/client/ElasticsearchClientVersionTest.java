@@ -0,0 +1,40 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.client;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ElasticsearchClientVersionTest extends AbstractFSCrawlerTestCase {
+
+    @Test
+    void pointInTimeIsUsedFrom712() {
+        Assertions.assertThat(ElasticsearchClient.isPointInTimeSupported(6, 8)).isFalse();
+        // Point in time exists in 7.10 and 7.11, but sorting on _shard_doc does not
+        Assertions.assertThat(ElasticsearchClient.isPointInTimeSupported(7, 10)).isFalse();
+        Assertions.assertThat(ElasticsearchClient.isPointInTimeSupported(7, 11)).isFalse();
+        Assertions.assertThat(ElasticsearchClient.isPointInTimeSupported(7, 12)).isTrue();
+        Assertions.assertThat(ElasticsearchClient.isPointInTimeSupported(7, 17)).isTrue();
+        Assertions.assertThat(ElasticsearchClient.isPointInTimeSupported(8, 0)).isTrue();
+        Assertions.assertThat(ElasticsearchClient.isPointInTimeSupported(9, 1)).isTrue();
+    }
+}
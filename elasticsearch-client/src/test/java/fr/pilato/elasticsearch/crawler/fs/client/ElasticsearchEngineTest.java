@@ -20,6 +20,7 @@
  */
 package fr.pilato.elasticsearch.crawler.fs.client;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
@@ -28,6 +29,8 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
 import com.carrotsearch.randomizedtesting.jupiter.RandomizedTest;
+import fr.pilato.elasticsearch.crawler.fs.framework.ByteSizeUnit;
+import fr.pilato.elasticsearch.crawler.fs.framework.ByteSizeValue;
 import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
 import fr.pilato.elasticsearch.crawler.fs.test.framework.VerySlow;
 import java.io.IOException;
@@ -63,11 +66,11 @@ class ElasticsearchEngineTest extends AbstractFSCrawlerTestCase {
         AtomicReference<String> capturedNdjson = new AtomicReference<>();
         IElasticsearchClient client = mock(IElasticsearchClient.class);
         doAnswer(invocation -> {
-                    capturedNdjson.set(invocation.getArgument(1));
+                    capturedNdjson.set(new String((byte[]) invocation.getArgument(1), StandardCharsets.UTF_8));
                     return "{\"errors\":false,\"items\":[{\"create\":{\"_index\":\"idx\",\"_id\":\"1\"}}]}";
                 })
                 .when(client)
-                .bulk(anyString(), anyString());
+                .bulk(anyString(), any(byte[].class));
 
         ElasticsearchBulkRequest request = new ElasticsearchBulkRequest();
         request.add(new ElasticsearchCreateOperation("idx", "1", "my-pipeline", "{\"foo\":\"bar\"}"));
@@ -75,7 +78,7 @@ class ElasticsearchEngineTest extends AbstractFSCrawlerTestCase {
         ElasticsearchBulkResponse response = new ElasticsearchEngine(client).bulk(request);
 
         Assertions.assertThat(response.isErrors()).isFalse();
-        verify(client).bulk(eq("idx"), anyString());
+        verify(client).bulk(eq("idx"), any(byte[].class));
         String ndjson = capturedNdjson.get();
         String[] lines = ndjson.split("\n", -1);
         Assertions.assertThat(lines[0]).startsWith("{\"create\":");
@@ -90,11 +93,11 @@ class ElasticsearchEngineTest extends AbstractFSCrawlerTestCase {
         AtomicReference<String> capturedNdjson = new AtomicReference<>();
         IElasticsearchClient client = mock(IElasticsearchClient.class);
         doAnswer(invocation -> {
-                    capturedNdjson.set(invocation.getArgument(1));
+                    capturedNdjson.set(new String((byte[]) invocation.getArgument(1), StandardCharsets.UTF_8));
                     return "{\"errors\":false,\"items\":[]}";
                 })
                 .when(client)
-                .bulk(isNull(), anyString());
+                .bulk(isNull(), any(byte[].class));
 
         String indexA = RandomizedTest.randomAsciiLettersOfLength(randomizedRandomForTests, 6);
         String indexB = RandomizedTest.randomAsciiLettersOfLength(randomizedRandomForTests, 6);
@@ -104,7 +107,7 @@ class ElasticsearchEngineTest extends AbstractFSCrawlerTestCase {
 
         new ElasticsearchEngine(client).bulk(request);
 
-        verify(client).bulk(isNull(), anyString());
+        verify(client).bulk(isNull(), any(byte[].class));
         Assertions.assertThat(capturedNdjson.get())
                 .contains("\"_index\":\"" + indexA + "\"")
                 .contains("\"_index\":\"" + indexB + "\"");
@@ -126,11 +129,11 @@ class ElasticsearchEngineTest extends AbstractFSCrawlerTestCase {
         AtomicReference<String> capturedNdjson = new AtomicReference<>();
         IElasticsearchClient client = mock(IElasticsearchClient.class);
         doAnswer(invocation -> {
-                    capturedNdjson.set(invocation.getArgument(1));
+                    capturedNdjson.set(new String((byte[]) invocation.getArgument(1), StandardCharsets.UTF_8));
                     return "{\"errors\":false,\"items\":[{\"index\":{\"_index\":\"idx\",\"_id\":\"1\"}}]}";
                 })
                 .when(client)
-                .bulk(anyString(), anyString());
+                .bulk(anyString(), any(byte[].class));
 
         ElasticsearchBulkRequest request = new ElasticsearchBulkRequest();
         request.add(new ElasticsearchIndexOperation("idx", "1", null, prettyJson));
@@ -151,6 +154,37 @@ class ElasticsearchEngineTest extends AbstractFSCrawlerTestCase {
         Assertions.assertThat(lines[2]).isEmpty();
     }
 
+    @Test
+    void bulkSizeMatchesTheBytesSent() throws Exception {
+        AtomicReference<byte[]> capturedNdjson = new AtomicReference<>();
+        IElasticsearchClient client = mock(IElasticsearchClient.class);
+        doAnswer(invocation -> {
+                    capturedNdjson.set(invocation.getArgument(1));
+                    return "{\"errors\":false,\"items\":[]}";
+                })
+                .when(client)
+                .bulk(isNull(), any(byte[].class));
+
+        ElasticsearchBulkRequest request = new ElasticsearchBulkRequest();
+        request.maxBulkSize(new ByteSizeValue(1, ByteSizeUnit.GB));
+        request.add(new ElasticsearchIndexOperation(
+                "idx-a", "1", "my-pipeline", "{\"content\":\"Bonjour \u00e9t\u00e9 \u4e2d\u6587 \ud83d\ude00\"}"));
+        // An unpaired surrogate is sent as ?
+        request.add(new ElasticsearchCreateOperation("idx-b", "2", null, "{\"content\":\"\ud83d\"}"));
+        request.add(new ElasticsearchDeleteOperation("idx-a", "3"));
+
+        new ElasticsearchEngine(client).bulk(request);
+
+        byte[] ndjson = capturedNdjson.get();
+        Assertions.assertThat(ndjson).hasSize(request.totalByteSize());
+        String[] lines = new String(ndjson, StandardCharsets.UTF_8).split("\n", -1);
+        Assertions.assertThat(lines).hasSize(6);
+        Assertions.assertThat(lines[1]).isEqualTo("{\"content\":\"Bonjour \u00e9t\u00e9 \u4e2d\u6587 \ud83d\ude00\"}");
+        Assertions.assertThat(lines[3]).isEqualTo("{\"content\":\"?\"}");
+        Assertions.assertThat(lines[4]).isEqualTo("{\"delete\":{\"_index\":\"idx-a\",\"_id\":\"3\"}}");
+        Assertions.assertThat(lines[5]).isEmpty();
+    }
+
     @Test
     void toSingleLineJsonRemovesStructuralNewlinesOnly() {
         String pretty = """
@@ -182,14 +216,15 @@ class ElasticsearchEngineTest extends AbstractFSCrawlerTestCase {
             AtomicLong capturedNdjsonLength = new AtomicLong();
             IElasticsearchClient client = mock(IElasticsearchClient.class);
             doAnswer(invocation -> {
-                        String ndjson = invocation.getArgument(1);
-                        capturedNdjsonLength.set(ndjson.length());
+                        byte[] bytes = invocation.getArgument(1);
+                        capturedNdjsonLength.set(bytes.length);
+                        String ndjson = new String(bytes, StandardCharsets.UTF_8);
                         Assertions.assertThat(ndjson).startsWith("{\"index\":");
                         Assertions.assertThat(ndjson).contains("\"content\":\"");
                         return "{\"errors\":false,\"items\":[{\"index\":{\"_index\":\"idx\",\"_id\":\"1\"}}]}";
                     })
                     .when(client)
-                    .bulk(anyString(), anyString());
+                    .bulk(anyString(), any(byte[].class));
 
             ElasticsearchBulkRequest request = new ElasticsearchBulkRequest();
             request.add(new ElasticsearchIndexOperation("idx", "1", null, json));
@@ -0,0 +1,184 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.framework;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The {@code fs.filters} of a job, compiled once. All the filters must be found in the content to index a document.
+ *
+ * <p>The filters can also be checked while the content is extracted with an {@link Evaluation}, which tells as soon as
+ * one filter can not match whatever text comes next.
+ */
+public class FsCrawlerContentFilter {
+    private static final Logger logger = LogManager.getLogger();
+
+    // Jobs only have one list of filters: this only protects from unexpected callers
+    private static final int MAX_CACHED_FILTERS = 100;
+    private static final Map<List<String>, FsCrawlerContentFilter> CACHE = new ConcurrentHashMap<>();
+
+    private final List<String> filters;
+    private final Pattern[] patterns;
+
+    /** @param filters regular expressions that all need to match. May be null or empty. */
+    public FsCrawlerContentFilter(List<String> filters) {
+        this.filters = filters == null ? List.of() : List.copyOf(filters);
+        this.patterns = this.filters.stream()
+                .map(filter -> Pattern.compile(filter, Pattern.MULTILINE | Pattern.UNIX_LINES))
+                .toArray(Pattern[]::new);
+    }
+
+    /**
+     * Get the compiled filters, from a cache, so the static helpers of {@link FsCrawlerUtil} do not compile them for
+     * every document.
+     */
+    static FsCrawlerContentFilter of(List<String> filters) {
+        if (filters == null) {
+            filters = List.of();
+        }
+        FsCrawlerContentFilter filter = CACHE.get(filters);
+        if (filter == null) {
+            if (CACHE.size() >= MAX_CACHED_FILTERS) {
+                CACHE.clear();
+            }
+            filter = new FsCrawlerContentFilter(filters);
+            CACHE.put(filter.filters, filter);
+        }
+        return filter;
+    }
+
+    /** @return true if there is no filter */
+    public boolean isEmpty() {
+        return patterns.length == 0;
+    }
+
+    public List<String> getFilters() {
+        return filters;
+    }
+
+    /**
+     * We check if we can index the content or skip it
+     *
+     * @param content Content to parse
+     * @return true if all the filters match the content, or if the content is null or empty
+     */
+    public boolean isIndexable(String content) {
+        if (content == null || content.isEmpty()) {
+            logger.trace("Null or empty content always matches.");
+            return true;
+        }
+
+        if (patterns.length == 0) {
+            logger.trace("No pattern always matches.");
+            return true;
+        }
+
+        logger.trace("content = [{}], filters = {}", content, filters);
+        for (Pattern pattern : patterns) {
+            logger.trace("Testing filter [{}]", pattern);
+            if (!pattern.matcher(content).find()) {
+                logger.trace("Filter [{}] is not matching.", pattern);
+                return false;
+            } else {
+                logger.trace("Filter [{}] is matching.", pattern);
+            }
+        }
+
+        return true;
+    }
+
+    /** @return a new evaluation of the filters for a content which is not fully known yet */
+    public Evaluation newEvaluation() {
+        return new Evaluation();
+    }
+
+    /**
+     * Checks the filters against a text which grows while it is extracted. Each filter is only searched in the text
+     * which has been added since it was last checked (plus what a partial match might need), and not anymore once it
+     * has been found.
+     */
+    public class Evaluation {
+        // Where the next match of each filter can start. -1 when the filter has been found.
+        private final int[] from = new int[patterns.length];
+        private int remaining = patterns.length;
+        private boolean impossible;
+
+        /**
+         * Check the filters which have not been found yet.
+         *
+         * @param text all the text extracted so far. It must only grow between two calls.
+         * @return false if one filter can not match anymore, whatever the next text is
+         */
+        public boolean update(CharSequence text) {
+            if (impossible || remaining == 0) {
+                return !impossible;
+            }
+            for (int i = 0; i < patterns.length; i++) {
+                if (from[i] < 0) {
+                    continue;
+                }
+                Matcher matcher = patterns[i].matcher(text);
+                // Transparent bounds, so anchors and lookarounds still see the text before the region
+                matcher.useTransparentBounds(true).useAnchoringBounds(false).region(from[i], text.length());
+                if (matcher.find()) {
+                    if (matcher.requireEnd()) {
+                        // Like "foo$": more text could make the match fail
+                        continue;
+                    }
+                    logger.trace("Filter [{}] is matching.", patterns[i]);
+                    from[i] = -1;
+                    remaining--;
+                } else if (!matcher.hitEnd()) {
+                    // No attempt needed more text: a match can only start in the text coming next
+                    if (startsAtBeginningOfInput(patterns[i])) {
+                        logger.trace("Filter [{}] can not match anymore.", patterns[i]);
+                        impossible = true;
+                        return false;
+                    }
+                    from[i] = text.length();
+                }
+            }
+            return true;
+        }
+
+        /** @return true if all the filters have been found */
+        public boolean isMatching() {
+            return remaining == 0;
+        }
+    }
+
+    /** A filter starting with {@code \A} can only match at the beginning of the content */
+    private static boolean startsAtBeginningOfInput(Pattern pattern) {
+        return pattern.pattern().startsWith("\\A");
+    }
+
+    @Override
+    public String toString() {
+        return "FsCrawlerContentFilter{" + "filters=" + Arrays.toString(patterns) + '}';
+    }
+}
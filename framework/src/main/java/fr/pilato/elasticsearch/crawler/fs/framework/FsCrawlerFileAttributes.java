@@ -0,0 +1,189 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.framework;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileOwnerAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.UserPrincipal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The attributes of a local file, read at once.
+ *
+ * <p>Reading each attribute on its own ({@link FsCrawlerUtil#getModificationTime}, {@link FsCrawlerUtil#getOwnerName},
+ * {@link FsCrawlerUtil#getFilePermissions}...) costs one {@code stat} call per attribute, which is expensive on large
+ * trees and even more on network file systems. {@link #read(Path)} does it with a single call on POSIX systems.
+ *
+ * @param regularFile true if this is a regular file
+ * @param lastModifiedTime last modification time
+ * @param creationTime creation time. Some file systems give the last modification time instead.
+ * @param lastAccessTime last access time
+ * @param changeTime last time the file or its attributes changed (ctime). Null when not available, like on Windows.
+ * @param size size in bytes
+ * @param owner owner name. Null if not available.
+ * @param group group name. Null if not available, like on Windows.
+ * @param permissions permissions as an octal number like {@code 644}. -1 if not available, like on Windows.
+ */
+public record FsCrawlerFileAttributes(
+        boolean regularFile,
+        Instant lastModifiedTime,
+        Instant creationTime,
+        Instant lastAccessTime,
+        Instant changeTime,
+        long size,
+        String owner,
+        String group,
+        int permissions) {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final String UNIX_ATTRIBUTES =
+            "unix:isRegularFile,lastModifiedTime,creationTime,lastAccessTime,ctime,size,owner,group,permissions";
+    /** Same as {@link #UNIX_ATTRIBUTES} but with the numeric ids, which do not need a name service lookup */
+    private static final String UNIX_ATTRIBUTES_WITH_IDS =
+            "unix:isRegularFile,lastModifiedTime,creationTime,lastAccessTime,ctime,size,uid,gid,permissions";
+
+    /**
+     * Read the attributes of a file. Symbolic links are followed.
+     *
+     * @param path the file
+     * @return its attributes
+     * @throws IOException if the file does not exist anymore or can not be read
+     */
+    public static FsCrawlerFileAttributes read(Path path) throws IOException {
+        return read(path, null);
+    }
+
+    /**
+     * Read the attributes of a file. Symbolic links are followed.
+     *
+     * @param path the file
+     * @param principalCache cache of the owner and group names. Can be null.
+     * @return its attributes
+     * @throws IOException if the file does not exist anymore or can not be read
+     */
+    public static FsCrawlerFileAttributes read(Path path, FsCrawlerPrincipalCache principalCache) throws IOException {
+        if (!OsValidator.WINDOWS) {
+            try {
+                // The "unix" view gives everything, ctime included, with one stat call
+                if (principalCache != null) {
+                    return fromUnixAttributes(
+                            path, Files.readAttributes(path, UNIX_ATTRIBUTES_WITH_IDS), principalCache);
+                }
+                return fromUnixAttributes(Files.readAttributes(path, UNIX_ATTRIBUTES));
+            } catch (UnsupportedOperationException | IllegalArgumentException e) {
+                logger.trace("No unix attribute view for [{}]: {}", path, e.getMessage());
+            }
+            try {
+                PosixFileAttributes attributes = Files.readAttributes(path, PosixFileAttributes.class);
+                return new FsCrawlerFileAttributes(
+                        attributes.isRegularFile(),
+                        toInstant(attributes.lastModifiedTime()),
+                        toInstant(attributes.creationTime()),
+                        toInstant(attributes.lastAccessTime()),
+                        null,
+                        attributes.size(),
+                        name(attributes.owner()),
+                        name(attributes.group()),
+                        FsCrawlerUtil.toOctalPermissions(attributes.permissions()));
+            } catch (UnsupportedOperationException e) {
+                logger.trace("No posix attribute view for [{}]: {}", path, e.getMessage());
+            }
+        }
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return new FsCrawlerFileAttributes(
+                attributes.isRegularFile(),
+                toInstant(attributes.lastModifiedTime()),
+                toInstant(attributes.creationTime()),
+                toInstant(attributes.lastAccessTime()),
+                null,
+                attributes.size(),
+                readOwner(path),
+                null,
+                -1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FsCrawlerFileAttributes fromUnixAttributes(Map<String, Object> attributes) {
+        return new FsCrawlerFileAttributes(
+                (Boolean) attributes.get("isRegularFile"),
+                toInstant((FileTime) attributes.get("lastModifiedTime")),
+                toInstant((FileTime) attributes.get("creationTime")),
+                toInstant((FileTime) attributes.get("lastAccessTime")),
+                toInstant((FileTime) attributes.get("ctime")),
+                (Long) attributes.get("size"),
+                name((UserPrincipal) attributes.get("owner")),
+                name((UserPrincipal) attributes.get("group")),
+                FsCrawlerUtil.toOctalPermissions((Set<PosixFilePermission>) attributes.get("permissions")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FsCrawlerFileAttributes fromUnixAttributes(
+            Path path, Map<String, Object> attributes, FsCrawlerPrincipalCache principalCache) {
+        // The names are only resolved, with another call, when the id is not in the cache yet
+        return new FsCrawlerFileAttributes(
+                (Boolean) attributes.get("isRegularFile"),
+                toInstant((FileTime) attributes.get("lastModifiedTime")),
+                toInstant((FileTime) attributes.get("creationTime")),
+                toInstant((FileTime) attributes.get("lastAccessTime")),
+                toInstant((FileTime) attributes.get("ctime")),
+                (Long) attributes.get("size"),
+                principalCache.getOwnerName((Integer) attributes.get("uid"), () -> readPrincipal(path, "posix:owner")),
+                principalCache.getGroupName((Integer) attributes.get("gid"), () -> readPrincipal(path, "posix:group")),
+                FsCrawlerUtil.toOctalPermissions((Set<PosixFilePermission>) attributes.get("permissions")));
+    }
+
+    private static String readPrincipal(Path path, String attribute) {
+        try {
+            return name((UserPrincipal) Files.getAttribute(path, attribute));
+        } catch (Exception e) {
+            logger.warn("Failed to determine '{}' of {}: {}", attribute, path, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String readOwner(Path path) {
+        try {
+            FileOwnerAttributeView view = Files.getFileAttributeView(path, FileOwnerAttributeView.class);
+            return view != null ? view.getOwner().getName() : null;
+        } catch (Exception e) {
+            logger.warn("Failed to determine 'owner' of {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Instant toInstant(FileTime fileTime) {
+        return fileTime == null ? null : fileTime.toInstant();
+    }
+
+    private static String name(UserPrincipal principal) {
+        return principal == null ? null : principal.getName();
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.framework;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The rules read from the {@code .fscrawlerignore} files of a directory and of its parents.
+ *
+ * <p>The rules use the {@code .gitignore} syntax:
+ *
+ * <ul>
+ *   <li>blank lines and lines starting with {@code #} are ignored
+ *   <li>{@code *} matches anything but a {@code /}, {@code ?} matches one character but a {@code /} and {@code **}
+ *       matches any number of directories
+ *   <li>a rule ending with {@code /} only matches directories
+ *   <li>a rule containing a {@code /} is relative to the directory of the ignore file. Otherwise, it matches a name at
+ *       any level under this directory
+ *   <li>a rule starting with {@code !} includes again what a previous rule ignored
+ * </ul>
+ *
+ * <p>Like {@code fs.includes} and {@code fs.excludes}, the rules are case insensitive. The last matching rule wins, and
+ * the rules of a directory come after the ones of its parents. Instances are immutable.
+ */
+public class FsCrawlerIgnoreRules {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** No rule at all */
+    public static final FsCrawlerIgnoreRules EMPTY = new FsCrawlerIgnoreRules(List.of());
+
+    private final List<Rule> rules;
+
+    private record Rule(String baseDir, String rule, Pattern pattern, boolean directoryOnly, boolean negated) {
+        /**
+         * @param relativePath the path relative to the base directory, using {@code /}
+         * @param directory whether the path is a directory
+         * @return true if this rule applies to the path
+         */
+        boolean matches(String relativePath, boolean directory) {
+            return (directory || !directoryOnly)
+                    && pattern.matcher(relativePath).matches();
+        }
+    }
+
+    private FsCrawlerIgnoreRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Parse the content of an ignore file
+     *
+     * @param baseDir the directory containing the ignore file
+     * @param content the content of the ignore file
+     * @return the rules, which might be empty when the file has no rule
+     */
+    public static FsCrawlerIgnoreRules parse(String baseDir, String content) {
+        return EMPTY.with(baseDir, content);
+    }
+
+    /**
+     * Add the rules of an ignore file to the current ones
+     *
+     * @param baseDir the directory containing the ignore file
+     * @param content the content of the ignore file
+     * @return new rules. The current instance is not modified.
+     */
+    public FsCrawlerIgnoreRules with(String baseDir, String content) {
+        List<Rule> newRules = new ArrayList<>(rules);
+        String base = toVirtualPath(baseDir);
+        for (String line : content.split("\\r?\\n")) {
+            Rule rule = parseRule(base, line);
+            if (rule != null) {
+                newRules.add(rule);
+            }
+        }
+        return newRules.size() == rules.size() ? this : new FsCrawlerIgnoreRules(List.copyOf(newRules));
+    }
+
+    private static Rule parseRule(String baseDir, String line) {
+        String glob = line.strip();
+        if (glob.isEmpty() || glob.startsWith("#")) {
+            return null;
+        }
+        boolean negated = glob.startsWith("!");
+        if (negated) {
+            glob = glob.substring(1);
+        }
+        boolean directoryOnly = glob.endsWith("/");
+        while (glob.endsWith("/")) {
+            glob = glob.substring(0, glob.length() - 1);
+        }
+        if (glob.isEmpty()) {
+            return null;
+        }
+        // Like git, a rule with a slash (but a trailing one) is anchored to the directory of the ignore file
+        boolean anchored = glob.contains("/");
+        if (glob.startsWith("/")) {
+            glob = glob.substring(1);
+        }
+        String regex = (anchored ? "" : "(?:.*/)?") + globToRegex(glob);
+        return new Rule(
+                baseDir, line.strip(), Pattern.compile(regex, Pattern.CASE_INSENSITIVE), directoryOnly, negated);
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int i = 0;
+        while (i < glob.length()) {
+            char c = glob.charAt(i);
+            if (glob.startsWith("**/", i)) {
+                regex.append("(?:.*/)?");
+                i += 3;
+            } else if (glob.startsWith("**", i)) {
+                regex.append(".*");
+                i += 2;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+                i++;
+            } else if (c == '?') {
+                regex.append("[^/]");
+                i++;
+            } else if (c == '[' && glob.indexOf(']', i + 1) > i + 1) {
+                int end = glob.indexOf(']', i + 1);
+                String set = glob.substring(i + 1, end);
+                if (set.startsWith("!")) {
+                    set = "^" + set.substring(1);
+                }
+                regex.append('[')
+                        .append(set.replace("\\", "\\\\").replace("[", "\\["))
+                        .append(']');
+                i = end + 1;
+            } else if (c == '\\' && i + 1 < glob.length()) {
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(i + 1))));
+                i += 2;
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+                i++;
+            }
+        }
+        return regex.toString();
+    }
+
+    /** @return true if there is no rule */
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * Check a file or a directory against the rules
+     *
+     * @param path the real path of the file or directory
+     * @param directory true if the path is a directory
+     * @return true if the last rule matching the path ignores it
+     */
+    public boolean isIgnored(String path, boolean directory) {
+        if (rules.isEmpty()) {
+            return false;
+        }
+        String virtualPath = toVirtualPath(path);
+        boolean ignored = false;
+        for (Rule rule : rules) {
+            String relativePath = relativize(rule.baseDir, virtualPath);
+            if (relativePath != null && rule.matches(relativePath, directory)) {
+                logger.trace("[{}] is matching ignore rule [{}] from [{}]", virtualPath, rule.rule, rule.baseDir);
+                ignored = !rule.negated;
+            }
+        }
+        return ignored;
+    }
+
+    private static String relativize(String baseDir, String virtualPath) {
+        if (baseDir.isEmpty() || baseDir.equals("/")) {
+            return virtualPath.startsWith("/") ? virtualPath.substring(1) : virtualPath;
+        }
+        if (virtualPath.length() > baseDir.length()
+                && virtualPath.startsWith(baseDir)
+                && virtualPath.charAt(baseDir.length()) == '/') {
+            return virtualPath.substring(baseDir.length() + 1);
+        }
+        return null;
+    }
+
+    /** We are using linux style paths, without a trailing slash */
+    private static String toVirtualPath(String path) {
+        String virtualPath = path.replace("\\", "/");
+        while (virtualPath.length() > 1 && virtualPath.endsWith("/")) {
+            virtualPath = virtualPath.substring(0, virtualPath.length() - 1);
+        }
+        return virtualPath;
+    }
+
+    @Override
+    public String toString() {
+        return "FsCrawlerIgnoreRules{" + "rules="
+                + rules.stream().map(Rule::rule).toList() + '}';
+    }
+}
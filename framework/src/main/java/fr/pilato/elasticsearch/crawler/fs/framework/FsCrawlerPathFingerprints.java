@@ -0,0 +1,214 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.framework;
+
+import java.util.Arrays;
+
+/**
+ * A thread-safe set of paths which only keeps a 64-bit fingerprint of each path, in an open addressing table of
+ * primitive longs. It uses about 12 bytes per path whatever the length of the path, where a set of strings needs around
+ * 150 bytes for a path of 50 characters.
+ *
+ * <p>Paths can not be read back from the set: it can only tell if a path was added. Two different paths having the same
+ * fingerprint is possible but very unlikely (less than one chance in a million for 5 million paths).
+ */
+public class FsCrawlerPathFingerprints {
+
+    private static final int MIN_CAPACITY = 16;
+
+    /** Empty slots are 0: a path whose fingerprint would be 0 gets 1 instead */
+    private long[] table = new long[MIN_CAPACITY];
+
+    private int size;
+
+    public FsCrawlerPathFingerprints() {}
+
+    /**
+     * Compute the fingerprint of a path. This is stable across runs and JVMs, as fingerprints are persisted.
+     *
+     * @param path the path
+     * @return the fingerprint, never 0
+     */
+    public static long fingerprint(String path) {
+        // FNV-1a over the UTF-16 chars
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < path.length(); i++) {
+            hash ^= path.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // Murmur3 finalizer so the low bits used to find the slot depend on all the chars
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Add a path
+     *
+     * @param path the path
+     * @return true if the path was not in the set
+     */
+    public boolean add(String path) {
+        return addFingerprint(fingerprint(path));
+    }
+
+    /**
+     * Check if a path was added
+     *
+     * @param path the path
+     * @return true if the path is in the set
+     */
+    public synchronized boolean contains(String path) {
+        return table[find(fingerprint(path))] != 0;
+    }
+
+    /**
+     * Remove a path
+     *
+     * @param path the path
+     * @return true if the path was in the set
+     */
+    public synchronized boolean remove(String path) {
+        int mask = table.length - 1;
+        int i = find(fingerprint(path));
+        if (table[i] == 0) {
+            return false;
+        }
+        // Backward shift deletion: move back the following entries which can not be found anymore
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (table[j] == 0) {
+                break;
+            }
+            int home = home(table[j]);
+            boolean between = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!between) {
+                table[i] = table[j];
+                i = j;
+            }
+        }
+        table[i] = 0;
+        size--;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Remove all the paths and give the memory back */
+    public synchronized void clear() {
+        table = new long[MIN_CAPACITY];
+        size = 0;
+    }
+
+    /** @return a copy of the fingerprints, in no particular order */
+    public synchronized long[] toArray() {
+        long[] fingerprints = new long[size];
+        int i = 0;
+        for (long fingerprint : table) {
+            if (fingerprint != 0) {
+                fingerprints[i++] = fingerprint;
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Add a fingerprint computed with {@link #fingerprint(String)}, for example read from a checkpoint file
+     *
+     * @param fingerprint the fingerprint
+     * @return true if the fingerprint was not in the set
+     */
+    public synchronized boolean addFingerprint(long fingerprint) {
+        if (fingerprint == 0) {
+            fingerprint = 1;
+        }
+        int i = find(fingerprint);
+        if (table[i] != 0) {
+            return false;
+        }
+        table[i] = fingerprint;
+        size++;
+        // Keep the load factor under 0.75 so the probe sequences stay short
+        if (size * 4L > table.length * 3L) {
+            rehash(table.length * 2);
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        for (long fingerprint : old) {
+            if (fingerprint != 0) {
+                table[find(fingerprint)] = fingerprint;
+            }
+        }
+    }
+
+    private int home(long fingerprint) {
+        return (int) fingerprint & (table.length - 1);
+    }
+
+    /** @return the slot holding this fingerprint or the empty slot where it would go */
+    private int find(long fingerprint) {
+        int mask = table.length - 1;
+        int i = home(fingerprint);
+        while (table[i] != 0 && table[i] != fingerprint) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        long[] these = toArray();
+        long[] those = ((FsCrawlerPathFingerprints) o).toArray();
+        Arrays.sort(these);
+        Arrays.sort(those);
+        return Arrays.equals(these, those);
+    }
+
+    @Override
+    public int hashCode() {
+        long sum = 0;
+        for (long fingerprint : toArray()) {
+            sum += fingerprint;
+        }
+        return Long.hashCode(sum);
+    }
+
+    @Override
+    public String toString() {
+        return "FsCrawlerPathFingerprints{size=" + size() + '}';
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.framework;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The {@code fs.includes} and {@code fs.excludes} rules of a job, compiled once.
+ *
+ * <p>It gives the same results as {@link FsCrawlerUtil#isIndexable(boolean, String, List, List)}: each rule is turned
+ * into the same regular expression, but the {@link Pattern} is compiled when the matcher is created instead of for
+ * every file and every rule.
+ */
+public class FsCrawlerPathMatcher {
+    private static final Logger logger = LogManager.getLogger();
+
+    // Jobs only have a few lists of rules: this only protects from unexpected callers
+    private static final int MAX_CACHED_RULES = 100;
+    private static final Map<List<String>, CompiledRule[]> CACHE = new ConcurrentHashMap<>();
+
+    private final CompiledRule[] includes;
+    private final CompiledRule[] excludes;
+
+    /**
+     * A rule as a compiled regular expression. When the rule is not a valid regular expression, the pattern is null and
+     * {@link String#matches(String)} is used so the error is raised when matching, as before.
+     */
+    private record CompiledRule(String rule, String regex, Pattern pattern) {
+        static CompiledRule of(String rule) {
+            String regex = rule.toLowerCase().replace("?", ".?").replace("*", ".*");
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(regex);
+            } catch (PatternSyntaxException e) {
+                pattern = null;
+            }
+            return new CompiledRule(rule, regex, pattern);
+        }
+
+        boolean matches(String filenameLowerCase) {
+            return pattern != null ? pattern.matcher(filenameLowerCase).matches() : filenameLowerCase.matches(regex);
+        }
+
+        /**
+         * Whether a path starting with this directory could match the rule. When the matcher reached the end of the
+         * input, the rule still needs more characters, that a file under this directory could bring.
+         */
+        boolean canMatchUnder(String directoryLowerCase) {
+            if (pattern == null) {
+                return true;
+            }
+            Matcher matcher = pattern.matcher(directoryLowerCase);
+            return matcher.matches() || matcher.hitEnd();
+        }
+    }
+
+    /**
+     * @param includes include rules, may be null or empty
+     * @param excludes exclude rules, may be null or empty
+     */
+    public FsCrawlerPathMatcher(List<String> includes, List<String> excludes) {
+        this.includes = compile(includes);
+        this.excludes = compile(excludes);
+    }
+
+    private static CompiledRule[] compile(List<String> rules) {
+        if (rules == null) {
+            return new CompiledRule[0];
+        }
+        return rules.stream().map(CompiledRule::of).toArray(CompiledRule[]::new);
+    }
+
+    /**
+     * We check if we can index the file or if we should ignore it
+     *
+     * @param directory true if the current file is a directory, false in other case (actual file)
+     * @param filename The filename to scan
+     * @return true if the file must be indexed, or if the directory must be crawled
+     */
+    public boolean isIndexable(boolean directory, String filename) {
+        // When the current file is a directory, we need to append a / to the filename
+        String originalFilename = directory && !filename.endsWith("/") ? filename + "/" : filename;
+        String filenameLowerCase = toLowerCaseVirtualPath(originalFilename);
+
+        if (matches(filenameLowerCase, excludes, "exclusion")) {
+            return false;
+        }
+        // It can happen that we have a dir "foo" which does not match the included name like "*.txt"
+        // We need to go in it unless it has been explicitly excluded by the user
+        return directory || includes.length == 0 || matches(filenameLowerCase, includes, "inclusion");
+    }
+
+    /**
+     * Whether a directory can contain files matching the include rules. For example, with {@code /projects/alpha/*},
+     * nothing under {@code /projects/beta/} can be included, so there is no need to list it. Only the beginning of the
+     * path is known, so this is conservative: a rule starting with {@code *} can match anywhere.
+     *
+     * @param directory The virtual path of the directory
+     * @return true if there is no include rule or if a file under this directory could match one of them
+     */
+    public boolean canContainIncludedFiles(String directory) {
+        if (includes.length == 0) {
+            return true;
+        }
+        String directoryLowerCase = toLowerCaseVirtualPath(directory.endsWith("/") ? directory : directory + "/");
+        for (CompiledRule rule : includes) {
+            if (rule.canMatchUnder(directoryLowerCase)) {
+                return true;
+            }
+        }
+        logger.trace("❌ [{}] can not contain any file matching the inclusion rules", directoryLowerCase);
+        return false;
+    }
+
+    /**
+     * @param filename The filename to scan
+     * @return true if the file matches one of the exclude rules
+     */
+    public boolean isExcluded(String filename) {
+        return matches(toLowerCaseVirtualPath(filename), excludes, "exclusion");
+    }
+
+    /**
+     * @param filename The filename to scan
+     * @return true if there is no include rule or if the file matches one of them
+     */
+    public boolean isIncluded(String filename) {
+        return includes.length == 0 || matches(toLowerCaseVirtualPath(filename), includes, "inclusion");
+    }
+
+    /**
+     * Check a filename against a list of rules. The compiled rules are cached, so the static helpers of
+     * {@link FsCrawlerUtil} do not compile them again for every file either.
+     *
+     * @param filename The filename to scan
+     * @param rules the rules, not null
+     * @param type "inclusion" or "exclusion", for logs
+     * @return true if the file matches one of the rules
+     */
+    static boolean matchesAny(String filename, List<String> rules, String type) {
+        CompiledRule[] compiled = CACHE.get(rules);
+        if (compiled == null) {
+            if (CACHE.size() >= MAX_CACHED_RULES) {
+                CACHE.clear();
+            }
+            compiled = compile(rules);
+            CACHE.put(List.copyOf(rules), compiled);
+        }
+        return matches(toLowerCaseVirtualPath(filename), compiled, type);
+    }
+
+    /**
+     * We are using a linux style virtual path, meaning that if we have a windows path, we need to convert it to a linux
+     * path
+     */
+    private static String toLowerCaseVirtualPath(String filename) {
+        return filename.replace("\\", "/").toLowerCase();
+    }
+
+    private static boolean matches(String filenameLowerCase, CompiledRule[] rules, String type) {
+        for (CompiledRule rule : rules) {
+            if (rule.matches(filenameLowerCase)) {
+                logger.trace(
+                        "✅ [{}] does match {} regex [{}] (was [{}])", filenameLowerCase, type, rule.regex, rule.rule);
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.framework;
+
+import fr.pilato.elasticsearch.crawler.fs.framework.tracing.FsCrawlerMetrics;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the owner and group names, by numeric uid and gid.
+ *
+ * <p>Resolving a uid or a gid to a name goes through the name service of the system, which can be a network round trip
+ * when users come from LDAP or SSSD. All the files of a tree usually belong to a few users, so the names are resolved
+ * once and kept for {@code ttl}. At most {@code maxSize} users and {@code maxSize} groups are kept, the least recently
+ * used ones being evicted first.
+ *
+ * <p>Lookups are reported with the {@code fscrawler.principal.lookups} metric and by {@link #getHits()} and
+ * {@link #getMisses()}.
+ */
+public class FsCrawlerPrincipalCache {
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+
+    private record CachedName(String name, long expiresAt) {}
+
+    private final String jobName;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final Map<Integer, CachedName> owners;
+    private final Map<Integer, CachedName> groups;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Create a cache with the default size and ttl
+     *
+     * @param jobName the job name, used for metrics
+     */
+    public FsCrawlerPrincipalCache(String jobName) {
+        this(jobName, DEFAULT_MAX_SIZE, DEFAULT_TTL, System::nanoTime);
+    }
+
+    FsCrawlerPrincipalCache(String jobName, int maxSize, Duration ttl, LongSupplier nanoClock) {
+        this.jobName = jobName;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.owners = newLruMap(maxSize);
+        this.groups = newLruMap(maxSize);
+    }
+
+    private static Map<Integer, CachedName> newLruMap(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedName> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param uid the user id
+     * @param resolver called to resolve the name when it is not in the cache. It can return null.
+     * @return the owner name
+     */
+    public String getOwnerName(int uid, Supplier<String> resolver) {
+        return get(owners, "owner", uid, resolver);
+    }
+
+    /**
+     * @param gid the group id
+     * @param resolver called to resolve the name when it is not in the cache. It can return null.
+     * @return the group name
+     */
+    public String getGroupName(int gid, Supplier<String> resolver) {
+        return get(groups, "group", gid, resolver);
+    }
+
+    private String get(Map<Integer, CachedName> cache, String type, int id, Supplier<String> resolver) {
+        long now = nanoClock.getAsLong();
+        CachedName entry;
+        synchronized (cache) {
+            entry = cache.get(id);
+        }
+        if (entry != null && now - entry.expiresAt() < 0) {
+            hits.incrementAndGet();
+            FsCrawlerMetrics.recordPrincipalLookup(jobName, type, true);
+            return entry.name();
+        }
+        misses.incrementAndGet();
+        FsCrawlerMetrics.recordPrincipalLookup(jobName, type, false);
+        // Resolved outside the lock: two threads may resolve the same id, which is harmless
+        String name = resolver.get();
+        synchronized (cache) {
+            cache.put(id, new CachedName(name, now + ttlNanos));
+        }
+        return name;
+    }
+
+    /** @return the number of names found in the cache */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /** @return the number of names which had to be resolved */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public String toString() {
+        return "FsCrawlerPrincipalCache{" + "hits=" + hits.get() + ", misses=" + misses.get() + '}';
+    }
+}
@@ -57,7 +57,6 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.function.BooleanSupplier;
 import java.util.function.Function;
-import java.util.regex.Pattern;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.logging.log4j.LogManager;
@@ -163,19 +162,8 @@ public class FsCrawlerUtil {
     public static boolean isMatching(final String filename, final List<String> matches, final String type) {
         logger.trace("checking {} for filename = [{}], matches = [{}]", type, filename, matches);
 
-        // We are using a linux style virtual path, meaning that if we have a windows path, we need to convert it
-        // to a linux path
-        String virtualPath = filename.replace("\\", "/");
-
-        for (String match : matches) {
-            String regex = match.toLowerCase().replace("?", ".?").replace("*", ".*");
-            String filenameLowerCase = virtualPath.toLowerCase();
-            if (filenameLowerCase.matches(regex)) {
-                logger.trace("✅ [{}] does match {} regex [{}] (was [{}])", filenameLowerCase, type, regex, match);
-                return true;
-            } else {
-                logger.trace("❌ [{}] does not match {} regex [{}] (was [{}])", filenameLowerCase, type, regex, match);
-            }
+        if (FsCrawlerPathMatcher.matchesAny(filename, matches, type)) {
+            return true;
         }
 
         logger.trace("does not match any pattern for {}", type);
@@ -190,29 +178,7 @@ public class FsCrawlerUtil {
      *     matches.
      */
     public static boolean isIndexable(String content, List<String> filters) {
-        if (isNullOrEmpty(content)) {
-            logger.trace("Null or empty content always matches.");
-            return true;
-        }
-
-        if (filters == null || filters.isEmpty()) {
-            logger.trace("No pattern always matches.");
-            return true;
-        }
-
-        logger.trace("content = [{}], filters = {}", content, filters);
-        for (String filter : filters) {
-            Pattern pattern = Pattern.compile(filter, Pattern.MULTILINE | Pattern.UNIX_LINES);
-            logger.trace("Testing filter [{}]", filter);
-            if (!pattern.matcher(content).find()) {
-                logger.trace("Filter [{}] is not matching.", filter);
-                return false;
-            } else {
-                logger.trace("Filter [{}] is matching.", filter);
-            }
-        }
-
-        return true;
+        return FsCrawlerContentFilter.of(filters).isIndexable(content);
     }
 
     public static String getPathSeparator(String path) {
@@ -272,15 +238,6 @@ public class FsCrawlerUtil {
         return getFileTime(file, BasicFileAttributes::lastAccessTime);
     }
 
-    public static Instant getModificationOrCreationTime(File file) {
-        Instant lastAccessTime = getFileTime(file, BasicFileAttributes::lastAccessTime);
-        if (lastAccessTime != null) {
-            return lastAccessTime;
-        } else {
-            return getFileTime(file, BasicFileAttributes::creationTime);
-        }
-    }
-
     /**
      * Parse an ISO-8601 date/time into an {@link Instant}. Accepts:
      *
@@ -355,27 +312,39 @@ public class FsCrawlerUtil {
             final Path path = Paths.get(file.getAbsolutePath());
             PosixFileAttributes attrs = Files.getFileAttributeView(path, PosixFileAttributeView.class)
                     .readAttributes();
-            Set<PosixFilePermission> permissions = attrs.permissions();
-            int user = toOctalPermission(
-                    permissions.contains(PosixFilePermission.OWNER_READ),
-                    permissions.contains(PosixFilePermission.OWNER_WRITE),
-                    permissions.contains(PosixFilePermission.OWNER_EXECUTE));
-            int group = toOctalPermission(
-                    permissions.contains(PosixFilePermission.GROUP_READ),
-                    permissions.contains(PosixFilePermission.GROUP_WRITE),
-                    permissions.contains(PosixFilePermission.GROUP_EXECUTE));
-            int others = toOctalPermission(
-                    permissions.contains(PosixFilePermission.OTHERS_READ),
-                    permissions.contains(PosixFilePermission.OTHERS_WRITE),
-                    permissions.contains(PosixFilePermission.OTHERS_EXECUTE));
-
-            return user * 100 + group * 10 + others;
+            return toOctalPermissions(attrs.permissions());
         } catch (Exception e) {
             logger.warn("Failed to determine 'permissions' of {}: {}", file, e.getMessage());
             return -1;
         }
     }
 
+    /**
+     * Convert POSIX permissions to an octal number like {@code 644}
+     *
+     * @param permissions the permissions
+     * @return the octal permissions. -1 if the permissions are null.
+     */
+    public static int toOctalPermissions(Set<PosixFilePermission> permissions) {
+        if (permissions == null) {
+            return -1;
+        }
+        int user = toOctalPermission(
+                permissions.contains(PosixFilePermission.OWNER_READ),
+                permissions.contains(PosixFilePermission.OWNER_WRITE),
+                permissions.contains(PosixFilePermission.OWNER_EXECUTE));
+        int group = toOctalPermission(
+                permissions.contains(PosixFilePermission.GROUP_READ),
+                permissions.contains(PosixFilePermission.GROUP_WRITE),
+                permissions.contains(PosixFilePermission.GROUP_EXECUTE));
+        int others = toOctalPermission(
+                permissions.contains(PosixFilePermission.OTHERS_READ),
+                permissions.contains(PosixFilePermission.OTHERS_WRITE),
+                permissions.contains(PosixFilePermission.OTHERS_EXECUTE));
+
+        return user * 100 + group * 10 + others;
+    }
+
     /** Determines Access Control List entries for the given file. */
     public static List<FileAcl> getFileAcls(final Path path) {
         logger.trace("Resolving ACLs for [{}]", path);
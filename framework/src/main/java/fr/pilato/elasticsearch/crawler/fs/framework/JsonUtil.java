@@ -39,6 +39,7 @@ import tools.jackson.databind.SerializationFeature;
 import tools.jackson.databind.cfg.DateTimeFeature;
 import tools.jackson.databind.json.JsonMapper;
 import tools.jackson.databind.module.SimpleModule;
+import tools.jackson.dataformat.smile.SmileMapper;
 import tools.jackson.dataformat.yaml.YAMLMapper;
 
 public class JsonUtil {
@@ -50,6 +51,9 @@ public class JsonUtil {
     public static final JsonMapper prettyMapper;
     public static final JsonMapper mapper;
     public static final ObjectMapper ymlMapper;
+    /** Binary (Smile) mapper, used for files which are only read by FSCrawler */
+    public static final SmileMapper smileMapper;
+
     public static final Configuration configuration = new Configuration.ConfigurationBuilder()
             .jsonProvider(new JsonSmartJsonProvider())
             .mappingProvider(new JsonSmartMappingProvider())
@@ -96,6 +100,17 @@ public class JsonUtil {
                         .withContentInclusion(JsonInclude.Include.NON_EMPTY))
                 .build();
 
+        smileMapper = SmileMapper.builder()
+                .addModule(fscrawler)
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .disable(DateTimeFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .disable(DateTimeFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DateTimeFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .changeDefaultPropertyInclusion(incl -> incl.withValueInclusion(JsonInclude.Include.NON_EMPTY)
+                        .withContentInclusion(JsonInclude.Include.NON_EMPTY))
+                .build();
+
         ymlMapper = YAMLMapper.builder()
                 .addModule(fscrawler)
                 .enable(SerializationFeature.INDENT_OUTPUT)
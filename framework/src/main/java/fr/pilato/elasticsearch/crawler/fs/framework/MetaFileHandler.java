@@ -21,9 +21,12 @@
 package fr.pilato.elasticsearch.crawler.fs.framework;
 
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -74,6 +77,66 @@ public class MetaFileHandler {
         Files.writeString(dir.resolve(filename), content);
     }
 
+    /**
+     * Read a binary file in ~/.fscrawler/{subdir} dir
+     *
+     * @param subdir subdir where we can read the file (null if we read in the root dir)
+     * @param filename filename
+     * @return The content
+     * @throws IOException in case of error while reading
+     */
+    protected byte[] readFileBytes(String subdir, String filename) throws IOException {
+        Path dir = root;
+        if (subdir != null) {
+            dir = dir.resolve(subdir);
+        }
+        logger.trace("Reading file {} from {}", filename, dir);
+        return Files.readAllBytes(dir.resolve(filename));
+    }
+
+    /**
+     * Write a file in ~/.fscrawler/{subdir} dir. The content is written to a temporary file which is then renamed, so a
+     * crash while writing never leaves a truncated file.
+     *
+     * @param subdir subdir where we can write the file (null if we write in the root dir)
+     * @param filename filename
+     * @param content The content to write
+     * @throws IOException in case of error while writing
+     */
+    protected void writeFileAtomically(String subdir, String filename, byte[] content) throws IOException {
+        Path dir = root;
+        if (subdir != null) {
+            dir = dir.resolve(subdir);
+            Files.createDirectories(dir);
+        }
+        logger.trace("Writing file {} to {}", filename, dir);
+        Path tmp = dir.resolve(filename + ".tmp");
+        Files.write(tmp, content);
+        try {
+            Files.move(tmp, dir.resolve(filename), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, dir.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Append to a file in ~/.fscrawler/{subdir} dir. The file is created if it does not exist.
+     *
+     * @param subdir subdir where we can write the file (null if we write in the root dir)
+     * @param filename filename
+     * @param content The String UTF-8 content to append
+     * @throws IOException in case of error while writing
+     */
+    protected void appendFile(String subdir, String filename, String content) throws IOException {
+        Path dir = root;
+        if (subdir != null) {
+            dir = dir.resolve(subdir);
+            Files.createDirectories(dir);
+        }
+        logger.trace("Appending to file {} in {}", filename, dir);
+        Files.writeString(dir.resolve(filename), content, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
     /**
      * Remove a file from ~/.fscrawler/{subdir} dir
      *
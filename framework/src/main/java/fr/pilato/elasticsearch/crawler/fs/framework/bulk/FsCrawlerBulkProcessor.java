@@ -28,6 +28,7 @@ import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.context.Scope;
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -127,6 +128,20 @@ public class FsCrawlerBulkProcessor<
         return this;
     }
 
+    /**
+     * Add several requests to the processor at once. They are not mixed with the requests added by other threads, and
+     * are sent in the same bulk request unless they exceed its limits.
+     *
+     * @param requests requests to add
+     * @return this so we can link methods.
+     */
+    public synchronized FsCrawlerBulkProcessor<O, Q, S> addAll(Collection<O> requests) {
+        for (O request : requests) {
+            add(request);
+        }
+        return this;
+    }
+
     private void ensureOpen() {
         if (closed) {
             throw new IllegalStateException("bulk process already closed");
@@ -21,7 +21,6 @@
 package fr.pilato.elasticsearch.crawler.fs.framework.bulk;
 
 import fr.pilato.elasticsearch.crawler.fs.framework.ByteSizeValue;
-import fr.pilato.elasticsearch.crawler.fs.framework.JsonUtil;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.logging.log4j.LogManager;
@@ -53,13 +52,9 @@ public abstract class FsCrawlerBulkRequest<T extends FsCrawlerOperation<T>> {
 
     public void add(T request) {
         operations.add(request);
-        // There's a cost of serializing the request. We need to take it into account
-        // and only compute the size if we need to.
+        // Computing the size might have a cost. We only do it if we need to.
         if (maxBulkSize != null && maxBulkSize.getBytes() > 0) {
-            // TODO may be we should just add the serialized request to the T object as an optional payload?
-            String jsonValue = JsonUtil.serialize(request);
-            byte[] bytes = jsonValue.getBytes();
-            totalByteSize += bytes.length;
+            totalByteSize += request.byteSize();
         }
     }
 
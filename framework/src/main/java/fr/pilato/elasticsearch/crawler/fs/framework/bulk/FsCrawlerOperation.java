@@ -20,4 +20,18 @@
  */
 package fr.pilato.elasticsearch.crawler.fs.framework.bulk;
 
-public interface FsCrawlerOperation<T extends FsCrawlerOperation<T>> extends Comparable<T> {}
+import fr.pilato.elasticsearch.crawler.fs.framework.JsonUtil;
+import java.nio.charset.StandardCharsets;
+
+public interface FsCrawlerOperation<T extends FsCrawlerOperation<T>> extends Comparable<T> {
+
+    /**
+     * Size of this operation in bytes, used to flush the bulk once {@code bulk_size} is reached. The default
+     * implementation serializes the operation: implementations which know the size of their payload should override it.
+     *
+     * @return the size in bytes
+     */
+    default int byteSize() {
+        return JsonUtil.serialize(this).getBytes(StandardCharsets.UTF_8).length;
+    }
+}
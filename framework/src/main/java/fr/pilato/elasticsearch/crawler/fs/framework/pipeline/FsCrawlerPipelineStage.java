@@ -0,0 +1,198 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.framework.pipeline;
+
+import fr.pilato.elasticsearch.crawler.fs.framework.tracing.FsCrawlerMetrics;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * One stage of the crawl pipeline: a fixed number of threads fed by a bounded queue.
+ *
+ * <p>{@link #submit(Runnable)} blocks while the queue is full, so a slow stage slows down the stage feeding it, and so
+ * on up to the directory listing (back-pressure).
+ *
+ * <p>A stage created with {@code 0} threads runs the tasks in the submitting thread. This is used when the work must
+ * stay on the caller thread, for example when the provider can not be called from several threads.
+ *
+ * <p>Each stage exposes its queue depth and the number of processed items, both as getters and as OTel metrics
+ * ({@code fscrawler.pipeline.queue.depth} and {@code fscrawler.pipeline.items}).
+ */
+public class FsCrawlerPipelineStage implements Closeable {
+    private static final Logger logger = LogManager.getLogger();
+
+    private final String jobName;
+    private final String name;
+    private final ExecutorService executor;
+    private final Semaphore slots;
+    private final AtomicLong processed = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+    private final AutoCloseable queueDepthGauge;
+
+    /**
+     * Create and start a pipeline stage
+     *
+     * @param jobName the job name, used for thread names and metrics
+     * @param name the stage name, used for thread names and metrics
+     * @param threads number of threads. 0 means that tasks are run by the submitting thread.
+     * @param queueSize maximum number of tasks waiting for a thread
+     */
+    public FsCrawlerPipelineStage(String jobName, String name, int threads, int queueSize) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("threads must be positive or 0");
+        }
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("queueSize must be at least 1");
+        }
+        this.jobName = jobName;
+        this.name = name;
+        if (threads == 0) {
+            this.executor = null;
+            this.slots = null;
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(
+                    threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                        Thread thread = new Thread(
+                                r, "fs-pipeline-" + jobName + "-" + name + "-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            // A permit is held by every task, waiting or running
+            this.slots = new Semaphore(queueSize + threads);
+        }
+        this.queueDepthGauge = FsCrawlerMetrics.registerPipelineQueueDepth(jobName, name, this::getQueueDepth);
+        logger.debug("Pipeline stage [{}] started for job [{}] with [{}] threads", name, jobName, threads);
+    }
+
+    /**
+     * Submit a task to this stage. Blocks while the queue of this stage is full.
+     *
+     * @param task the task to run. It must handle its own exceptions.
+     * @throws InterruptedException if interrupted while waiting for room in the queue
+     */
+    public void submit(Runnable task) throws InterruptedException {
+        if (executor == null) {
+            run(task);
+            return;
+        }
+        slots.acquire();
+        try {
+            executor.execute(() -> {
+                try {
+                    run(task);
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            // Rejected (stage closed): give the permit back
+            slots.release();
+            throw e;
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.warn("Unexpected error in pipeline stage [{}]: {}", name, e.getMessage());
+            logger.debug("Full stacktrace", e);
+        } finally {
+            processed.incrementAndGet();
+            FsCrawlerMetrics.recordPipelineItem(jobName, name);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** @return the number of tasks waiting for a thread of this stage */
+    public int getQueueDepth() {
+        if (executor == null) {
+            return 0;
+        }
+        return ((ThreadPoolExecutor) executor).getQueue().size();
+    }
+
+    /** @return the number of tasks processed by this stage since it started */
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    /** @return the average number of tasks processed per second since this stage started */
+    public double getThroughput() {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return processed.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * Stop accepting new tasks and wait for the submitted ones to finish.
+     *
+     * @param timeout how long to wait for running tasks
+     * @return true if all the tasks finished in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean shutdown(Duration timeout) throws InterruptedException {
+        if (executor == null) {
+            return true;
+        }
+        executor.shutdown();
+        return executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        try {
+            queueDepthGauge.close();
+        } catch (Exception e) {
+            logger.debug("Can not unregister queue depth gauge of pipeline stage [{}]: {}", name, e.getMessage());
+        }
+        logger.debug(
+                "Pipeline stage [{}] of job [{}] closed after processing [{}] items ([{}] items/s)",
+                name,
+                jobName,
+                processed.get(),
+                String.format("%.1f", getThroughput()));
+    }
+
+    @Override
+    public String toString() {
+        return "FsCrawlerPipelineStage{" + "name='" + name + '\'' + ", queueDepth=" + getQueueDepth() + ", processed="
+                + processed.get() + '}';
+    }
+}
@@ -25,6 +25,7 @@ import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.metrics.LongCounter;
 import io.opentelemetry.api.metrics.LongHistogram;
+import java.util.function.LongSupplier;
 
 /**
  * OTel metrics for FSCrawler functional counters.
@@ -35,9 +36,15 @@ import io.opentelemetry.api.metrics.LongHistogram;
  *   <li>{@code fscrawler.docs.added} — documents indexed during a run
  *   <li>{@code fscrawler.docs.deleted} — documents deleted during a run
  *   <li>{@code fscrawler.scan.duration} — wall-clock duration of a run (ms)
+ *   <li>{@code fscrawler.pipeline.items} — items processed by a crawl pipeline stage (throughput)
+ *   <li>{@code fscrawler.pipeline.queue.depth} — items waiting in front of a crawl pipeline stage
+ *   <li>{@code fscrawler.principal.lookups} — owner and group name lookups, found in the cache or not
+ *   <li>{@code fscrawler.extraction.timeouts} — documents whose text extraction was abandoned after the timeout
  * </ul>
  *
- * All instruments carry a {@code job.name} attribute for per-job breakdown.
+ * All instruments carry a {@code job.name} attribute for per-job breakdown. Pipeline instruments also carry a
+ * {@code pipeline.stage} attribute. Principal lookups carry {@code principal.type} ({@code owner} or {@code group}) and
+ * {@code cache.result} ({@code hit} or {@code miss}) attributes.
  *
  * <p>Uses {@link GlobalOpenTelemetry} so that the noop implementation is used when no OTel agent is present (zero
  * overhead).
@@ -52,6 +59,9 @@ public final class FsCrawlerMetrics {
     private static volatile LongCounter docsAddedCounter;
     private static volatile LongCounter docsDeletedCounter;
     private static volatile LongHistogram scanDurationHistogram;
+    private static volatile LongCounter pipelineItemsCounter;
+    private static volatile LongCounter principalLookupsCounter;
+    private static volatile LongCounter extractionTimeoutsCounter;
 
     private FsCrawlerMetrics() {
         // utility class
@@ -77,6 +87,88 @@ public final class FsCrawlerMetrics {
                 .build();
     }
 
+    private static Attributes pipelineAttributes(String jobName, String stage) {
+        return Attributes.of(
+                AttributeKey.stringKey("job.name"), jobName, AttributeKey.stringKey("pipeline.stage"), stage);
+    }
+
+    /**
+     * Records that a crawl pipeline stage processed one item.
+     *
+     * @param jobName FSCrawler job name (used as {@code job.name} attribute)
+     * @param stage pipeline stage name (used as {@code pipeline.stage} attribute)
+     */
+    public static void recordPipelineItem(String jobName, String stage) {
+        if (pipelineItemsCounter == null) {
+            pipelineItemsCounter = GlobalOpenTelemetry.getMeter(FsCrawlerTracing.INSTRUMENTATION_NAME)
+                    .counterBuilder("fscrawler.pipeline.items")
+                    .setDescription("Items processed by a crawl pipeline stage")
+                    .setUnit("{item}")
+                    .build();
+        }
+        pipelineItemsCounter.add(1, pipelineAttributes(jobName, stage));
+    }
+
+    /**
+     * Registers a gauge reporting the number of items waiting in front of a crawl pipeline stage.
+     *
+     * @param jobName FSCrawler job name (used as {@code job.name} attribute)
+     * @param stage pipeline stage name (used as {@code pipeline.stage} attribute)
+     * @param queueDepth called on each collection to read the current queue depth
+     * @return the registration, to close when the stage is closed
+     */
+    public static AutoCloseable registerPipelineQueueDepth(String jobName, String stage, LongSupplier queueDepth) {
+        Attributes attrs = pipelineAttributes(jobName, stage);
+        return GlobalOpenTelemetry.getMeter(FsCrawlerTracing.INSTRUMENTATION_NAME)
+                .gaugeBuilder("fscrawler.pipeline.queue.depth")
+                .setDescription("Items waiting in front of a crawl pipeline stage")
+                .setUnit("{item}")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(queueDepth.getAsLong(), attrs));
+    }
+
+    /**
+     * Records an owner or group name lookup.
+     *
+     * @param jobName FSCrawler job name (used as {@code job.name} attribute)
+     * @param type {@code owner} or {@code group} (used as {@code principal.type} attribute)
+     * @param hit true if the name was found in the cache (used as {@code cache.result} attribute)
+     */
+    public static void recordPrincipalLookup(String jobName, String type, boolean hit) {
+        if (principalLookupsCounter == null) {
+            principalLookupsCounter = GlobalOpenTelemetry.getMeter(FsCrawlerTracing.INSTRUMENTATION_NAME)
+                    .counterBuilder("fscrawler.principal.lookups")
+                    .setDescription("Owner and group name lookups")
+                    .setUnit("{lookup}")
+                    .build();
+        }
+        principalLookupsCounter.add(
+                1,
+                Attributes.of(
+                        AttributeKey.stringKey("job.name"),
+                        jobName,
+                        AttributeKey.stringKey("principal.type"),
+                        type,
+                        AttributeKey.stringKey("cache.result"),
+                        hit ? "hit" : "miss"));
+    }
+
+    /**
+     * Records that the text extraction of a document has been abandoned because it took too long.
+     *
+     * @param jobName FSCrawler job name (used as {@code job.name} attribute)
+     */
+    public static void recordExtractionTimeout(String jobName) {
+        if (extractionTimeoutsCounter == null) {
+            extractionTimeoutsCounter = GlobalOpenTelemetry.getMeter(FsCrawlerTracing.INSTRUMENTATION_NAME)
+                    .counterBuilder("fscrawler.extraction.timeouts")
+                    .setDescription("Documents whose text extraction took too long")
+                    .setUnit("{document}")
+                    .build();
+        }
+        extractionTimeoutsCounter.add(1, Attributes.of(AttributeKey.stringKey("job.name"), jobName));
+    }
+
     /**
      * Records the outcome of a completed crawl run as OTel metrics.
      *
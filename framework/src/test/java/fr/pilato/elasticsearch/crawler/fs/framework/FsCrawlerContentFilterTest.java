@@ -0,0 +1,85 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.framework;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class FsCrawlerContentFilterTest extends AbstractFSCrawlerTestCase {
+
+    @Test
+    void same_results_as_the_static_helper() {
+        List<List<String>> filters = List.of(List.of(), List.of(".*foo.*"), List.of("^bar$", ".*foo.*"));
+        for (List<String> filter : filters) {
+            FsCrawlerContentFilter contentFilter = new FsCrawlerContentFilter(filter);
+            for (String content : List.of("", "foo bar", "foo\nbar\n", "baz")) {
+                assertThat(contentFilter.isIndexable(content))
+                        .as("%s with %s", content, filter)
+                        .isEqualTo(FsCrawlerUtil.isIndexable(content, filter));
+            }
+        }
+        assertThat(new FsCrawlerContentFilter(null).isIndexable("foo")).isTrue();
+        assertThat(FsCrawlerUtil.isIndexable("foo", null)).isTrue();
+    }
+
+    @Test
+    void evaluation_finds_filters_in_growing_text() {
+        FsCrawlerContentFilter.Evaluation evaluation =
+                new FsCrawlerContentFilter(List.of("foo", "^bar$")).newEvaluation();
+        StringBuilder text = new StringBuilder("some text with fo");
+        assertThat(evaluation.update(text)).isTrue();
+        assertThat(evaluation.isMatching()).isFalse();
+        text.append("o and\nbar");
+        assertThat(evaluation.update(text)).isTrue();
+        // "bar" must be followed by the end of the line, which we don't know yet
+        assertThat(evaluation.isMatching()).isFalse();
+        text.append("\nmore text");
+        assertThat(evaluation.update(text)).isTrue();
+        assertThat(evaluation.isMatching()).isTrue();
+    }
+
+    @Test
+    void evaluation_never_stops_unanchored_filters() {
+        FsCrawlerContentFilter.Evaluation evaluation = new FsCrawlerContentFilter(List.of("4\\d{15}")).newEvaluation();
+        StringBuilder text = new StringBuilder("x".repeat(10_000));
+        assertThat(evaluation.update(text)).isTrue();
+        text.append("4012888888881881");
+        assertThat(evaluation.update(text)).isTrue();
+        assertThat(evaluation.isMatching()).isTrue();
+    }
+
+    @Test
+    void evaluation_stops_when_the_beginning_does_not_match() {
+        FsCrawlerContentFilter.Evaluation evaluation =
+                new FsCrawlerContentFilter(List.of(".*foo.*", "\\ACONFIDENTIAL")).newEvaluation();
+        StringBuilder text = new StringBuilder("CONFID");
+        // Could still be "CONFIDENTIAL"
+        assertThat(evaluation.update(text)).isTrue();
+        text.append("ENCE and more");
+        assertThat(evaluation.update(text)).isFalse();
+        assertThat(evaluation.isMatching()).isFalse();
+        assertThat(new FsCrawlerContentFilter(List.of("\\ACONFIDENTIAL")).isIndexable(text.toString()))
+                .isFalse();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.framework;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+class FsCrawlerFileAttributesTest extends AbstractFSCrawlerTestCase {
+
+    @Test
+    void sameValuesAsReadingEachAttribute() throws IOException {
+        Path path = Files.writeString(testTmpDir.resolve("file.txt"), "Hello world!");
+        File file = path.toFile();
+
+        FsCrawlerFileAttributes attributes = FsCrawlerFileAttributes.read(path);
+        Assertions.assertThat(attributes.regularFile()).isTrue();
+        Assertions.assertThat(attributes.size()).isEqualTo(12);
+        Assertions.assertThat(attributes.lastModifiedTime()).isEqualTo(FsCrawlerUtil.getModificationTime(file));
+        Assertions.assertThat(attributes.creationTime()).isEqualTo(FsCrawlerUtil.getCreationTime(file));
+        Assertions.assertThat(attributes.owner()).isEqualTo(FsCrawlerUtil.getOwnerName(file));
+        Assertions.assertThat(attributes.group()).isEqualTo(FsCrawlerUtil.getGroupName(file));
+        Assertions.assertThat(attributes.permissions()).isEqualTo(FsCrawlerUtil.getFilePermissions(file));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void posixAttributes() throws IOException {
+        Path path = Files.createFile(
+                testTmpDir.resolve("file.txt"),
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-r-----")));
+
+        FsCrawlerFileAttributes attributes = FsCrawlerFileAttributes.read(path);
+        Assertions.assertThat(attributes.permissions()).isEqualTo(640);
+        Assertions.assertThat(attributes.group()).isNotEmpty();
+        Assertions.assertThat(attributes.changeTime()).isNotNull();
+    }
+
+    @Test
+    void directory() throws IOException {
+        FsCrawlerFileAttributes attributes = FsCrawlerFileAttributes.read(testTmpDir);
+        Assertions.assertThat(attributes.regularFile()).isFalse();
+    }
+
+    @Test
+    void missingFile() {
+        Assertions.assertThatThrownBy(() -> FsCrawlerFileAttributes.read(testTmpDir.resolve("missing")))
+                .isInstanceOf(NoSuchFileException.class);
+    }
+}
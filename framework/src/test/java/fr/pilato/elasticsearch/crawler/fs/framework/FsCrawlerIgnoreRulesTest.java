@@ -0,0 +1,83 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.framework;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import org.junit.jupiter.api.Test;
+
+class FsCrawlerIgnoreRulesTest extends AbstractFSCrawlerTestCase {
+
+    @Test
+    void comments_and_blank_lines() {
+        FsCrawlerIgnoreRules rules = FsCrawlerIgnoreRules.parse("/data", "# just a comment\n\n   \n");
+        assertThat(rules.isEmpty()).isTrue();
+        assertThat(rules.isIgnored("/data/foo.txt", false)).isFalse();
+    }
+
+    @Test
+    void names_match_at_any_level() {
+        FsCrawlerIgnoreRules rules = FsCrawlerIgnoreRules.parse("/data", "*.tmp\nnode_modules/\n");
+        assertThat(rules.isIgnored("/data/foo.tmp", false)).isTrue();
+        assertThat(rules.isIgnored("/data/a/b/FOO.TMP", false)).isTrue();
+        assertThat(rules.isIgnored("/data/foo.txt", false)).isFalse();
+        assertThat(rules.isIgnored("/data/a/node_modules", true)).isTrue();
+        // Directory only rule
+        assertThat(rules.isIgnored("/data/a/node_modules", false)).isFalse();
+        // Not under the directory of the ignore file
+        assertThat(rules.isIgnored("/other/foo.tmp", false)).isFalse();
+        assertThat(rules.isIgnored("/database/foo.tmp", false)).isFalse();
+    }
+
+    @Test
+    void rules_with_a_slash_are_anchored() {
+        FsCrawlerIgnoreRules rules = FsCrawlerIgnoreRules.parse("/data", "/build\ndocs/*.pdf\nlogs/**/old\n");
+        assertThat(rules.isIgnored("/data/build", true)).isTrue();
+        assertThat(rules.isIgnored("/data/a/build", true)).isFalse();
+        assertThat(rules.isIgnored("/data/docs/foo.pdf", false)).isTrue();
+        assertThat(rules.isIgnored("/data/docs/a/foo.pdf", false)).isFalse();
+        assertThat(rules.isIgnored("/data/a/docs/foo.pdf", false)).isFalse();
+        assertThat(rules.isIgnored("/data/logs/old", true)).isTrue();
+        assertThat(rules.isIgnored("/data/logs/2024/01/old", true)).isTrue();
+    }
+
+    @Test
+    void negation_and_parent_rules() {
+        FsCrawlerIgnoreRules parent = FsCrawlerIgnoreRules.parse("/data", "*.log\n");
+        FsCrawlerIgnoreRules child = parent.with("/data/app", "!important.log\n[ab]?.txt\n");
+        assertThat(parent.isIgnored("/data/app/important.log", false)).isTrue();
+        assertThat(child.isIgnored("/data/app/important.log", false)).isFalse();
+        assertThat(child.isIgnored("/data/app/other.log", false)).isTrue();
+        assertThat(child.isIgnored("/data/important.log", false)).isTrue();
+        assertThat(child.isIgnored("/data/app/a1.txt", false)).isTrue();
+        assertThat(child.isIgnored("/data/app/c1.txt", false)).isFalse();
+        assertThat(child.isIgnored("/data/b1.txt", false)).isFalse();
+    }
+
+    @Test
+    void windows_paths() {
+        FsCrawlerIgnoreRules rules = FsCrawlerIgnoreRules.parse("C:\\data", "tmp/\r\n*.bak\r\n");
+        assertThat(rules.isIgnored("C:\\data\\tmp", true)).isTrue();
+        assertThat(rules.isIgnored("C:\\data\\a\\foo.bak", false)).isTrue();
+        assertThat(rules.isIgnored("C:\\data\\foo.txt", false)).isFalse();
+    }
+}
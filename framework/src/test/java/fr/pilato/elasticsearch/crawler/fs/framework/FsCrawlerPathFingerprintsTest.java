@@ -0,0 +1,89 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.framework;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import org.junit.jupiter.api.Test;
+
+class FsCrawlerPathFingerprintsTest extends AbstractFSCrawlerTestCase {
+
+    @Test
+    void add_contains_and_remove() {
+        FsCrawlerPathFingerprints paths = new FsCrawlerPathFingerprints();
+        assertThat(paths.isEmpty()).isTrue();
+        assertThat(paths.add("/root")).isTrue();
+        assertThat(paths.add("/root")).isFalse();
+        assertThat(paths.contains("/root")).isTrue();
+        assertThat(paths.contains("/root/a")).isFalse();
+        assertThat(paths.remove("/root/a")).isFalse();
+        assertThat(paths.remove("/root")).isTrue();
+        assertThat(paths.contains("/root")).isFalse();
+        assertThat(paths.isEmpty()).isTrue();
+    }
+
+    @Test
+    void many_paths() {
+        FsCrawlerPathFingerprints paths = new FsCrawlerPathFingerprints();
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(paths.add("/root/dir" + i)).isTrue();
+        }
+        assertThat(paths.size()).isEqualTo(100_000);
+
+        // Removing entries must not hide the other ones (backward shift deletion)
+        for (int i = 0; i < 100_000; i += 2) {
+            assertThat(paths.remove("/root/dir" + i)).isTrue();
+        }
+        assertThat(paths.size()).isEqualTo(50_000);
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(paths.contains("/root/dir" + i)).isEqualTo(i % 2 == 1);
+        }
+
+        paths.clear();
+        assertThat(paths.size()).isZero();
+        assertThat(paths.contains("/root/dir1")).isFalse();
+    }
+
+    @Test
+    void fingerprints_round_trip() {
+        FsCrawlerPathFingerprints paths = new FsCrawlerPathFingerprints();
+        paths.add("/root/a");
+        paths.add("/root/b");
+
+        FsCrawlerPathFingerprints copy = new FsCrawlerPathFingerprints();
+        for (long fingerprint : paths.toArray()) {
+            copy.addFingerprint(fingerprint);
+        }
+        assertThat(copy).isEqualTo(paths).hasSameHashCodeAs(paths);
+        assertThat(copy.contains("/root/a")).isTrue();
+        assertThat(copy.contains("/root/c")).isFalse();
+    }
+
+    @Test
+    void fingerprint_is_stable() {
+        // Fingerprints are persisted in the checkpoint file: they must not change between versions
+        assertThat(FsCrawlerPathFingerprints.fingerprint("/root/a")).isEqualTo(7970820017158132011L);
+        assertThat(FsCrawlerPathFingerprints.fingerprint("/root/b"))
+                .isNotEqualTo(FsCrawlerPathFingerprints.fingerprint("/root/a"))
+                .isNotZero();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.framework;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class FsCrawlerPathMatcherTest extends AbstractFSCrawlerTestCase {
+
+    private static final List<List<String>> RULES = List.of(
+            List.of(),
+            List.of("*/~*"),
+            List.of("*/*.doc", "*/*.xls"),
+            List.of("*/my.d?c*.xls"),
+            List.of("/subdir/*", "*/*.TXT"),
+            List.of("*/.snapshots", "/foo/bar/"),
+            List.of("*/[ab]*.pdf", "*/file+1.txt"));
+
+    private static final List<String> FILENAMES = List.of(
+            "/test.doc",
+            "/TEST.DOC",
+            "/my.doc.xls",
+            "/my.douc.xls",
+            "/~lock.doc",
+            "/subdir/foo.txt",
+            "\\subdir\\foo.txt",
+            "/subdir",
+            "/.snapshots",
+            "/foo/bar",
+            "/a.pdf",
+            "/c.pdf",
+            "/file1.txt",
+            "/filee1.txt",
+            "/footxt");
+
+    /** The implementation which was used before the rules were compiled once */
+    private static boolean legacyMatching(String filename, List<String> matches) {
+        String virtualPath = filename.replace("\\", "/");
+        for (String match : matches) {
+            String regex = match.toLowerCase().replace("?", ".?").replace("*", ".*");
+            if (virtualPath.toLowerCase().matches(regex)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean legacyIndexable(
+            boolean directory, String filename, List<String> includes, List<String> excludes) {
+        String originalFilename = directory && !filename.endsWith("/") ? filename + "/" : filename;
+        boolean excluded = !excludes.isEmpty() && legacyMatching(originalFilename, excludes);
+        boolean included = includes.isEmpty() || legacyMatching(originalFilename, includes);
+        return (!excluded && included) || (directory && !excluded);
+    }
+
+    @Test
+    void same_results_as_the_regular_expressions() {
+        for (List<String> includes : RULES) {
+            for (List<String> excludes : RULES) {
+                FsCrawlerPathMatcher matcher = new FsCrawlerPathMatcher(includes, excludes);
+                for (String filename : FILENAMES) {
+                    for (boolean directory : new boolean[] {false, true}) {
+                        boolean expected = legacyIndexable(directory, filename, includes, excludes);
+                        assertThat(matcher.isIndexable(directory, filename))
+                                .as(
+                                        "%s [%s] with includes %s and excludes %s",
+                                        directory ? "dir" : "file", filename, includes, excludes)
+                                .isEqualTo(expected);
+                        assertThat(FsCrawlerUtil.isIndexable(directory, filename, includes, excludes))
+                                .isEqualTo(expected);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void null_rules() {
+        FsCrawlerPathMatcher matcher = new FsCrawlerPathMatcher(null, null);
+        assertThat(matcher.isIndexable(false, "/foo.txt")).isTrue();
+        assertThat(matcher.isExcluded("/foo.txt")).isFalse();
+        assertThat(matcher.isIncluded("/foo.txt")).isTrue();
+    }
+
+    @Test
+    void directories_which_can_not_contain_included_files() {
+        FsCrawlerPathMatcher matcher = new FsCrawlerPathMatcher(List.of("/projects/alpha/**/*.pdf"), null);
+        assertThat(matcher.canContainIncludedFiles("/projects")).isTrue();
+        assertThat(matcher.canContainIncludedFiles("/projects/alpha")).isTrue();
+        assertThat(matcher.canContainIncludedFiles("/projects/alpha/2024/q1/")).isTrue();
+        assertThat(matcher.canContainIncludedFiles("/PROJECTS/Alpha")).isTrue();
+        assertThat(matcher.canContainIncludedFiles("\\projects\\alpha")).isTrue();
+        assertThat(matcher.canContainIncludedFiles("/projects/beta")).isFalse();
+        assertThat(matcher.canContainIncludedFiles("/archives")).isFalse();
+    }
+
+    @Test
+    void directories_are_kept_when_includes_can_match_anywhere() {
+        FsCrawlerPathMatcher matcher = new FsCrawlerPathMatcher(List.of("*/*.doc", "/subdir/*"), null);
+        assertThat(matcher.canContainIncludedFiles("/foo")).isTrue();
+        assertThat(matcher.canContainIncludedFiles("/foo/bar/baz")).isTrue();
+        assertThat(new FsCrawlerPathMatcher(List.of(), null).canContainIncludedFiles("/foo"))
+                .isTrue();
+        assertThat(new FsCrawlerPathMatcher(List.of("/subdir/*"), null).canContainIncludedFiles("/subdir"))
+                .isTrue();
+        assertThat(new FsCrawlerPathMatcher(List.of("/subdir/*"), null).canContainIncludedFiles("/other"))
+                .isFalse();
+    }
+
+    /** Every file matching the includes must be under a directory which is kept */
+    @Test
+    void pruning_never_hides_an_included_file() {
+        for (List<String> includes : RULES) {
+            FsCrawlerPathMatcher matcher = new FsCrawlerPathMatcher(includes, null);
+            for (String filename : FILENAMES) {
+                String virtualPath = filename.replace("\\", "/");
+                if (!matcher.isIncluded(virtualPath)) {
+                    continue;
+                }
+                for (int i = virtualPath.indexOf('/', 1); i > 0; i = virtualPath.indexOf('/', i + 1)) {
+                    assertThat(matcher.canContainIncludedFiles(virtualPath.substring(0, i)))
+                            .as("parent of [%s] with includes %s", filename, includes)
+                            .isTrue();
+                }
+            }
+        }
+    }
+}
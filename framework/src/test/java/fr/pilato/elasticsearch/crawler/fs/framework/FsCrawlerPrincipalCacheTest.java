@@ -0,0 +1,103 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.framework;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+class FsCrawlerPrincipalCacheTest extends AbstractFSCrawlerTestCase {
+
+    @Test
+    void namesAreResolvedOnce() {
+        FsCrawlerPrincipalCache cache = new FsCrawlerPrincipalCache(jobName);
+        AtomicInteger lookups = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertThat(cache.getOwnerName(1000, () -> "user-" + lookups.incrementAndGet()))
+                    .isEqualTo("user-1");
+        }
+        // Users and groups do not share their ids
+        Assertions.assertThat(cache.getGroupName(1000, () -> "group-" + lookups.incrementAndGet()))
+                .isEqualTo("group-2");
+        Assertions.assertThat(cache.getHits()).isEqualTo(9);
+        Assertions.assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void unknownNamesAreCachedToo() {
+        FsCrawlerPrincipalCache cache = new FsCrawlerPrincipalCache(jobName);
+        AtomicInteger lookups = new AtomicInteger();
+        cache.getOwnerName(1000, () -> {
+            lookups.incrementAndGet();
+            return null;
+        });
+        Assertions.assertThat(cache.getOwnerName(1000, () -> "never")).isNull();
+        Assertions.assertThat(lookups).hasValue(1);
+    }
+
+    @Test
+    void namesExpire() {
+        AtomicLong clock = new AtomicLong();
+        FsCrawlerPrincipalCache cache = new FsCrawlerPrincipalCache(jobName, 10, Duration.ofSeconds(10), clock::get);
+        Assertions.assertThat(cache.getOwnerName(1000, () -> "before")).isEqualTo("before");
+        clock.addAndGet(Duration.ofSeconds(9).toNanos());
+        Assertions.assertThat(cache.getOwnerName(1000, () -> "after")).isEqualTo("before");
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        Assertions.assertThat(cache.getOwnerName(1000, () -> "after")).isEqualTo("after");
+    }
+
+    @Test
+    void leastRecentlyUsedNamesAreEvicted() {
+        FsCrawlerPrincipalCache cache = new FsCrawlerPrincipalCache(jobName, 2, Duration.ofHours(1), System::nanoTime);
+        cache.getOwnerName(1, () -> "one");
+        cache.getOwnerName(2, () -> "two");
+        // 1 is used again, so 2 is the one evicted when 3 comes in
+        cache.getOwnerName(1, () -> "evicted");
+        cache.getOwnerName(3, () -> "three");
+        Assertions.assertThat(cache.getOwnerName(1, () -> "evicted")).isEqualTo("one");
+        Assertions.assertThat(cache.getOwnerName(2, () -> "two again")).isEqualTo("two again");
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void fileAttributesUseTheCache() throws IOException {
+        Path first = Files.writeString(testTmpDir.resolve("first.txt"), "first");
+        Path second = Files.writeString(testTmpDir.resolve("second.txt"), "second");
+        FsCrawlerPrincipalCache cache = new FsCrawlerPrincipalCache(jobName);
+
+        FsCrawlerFileAttributes expected = FsCrawlerFileAttributes.read(first);
+        FsCrawlerFileAttributes attributes = FsCrawlerFileAttributes.read(first, cache);
+        Assertions.assertThat(attributes).isEqualTo(expected);
+        Assertions.assertThat(cache.getMisses()).isEqualTo(2);
+
+        Assertions.assertThat(FsCrawlerFileAttributes.read(second, cache).owner())
+                .isEqualTo(expected.owner());
+        Assertions.assertThat(cache.getHits()).isEqualTo(2);
+    }
+}
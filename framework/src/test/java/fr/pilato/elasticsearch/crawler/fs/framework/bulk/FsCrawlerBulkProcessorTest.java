@@ -29,6 +29,7 @@ import fr.pilato.elasticsearch.crawler.fs.framework.TimeValue;
 import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
 import java.io.IOException;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.logging.log4j.LogManager;
@@ -62,6 +63,23 @@ class FsCrawlerBulkProcessorTest extends AbstractFSCrawlerTestCase {
         Assertions.assertThat(listener.nbSuccessfulExecutions).isEqualTo(2);
     }
 
+    @Test
+    void bulkProcessorAddAll() throws IOException {
+        TestBulkListener listener = new TestBulkListener();
+        FsCrawlerBulkProcessor<TestOperation, TestBulkRequest, TestBulkResponse> bulkProcessor =
+                new FsCrawlerBulkProcessor.Builder<>(new TestEngine(), listener, TestBulkRequest::new)
+                        .setBulkActions(10)
+                        .build();
+
+        bulkProcessor.addAll(Collections.nCopies(5, new TestOperation(PAYLOAD)));
+        Assertions.assertThat(listener.nbSuccessfulExecutions).isZero();
+        // The bulk limits still apply
+        bulkProcessor.addAll(Collections.nCopies(25, new TestOperation(PAYLOAD)));
+        Assertions.assertThat(listener.nbSuccessfulExecutions).isEqualTo(3);
+        bulkProcessor.close();
+        Assertions.assertThat(listener.nbSuccessfulExecutions).isEqualTo(3);
+    }
+
     @Test
     void bulkProcessorNullSize() throws IOException {
         int maxActions = RandomizedTest.randomIntInRange(randomizedRandomForTests, 1, 1000);
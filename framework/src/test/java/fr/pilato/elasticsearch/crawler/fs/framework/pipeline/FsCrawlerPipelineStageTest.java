@@ -0,0 +1,113 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.framework.pipeline;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+
+class FsCrawlerPipelineStageTest extends AbstractFSCrawlerTestCase {
+
+    @Test
+    void tasksAreRunByStageThreads() throws InterruptedException {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicReference<String> threadName = new AtomicReference<>();
+        try (FsCrawlerPipelineStage stage = new FsCrawlerPipelineStage(jobName, "extract", 2, 10)) {
+            for (int i = 0; i < 100; i++) {
+                stage.submit(() -> {
+                    threadName.set(Thread.currentThread().getName());
+                    counter.incrementAndGet();
+                });
+            }
+            Assertions.assertThat(stage.shutdown(Duration.ofSeconds(10))).isTrue();
+            Assertions.assertThat(counter).hasValue(100);
+            Assertions.assertThat(stage.getProcessed()).isEqualTo(100);
+            Assertions.assertThat(stage.getQueueDepth()).isZero();
+            Assertions.assertThat(threadName.get()).startsWith("fs-pipeline-" + jobName + "-extract-");
+        }
+    }
+
+    @Test
+    void zeroThreadsRunsInCallerThread() throws InterruptedException {
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        try (FsCrawlerPipelineStage stage = new FsCrawlerPipelineStage(jobName, "fetch", 0, 1)) {
+            stage.submit(() -> thread.set(Thread.currentThread()));
+            Assertions.assertThat(thread.get()).isSameAs(Thread.currentThread());
+            Assertions.assertThat(stage.getProcessed()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void submitBlocksWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean thirdSubmitted = new AtomicBoolean(false);
+        try (FsCrawlerPipelineStage stage = new FsCrawlerPipelineStage(jobName, "serialize", 1, 1)) {
+            Runnable blocked = () -> {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            // One running, one waiting in the queue
+            stage.submit(blocked);
+            stage.submit(blocked);
+            Thread producer = new Thread(() -> {
+                try {
+                    stage.submit(() -> {});
+                    thirdSubmitted.set(true);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producer.start();
+
+            Awaitility.await().atMost(Duration.ofSeconds(5)).until(() -> stage.getQueueDepth() == 1);
+            Thread.sleep(100);
+            Assertions.assertThat(thirdSubmitted).isFalse();
+
+            release.countDown();
+            producer.join(10_000);
+            Assertions.assertThat(thirdSubmitted).isTrue();
+        }
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheStage() throws InterruptedException {
+        AtomicInteger counter = new AtomicInteger();
+        try (FsCrawlerPipelineStage stage = new FsCrawlerPipelineStage(jobName, "extract", 1, 10)) {
+            stage.submit(() -> {
+                throw new IllegalStateException("boom");
+            });
+            stage.submit(counter::incrementAndGet);
+            Assertions.assertThat(stage.shutdown(Duration.ofSeconds(10))).isTrue();
+            Assertions.assertThat(counter).hasValue(1);
+            Assertions.assertThat(stage.getProcessed()).isEqualTo(2);
+        }
+    }
+}
@@ -23,6 +23,7 @@ package fr.pilato.elasticsearch.crawler.fs.test.integration;
 import fr.pilato.elasticsearch.crawler.fs.client.ElasticsearchClient;
 import fr.pilato.elasticsearch.crawler.fs.client.ElasticsearchClientException;
 import fr.pilato.elasticsearch.crawler.fs.settings.FsSettings;
+import java.util.Collection;
 
 /**
  * Elasticsearch client used by the integration-test suite for assertions and cleanup.
@@ -67,6 +68,13 @@ class ForTestsOnlyElasticsearchClient extends ElasticsearchClient {
         }
     }
 
+    @Override
+    public void delete(String index, Collection<String> ids) {
+        for (String id : ids) {
+            delete(index, id);
+        }
+    }
+
     /** Nothing to flush — writes are already synchronous. */
     @Override
     public void flush() {
@@ -64,4 +64,23 @@ class FsCrawlerTestIncludesIT extends AbstractFsCrawlerITCase {
         // We expect to have 4 files as subdir1 should be ignored
         countTestHelper(new ESSearchRequest().withIndex(getCrawlerName() + FsCrawlerUtil.INDEX_SUFFIX_DOCS), 4L, null);
     }
+
+    @Test
+    void fscrawlerignore_rules() throws Exception {
+        crawler = startCrawler();
+
+        // We expect to have 3 files: roottxtfile.txt, subdir1/roottxtfile.txt and subdir1/keep.tmp
+        countTestHelper(new ESSearchRequest().withIndex(getCrawlerName() + FsCrawlerUtil.INDEX_SUFFIX_DOCS), 3L, null);
+    }
+
+    @Test
+    void includes_pruning() throws Exception {
+        FsSettings fsSettings = createTestSettings();
+        fsSettings.getFs().setIncludes(List.of("/subdir1/**/*.txt"));
+        crawler = startCrawler(fsSettings);
+
+        // We expect to have subdir1/subdir11/roottxtfile.txt and subdir1/subdir12/roottxtfile.txt. subdir2 is never
+        // read.
+        countTestHelper(new ESSearchRequest().withIndex(getCrawlerName() + FsCrawlerUtil.INDEX_SUFFIX_DOCS), 2L, null);
+    }
 }
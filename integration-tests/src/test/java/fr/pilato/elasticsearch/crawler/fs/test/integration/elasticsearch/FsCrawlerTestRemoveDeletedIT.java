@@ -31,6 +31,7 @@ import fr.pilato.elasticsearch.crawler.fs.framework.ExponentialBackoffPollInterv
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerUtil;
 import fr.pilato.elasticsearch.crawler.fs.framework.JsonUtil;
 import fr.pilato.elasticsearch.crawler.fs.framework.OsValidator;
+import fr.pilato.elasticsearch.crawler.fs.service.FsCrawlerManagementServiceElasticsearchImpl;
 import fr.pilato.elasticsearch.crawler.fs.settings.FsSettings;
 import fr.pilato.elasticsearch.crawler.fs.test.integration.AbstractFsCrawlerITCase;
 import java.nio.charset.StandardCharsets;
@@ -101,6 +102,53 @@ class FsCrawlerTestRemoveDeletedIT extends AbstractFsCrawlerITCase {
                 currentTestResourceDir);
     }
 
+    /**
+     * The documents of a directory are read page by page. We use a page size smaller than the number of files to make
+     * sure that every page is read, and that a file which is not in the first page is seen as removed.
+     */
+    @Test
+    void remove_deleted_past_the_first_page() throws Exception {
+        // We add 24 files next to roottxtfile.txt
+        for (int i = 0; i < 24; i++) {
+            Files.writeString(
+                    currentTestResourceDir.resolve(String.format(Locale.ROOT, "file-%02d.txt", i)),
+                    "This is file " + i,
+                    StandardCharsets.UTF_8);
+        }
+
+        FsSettings fsSettings = createTestSettings();
+        fsSettings.getFs().setRemoveDeleted(true);
+        crawler = startCrawler(fsSettings);
+
+        countTestHelper(
+                new ESSearchRequest().withIndex(getCrawlerName() + FsCrawlerUtil.INDEX_SUFFIX_DOCS),
+                25L,
+                currentTestResourceDir);
+
+        try (FsCrawlerManagementServiceElasticsearchImpl managementService =
+                new FsCrawlerManagementServiceElasticsearchImpl(fsSettings, 10)) {
+            managementService.start();
+
+            // We read 3 pages of 10 hits
+            Assertions.assertThat(managementService.getFileDirectory(currentTestResourceDir.toString()))
+                    .hasSize(25)
+                    .contains("roottxtfile.txt", "file-00.txt", "file-23.txt");
+
+            // We remove a file
+            logger.info("  ---> Removing file file-23.txt");
+            Files.delete(currentTestResourceDir.resolve("file-23.txt"));
+
+            countTestHelper(
+                    new ESSearchRequest().withIndex(getCrawlerName() + FsCrawlerUtil.INDEX_SUFFIX_DOCS),
+                    24L,
+                    currentTestResourceDir);
+
+            Assertions.assertThat(managementService.getFileDirectory(currentTestResourceDir.toString()))
+                    .hasSize(24)
+                    .doesNotContain("file-23.txt");
+        }
+    }
+
     /**
      * Test case for #95: <a
      * href="https://github.com/dadoonet/fscrawler/issues/95">https://github.com/dadoonet/fscrawler/issues/95</a> :
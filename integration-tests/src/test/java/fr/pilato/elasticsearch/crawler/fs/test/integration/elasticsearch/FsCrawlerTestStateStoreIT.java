@@ -0,0 +1,92 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.test.integration.elasticsearch;
+
+import fr.pilato.elasticsearch.crawler.fs.beans.FsStateStore;
+import fr.pilato.elasticsearch.crawler.fs.client.ESMatchQuery;
+import fr.pilato.elasticsearch.crawler.fs.client.ESSearchRequest;
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerUtil;
+import fr.pilato.elasticsearch.crawler.fs.settings.FsSettings;
+import fr.pilato.elasticsearch.crawler.fs.test.integration.AbstractFsCrawlerITCase;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/** Test that the local state store (fs.state_store) finds the changed and the removed files */
+class FsCrawlerTestStateStoreIT extends AbstractFsCrawlerITCase {
+    private static final Logger logger = LogManager.getLogger();
+
+    @Test
+    void state_store() throws Exception {
+        Path subdir = Files.createDirectory(currentTestResourceDir.resolve("subdir"));
+        Files.write(subdir.resolve("subdirfile.txt"), "This is a file in subdir".getBytes(StandardCharsets.UTF_8));
+        Path deeper = Files.createDirectory(subdir.resolve("deeper"));
+        Files.write(deeper.resolve("deeperfile.txt"), "This is a file in deeper".getBytes(StandardCharsets.UTF_8));
+
+        FsSettings fsSettings = createTestSettings();
+        fsSettings.getFs().setStateStore(true);
+        fsSettings.getFs().setRemoveDeleted(true);
+        // Removed directories must be found even if they are not indexed
+        fsSettings.getFs().setIndexFolders(false);
+        crawler = startCrawler(fsSettings);
+
+        // We should have three docs first
+        countTestHelper(
+                new ESSearchRequest().withIndex(getCrawlerName() + FsCrawlerUtil.INDEX_SUFFIX_DOCS),
+                3L,
+                currentTestResourceDir);
+        Assertions.assertThat(metadataDir.resolve(getCrawlerName()).resolve(FsStateStore.FILENAME))
+                .exists();
+
+        // A file modified with a date older than the last run must be indexed again
+        logger.info("  ---> Modifying file subdir/subdirfile.txt with an old date");
+        Path modified = subdir.resolve("subdirfile.txt");
+        Files.write(modified, "This is a changed file in subdir".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(modified, FileTime.from(Instant.now().minus(10, ChronoUnit.DAYS)));
+        countTestHelper(
+                new ESSearchRequest()
+                        .withIndex(getCrawlerName() + FsCrawlerUtil.INDEX_SUFFIX_DOCS)
+                        .withESQuery(new ESMatchQuery("content", "changed")),
+                1L,
+                currentTestResourceDir);
+
+        logger.info("  ---> Removing file roottxtfile.txt");
+        Files.delete(currentTestResourceDir.resolve("roottxtfile.txt"));
+        countTestHelper(
+                new ESSearchRequest().withIndex(getCrawlerName() + FsCrawlerUtil.INDEX_SUFFIX_DOCS),
+                2L,
+                currentTestResourceDir);
+
+        logger.info("  ---> Removing dir deeper");
+        deleteRecursively(deeper);
+        countTestHelper(
+                new ESSearchRequest().withIndex(getCrawlerName() + FsCrawlerUtil.INDEX_SUFFIX_DOCS),
+                1L,
+                currentTestResourceDir);
+    }
+}
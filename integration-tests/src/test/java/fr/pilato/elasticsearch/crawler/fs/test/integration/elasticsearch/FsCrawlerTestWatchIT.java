@@ -0,0 +1,84 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.test.integration.elasticsearch;
+
+import fr.pilato.elasticsearch.crawler.fs.client.ESSearchRequest;
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerUtil;
+import fr.pilato.elasticsearch.crawler.fs.framework.TimeValue;
+import fr.pilato.elasticsearch.crawler.fs.settings.FsSettings;
+import fr.pilato.elasticsearch.crawler.fs.test.integration.AbstractFsCrawlerITCase;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+/** Test the watch mode (fs.watch) */
+class FsCrawlerTestWatchIT extends AbstractFsCrawlerITCase {
+    private static final Logger logger = LogManager.getLogger();
+
+    @Test
+    void watch_changes() throws Exception {
+        FsSettings fsSettings = createTestSettings();
+        fsSettings.getFs().setWatch(true);
+        // No full run should happen during the test: changes must be found by the watcher
+        fsSettings.getFs().setUpdateRate(TimeValue.timeValueMinutes(15));
+        crawler = startCrawler(fsSettings);
+
+        // We should have one doc first
+        countTestHelper(
+                new ESSearchRequest().withIndex(getCrawlerName() + FsCrawlerUtil.INDEX_SUFFIX_DOCS),
+                1L,
+                currentTestResourceDir);
+
+        logger.info("  ---> Adding file new_roottxtfile.txt");
+        Files.write(
+                currentTestResourceDir.resolve("new_roottxtfile.txt"),
+                "This is a second file".getBytes(StandardCharsets.UTF_8));
+        countTestHelper(
+                new ESSearchRequest().withIndex(getCrawlerName() + FsCrawlerUtil.INDEX_SUFFIX_DOCS),
+                2L,
+                currentTestResourceDir);
+
+        logger.info("  ---> Adding directory subdir with a file");
+        Path subdir = Files.createDirectory(currentTestResourceDir.resolve("subdir"));
+        Files.write(subdir.resolve("subdirfile.txt"), "This is a third file".getBytes(StandardCharsets.UTF_8));
+        countTestHelper(
+                new ESSearchRequest().withIndex(getCrawlerName() + FsCrawlerUtil.INDEX_SUFFIX_DOCS),
+                3L,
+                currentTestResourceDir);
+
+        logger.info("  ---> Adding a file in subdir");
+        Files.write(subdir.resolve("subdirfile2.txt"), "This is a fourth file".getBytes(StandardCharsets.UTF_8));
+        countTestHelper(
+                new ESSearchRequest().withIndex(getCrawlerName() + FsCrawlerUtil.INDEX_SUFFIX_DOCS),
+                4L,
+                currentTestResourceDir);
+
+        logger.info("  ---> Removing file new_roottxtfile.txt");
+        Files.delete(currentTestResourceDir.resolve("new_roottxtfile.txt"));
+        countTestHelper(
+                new ESSearchRequest().withIndex(getCrawlerName() + FsCrawlerUtil.INDEX_SUFFIX_DOCS),
+                3L,
+                currentTestResourceDir);
+    }
+}
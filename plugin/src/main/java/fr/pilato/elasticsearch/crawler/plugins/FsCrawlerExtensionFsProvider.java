@@ -25,6 +25,7 @@ import fr.pilato.elasticsearch.crawler.fs.beans.FileAbstractModel;
 import fr.pilato.elasticsearch.crawler.fs.settings.FsSettings;
 import java.io.InputStream;
 import java.util.Collection;
+import java.util.stream.Stream;
 import org.pf4j.ExtensionPoint;
 
 /**
@@ -104,6 +105,40 @@ public interface FsCrawlerExtensionFsProvider extends ExtensionPoint, AutoClosea
         return false;
     }
 
+    /**
+     * Indicates whether the crawling methods can be called concurrently from several threads after a single
+     * {@link #openConnection()}. When false, FSCrawler walks directories with a single thread whatever the value of
+     * {@code fs.walker_threads}.
+     *
+     * <p>Providers backed by a single remote session (FTP, SSH) must keep the default.
+     *
+     * @return true if {@link #getFiles(String)} and {@link #getInputStream(FileAbstractModel)} are thread-safe
+     */
+    default boolean supportsConcurrentAccess() {
+        return false;
+    }
+
+    /**
+     * Indicates whether this provider can report changes made in directories with {@link #newWatcher()}. Used when
+     * {@code fs.watch} is true.
+     *
+     * @return true if {@link #newWatcher()} is implemented
+     */
+    default boolean supportsWatching() {
+        return false;
+    }
+
+    /**
+     * Indicates whether {@link #listFiles(String)} gives the children of a directory while they are listed, and
+     * {@link #getFile(String, String)} finds one child without listing the directory. When true, FSCrawler starts
+     * indexing the files of a directory before the end of its listing.
+     *
+     * @return true if {@link #listFiles(String)} and {@link #getFile(String, String)} are implemented
+     */
+    default boolean supportsStreamingListing() {
+        return false;
+    }
+
     // ========== Crawling methods (optional - default throws FsCrawlerPluginException) ==========
 
     /**
@@ -146,6 +181,37 @@ public interface FsCrawlerExtensionFsProvider extends ExtensionPoint, AutoClosea
         throw new FsCrawlerPluginException("Crawling not supported by " + getType() + " provider");
     }
 
+    /**
+     * List the files and subdirectories in the given directory, fetching them while the returned stream is consumed.
+     * The stream must be closed.
+     *
+     * <p>The default implementation adapts {@link #getFiles(String)}, so the whole directory is listed first. Providers
+     * which can do better, like reading a remote listing page after page, should override it and
+     * {@link #supportsStreamingListing()}.
+     *
+     * @param directory the directory to list
+     * @return the directory contents
+     * @throws FsCrawlerPluginException if an error occurs while listing the directory or if crawling is not supported
+     */
+    default Stream<FileAbstractModel> listFiles(String directory) throws FsCrawlerPluginException {
+        Collection<FileAbstractModel> files = getFiles(directory);
+        return files == null ? Stream.empty() : files.stream();
+    }
+
+    /**
+     * Get one file of a directory without listing the whole directory. Only called when
+     * {@link #supportsStreamingListing()} returns true. The name must be matched ignoring the case, like FSCrawler does
+     * when it looks for the ignore and metadata files in a listing.
+     *
+     * @param directory the directory
+     * @param name the name of the file in this directory, in any case
+     * @return the file or null if it does not exist
+     * @throws FsCrawlerPluginException if an error occurs or if streaming listings are not supported
+     */
+    default FileAbstractModel getFile(String directory, String name) throws FsCrawlerPluginException {
+        throw new FsCrawlerPluginException("Streaming listing not supported by " + getType() + " provider");
+    }
+
     /**
      * Get an input stream for reading a file during crawling.
      *
@@ -169,4 +235,14 @@ public interface FsCrawlerExtensionFsProvider extends ExtensionPoint, AutoClosea
     default void closeInputStream(InputStream inputStream) throws FsCrawlerPluginException {
         throw new FsCrawlerPluginException("Crawling not supported by " + getType() + " provider");
     }
+
+    /**
+     * Create a watcher reporting the changes made in the directories registered on it.
+     *
+     * @return a new watcher, to close once not needed anymore
+     * @throws FsCrawlerPluginException if the watcher can not be created or if watching is not supported
+     */
+    default FsCrawlerWatcher newWatcher() throws FsCrawlerPluginException {
+        throw new FsCrawlerPluginException("Watching not supported by " + getType() + " provider");
+    }
 }
@@ -0,0 +1,39 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.plugins;
+
+/**
+ * A change reported by a {@link FsCrawlerWatcher}.
+ *
+ * @param kind the kind of change
+ * @param directory the watched directory the changed entry belongs to. Null for {@link Kind#OVERFLOW}.
+ * @param name the name of the changed entry in the directory. Null for {@link Kind#OVERFLOW}.
+ */
+public record FsCrawlerWatchEvent(Kind kind, String directory, String name) {
+
+    public enum Kind {
+        CREATE,
+        MODIFY,
+        DELETE,
+        /** Some events have been lost: the watched directories must be crawled again. */
+        OVERFLOW
+    }
+}
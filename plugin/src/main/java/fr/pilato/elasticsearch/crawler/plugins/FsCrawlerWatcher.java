@@ -0,0 +1,55 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.plugins;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Reports the changes made in watched directories. Created by {@link FsCrawlerExtensionFsProvider#newWatcher()} and
+ * used by the crawler thread only.
+ */
+public interface FsCrawlerWatcher extends Closeable {
+
+    /**
+     * Watch the entries of a directory. Subdirectories must be registered on their own.
+     *
+     * @param directory the directory, as returned by the crawler in {@code FileAbstractModel#getFullpath()}
+     * @throws FsCrawlerPluginException if the directory can not be watched, for example when the system limit of
+     *     watched directories has been reached
+     */
+    void register(String directory) throws FsCrawlerPluginException;
+
+    /**
+     * Wait for the next changes. Events received in a short burst are returned together, with at most one event per
+     * file.
+     *
+     * @param timeout how long to wait for a first event
+     * @return the changes, or an empty collection if nothing changed before the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    Collection<FsCrawlerWatchEvent> poll(Duration timeout) throws InterruptedException;
+
+    /** Stop watching all the directories. */
+    @Override
+    void close();
+}
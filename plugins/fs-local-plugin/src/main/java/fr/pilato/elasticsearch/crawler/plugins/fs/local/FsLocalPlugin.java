@@ -23,25 +23,34 @@ package fr.pilato.elasticsearch.crawler.plugins.fs.local;
 import com.jayway.jsonpath.PathNotFoundException;
 import fr.pilato.elasticsearch.crawler.fs.beans.Doc;
 import fr.pilato.elasticsearch.crawler.fs.beans.FileAbstractModel;
-import fr.pilato.elasticsearch.crawler.fs.framework.FileAcl;
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerFileAttributes;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerIllegalConfigurationException;
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerPrincipalCache;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerUtil;
+import fr.pilato.elasticsearch.crawler.fs.settings.FsSettings;
+import fr.pilato.elasticsearch.crawler.fs.settings.ListingOrder;
 import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerExtensionFsProviderAbstract;
 import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerPlugin;
 import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerPluginException;
+import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerWatcher;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Stream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -60,10 +69,20 @@ public class FsLocalPlugin extends FsCrawlerPlugin {
 
         private Path path;
         private String url;
+        private FsCrawlerPrincipalCache principalCache;
 
-        private static final Comparator<Path> PATH_COMPARATOR = Comparator.comparing(
-                file -> FsCrawlerUtil.getModificationOrCreationTime(file.toFile()),
-                Comparator.nullsLast(Comparator.naturalOrder()));
+        /** Most recently modified first. Compares the dates read with the other attributes, so no stat call here. */
+        private static final Comparator<FileAbstractModel> MTIME_DESC_COMPARATOR = Comparator.comparing(
+                FileAbstractModel::getLastModifiedDate, Comparator.nullsLast(Comparator.reverseOrder()));
+
+        private static final Comparator<FileAbstractModel> NAME_COMPARATOR =
+                Comparator.comparing(FileAbstractModel::getName);
+
+        @Override
+        public void start(FsSettings fsSettings, String restSettings) {
+            super.start(fsSettings, restSettings);
+            principalCache = new FsCrawlerPrincipalCache(fsSettings.getName());
+        }
 
         @Override
         public String getType() {
@@ -75,6 +94,21 @@ public class FsLocalPlugin extends FsCrawlerPlugin {
             return true;
         }
 
+        @Override
+        public boolean supportsConcurrentAccess() {
+            return true;
+        }
+
+        @Override
+        public boolean supportsWatching() {
+            return true;
+        }
+
+        @Override
+        public boolean supportsStreamingListing() {
+            return true;
+        }
+
         // ========== FsCrawlerExtensionFsProvider methods (REST API) ==========
 
         @Override
@@ -150,7 +184,7 @@ public class FsLocalPlugin extends FsCrawlerPlugin {
         @Override
         public void closeConnection() {
             // No connection to close for local filesystem
-            logger.debug("Closing local filesystem connection");
+            logger.debug("Closing local filesystem connection. Owner and group names: {}", principalCache);
         }
 
         @Override
@@ -162,19 +196,90 @@ public class FsLocalPlugin extends FsCrawlerPlugin {
         public Collection<FileAbstractModel> getFiles(String dir) {
             logger.debug("Listing local files from {}", dir);
 
-            final Collection<FileAbstractModel> result = new ArrayList<>();
-            try (Stream<Path> paths = Files.list(Paths.get(dir))) {
-                paths.filter(p -> fsSettings.getFs().isFollowSymlinks() || !Files.isSymbolicLink(p))
-                        .sorted(PATH_COMPARATOR.reversed())
-                        .forEach(p -> result.add(toFileAbstractModel(dir, p.toFile())));
+            final List<FileAbstractModel> result = new ArrayList<>();
+            // Attributes are read once per file, then the files are sorted on these values
+            try (Stream<FileAbstractModel> files = toFileAbstractModels(dir, Files.list(Paths.get(dir)))) {
+                files.forEach(result::add);
             } catch (IOException e) {
                 logger.warn("Error listing files in {}: {}", dir, e.getMessage());
             }
+            Comparator<FileAbstractModel> comparator = getListingComparator();
+            if (comparator != null) {
+                result.sort(comparator);
+            }
 
             logger.debug("{} local files found", result.size());
             return result;
         }
 
+        /**
+         * Stream the files of a directory while it is listed. This is only possible when they do not have to be sorted
+         * ({@code fs.listing_order: none}), otherwise the whole directory is listed first.
+         */
+        @Override
+        public Stream<FileAbstractModel> listFiles(String dir) {
+            if (getListingComparator() != null) {
+                return getFiles(dir).stream();
+            }
+            logger.debug("Streaming local files from {}", dir);
+            try {
+                return toFileAbstractModels(dir, Files.list(Paths.get(dir)));
+            } catch (IOException e) {
+                logger.warn("Error listing files in {}: {}", dir, e.getMessage());
+                return Stream.empty();
+            }
+        }
+
+        /**
+         * Get a file by its name, ignoring the case. The exact name is looked up first. When it does not exist, only
+         * the names of the directory are read, without their attributes, so it stays cheaper than a listing.
+         */
+        @Override
+        public FileAbstractModel getFile(String dir, String name) {
+            Path file = Paths.get(dir, name);
+            if (Files.notExists(file, LinkOption.NOFOLLOW_LINKS)) {
+                file = findIgnoringCase(Paths.get(dir), name);
+                if (file == null) {
+                    return null;
+                }
+            }
+            if (!fsSettings.getFs().isFollowSymlinks() && Files.isSymbolicLink(file)) {
+                return null;
+            }
+            return toFileAbstractModel(dir, file.toFile());
+        }
+
+        private static Path findIgnoringCase(Path dir, String name) {
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(
+                    dir, p -> p.getFileName().toString().equalsIgnoreCase(name))) {
+                Iterator<Path> iterator = children.iterator();
+                return iterator.hasNext() ? iterator.next() : null;
+            } catch (IOException e) {
+                logger.warn("Error looking for {} in {}: {}", name, dir, e.getMessage());
+                return null;
+            }
+        }
+
+        /** Closing the returned stream closes the given one */
+        private Stream<FileAbstractModel> toFileAbstractModels(String dir, Stream<Path> paths) {
+            return paths.filter(p -> fsSettings.getFs().isFollowSymlinks() || !Files.isSymbolicLink(p))
+                    .map(p -> toFileAbstractModel(dir, p.toFile()))
+                    .filter(Objects::nonNull);
+        }
+
+        /** @return the comparator matching {@code fs.listing_order}, null when the files must not be sorted */
+        private Comparator<FileAbstractModel> getListingComparator() {
+            ListingOrder listingOrder = fsSettings.getFs().getListingOrder();
+            if (listingOrder == null) {
+                return MTIME_DESC_COMPARATOR;
+            }
+            return switch (listingOrder) {
+                case MTIME_DESC -> MTIME_DESC_COMPARATOR;
+                case NAME -> NAME_COMPARATOR;
+                case NONE -> null;
+            };
+        }
+
         @Override
         public InputStream getInputStream(FileAbstractModel file) throws FsCrawlerPluginException {
             try {
@@ -193,30 +298,51 @@ public class FsLocalPlugin extends FsCrawlerPlugin {
             }
         }
 
-        /** Convert a File to a FileAbstractModel. */
+        @Override
+        public FsCrawlerWatcher newWatcher() throws FsCrawlerPluginException {
+            try {
+                return new FsLocalWatcher(FileSystems.getDefault().newWatchService());
+            } catch (IOException e) {
+                throw new FsCrawlerPluginException("Can not create a watch service", e);
+            }
+        }
+
+        /**
+         * Convert a File to a FileAbstractModel. All the attributes are read with a single call (see
+         * {@link FsCrawlerFileAttributes}). ACLs are read only when needed: the crawler does not read them for the
+         * files whose change time (ctime) did not move since the previous run.
+         *
+         * @return null if the attributes of the file can not be read, for example because it was removed meanwhile
+         */
         private FileAbstractModel toFileAbstractModel(String path, File file) {
-            List<FileAcl> fileAcls =
-                    fsSettings.getFs().isAclSupport() && fsSettings.getFs().isAttributesSupport()
-                            ? FsCrawlerUtil.getFileAcls(file.toPath())
-                            : Collections.emptyList();
+            FsCrawlerFileAttributes attributes;
+            try {
+                // Read before the ACLs, so an ACL change made meanwhile moves the ctime after the one we keep
+                attributes = FsCrawlerFileAttributes.read(file.toPath(), principalCache);
+            } catch (IOException e) {
+                logger.warn("Can not read the attributes of {}: {}", file, e.getMessage());
+                return null;
+            }
+            boolean acls =
+                    fsSettings.getFs().isAclSupport() && fsSettings.getFs().isAttributesSupport();
 
             String separator = FsCrawlerUtil.getPathSeparator(fsSettings.getFs().getUrl());
 
             return new FileAbstractModel(
                     file.getName(),
-                    file.isFile(),
-                    FsCrawlerUtil.getModificationTime(file),
-                    FsCrawlerUtil.getCreationTime(file),
-                    FsCrawlerUtil.getLastAccessTime(file),
+                    attributes.regularFile(),
+                    attributes.lastModifiedTime(),
+                    attributes.creationTime(),
+                    attributes.lastAccessTime(),
+                    attributes.changeTime(),
                     FsCrawlerUtil.getFileExtension(file),
                     resolveSeparator(path, separator),
                     resolveSeparator(file.getAbsolutePath(), separator),
-                    file.length(),
-                    FsCrawlerUtil.getOwnerName(file),
-                    FsCrawlerUtil.getGroupName(file),
-                    FsCrawlerUtil.getFilePermissions(file),
-                    fileAcls,
-                    FsCrawlerUtil.computeAclHash(fileAcls));
+                    attributes.size(),
+                    attributes.owner(),
+                    attributes.group(),
+                    attributes.permissions(),
+                    acls ? () -> FsCrawlerUtil.getFileAcls(file.toPath()) : Collections::emptyList);
         }
 
         private String resolveSeparator(String path, String separator) {
@@ -0,0 +1,139 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.plugins.fs.local;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerPluginException;
+import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerWatchEvent;
+import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerWatcher;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Watches local directories with a {@link WatchService} (inotify on Linux).
+ *
+ * <p>Once a first event is received, {@link #poll(Duration)} keeps collecting events as long as new ones arrive within
+ * {@link #BURST_DELAY_MS}, for at most {@link #MAX_BURST_MS}. Several events for the same file are merged into one.
+ */
+class FsLocalWatcher implements FsCrawlerWatcher {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final long BURST_DELAY_MS = 200;
+    private static final long MAX_BURST_MS = 2000;
+
+    private final WatchService watchService;
+    private final Map<WatchKey, String> directories = new HashMap<>();
+
+    FsLocalWatcher(WatchService watchService) {
+        this.watchService = watchService;
+    }
+
+    @Override
+    public void register(String directory) throws FsCrawlerPluginException {
+        try {
+            WatchKey key = Paths.get(directory).register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            directories.put(key, directory);
+        } catch (IOException e) {
+            // On Linux, reaching fs.inotify.max_user_watches is reported as an IOException
+            throw new FsCrawlerPluginException("Can not watch directory " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Collection<FsCrawlerWatchEvent> poll(Duration timeout) throws InterruptedException {
+        try {
+            WatchKey key = watchService.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (key == null) {
+                return List.of();
+            }
+            Map<String, FsCrawlerWatchEvent> events = new LinkedHashMap<>();
+            long burstEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_BURST_MS);
+            while (key != null) {
+                collect(key, events);
+                if (System.nanoTime() > burstEnd) {
+                    break;
+                }
+                key = watchService.poll(BURST_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+            logger.trace("Changes detected: {}", events.values());
+            return events.values();
+        } catch (ClosedWatchServiceException e) {
+            return List.of();
+        }
+    }
+
+    private void collect(WatchKey key, Map<String, FsCrawlerWatchEvent> events) {
+        String directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                events.put("", new FsCrawlerWatchEvent(FsCrawlerWatchEvent.Kind.OVERFLOW, null, null));
+                continue;
+            }
+            if (directory == null) {
+                continue;
+            }
+            String name = ((Path) event.context()).toString();
+            FsCrawlerWatchEvent.Kind kind = event.kind() == ENTRY_CREATE
+                    ? FsCrawlerWatchEvent.Kind.CREATE
+                    : event.kind() == ENTRY_DELETE ? FsCrawlerWatchEvent.Kind.DELETE : FsCrawlerWatchEvent.Kind.MODIFY;
+            events.merge(
+                    directory + "\u0000" + name,
+                    new FsCrawlerWatchEvent(kind, directory, name),
+                    // A file created then modified in the same burst is still a new file
+                    (previous, current) -> previous.kind() == FsCrawlerWatchEvent.Kind.CREATE
+                                    && current.kind() == FsCrawlerWatchEvent.Kind.MODIFY
+                            ? previous
+                            : current);
+        }
+        if (!key.reset()) {
+            // The directory has been removed or is not accessible anymore
+            directories.remove(key);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.debug("Error while closing the watch service: {}", e.getMessage());
+        }
+        directories.clear();
+    }
+}
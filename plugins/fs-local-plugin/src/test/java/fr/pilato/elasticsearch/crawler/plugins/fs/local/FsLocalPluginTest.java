@@ -24,6 +24,7 @@ import fr.pilato.elasticsearch.crawler.fs.beans.FileAbstractModel;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerUtil;
 import fr.pilato.elasticsearch.crawler.fs.settings.FsSettings;
 import fr.pilato.elasticsearch.crawler.fs.settings.FsSettingsLoader;
+import fr.pilato.elasticsearch.crawler.fs.settings.ListingOrder;
 import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
 import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerExtensionFsProvider;
 import java.nio.file.Files;
@@ -31,6 +32,7 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.stream.Stream;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -75,6 +77,65 @@ class FsLocalPluginTest extends AbstractFSCrawlerTestCase {
         Files.delete(tempDir);
     }
 
+    @Test
+    void getFilesSortedByName() throws Exception {
+        FsSettings fsSettings = FsSettingsLoader.load();
+        fsSettings.getFs().setListingOrder(ListingOrder.NAME);
+        FsLocalPlugin.FsCrawlerExtensionFsProviderLocal plugin = new FsLocalPlugin.FsCrawlerExtensionFsProviderLocal();
+        plugin.start(fsSettings, "{}");
+
+        Path tempDir = Files.createDirectory(testTmpDir.resolve("testGetFilesSortedByName"));
+        Files.createFile(tempDir.resolve("b.txt"));
+        FsCrawlerUtil.waitFor(Duration.ofMillis(100));
+        Files.createFile(tempDir.resolve("c.txt"));
+        Files.createFile(tempDir.resolve("a.txt"));
+
+        Assertions.assertThat(plugin.getFiles(tempDir.toString()))
+                .extracting(FileAbstractModel::getName)
+                .containsExactly("a.txt", "b.txt", "c.txt");
+
+        fsSettings.getFs().setListingOrder(ListingOrder.NONE);
+        Assertions.assertThat(plugin.getFiles(tempDir.toString()))
+                .extracting(FileAbstractModel::getName)
+                .containsExactlyInAnyOrder("a.txt", "b.txt", "c.txt");
+    }
+
+    @Test
+    void listFilesAndGetFile() throws Exception {
+        FsSettings fsSettings = FsSettingsLoader.load();
+        fsSettings.getFs().setListingOrder(ListingOrder.NONE);
+        FsLocalPlugin.FsCrawlerExtensionFsProviderLocal plugin = new FsLocalPlugin.FsCrawlerExtensionFsProviderLocal();
+        plugin.start(fsSettings, "{}");
+        Assertions.assertThat(plugin.supportsStreamingListing()).isTrue();
+
+        Path tempDir = Files.createDirectory(testTmpDir.resolve("testListFiles"));
+        for (int i = 0; i < 10; i++) {
+            Files.writeString(tempDir.resolve("file" + i + ".txt"), "file " + i);
+        }
+        Files.createDirectory(tempDir.resolve("subdir"));
+
+        try (Stream<FileAbstractModel> files = plugin.listFiles(tempDir.toString())) {
+            Assertions.assertThat(files)
+                    .hasSize(11)
+                    .filteredOn(FileAbstractModel::isDirectory)
+                    .extracting(FileAbstractModel::getName)
+                    .containsExactly("subdir");
+        }
+
+        FileAbstractModel file = plugin.getFile(tempDir.toString(), "file3.txt");
+        Assertions.assertThat(file).isNotNull();
+        Assertions.assertThat(file.isFile()).isTrue();
+        Assertions.assertThat(file.getSize()).isEqualTo(6);
+        Assertions.assertThat(plugin.getFile(tempDir.toString(), "missing.txt")).isNull();
+
+        // Same as the listing, which finds the ignore and metadata files ignoring the case
+        Files.writeString(tempDir.resolve(".FsCrawlerIgnore"), "*.tmp");
+        FileAbstractModel ignoreFile = plugin.getFile(tempDir.toString(), ".fscrawlerignore");
+        Assertions.assertThat(ignoreFile).isNotNull();
+        Assertions.assertThat(ignoreFile.getName()).isEqualToIgnoringCase(".fscrawlerignore");
+        Assertions.assertThat(ignoreFile.getSize()).isEqualTo(5);
+    }
+
     @Test
     void exists() throws Exception {
         Path tempDir = Files.createTempDirectory("testExists");
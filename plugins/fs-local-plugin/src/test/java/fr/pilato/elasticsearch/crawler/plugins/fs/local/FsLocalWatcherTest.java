@@ -0,0 +1,83 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.plugins.fs.local;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
+import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerPluginException;
+import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerWatchEvent;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class FsLocalWatcherTest extends AbstractFSCrawlerTestCase {
+
+    /** Poll until the expected number of events is collected (some systems split a burst in several polls). */
+    private static List<FsCrawlerWatchEvent> pollEvents(FsLocalWatcher watcher, int expected)
+            throws InterruptedException {
+        List<FsCrawlerWatchEvent> events = new ArrayList<>();
+        long end = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (events.size() < expected && System.nanoTime() < end) {
+            Collection<FsCrawlerWatchEvent> polled = watcher.poll(Duration.ofSeconds(1));
+            events.addAll(polled);
+        }
+        return events;
+    }
+
+    @Test
+    void reportsChangesInWatchedDirectories() throws Exception {
+        Path dir = Files.createDirectories(testTmpDir.resolve(jobName));
+        try (FsLocalWatcher watcher =
+                new FsLocalWatcher(FileSystems.getDefault().newWatchService())) {
+            watcher.register(dir.toString());
+            assertThat(watcher.poll(Duration.ofMillis(100))).isEmpty();
+
+            Path file = Files.writeString(dir.resolve("foo.txt"), "foo");
+            Files.writeString(file, "bar");
+            List<FsCrawlerWatchEvent> events = pollEvents(watcher, 1);
+            assertThat(events).extracting(FsCrawlerWatchEvent::name).containsOnly("foo.txt");
+            assertThat(events).extracting(FsCrawlerWatchEvent::directory).containsOnly(dir.toString());
+
+            Files.delete(file);
+            events = pollEvents(watcher, 1);
+            assertThat(events)
+                    .last()
+                    .isEqualTo(new FsCrawlerWatchEvent(FsCrawlerWatchEvent.Kind.DELETE, dir.toString(), "foo.txt"));
+        }
+    }
+
+    @Test
+    void registeringMissingDirectoryFails() throws Exception {
+        try (FsLocalWatcher watcher =
+                new FsLocalWatcher(FileSystems.getDefault().newWatchService())) {
+            assertThatThrownBy(
+                            () -> watcher.register(testTmpDir.resolve("missing").toString()))
+                    .isInstanceOf(FsCrawlerPluginException.class);
+        }
+    }
+}
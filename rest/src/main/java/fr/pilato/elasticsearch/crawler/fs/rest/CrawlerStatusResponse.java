@@ -60,7 +60,7 @@ public final class CrawlerStatusResponse extends RestResponse {
         this.scanId = checkpoint.getScanId();
         this.currentPath = checkpoint.getCurrentPath();
         this.pendingDirectories = checkpoint.getPendingPaths().size();
-        this.completedDirectories = checkpoint.getCompletedPaths().size();
+        this.completedDirectories = checkpoint.getCompletedPathsCount();
         this.filesProcessed = checkpoint.getFilesProcessed();
         this.filesDeleted = checkpoint.getFilesDeleted();
         this.scanStartTime = checkpoint.getScanStartTime();
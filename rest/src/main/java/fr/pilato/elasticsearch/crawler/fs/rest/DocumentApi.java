@@ -86,6 +86,11 @@ public class DocumentApi implements RestApi {
         this.tikaDocParser = tikaDocParser;
     }
 
+    /** Stops the Tika child JVMs, if any */
+    void close() {
+        tikaDocParser.close();
+    }
+
     @POST
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.MULTIPART_FORM_DATA)
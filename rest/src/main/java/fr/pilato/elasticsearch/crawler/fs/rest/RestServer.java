@@ -42,6 +42,7 @@ public class RestServer implements AutoCloseable {
     private final FsCrawlerPluginsManager pluginsManager;
     private final FsParser fsParser;
     private HttpServer httpServer = null;
+    private DocumentApi documentApi = null;
 
     /**
      * Create the Rest Server, but it does not start it.
@@ -69,12 +70,13 @@ public class RestServer implements AutoCloseable {
     public void start() {
         // We create the service only one
         if (httpServer == null) {
+            documentApi = new DocumentApi(settings, documentService, pluginsManager);
             // create a resource config that scans for JAX-RS resources and providers
             // in fr.pilato.elasticsearch.crawler.fs.rest package
             final ResourceConfig rc = new ResourceConfig()
                     .registerInstances(
                             new ServerStatusApi(managementService, settings),
-                            new DocumentApi(settings, documentService, pluginsManager),
+                            documentApi,
                             new CrawlerApi(fsParser, settings.getName()))
                     .register(MultiPartFeature.class)
                     .register(RestJsonProvider.class)
@@ -97,6 +99,8 @@ public class RestServer implements AutoCloseable {
         if (httpServer != null) {
             httpServer.shutdownNow();
             httpServer = null;
+            documentApi.close();
+            documentApi = null;
             logger.debug("FS crawler Rest service stopped");
         }
     }
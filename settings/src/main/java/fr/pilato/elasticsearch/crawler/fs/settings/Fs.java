@@ -113,6 +113,10 @@ public class Fs {
     @Nullable
     private String tikaConfigPath;
 
+    @Config
+    @Nullable
+    private TikaFork tikaFork;
+
     @Config
     @Nullable
     private String tempDir;
@@ -125,6 +129,42 @@ public class Fs {
     @Nullable
     private String provider;
 
+    @Config(defaultVal = "1")
+    private int walkerThreads;
+
+    @Config
+    @Nullable
+    private Pipeline pipeline;
+
+    @Config(defaultVal = "false")
+    private boolean watch;
+
+    @Config(defaultVal = "false")
+    private boolean skipUnchangedDirectories;
+
+    @Config(defaultVal = "false")
+    private boolean stateStore;
+
+    @Config(defaultVal = "false")
+    private boolean filtersDuringExtraction;
+
+    @Config(defaultVal = "7d")
+    private TimeValue aclFullCheckRate;
+
+    @Config(defaultVal = "mtime_desc")
+    private ListingOrder listingOrder;
+
+    @Config
+    @Nullable
+    private TimeValue extractionTimeout;
+
+    @Config(defaultVal = "1s")
+    private TimeValue extractionTimeoutPerMb;
+
+    @Config
+    @Nullable
+    private ByteSizeValue extractionCacheSize;
+
     public String getUrl() {
         return url;
     }
@@ -356,6 +396,14 @@ public class Fs {
         this.tikaConfigPath = tikaConfigPath;
     }
 
+    public TikaFork getTikaFork() {
+        return tikaFork;
+    }
+
+    public void setTikaFork(TikaFork tikaFork) {
+        this.tikaFork = tikaFork;
+    }
+
     public String getTempDir() {
         return tempDir;
     }
@@ -372,6 +420,94 @@ public class Fs {
         this.provider = provider;
     }
 
+    public int getWalkerThreads() {
+        return walkerThreads;
+    }
+
+    public void setWalkerThreads(int walkerThreads) {
+        this.walkerThreads = walkerThreads;
+    }
+
+    public Pipeline getPipeline() {
+        return pipeline;
+    }
+
+    public void setPipeline(Pipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public void setWatch(boolean watch) {
+        this.watch = watch;
+    }
+
+    public boolean isSkipUnchangedDirectories() {
+        return skipUnchangedDirectories;
+    }
+
+    public void setSkipUnchangedDirectories(boolean skipUnchangedDirectories) {
+        this.skipUnchangedDirectories = skipUnchangedDirectories;
+    }
+
+    public boolean isStateStore() {
+        return stateStore;
+    }
+
+    public void setStateStore(boolean stateStore) {
+        this.stateStore = stateStore;
+    }
+
+    public boolean isFiltersDuringExtraction() {
+        return filtersDuringExtraction;
+    }
+
+    public void setFiltersDuringExtraction(boolean filtersDuringExtraction) {
+        this.filtersDuringExtraction = filtersDuringExtraction;
+    }
+
+    public TimeValue getAclFullCheckRate() {
+        return aclFullCheckRate;
+    }
+
+    public void setAclFullCheckRate(TimeValue aclFullCheckRate) {
+        this.aclFullCheckRate = aclFullCheckRate;
+    }
+
+    public ListingOrder getListingOrder() {
+        return listingOrder;
+    }
+
+    public void setListingOrder(ListingOrder listingOrder) {
+        this.listingOrder = listingOrder;
+    }
+
+    public TimeValue getExtractionTimeout() {
+        return extractionTimeout;
+    }
+
+    public void setExtractionTimeout(TimeValue extractionTimeout) {
+        this.extractionTimeout = extractionTimeout;
+    }
+
+    public TimeValue getExtractionTimeoutPerMb() {
+        return extractionTimeoutPerMb;
+    }
+
+    public void setExtractionTimeoutPerMb(TimeValue extractionTimeoutPerMb) {
+        this.extractionTimeoutPerMb = extractionTimeoutPerMb;
+    }
+
+    public ByteSizeValue getExtractionCacheSize() {
+        return extractionCacheSize;
+    }
+
+    public void setExtractionCacheSize(ByteSizeValue extractionCacheSize) {
+        this.extractionCacheSize = extractionCacheSize;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -392,6 +528,11 @@ public class Fs {
                 && langDetect == fs.langDetect
                 && continueOnError == fs.continueOnError
                 && followSymlinks == fs.followSymlinks
+                && walkerThreads == fs.walkerThreads
+                && watch == fs.watch
+                && skipUnchangedDirectories == fs.skipUnchangedDirectories
+                && stateStore == fs.stateStore
+                && filtersDuringExtraction == fs.filtersDuringExtraction
                 && Objects.equals(url, fs.url)
                 && Objects.equals(updateRate, fs.updateRate)
                 && Objects.equals(includes, fs.includes)
@@ -403,8 +544,15 @@ public class Fs {
                 && Objects.equals(ocr, fs.ocr)
                 && Objects.equals(ignoreAbove, fs.ignoreAbove)
                 && Objects.equals(tikaConfigPath, fs.tikaConfigPath)
+                && Objects.equals(tikaFork, fs.tikaFork)
                 && Objects.equals(tempDir, fs.tempDir)
-                && Objects.equals(provider, fs.provider);
+                && Objects.equals(provider, fs.provider)
+                && Objects.equals(pipeline, fs.pipeline)
+                && Objects.equals(aclFullCheckRate, fs.aclFullCheckRate)
+                && listingOrder == fs.listingOrder
+                && Objects.equals(extractionTimeout, fs.extractionTimeout)
+                && Objects.equals(extractionTimeoutPerMb, fs.extractionTimeoutPerMb)
+                && Objects.equals(extractionCacheSize, fs.extractionCacheSize);
     }
 
     @Override
@@ -436,8 +584,20 @@ public class Fs {
                 ignoreAbove,
                 followSymlinks,
                 tikaConfigPath,
+                tikaFork,
                 tempDir,
-                provider);
+                provider,
+                walkerThreads,
+                pipeline,
+                watch,
+                skipUnchangedDirectories,
+                stateStore,
+                filtersDuringExtraction,
+                aclFullCheckRate,
+                listingOrder,
+                extractionTimeout,
+                extractionTimeoutPerMb,
+                extractionCacheSize);
     }
 
     @Override
@@ -467,8 +627,20 @@ public class Fs {
                 + ocr + ", ignoreAbove="
                 + ignoreAbove + ", followSymlinks="
                 + followSymlinks + ", tikaConfigPath='"
-                + tikaConfigPath + '\'' + ", tempDir='"
+                + tikaConfigPath + '\'' + ", tikaFork="
+                + tikaFork + ", tempDir='"
                 + tempDir + '\'' + ", provider='"
-                + provider + '\'' + '}';
+                + provider + '\'' + ", walkerThreads="
+                + walkerThreads + ", pipeline="
+                + pipeline + ", watch="
+                + watch + ", skipUnchangedDirectories="
+                + skipUnchangedDirectories + ", stateStore="
+                + stateStore + ", filtersDuringExtraction="
+                + filtersDuringExtraction + ", aclFullCheckRate="
+                + aclFullCheckRate + ", listingOrder="
+                + listingOrder + ", extractionTimeout="
+                + extractionTimeout + ", extractionTimeoutPerMb="
+                + extractionTimeoutPerMb + ", extractionCacheSize="
+                + extractionCacheSize + '}';
     }
 }
@@ -23,6 +23,7 @@ package fr.pilato.elasticsearch.crawler.fs.settings;
 import fr.pilato.elasticsearch.crawler.fs.framework.Digests;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerUtil;
 import fr.pilato.elasticsearch.crawler.fs.framework.OsValidator;
+import fr.pilato.elasticsearch.crawler.fs.framework.TimeValue;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.logging.log4j.Logger;
@@ -78,6 +79,74 @@ public class FsCrawlerValidator {
             return true;
         }
 
+        if (settings.getFs().getWalkerThreads() < 1) {
+            logger.error(
+                    "fs.walker_threads [{}] must be at least 1. Disabling crawler",
+                    settings.getFs().getWalkerThreads());
+            return true;
+        }
+
+        Pipeline pipeline = settings.getFs().getPipeline();
+        if (pipeline != null && pipeline.isEnabled()) {
+            if (pipeline.getQueueSize() < 1
+                    || pipeline.getFetchThreads() < 0
+                    || pipeline.getExtractThreads() < 1
+                    || pipeline.getSerializeThreads() < 1) {
+                logger.error(
+                        "fs.pipeline settings are incorrect: queue_size [{}], extract_threads [{}] and serialize_threads [{}] "
+                                + "must be at least 1, fetch_threads [{}] must be positive or 0. Disabling crawler",
+                        pipeline.getQueueSize(),
+                        pipeline.getExtractThreads(),
+                        pipeline.getSerializeThreads(),
+                        pipeline.getFetchThreads());
+                return true;
+            }
+        }
+
+        TikaFork tikaFork = settings.getFs().getTikaFork();
+        if (tikaFork != null && tikaFork.isEnabled()) {
+            if (tikaFork.getPoolSize() < 1
+                    || tikaFork.getMaxDocuments() < 1
+                    || tikaFork.getHeapSize() == null
+                    || tikaFork.getHeapSize().getBytes() < 1) {
+                logger.error(
+                        "fs.tika_fork settings are incorrect: pool_size [{}], max_documents [{}] and heap_size [{}] "
+                                + "must be at least 1. Disabling crawler",
+                        tikaFork.getPoolSize(),
+                        tikaFork.getMaxDocuments(),
+                        tikaFork.getHeapSize());
+                return true;
+            }
+        }
+
+        if (isNegative(settings.getFs().getAclFullCheckRate())) {
+            logger.error(
+                    "fs.acl_full_check_rate [{}] must be positive or 0. Disabling crawler",
+                    settings.getFs().getAclFullCheckRate());
+            return true;
+        }
+
+        TimeValue extractionTimeout = settings.getFs().getExtractionTimeout();
+        if (extractionTimeout != null && extractionTimeout.duration() <= 0) {
+            logger.error("fs.extraction_timeout [{}] must be greater than 0. Disabling crawler", extractionTimeout);
+            return true;
+        }
+
+        if (isNegative(settings.getFs().getExtractionTimeoutPerMb())) {
+            logger.error(
+                    "fs.extraction_timeout_per_mb [{}] must be positive or 0. Disabling crawler",
+                    settings.getFs().getExtractionTimeoutPerMb());
+            return true;
+        }
+
+        if (settings.getFs().getExtractionCacheSize() != null
+                && settings.getFs().getExtractionCacheSize().getBytes() < 0) {
+            logger.error(
+                    "fs.extraction_cache_size [{}] must be positive or 0. Disabling crawler",
+                    settings.getFs().getExtractionCacheSize());
+            return true;
+        }
+
         // We just warn the user if he is running on Windows but want to get attributes
         if (OsValidator.WINDOWS && settings.getFs().isAttributesSupport()) {
             logger.info(
@@ -176,4 +245,8 @@ public class FsCrawlerValidator {
         }
         return false;
     }
+
+    private static boolean isNegative(TimeValue value) {
+        return value != null && value.duration() < 0;
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.settings;
+
+import java.util.Objects;
+import org.github.gestalt.config.annotations.Config;
+
+public class Pipeline {
+    // Run files through the fetch, extract and serialize stages instead of processing them inline
+    @Config(defaultVal = "false")
+    private boolean enabled;
+    // Maximum number of files waiting in front of each stage
+    @Config(defaultVal = "100")
+    private int queueSize;
+    // Threads reading file content from the provider. 0 means the listing thread reads it.
+    @Config(defaultVal = "2")
+    private int fetchThreads;
+    // Threads running Tika
+    @Config(defaultVal = "2")
+    private int extractThreads;
+    // Threads serializing documents and sending them to the bulk processor
+    @Config(defaultVal = "1")
+    private int serializeThreads;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getFetchThreads() {
+        return fetchThreads;
+    }
+
+    public void setFetchThreads(int fetchThreads) {
+        this.fetchThreads = fetchThreads;
+    }
+
+    public int getExtractThreads() {
+        return extractThreads;
+    }
+
+    public void setExtractThreads(int extractThreads) {
+        this.extractThreads = extractThreads;
+    }
+
+    public int getSerializeThreads() {
+        return serializeThreads;
+    }
+
+    public void setSerializeThreads(int serializeThreads) {
+        this.serializeThreads = serializeThreads;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Pipeline pipeline = (Pipeline) o;
+        return enabled == pipeline.enabled
+                && queueSize == pipeline.queueSize
+                && fetchThreads == pipeline.fetchThreads
+                && extractThreads == pipeline.extractThreads
+                && serializeThreads == pipeline.serializeThreads;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, queueSize, fetchThreads, extractThreads, serializeThreads);
+    }
+
+    @Override
+    public String toString() {
+        return "Pipeline{" + "enabled=" + enabled + ", queueSize="
+                + queueSize + ", fetchThreads="
+                + fetchThreads + ", extractThreads="
+                + extractThreads + ", serializeThreads="
+                + serializeThreads + '}';
+    }
+}
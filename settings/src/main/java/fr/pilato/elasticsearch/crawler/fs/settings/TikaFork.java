@@ -0,0 +1,96 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.settings;
+
+import fr.pilato.elasticsearch.crawler.fs.framework.ByteSizeValue;
+import java.util.Objects;
+import org.github.gestalt.config.annotations.Config;
+
+public class TikaFork {
+    // Run Tika in child JVMs instead of the crawler JVM
+    @Config(defaultVal = "false")
+    private boolean enabled;
+    // Maximum number of child JVMs running at the same time
+    @Config(defaultVal = "2")
+    private int poolSize;
+    // Maximum heap of each child JVM
+    @Config(defaultVal = "512mb")
+    private ByteSizeValue heapSize;
+    // Number of documents a child JVM parses before being replaced by a new one
+    @Config(defaultVal = "1000")
+    private int maxDocuments;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public ByteSizeValue getHeapSize() {
+        return heapSize;
+    }
+
+    public void setHeapSize(ByteSizeValue heapSize) {
+        this.heapSize = heapSize;
+    }
+
+    public int getMaxDocuments() {
+        return maxDocuments;
+    }
+
+    public void setMaxDocuments(int maxDocuments) {
+        this.maxDocuments = maxDocuments;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TikaFork tikaFork = (TikaFork) o;
+        return enabled == tikaFork.enabled
+                && poolSize == tikaFork.poolSize
+                && maxDocuments == tikaFork.maxDocuments
+                && Objects.equals(heapSize, tikaFork.heapSize);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, poolSize, heapSize, maxDocuments);
+    }
+
+    @Override
+    public String toString() {
+        return "TikaFork{" + "enabled=" + enabled + ", poolSize="
+                + poolSize + ", heapSize="
+                + heapSize + ", maxDocuments="
+                + maxDocuments + '}';
+    }
+}
@@ -20,7 +20,10 @@
  */
 package fr.pilato.elasticsearch.crawler.fs.settings;
 
+import fr.pilato.elasticsearch.crawler.fs.framework.ByteSizeUnit;
+import fr.pilato.elasticsearch.crawler.fs.framework.ByteSizeValue;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerUtil;
+import fr.pilato.elasticsearch.crawler.fs.framework.TimeValue;
 import fr.pilato.elasticsearch.crawler.fs.test.framework.AbstractFSCrawlerTestCase;
 import java.util.List;
 import org.apache.logging.log4j.LogManager;
@@ -83,6 +86,79 @@ class FsCrawlerValidatorTest extends AbstractFSCrawlerTestCase {
         Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
                 .isFalse();
 
+        // Checking walker threads
+        settings = FsSettingsLoader.load();
+        Assertions.assertThat(settings.getFs().getWalkerThreads()).isEqualTo(1);
+        settings.getFs().setWalkerThreads(0);
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isTrue();
+        settings.getFs().setWalkerThreads(8);
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isFalse();
+
+        // Checking pipeline
+        settings = FsSettingsLoader.load();
+        settings.getFs().getPipeline().setEnabled(true);
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isFalse();
+        settings.getFs().getPipeline().setExtractThreads(0);
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isTrue();
+        settings.getFs().getPipeline().setExtractThreads(2);
+        settings.getFs().getPipeline().setFetchThreads(0);
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isFalse();
+        settings.getFs().getPipeline().setQueueSize(0);
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isTrue();
+
+        // Checking tika fork
+        settings = FsSettingsLoader.load();
+        settings.getFs().getTikaFork().setEnabled(true);
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isFalse();
+        settings.getFs().getTikaFork().setPoolSize(0);
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isTrue();
+        settings.getFs().getTikaFork().setPoolSize(2);
+        settings.getFs().getTikaFork().setMaxDocuments(0);
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isTrue();
+
+        // Checking acl full check rate
+        settings = FsSettingsLoader.load();
+        settings.getFs().setAclFullCheckRate(TimeValue.timeValueMillis(-1));
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isTrue();
+        settings.getFs().setAclFullCheckRate(TimeValue.timeValueMillis(0));
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isFalse();
+
+        // Checking extraction timeouts
+        settings = FsSettingsLoader.load();
+        settings.getFs().setExtractionTimeout(TimeValue.timeValueMinutes(5));
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isFalse();
+        settings.getFs().setExtractionTimeout(TimeValue.timeValueSeconds(0));
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isTrue();
+        settings.getFs().setExtractionTimeout(TimeValue.timeValueMinutes(5));
+        settings.getFs().setExtractionTimeoutPerMb(TimeValue.timeValueSeconds(0));
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isFalse();
+        settings.getFs().setExtractionTimeoutPerMb(TimeValue.timeValueSeconds(-1));
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isTrue();
+
+        // Checking extraction cache size
+        settings = FsSettingsLoader.load();
+        settings.getFs().setExtractionCacheSize(new ByteSizeValue(1, ByteSizeUnit.GB));
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isFalse();
+        settings.getFs().setExtractionCacheSize(new ByteSizeValue(-1, ByteSizeUnit.BYTES));
+        Assertions.assertThat(FsCrawlerValidator.validateSettings(logger, settings))
+                .isTrue();
+
         // Checking protocol
         settings = FsSettingsLoader.load();
         settings.getServer().setProtocol("FSCRAWLER");
@@ -32,6 +32,7 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.assertj.core.api.Assertions;
@@ -154,6 +155,21 @@ class FsSettingsLoaderTest extends AbstractFSCrawlerTestCase {
         expected.getFs().setHashAlgorithm("MD5");
         expected.getFs().setIndexFolders(false);
         expected.getFs().setTikaConfigPath("/path/to/tika-config.xml");
+        expected.getFs().setWatch(true);
+        expected.getFs().setSkipUnchangedDirectories(true);
+        expected.getFs().setStateStore(true);
+        expected.getFs().setFiltersDuringExtraction(true);
+        expected.getFs().setAclFullCheckRate(new TimeValue(1, TimeUnit.DAYS));
+        expected.getFs().setListingOrder(ListingOrder.NAME);
+        TikaFork tikaFork = new TikaFork();
+        tikaFork.setEnabled(true);
+        tikaFork.setPoolSize(4);
+        tikaFork.setHeapSize(new ByteSizeValue(1, ByteSizeUnit.GB));
+        tikaFork.setMaxDocuments(500);
+        expected.getFs().setTikaFork(tikaFork);
+        expected.getFs().setExtractionTimeout(TimeValue.timeValueMinutes(5));
+        expected.getFs().setExtractionTimeoutPerMb(TimeValue.timeValueSeconds(2));
+        expected.getFs().setExtractionCacheSize(new ByteSizeValue(1, ByteSizeUnit.GB));
         Ocr ocr = new Ocr();
         ocr.setEnabled(false);
         ocr.setLanguage("fra");
@@ -228,6 +244,14 @@ class FsSettingsLoaderTest extends AbstractFSCrawlerTestCase {
         fs.setAddFilesize(true);
         fs.setIndexFolders(true);
         fs.setHashAlgorithm("MD5");
+        fs.setWalkerThreads(1);
+        fs.setWatch(false);
+        fs.setSkipUnchangedDirectories(false);
+        fs.setStateStore(false);
+        fs.setFiltersDuringExtraction(false);
+        fs.setAclFullCheckRate(new TimeValue(7, TimeUnit.DAYS));
+        fs.setListingOrder(ListingOrder.MTIME_DESC);
+        fs.setExtractionTimeoutPerMb(TimeValue.timeValueSeconds(1));
 
         Ocr ocr = new Ocr();
         ocr.setEnabled(true);
@@ -236,6 +260,19 @@ class FsSettingsLoaderTest extends AbstractFSCrawlerTestCase {
         ocr.setPdfStrategy("ocr_and_text");
         ocr.setPageSegMode(1);
         fs.setOcr(ocr);
+
+        Pipeline pipeline = new Pipeline();
+        pipeline.setQueueSize(100);
+        pipeline.setFetchThreads(2);
+        pipeline.setExtractThreads(2);
+        pipeline.setSerializeThreads(1);
+        fs.setPipeline(pipeline);
+
+        TikaFork tikaFork = new TikaFork();
+        tikaFork.setPoolSize(2);
+        tikaFork.setHeapSize(new ByteSizeValue(512, ByteSizeUnit.MB));
+        tikaFork.setMaxDocuments(1000);
+        fs.setTikaFork(tikaFork);
         expected.setFs(fs);
 
         Server server = new Server();
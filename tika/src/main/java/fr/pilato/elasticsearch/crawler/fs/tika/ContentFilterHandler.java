@@ -0,0 +1,80 @@
+/*
+ * Licensed to David Pilato (the "Author") under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. Author licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ * Made from 🇫🇷🇪🇺 with ❤️ - 2011-2026
+ */
+package fr.pilato.elasticsearch.crawler.fs.tika;
+
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerContentFilter;
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Checks the {@code fs.filters} while Tika writes the text, and stops the extraction as soon as one of them can not
+ * match anymore. Used when {@code fs.filters_during_extraction} is true.
+ */
+class ContentFilterHandler extends ContentHandlerDecorator {
+
+    /** Number of new characters before the filters are checked again */
+    static final int CHECK_INTERVAL = 4096;
+
+    private final CharSequence text;
+    private final FsCrawlerContentFilter.Evaluation evaluation;
+    private int checkedLength;
+
+    /**
+     * @param handler the handler writing the text
+     * @param text the text written by the handler so far
+     * @param evaluation the evaluation of the filters for this document
+     */
+    ContentFilterHandler(ContentHandler handler, CharSequence text, FsCrawlerContentFilter.Evaluation evaluation) {
+        super(handler);
+        this.text = text;
+        this.evaluation = evaluation;
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        super.characters(ch, start, length);
+        check();
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        super.ignorableWhitespace(ch, start, length);
+        check();
+    }
+
+    private void check() throws SAXException {
+        if (evaluation.isMatching() || text.length() - checkedLength < CHECK_INTERVAL) {
+            return;
+        }
+        checkedLength = text.length();
+        if (!evaluation.update(text)) {
+            throw new ContentRejectedException(checkedLength);
+        }
+    }
+
+    /** Thrown to stop the extraction when the content can not match the filters */
+    static class ContentRejectedException extends SAXException {
+        ContentRejectedException(int extractedChars) {
+            super("The content does not match the filters after [" + extractedChars + "] characters");
+        }
+    }
+}
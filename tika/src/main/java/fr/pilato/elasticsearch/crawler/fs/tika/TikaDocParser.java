@@ -21,11 +21,13 @@
 package fr.pilato.elasticsearch.crawler.fs.tika;
 
 import fr.pilato.elasticsearch.crawler.fs.beans.Doc;
+import fr.pilato.elasticsearch.crawler.fs.beans.FsExtractionCache;
 import fr.pilato.elasticsearch.crawler.fs.framework.Digests;
 import fr.pilato.elasticsearch.crawler.fs.framework.FSCrawlerLogger;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerIllegalConfigurationException;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerUtil;
 import fr.pilato.elasticsearch.crawler.fs.framework.SignTool;
+import fr.pilato.elasticsearch.crawler.fs.framework.tracing.FsCrawlerMetrics;
 import fr.pilato.elasticsearch.crawler.fs.framework.tracing.FsCrawlerTracing;
 import fr.pilato.elasticsearch.crawler.fs.settings.FsSettings;
 import fr.pilato.elasticsearch.crawler.plugins.FsCrawlerExtensionPasswordProvider;
@@ -35,6 +37,7 @@ import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.context.Scope;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -45,11 +48,14 @@ import java.nio.file.Paths;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -67,13 +73,17 @@ import org.apache.tika.metadata.TikaCoreProperties;
  * different settings never share Tika parser state. An instance may be used concurrently by several threads of the same
  * job (e.g. parallel REST uploads).
  */
-public class TikaDocParser {
+public class TikaDocParser implements Closeable {
 
     private static final Logger logger = LogManager.getLogger();
 
     private final FsSettings fsSettings;
     /** Null when index_content is disabled: no text extraction will ever happen for this job. */
     private final TikaInstance tikaInstance;
+    /** Null when the extraction results are not cached */
+    private final FsExtractionCache extractionCache;
+    /** The settings which change the extraction result, part of the extraction cache keys */
+    private final String extractionSettings;
 
     /**
      * Creates a document parser for one job. Builds the underlying Tika parser eagerly, unless {@code fs.index_content}
@@ -82,8 +92,36 @@ public class TikaDocParser {
      * @param fsSettings the job settings
      */
     public TikaDocParser(FsSettings fsSettings) {
+        this(fsSettings, null);
+    }
+
+    /**
+     * Creates a document parser for one job which looks for the extraction results in a cache before running Tika.
+     *
+     * @param fsSettings the job settings
+     * @param extractionCache the cache of extraction results, or null to always run Tika
+     */
+    public TikaDocParser(FsSettings fsSettings, FsExtractionCache extractionCache) {
         this.fsSettings = fsSettings;
         this.tikaInstance = fsSettings.getFs().isIndexContent() ? new TikaInstance(fsSettings.getFs()) : null;
+        this.extractionCache = tikaInstance != null ? extractionCache : null;
+        this.extractionSettings = "tika=" + Metadata.class.getPackage().getImplementationVersion()
+                + ",ocr=" + fsSettings.getFs().getOcr()
+                + ",tika_config_path=" + fsSettings.getFs().getTikaConfigPath()
+                // The filters change the extracted text only when they are applied during the extraction, which is
+                // not the case with tika_fork
+                + ",filters="
+                + (tikaInstance != null && tikaInstance.isFilteringDuringExtraction()
+                        ? fsSettings.getFs().getFilters()
+                        : null);
+    }
+
+    /** Stops the Tika child JVMs when {@code fs.tika_fork} is enabled. Does nothing otherwise. */
+    @Override
+    public void close() {
+        if (tikaInstance != null) {
+            tikaInstance.close();
+        }
     }
 
     /**
@@ -92,6 +130,8 @@ public class TikaDocParser {
      */
     private static final long IN_MEMORY_THRESHOLD = 64L * 1024; // 64KB
 
+    private static final long MB = 1024L * 1024;
+
     @FunctionalInterface
     public interface InputStreamSupplier {
         InputStream open() throws IOException;
@@ -169,7 +209,11 @@ public class TikaDocParser {
             // (once for Tika, once for storing as attachment).
             // For small files (below IN_MEMORY_THRESHOLD), we keep everything in memory to avoid disk I/O.
             MessageDigest messageDigest = Digests.getOrNull(fsSettings.getFs().getChecksum());
-            boolean needsBuffering = messageDigest != null || fsSettings.getFs().isStoreSource();
+            // The extraction cache is looked up by the digest of the content, so it needs buffering too
+            MessageDigest cacheDigest = extractionCache != null ? Digests.getOrNull("SHA-256") : null;
+            boolean needsBuffering = messageDigest != null
+                    || cacheDigest != null
+                    || fsSettings.getFs().isStoreSource();
             // Use in-memory only when we KNOW the file is small (filesize > 0 and <= threshold)
             // When filesize is unknown (-1 or 0), use temp file to be safe and avoid OOM
             boolean useInMemory = needsBuffering && filesize > 0 && filesize <= IN_MEMORY_THRESHOLD;
@@ -187,14 +231,8 @@ public class TikaDocParser {
                     // Read entire stream into memory
                     ByteArrayOutputStream bos = new ByteArrayOutputStream();
                     InputStream sourceStream = inputStream != null ? inputStream : reopen.open();
-                    if (messageDigest != null) {
-                        try (DigestInputStream dis = new DigestInputStream(sourceStream, messageDigest)) {
-                            dis.transferTo(bos);
-                        }
-                    } else {
-                        try (InputStream in = sourceStream) {
-                            in.transferTo(bos);
-                        }
+                    try (InputStream in = digesting(sourceStream, messageDigest, cacheDigest)) {
+                        in.transferTo(bos);
                     }
                     contentBuffer = bos.toByteArray();
                     byte[] inMemoryContent = contentBuffer;
@@ -216,26 +254,52 @@ public class TikaDocParser {
                     tempFile = Files.createTempFile(tempDir, "fscrawler-", ".tmp");
                     // Copy stream to temp file, optionally computing the digest
                     InputStream sourceStream = inputStream != null ? inputStream : reopen.open();
-                    if (messageDigest != null) {
-                        try (DigestInputStream dis = new DigestInputStream(sourceStream, messageDigest);
-                                OutputStream fos = Files.newOutputStream(tempFile)) {
-                            dis.transferTo(fos);
-                        }
-                    } else {
-                        try (InputStream in = sourceStream;
-                                OutputStream fos = Files.newOutputStream(tempFile)) {
-                            in.transferTo(fos);
-                        }
+                    try (InputStream in = digesting(sourceStream, messageDigest, cacheDigest);
+                            OutputStream fos = Files.newOutputStream(tempFile)) {
+                        in.transferTo(fos);
                     }
                     Path bufferedTempFile = tempFile;
                     extractionSupplier = () -> Files.newInputStream(bufferedTempFile);
                 }
 
                 if (fsSettings.getFs().isIndexContent()) {
-                    ParsedContentResult parsedContentResult = extractionSupplier != null
-                            ? extractParsedContent(
-                                    tikaInstance, indexedChars, extractionSupplier, doc, explicitPassword, provider)
-                            : extractParsedContent(tikaInstance, indexedChars, inputStream, doc);
+                    String cacheKey = cacheDigest != null
+                            ? FsExtractionCache.key(
+                                    cacheDigest.digest(), extractionSettings + ",indexed_chars=" + indexedChars)
+                            : null;
+                    FsExtractionCache.Entry cached = cacheKey != null ? extractionCache.get(cacheKey) : null;
+                    ParsedContentResult parsedContentResult;
+                    if (cached != null) {
+                        logger.trace(
+                                "Extraction result of [{}] found in the cache",
+                                doc.getPath().getReal());
+                        Metadata cachedMetadata = toMetadata(cached.metadata());
+                        // The cached metadata are the ones of the first file which had this content
+                        cachedMetadata.set(
+                                TikaCoreProperties.RESOURCE_NAME_KEY,
+                                doc.getFile().getFilename());
+                        parsedContentResult = new ParsedContentResult(cached.content(), cachedMetadata);
+                    } else {
+                        Duration timeout = extractionTimeout(tempFile != null ? Files.size(tempFile) : filesize);
+                        parsedContentResult = extractionSupplier != null
+                                ? extractParsedContent(
+                                        tikaInstance,
+                                        indexedChars,
+                                        timeout,
+                                        extractionSupplier,
+                                        doc,
+                                        explicitPassword,
+                                        provider)
+                                : extractParsedContent(tikaInstance, indexedChars, timeout, inputStream, doc);
+                        // Failed, encrypted and timed out extractions have no content and are tried again next time
+                        if (cacheKey != null && parsedContentResult.content() != null) {
+                            extractionCache.put(
+                                    cacheKey,
+                                    new FsExtractionCache.Entry(
+                                            parsedContentResult.content(),
+                                            fromMetadata(parsedContentResult.metadata())));
+                        }
+                    }
                     parsedContent = parsedContentResult.content();
                     metadata = parsedContentResult.metadata();
 
@@ -510,11 +574,56 @@ public class TikaDocParser {
         }
     }
 
+    private static InputStream digesting(InputStream in, MessageDigest... digests) {
+        InputStream digesting = in;
+        for (MessageDigest digest : digests) {
+            if (digest != null) {
+                digesting = new DigestInputStream(digesting, digest);
+            }
+        }
+        return digesting;
+    }
+
+    private static Map<String, List<String>> fromMetadata(Metadata metadata) {
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        for (String name : metadata.names()) {
+            values.put(name, List.of(metadata.getValues(name)));
+        }
+        return values;
+    }
+
+    private static Metadata toMetadata(Map<String, List<String>> values) {
+        Metadata metadata = new Metadata();
+        values.forEach((name, list) -> list.forEach(value -> metadata.add(name, value)));
+        return metadata;
+    }
+
+    /**
+     * @param filesize the file size in bytes, or a value &le; 0 when unknown
+     * @return {@code fs.extraction_timeout} plus {@code fs.extraction_timeout_per_mb} for each full MB of the file, or
+     *     null when there is no timeout
+     */
+    private Duration extractionTimeout(long filesize) {
+        if (fsSettings.getFs().getExtractionTimeout() == null) {
+            return null;
+        }
+        Duration timeout =
+                Duration.ofMillis(fsSettings.getFs().getExtractionTimeout().millis());
+        if (filesize > 0 && fsSettings.getFs().getExtractionTimeoutPerMb() != null) {
+            long mb = filesize / MB;
+            timeout = timeout.plusMillis(
+                    mb * fsSettings.getFs().getExtractionTimeoutPerMb().millis());
+        }
+        return timeout;
+    }
+
     private ParsedContentResult extractParsedContent(
-            TikaInstance tikaInstance, int indexedChars, InputStream inputStream, Doc doc) throws IOException {
+            TikaInstance tikaInstance, int indexedChars, Duration timeout, InputStream inputStream, Doc doc)
+            throws IOException {
         Metadata metadata = createMetadata(doc);
         logger.trace("Beginning Tika extraction");
-        TikaInstance.ExtractResult result = tikaInstance.extractText(indexedChars, inputStream, metadata, null);
+        TikaInstance.ExtractResult result =
+                tikaInstance.extractText(indexedChars, inputStream, metadata, null, timeout);
         logger.trace("End of Tika extraction");
         return finalizeAttempt(indexedChars, doc, new ExtractionAttempt(result, metadata));
     }
@@ -522,6 +631,7 @@ public class TikaDocParser {
     private ParsedContentResult extractParsedContent(
             TikaInstance tikaInstance,
             int indexedChars,
+            Duration timeout,
             InputStreamSupplier reopen,
             Doc doc,
             String explicitPassword,
@@ -529,10 +639,12 @@ public class TikaDocParser {
             throws IOException {
         if (explicitPassword != null) {
             return finalizeAttempt(
-                    indexedChars, doc, extractAttempt(tikaInstance, indexedChars, reopen, doc, explicitPassword));
+                    indexedChars,
+                    doc,
+                    extractAttempt(tikaInstance, indexedChars, timeout, reopen, doc, explicitPassword));
         }
 
-        ExtractionAttempt initialAttempt = extractAttempt(tikaInstance, indexedChars, reopen, doc, null);
+        ExtractionAttempt initialAttempt = extractAttempt(tikaInstance, indexedChars, timeout, reopen, doc, null);
         if (initialAttempt.result().status() != TikaInstance.ExtractStatus.ENCRYPTED) {
             return finalizeAttempt(indexedChars, doc, initialAttempt);
         }
@@ -547,7 +659,7 @@ public class TikaDocParser {
             while ((candidate = session.next()).isPresent()) {
                 candidateCount++;
                 ExtractionAttempt candidateAttempt =
-                        extractAttempt(tikaInstance, indexedChars, reopen, doc, candidate.get());
+                        extractAttempt(tikaInstance, indexedChars, timeout, reopen, doc, candidate.get());
                 if (candidateAttempt.result().status() == TikaInstance.ExtractStatus.ENCRYPTED) {
                     continue;
                 }
@@ -566,12 +678,18 @@ public class TikaDocParser {
     }
 
     private ExtractionAttempt extractAttempt(
-            TikaInstance tikaInstance, int indexedChars, InputStreamSupplier reopen, Doc doc, String password)
+            TikaInstance tikaInstance,
+            int indexedChars,
+            Duration timeout,
+            InputStreamSupplier reopen,
+            Doc doc,
+            String password)
             throws IOException {
         Metadata metadata = createMetadata(doc);
         try (InputStream inputStream = reopen.open()) {
             logger.trace("Beginning Tika extraction");
-            TikaInstance.ExtractResult result = tikaInstance.extractText(indexedChars, inputStream, metadata, password);
+            TikaInstance.ExtractResult result =
+                    tikaInstance.extractText(indexedChars, inputStream, metadata, password, timeout);
             logger.trace("End of Tika extraction");
             return new ExtractionAttempt(result, metadata);
         }
@@ -585,6 +703,12 @@ public class TikaDocParser {
                 logExtractionFailure(doc, indexedChars, attempt.result().failure());
                 yield new ParsedContentResult(null, attempt.metadata());
             }
+            case TIMEOUT -> {
+                logExtractionTimeout(doc, attempt.result().failure());
+                doc.getFile().setExtractionTimeout(true);
+                // The abandoned parser might still be filling the metadata of the attempt
+                yield new ParsedContentResult(null, createMetadata(doc));
+            }
         };
     }
 
@@ -619,6 +743,15 @@ public class TikaDocParser {
         }
     }
 
+    private void logExtractionTimeout(Doc doc, Throwable failure) {
+        FsCrawlerMetrics.recordExtractionTimeout(fsSettings.getName());
+        logDocumentError(doc, failure.getMessage());
+        logger.warn(
+                "Gave up the extraction of [{}]: {}. Indexing it without content.",
+                doc.getPath().getReal(),
+                failure.getMessage());
+    }
+
     private void logExtractionFailure(Doc doc, int indexedChars, Throwable failure) {
         String failureMessage = buildFailureMessage(failure);
         logDocumentError(doc, failureMessage);
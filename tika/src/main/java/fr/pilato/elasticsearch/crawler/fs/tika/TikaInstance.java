@@ -20,15 +20,30 @@
  */
 package fr.pilato.elasticsearch.crawler.fs.tika;
 
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerContentFilter;
 import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerIllegalConfigurationException;
 import fr.pilato.elasticsearch.crawler.fs.settings.Fs;
+import fr.pilato.elasticsearch.crawler.fs.settings.TikaFork;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.tika.config.ServiceLoader;
@@ -38,6 +53,7 @@ import org.apache.tika.exception.TikaConfigException;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.exception.WriteLimitReachedException;
 import org.apache.tika.exception.ZeroByteFileException;
+import org.apache.tika.fork.ForkParser;
 import org.apache.tika.language.detect.LanguageDetector;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
@@ -59,7 +75,9 @@ import org.apache.tika.parser.ocr.TesseractOCRConfig;
 import org.apache.tika.parser.ocr.TesseractOCRParser;
 import org.apache.tika.parser.pdf.PDFParser;
 import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.ToTextContentHandler;
 import org.apache.tika.sax.WriteOutContentHandler;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
 /**
@@ -67,25 +85,64 @@ import org.xml.sax.SAXException;
  * {@link TikaDocParser}, i.e. per job, so that jobs with different settings (OCR on/off, Tesseract language, PDF
  * strategy...) never share mutable parser state within the same JVM. Instances are immutable after construction and
  * safe for concurrent {@link #extractText} calls.
+ *
+ * <p>When {@code fs.tika_fork.enabled} is true, the documents are parsed in a pool of child JVMs by a Tika
+ * {@link ForkParser}, so a document which exhausts the memory or crashes the parser only costs the restart of one child
+ * JVM. The instance must then be {@link #close() closed} to stop the child JVMs.
  */
-class TikaInstance {
+class TikaInstance implements Closeable {
 
     private static final Logger logger = LogManager.getLogger();
 
     /**
-     * Shared, settings-independent language detector. Kept static because loading the Optimaize models is expensive;
-     * access is synchronized as jobs may run concurrently.
+     * Settings-independent language detectors, one per extraction thread. A detector keeps the text being detected, so
+     * it can not be shared by the pipeline extract threads. Loading the models is expensive, so each thread keeps its
+     * own detector instead of creating one per document.
      */
-    private static LanguageDetector detector;
+    private static final ThreadLocal<LanguageDetector> detector =
+            ThreadLocal.withInitial(TikaInstance::loadLangDetector);
+
+    /**
+     * Runs the extractions which have a timeout. Threads are created on demand: a thread running an abandoned
+     * extraction stays busy until the parser gives up, so a fixed pool could end up with no thread left. The number of
+     * these threads is bounded by {@link #MAX_ABANDONED_EXTRACTIONS}.
+     */
+    private static final ExecutorService extractors;
+
+    /**
+     * Maximum number of abandoned extractions still running. A parser stuck in a loop which never reads its stream
+     * again can not be stopped from the same JVM: its thread and its memory are lost until the JVM stops. Past this
+     * limit, we stop extracting the documents which have a timeout. Only {@code fs.tika_fork} can really kill a runaway
+     * parser.
+     */
+    static final int MAX_ABANDONED_EXTRACTIONS = 10;
+
+    private static final AtomicInteger abandonedExtractions = new AtomicInteger();
+
+    static {
+        AtomicInteger threadNumber = new AtomicInteger();
+        extractors = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "fs-tika-extract-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
     private Parser parser;
     private ParseContext context;
     private boolean ocrActivated;
+    /** Null unless the filters must be checked while the text is extracted */
+    private final FsCrawlerContentFilter contentFilter;
+    /** Null unless the documents are parsed in child JVMs */
+    private final ForkParser forkParser;
+
+    private volatile boolean closed;
 
     enum ExtractStatus {
         OK,
         ENCRYPTED,
-        FAILED
+        FAILED,
+        TIMEOUT
     }
 
     record ExtractResult(ExtractStatus status, String content, Throwable failure) {
@@ -100,6 +157,10 @@ class TikaInstance {
         static ExtractResult failed(Throwable failure) {
             return new ExtractResult(ExtractStatus.FAILED, null, failure);
         }
+
+        static ExtractResult timeout(Throwable failure) {
+            return new ExtractResult(ExtractStatus.TIMEOUT, null, failure);
+        }
     }
 
     /**
@@ -112,8 +173,38 @@ class TikaInstance {
      */
     TikaInstance(Fs fs) {
         this.ocrActivated = fs.getOcr().isEnabled();
+        boolean fork = fs.getTikaFork() != null && fs.getTikaFork().isEnabled();
+        boolean filtersDuringExtraction = fs.isFiltersDuringExtraction()
+                && fs.getFilters() != null
+                && !fs.getFilters().isEmpty();
+        if (fork && filtersDuringExtraction) {
+            // Stopping the extraction from the crawler JVM would kill the child JVM. Filters are checked after.
+            logger.info("filters_during_extraction is ignored when tika_fork is enabled.");
+        }
+        this.contentFilter = filtersDuringExtraction && !fork ? new FsCrawlerContentFilter(fs.getFilters()) : null;
         initContext(fs);
         initParser(fs);
+        this.forkParser = fork ? createForkParser(fs.getTikaFork(), parser) : null;
+    }
+
+    /** @return true when the filters are checked while the text is extracted */
+    boolean isFilteringDuringExtraction() {
+        return contentFilter != null;
+    }
+
+    private static ForkParser createForkParser(TikaFork settings, Parser parser) {
+        ForkParser forkParser = new ForkParser(TikaInstance.class.getClassLoader(), parser);
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        forkParser.setJavaCommand(
+                List.of(java, "-Xmx" + settings.getHeapSize().getBytes(), "-Djava.awt.headless=true"));
+        forkParser.setPoolSize(settings.getPoolSize());
+        forkParser.setMaxFilesProcessedPerServer(settings.getMaxDocuments());
+        logger.info(
+                "Tika will run in up to [{}] child JVMs with [{}] of heap, each one replaced after [{}] documents.",
+                settings.getPoolSize(),
+                settings.getHeapSize(),
+                settings.getMaxDocuments());
+        return forkParser;
     }
 
     private void initParser(Fs fs) {
@@ -246,11 +337,96 @@ class TikaInstance {
         }
     }
 
+    /**
+     * Extracts the text of a document, giving up after the given timeout. The extraction runs in another thread, which
+     * is interrupted when the timeout is reached. Most parsers ignore interruptions, so the stream is closed as well:
+     * the parser then fails on its next read. The caller must not read the metadata when the status is
+     * {@link ExtractStatus#TIMEOUT}, as the abandoned parser might still be writing to it.
+     *
+     * <p>A parser which never reads its stream again keeps running. When {@link #MAX_ABANDONED_EXTRACTIONS} of them are
+     * still running, the document is not extracted at all and {@link ExtractStatus#TIMEOUT} is returned.
+     *
+     * @param timeout the maximum extraction time, or null to wait as long as needed
+     */
+    ExtractResult extractText(
+            int indexedChars, InputStream stream, Metadata metadata, String password, Duration timeout)
+            throws IOException {
+        if (timeout == null) {
+            return extractText(indexedChars, stream, metadata, password);
+        }
+        int abandoned = abandonedExtractions.get();
+        if (abandoned >= MAX_ABANDONED_EXTRACTIONS) {
+            return ExtractResult.timeout(new TikaException("Not extracted as [" + abandoned
+                    + "] extractions which did not finish in time are still running. Use fs.tika_fork to run Tika"
+                    + " in child JVMs which can be killed."));
+        }
+        // A task cancelled before it started never runs, so it must not be counted as abandoned
+        AtomicBoolean started = new AtomicBoolean();
+        // Set by the first of: the extraction finished, or we gave up waiting for it
+        AtomicBoolean done = new AtomicBoolean();
+        Future<ExtractResult> future = extractors.submit(() -> {
+            started.set(true);
+            try {
+                return extractText(indexedChars, stream, metadata, password);
+            } finally {
+                if (!done.compareAndSet(false, true)) {
+                    int remaining = abandonedExtractions.decrementAndGet();
+                    logger.debug("An abandoned extraction finished. [{}] are still running.", remaining);
+                }
+            }
+        });
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            try {
+                stream.close();
+            } catch (IOException closeException) {
+                logger.debug("Can not close the stream of an abandoned extraction: {}", closeException.getMessage());
+            }
+            if (started.get() && done.compareAndSet(false, true)) {
+                int running = abandonedExtractions.incrementAndGet();
+                if (running >= MAX_ABANDONED_EXTRACTIONS) {
+                    logger.warn(
+                            "[{}] extractions which did not finish in time are still running. The documents with an"
+                                    + " extraction timeout are not extracted anymore until they stop. Use"
+                                    + " fs.tika_fork to run Tika in child JVMs which can be killed.",
+                            running);
+                }
+            }
+            return ExtractResult.timeout(
+                    new TikaException("Extraction did not finish within [" + timeout.toMillis() + "ms]"));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            return ExtractResult.failed(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return ExtractResult.failed(e);
+        }
+    }
+
+    /** @return the number of extractions which did not finish in time and are still running */
+    static int getAbandonedExtractions() {
+        return abandonedExtractions.get();
+    }
+
     ExtractResult extractText(int indexedChars, InputStream stream, Metadata metadata, String password)
             throws IOException {
-        WriteOutContentHandler handler = new WriteOutContentHandler(indexedChars);
+        if (forkParser != null) {
+            return extractTextInChildJvm(indexedChars, stream, metadata, password);
+        }
+        StringWriter text = new StringWriter();
+        WriteOutContentHandler handler = new WriteOutContentHandler(text, indexedChars);
+        ContentHandler bodyHandler = contentFilter != null
+                ? new ContentFilterHandler(handler, text.getBuffer(), contentFilter.newEvaluation())
+                : handler;
         try {
-            parser.parse(stream, new BodyContentHandler(handler), metadata, createParseContext(password));
+            parser.parse(stream, new BodyContentHandler(bodyHandler), metadata, createParseContext(password));
+        } catch (ContentFilterHandler.ContentRejectedException e) {
+            return rejected(metadata, handler, e);
         } catch (WriteLimitReachedException e) {
             String resourceName = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
             logger.debug("We reached the limit we set ({}) for {}: {}", indexedChars, resourceName, e.getMessage());
@@ -262,8 +438,56 @@ class TikaInstance {
             logger.debug("Got an empty file for {}, so we are just skipping it.", resourceName);
             return ExtractResult.ok(handler.toString());
         } catch (Exception e) {
+            if (causedBy(e, ContentFilterHandler.ContentRejectedException.class)) {
+                return rejected(metadata, handler, e);
+            }
+            return classifyFailure(e);
+        }
+        return ExtractResult.ok(handler.toString());
+    }
+
+    /**
+     * Parses the document in one of the child JVMs. The content handler stays in this JVM and receives the text from
+     * the child. It must never throw, as an exception thrown while the child is parsing is seen as a broken child: once
+     * {@code indexedChars} is reached, the rest of the text is silently dropped.
+     */
+    private ExtractResult extractTextInChildJvm(
+            int indexedChars, InputStream stream, Metadata metadata, String password) {
+        if (closed) {
+            return ExtractResult.failed(new TikaException("Tika child JVMs are stopped"));
+        }
+        StringWriter text = new StringWriter();
+        WriteOutContentHandler handler =
+                new WriteOutContentHandler(new ToTextContentHandler(text), indexedChars, false, null);
+        try {
+            forkParser.parse(stream, new BodyContentHandler(handler), metadata, createParseContext(password));
+        } catch (ZeroByteFileException e) {
+            String resourceName = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
+            logger.debug("Got an empty file for {}, so we are just skipping it.", resourceName);
+        } catch (Exception e) {
+            // When the child JVM crashed, the fork parser replaces it with a new one for the next document
             return classifyFailure(e);
         }
+        return ExtractResult.ok(text.toString());
+    }
+
+    /** Stops the child JVMs, if any. Documents extracted after this call fail. */
+    @Override
+    public void close() {
+        if (forkParser != null && !closed) {
+            closed = true;
+            forkParser.close();
+            logger.debug("Tika child JVMs stopped");
+        }
+    }
+
+    /**
+     * The extraction has been stopped because the content can not match the filters. The text extracted so far does not
+     * match them either, so the document is skipped when the filters are checked again.
+     */
+    private static ExtractResult rejected(Metadata metadata, WriteOutContentHandler handler, Exception e) {
+        String resourceName = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
+        logger.debug("Stopped the extraction of {}: {}", resourceName, e.getMessage());
         return ExtractResult.ok(handler.toString());
     }
 
@@ -277,12 +501,20 @@ class TikaInstance {
         }
 
         if (password != null) {
-            parseContext.set(PasswordProvider.class, metadata -> password);
+            parseContext.set(PasswordProvider.class, new StaticPasswordProvider(password));
         }
 
         return parseContext;
     }
 
+    /** Serializable, as the parse context is sent to the child JVMs when {@code fs.tika_fork} is enabled. */
+    private record StaticPasswordProvider(String password) implements PasswordProvider, Serializable {
+        @Override
+        public String getPassword(Metadata metadata) {
+            return password;
+        }
+    }
+
     private static ExtractResult classifyFailure(Exception e) {
         return causedBy(e, EncryptedDocumentException.class) ? ExtractResult.encrypted(e) : ExtractResult.failed(e);
     }
@@ -298,15 +530,18 @@ class TikaInstance {
         return false;
     }
 
-    static synchronized LanguageDetector langDetector() {
-        if (detector == null) {
-            try {
-                detector = LanguageDetector.getDefaultLanguageDetector();
-                detector.loadModels();
-            } catch (IOException e) {
-                logger.warn("Can not load lang detector models", e);
-            }
+    /** @return the language detector of the current thread */
+    static LanguageDetector langDetector() {
+        return detector.get();
+    }
+
+    private static LanguageDetector loadLangDetector() {
+        LanguageDetector languageDetector = LanguageDetector.getDefaultLanguageDetector();
+        try {
+            languageDetector.loadModels();
+        } catch (IOException e) {
+            logger.warn("Can not load lang detector models", e);
         }
-        return detector;
+        return languageDetector;
     }
 }
@@ -22,6 +22,10 @@ package fr.pilato.elasticsearch.crawler.fs.tika;
 
 import com.carrotsearch.randomizedtesting.jupiter.RandomizedTest;
 import fr.pilato.elasticsearch.crawler.fs.beans.Doc;
+import fr.pilato.elasticsearch.crawler.fs.beans.FsExtractionCache;
+import fr.pilato.elasticsearch.crawler.fs.framework.FsCrawlerUtil;
+import fr.pilato.elasticsearch.crawler.fs.framework.Percentage;
+import fr.pilato.elasticsearch.crawler.fs.framework.TimeValue;
 import fr.pilato.elasticsearch.crawler.fs.settings.FsSettings;
 import fr.pilato.elasticsearch.crawler.fs.settings.FsSettingsLoader;
 import fr.pilato.elasticsearch.crawler.fs.test.framework.Slow;
@@ -31,11 +35,15 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.MessageDigest;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
@@ -55,6 +63,7 @@ import org.apache.tika.parser.ocr.TesseractOCRParser;
 import org.assertj.core.api.Assertions;
 import org.assertj.core.api.Assumptions;
 import org.assertj.core.api.InstanceOfAssertFactories;
+import org.awaitility.Awaitility;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -135,6 +144,196 @@ class TikaDocParserTest extends DocParserTestCase {
         Assertions.assertThat(doc.getMeta().getLanguage()).isEqualTo("fr");
     }
 
+    /**
+     * Documents extracted by several threads at the same time, like with the pipeline extract threads, must each get
+     * their own language.
+     */
+    @Test
+    void concurrentLangDetect() throws Exception {
+        FsSettings fsSettings = FsSettingsLoader.load();
+        fsSettings.getFs().setLangDetect(true);
+        TikaDocParser parser = new TikaDocParser(fsSettings);
+        Map<String, String> expected = Map.of("test.txt", "en", "test-fr.txt", "fr", "test-de.txt", "de");
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int i = 0; i < 10; i++) {
+                CountDownLatch ready = new CountDownLatch(3);
+                CountDownLatch start = new CountDownLatch(1);
+                Map<String, Future<Doc>> docs = new HashMap<>();
+                for (String filename : expected.keySet()) {
+                    docs.put(
+                            filename,
+                            executor.submit(() -> parseWithSharedStart(ready, start, parser, filename, null)));
+                }
+                Assertions.assertThat(ready.await(5, TimeUnit.SECONDS)).isTrue();
+                start.countDown();
+                for (Map.Entry<String, String> entry : expected.entrySet()) {
+                    Assertions.assertThat(docs.get(entry.getKey())
+                                    .get(30, TimeUnit.SECONDS)
+                                    .getMeta()
+                                    .getLanguage())
+                            .as("iteration %d: language of %s", i, entry.getKey())
+                            .isEqualTo(entry.getValue());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void extractInChildJvm() throws IOException {
+        FsSettings fsSettings = FsSettingsLoader.load();
+        fsSettings.getFs().getTikaFork().setEnabled(true);
+        fsSettings.getFs().getTikaFork().setPoolSize(1);
+        // The child JVM is replaced after every other document
+        fsSettings.getFs().getTikaFork().setMaxDocuments(2);
+        try (TikaDocParser parser = new TikaDocParser(fsSettings)) {
+            for (int i = 0; i < 3; i++) {
+                Doc doc = new Doc();
+                doc.getPath().setReal("test.txt");
+                doc.getFile().setFilename("test.txt");
+                parser.generate(() -> getBinaryContent("test.txt"), doc, 0, null, null);
+                Assertions.assertThat(doc.getContent()).as("document %d", i).contains("This file contains some words.");
+            }
+        }
+    }
+
+    @Test
+    void extractionTimeout() throws IOException {
+        FsSettings fsSettings = FsSettingsLoader.load();
+        fsSettings.getFs().setExtractionTimeout(TimeValue.timeValueMillis(200));
+        CountDownLatch closed = new CountDownLatch(1);
+        // A file which never gives a single byte, until it is closed
+        InputStream blocking = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                try {
+                    closed.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Stream closed");
+            }
+
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        };
+        Doc doc = new Doc();
+        doc.getPath().setReal("blocking.txt");
+        doc.getFile().setFilename("blocking.txt");
+
+        new TikaDocParser(fsSettings).generate(blocking, doc, 0);
+
+        Assertions.assertThat(doc.getFile().getExtractionTimeout()).isTrue();
+        Assertions.assertThat(doc.getContent()).isNullOrEmpty();
+        Assertions.assertThat(closed.getCount()).isZero();
+    }
+
+    @Test
+    void tooManyAbandonedExtractions() throws IOException {
+        FsSettings fsSettings = FsSettingsLoader.load();
+        fsSettings.getFs().setExtractionTimeout(TimeValue.timeValueMillis(100));
+        TikaDocParser parser = new TikaDocParser(fsSettings);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Like a parser stuck in a loop: closing the stream does not stop it
+            for (int i = 0; i < TikaInstance.MAX_ABANDONED_EXTRACTIONS; i++) {
+                InputStream stuck = new InputStream() {
+                    @Override
+                    public int read() {
+                        try {
+                            release.await(30, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return -1;
+                    }
+                };
+                Doc doc = new Doc();
+                doc.getPath().setReal("stuck.txt");
+                doc.getFile().setFilename("stuck.txt");
+                parser.generate(stuck, doc, 0);
+                Assertions.assertThat(doc.getFile().getExtractionTimeout()).isTrue();
+            }
+            Assertions.assertThat(TikaInstance.getAbandonedExtractions())
+                    .isGreaterThanOrEqualTo(TikaInstance.MAX_ABANDONED_EXTRACTIONS);
+
+            // Not even tried
+            Doc doc = new Doc();
+            doc.getPath().setReal("hello.txt");
+            doc.getFile().setFilename("hello.txt");
+            parser.generate(new ByteArrayInputStream("Hello".getBytes(StandardCharsets.UTF_8)), doc, 0);
+            Assertions.assertThat(doc.getFile().getExtractionTimeout()).isTrue();
+            Assertions.assertThat(doc.getContent()).isNullOrEmpty();
+        } finally {
+            release.countDown();
+        }
+
+        Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> TikaInstance.getAbandonedExtractions() == 0);
+        Doc doc = new Doc();
+        doc.getPath().setReal("hello.txt");
+        doc.getFile().setFilename("hello.txt");
+        parser.generate(new ByteArrayInputStream("Hello".getBytes(StandardCharsets.UTF_8)), doc, 0);
+        Assertions.assertThat(doc.getFile().getExtractionTimeout()).isNull();
+        Assertions.assertThat(doc.getContent()).contains("Hello");
+    }
+
+    @Test
+    void extractionCache() throws IOException {
+        FsSettings fsSettings = FsSettingsLoader.load();
+        fsSettings.getFs().setTempDir(testTmpDir.toString());
+        FsExtractionCache cache = new FsExtractionCache(testTmpDir.resolve(FsExtractionCache.DIRNAME), 1024 * 1024);
+        TikaDocParser parser = new TikaDocParser(fsSettings, cache);
+
+        Doc[] docs = new Doc[2];
+        for (int i = 0; i < docs.length; i++) {
+            docs[i] = new Doc();
+            docs[i].getPath().setReal("test.docx");
+            docs[i].getFile().setFilename("test.docx");
+            parser.generate(() -> getBinaryContent("test.docx"), docs[i], 0, null, null);
+        }
+
+        Assertions.assertThat(cache.getMisses()).isEqualTo(1);
+        Assertions.assertThat(cache.getHits()).isEqualTo(1);
+        Assertions.assertThat(docs[1].getContent())
+                .contains("This is a sample text available in page")
+                .isEqualTo(docs[0].getContent());
+        Assertions.assertThat(docs[1].getFile().getContentType())
+                .isEqualTo(docs[0].getFile().getContentType());
+        Assertions.assertThat(docs[1].getMeta().getTitle())
+                .isEqualTo(docs[0].getMeta().getTitle());
+        Assertions.assertThat(docs[1].getMeta().getAuthor())
+                .isEqualTo(docs[0].getMeta().getAuthor());
+    }
+
+    @Test
+    void extractionCacheKeepsTheFilename() throws IOException {
+        FsSettings fsSettings = FsSettingsLoader.load();
+        fsSettings.getFs().setTempDir(testTmpDir.toString());
+        fsSettings.getFs().setRawMetadata(true);
+        FsExtractionCache cache = new FsExtractionCache(testTmpDir.resolve(FsExtractionCache.DIRNAME), 1024 * 1024);
+        TikaDocParser parser = new TikaDocParser(fsSettings, cache);
+
+        // The same content in two files
+        String[] filenames = {"test.docx", "copy-of-test.docx"};
+        Doc[] docs = new Doc[filenames.length];
+        for (int i = 0; i < docs.length; i++) {
+            docs[i] = new Doc();
+            docs[i].getPath().setReal(filenames[i]);
+            docs[i].getFile().setFilename(filenames[i]);
+            parser.generate(() -> getBinaryContent("test.docx"), docs[i], 0, null, null);
+        }
+
+        Assertions.assertThat(cache.getHits()).isEqualTo(1);
+        Assertions.assertThat(docs[1].getContent()).isEqualTo(docs[0].getContent());
+        Assertions.assertThat(docs[0].getMeta().getRaw()).containsEntry("resourceName", "test.docx");
+        Assertions.assertThat(docs[1].getMeta().getRaw()).containsEntry("resourceName", "copy-of-test.docx");
+    }
+
     /**
      * Test case for <a
      * href="https://github.com/dadoonet/fscrawler/issues/221">https://github.com/dadoonet/fscrawler/issues/221</a>
@@ -813,6 +1012,38 @@ class TikaDocParserTest extends DocParserTestCase {
                 .isEqualTo(expectedChecksum.toString());
     }
 
+    @Test
+    void filtersDuringExtraction() throws IOException {
+        FsSettings fsSettings = FsSettingsLoader.load();
+        fsSettings.getFs().setFilters(List.of("\\ACONFIDENTIAL"));
+        fsSettings.getFs().setFiltersDuringExtraction(true);
+        fsSettings.getFs().setIndexedChars(new Percentage(-1));
+        TikaDocParser parser = new TikaDocParser(fsSettings);
+        String text = "This line can be repeated many times.\n".repeat(10_000);
+
+        // The extraction stops as soon as the beginning of the text is known
+        byte[] rejected = ("PUBLIC\n" + text).getBytes(StandardCharsets.UTF_8);
+        Doc doc = new Doc();
+        doc.getPath().setReal("public.txt");
+        doc.getFile().setFilename("public.txt");
+        parser.generate(new ByteArrayInputStream(rejected), doc, rejected.length);
+        Assertions.assertThat(doc.getContent()).startsWith("PUBLIC").hasSizeLessThan(text.length());
+        Assertions.assertThat(FsCrawlerUtil.isIndexable(
+                        doc.getContent(), fsSettings.getFs().getFilters()))
+                .isFalse();
+
+        // The whole text is extracted when the filter matches
+        byte[] accepted = ("CONFIDENTIAL\n" + text).getBytes(StandardCharsets.UTF_8);
+        doc = new Doc();
+        doc.getPath().setReal("confidential.txt");
+        doc.getFile().setFilename("confidential.txt");
+        parser.generate(new ByteArrayInputStream(accepted), doc, accepted.length);
+        Assertions.assertThat(doc.getContent()).startsWith("CONFIDENTIAL").hasSizeGreaterThan(text.length());
+        Assertions.assertThat(FsCrawlerUtil.isIndexable(
+                        doc.getContent(), fsSettings.getFs().getFilters()))
+                .isTrue();
+    }
+
     /**
      * Test case for checksum calculation on large binary files. This verifies that the MD5 checksum is computed over
      * the entire file content, not just the first 64KB that Tika reads for content type detection. Large files are